@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.exception;
+
+/**
+ * Thrown when a request did not complete before its deadline.
+ *
+ * @author SINA
+ * @since 2014-04-24
+ */
+public class WeiboTimeoutException extends WeiboException {
+    private static final long serialVersionUID = 1L;
+
+    public WeiboTimeoutException(String message) {
+        super(message);
+    }
+
+    public WeiboTimeoutException(String message, Throwable throwable) {
+        super(message, throwable);
+    }
+}
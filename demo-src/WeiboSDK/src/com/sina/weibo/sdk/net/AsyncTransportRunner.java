@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.platform.Platform;
+
+/**
+ * Runs requests through an {@link IHttpTransport}, the counterpart of
+ * {@link AsyncWeiboRunner} for pluggable transports.
+ *
+ * Asynchronous requests are executed on a shared pool of worker threads, and the
+ * listener is called back on {@link Platform#getCallbackExecutor()}: the main
+ * thread on Android, like AsyncWeiboRunner does.
+ *
+ * @author SINA
+ * @since 2014-04-18
+ */
+public class AsyncTransportRunner {
+
+    private static final int POOL_SIZE = 5;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static volatile IHttpTransport sDefaultTransport;
+    private static volatile Executor sCallbackExecutor;
+    private static ExecutorService sWorkers;
+
+    /**
+     * Sets the transport used when none is given, null to restore {@link DefaultHttpTransport}.
+     */
+    public static void setDefaultTransport(IHttpTransport transport) {
+        sDefaultTransport = transport;
+    }
+
+    public static IHttpTransport getDefaultTransport() {
+        IHttpTransport transport = sDefaultTransport;
+        return transport != null ? transport : DefaultHttpTransport.getInstance();
+    }
+
+    /**
+     * Sets the executor running the listener callbacks, null to restore the one
+     * of the {@link Platform}. Tests can pass an executor running the callbacks inline.
+     */
+    public static void setCallbackExecutor(Executor executor) {
+        sCallbackExecutor = executor;
+    }
+
+    /**
+     * Executes a request synchronously, on the calling thread. No lock is held
+     * while the request runs, so the calling thread may be a virtual thread.
+     *
+     * @param transport transport to use, null for the default one
+     * @param request   the request
+     * @return server response
+     */
+    public static String request(IHttpTransport transport, HttpRequest request) throws WeiboException {
+        return (transport != null ? transport : getDefaultTransport()).execute(request);
+    }
+
+    /**
+     * Executes a request on a worker thread.
+     *
+     * @param transport transport to use, null for the default one
+     * @param request   the request
+     * @param listener  callback, run on the callback executor
+     */
+    public static void requestAsync(IHttpTransport transport, HttpRequest request, RequestListener listener) {
+        requestAsync(transport, request, listener, getCallbackExecutor());
+    }
+
+    /**
+     * Executes a request on a worker thread.
+     *
+     * @param transport        transport to use, null for the default one
+     * @param request          the request
+     * @param listener         callback
+     * @param callbackExecutor executor running the callback, null to run it on the worker thread
+     */
+    public static void requestAsync(final IHttpTransport transport, final HttpRequest request,
+            final RequestListener listener, Executor callbackExecutor) {
+        final Executor executor = callbackExecutor != null ? callbackExecutor : DIRECT_EXECUTOR;
+        workers().execute(new Runnable() {
+            @Override
+            public void run() {
+                final String response;
+                try {
+                    response = request(transport, request);
+                } catch (WeiboException e) {
+                    deliverError(executor, listener, e);
+                    return;
+                } catch (RuntimeException e) {
+                    // e.g. a SecurityException without the INTERNET permission
+                    deliverError(executor, listener, new WeiboException(e));
+                    return;
+                }
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onComplete(response);
+                    }
+                });
+            }
+        });
+    }
+
+    private static void deliverError(Executor executor, final RequestListener listener, final WeiboException e) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                listener.onWeiboException(e);
+            }
+        });
+    }
+
+    private static synchronized ExecutorService workers() {
+        if (sWorkers == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        private final AtomicInteger mCount = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "WeiboTransport #" + mCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            sWorkers = executor;
+        }
+        return sWorkers;
+    }
+
+    /**
+     * Returns the executor running the listener callbacks.
+     */
+    public static Executor getCallbackExecutor() {
+        Executor executor = sCallbackExecutor;
+        return executor != null ? executor : Platform.get().getCallbackExecutor();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+/**
+ * Deadline of the requests issued by the current thread.
+ *
+ * The *Sync methods of the OpenAPI classes have no timeout parameter; a caller
+ * sets a deadline around them instead:
+ *
+ * <pre>
+ * long previous = CallDeadline.set(CallDeadline.after(500));
+ * try {
+ *     usersAPI.showSync(uid);
+ * } finally {
+ *     CallDeadline.restore(previous);
+ * }
+ * </pre>
+ *
+ * Deadlines are {@link System#nanoTime()} values. The state is a plain
+ * ThreadLocal, so it follows virtual threads as well as platform threads.
+ *
+ * @author SINA
+ * @since 2014-04-24
+ */
+public final class CallDeadline {
+
+    /** No deadline */
+    public static final long NONE = Long.MAX_VALUE;
+
+    private static final ThreadLocal<long[]> sDeadline = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[] { NONE };
+        }
+    };
+
+    private CallDeadline() {
+    }
+
+    /**
+     * Returns the deadline timeoutMillis from now.
+     */
+    public static long after(long timeoutMillis) {
+        return System.nanoTime() + timeoutMillis * 1000000L;
+    }
+
+    /**
+     * Sets the deadline of the current thread and returns the previous one.
+     * An outer deadline earlier than the new one is kept.
+     */
+    public static long set(long deadlineNanos) {
+        long[] holder = sDeadline.get();
+        long previous = holder[0];
+        holder[0] = earliest(previous, deadlineNanos);
+        return previous;
+    }
+
+    /**
+     * Restores the deadline returned by {@link #set(long)}.
+     */
+    public static void restore(long previous) {
+        sDeadline.get()[0] = previous;
+    }
+
+    /**
+     * Returns the deadline of the current thread, {@link #NONE} if there is none.
+     */
+    public static long current() {
+        return sDeadline.get()[0];
+    }
+
+    /**
+     * Returns the earliest of two deadlines.
+     */
+    public static long earliest(long first, long second) {
+        if (first == NONE) {
+            return second;
+        }
+        if (second == NONE) {
+            return first;
+        }
+        // nanoTime values may overflow, compare differences
+        return first - second < 0 ? first : second;
+    }
+
+    /**
+     * Returns the milliseconds left before a deadline, rounded up, or
+     * Long.MAX_VALUE if there is none.
+     */
+    public static long remainingMillis(long deadlineNanos) {
+        if (deadlineNanos == NONE) {
+            return Long.MAX_VALUE;
+        }
+        long remaining = deadlineNanos - System.nanoTime();
+        return remaining <= 0 ? 0 : (remaining + 999999L) / 1000000L;
+    }
+}
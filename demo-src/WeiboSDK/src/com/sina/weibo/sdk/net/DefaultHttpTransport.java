@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.exception.WeiboHttpException;
+import com.sina.weibo.sdk.exception.WeiboTimeoutException;
+import com.sina.weibo.sdk.platform.Platform;
+import com.sina.weibo.sdk.platform.PlatformLog;
+
+/**
+ * Default {@link IHttpTransport}, built on {@link HttpURLConnection}.
+ *
+ * Unlike {@link HttpManager}, which builds a new HttpClient, scheme registry and
+ * SSL socket factory for every request, this transport relies on the connection
+ * pool and the SSL context shared by the whole process, so consecutive requests
+ * to api.weibo.com reuse the same keep-alive connection. The request encoding is
+ * the same as HttpManager's: query string for GET, url-encoded form for POST and
+ * multipart/form-data when the parameters hold binary data, see
+ * {@link Platform#isBinary(Object)}.
+ *
+ * Requests hold no monitor while doing I/O, so blocking calls can run on
+ * virtual threads without pinning their carrier. The connect and read timeouts
+ * of the transport are capped by the deadline of the request, and a request
+ * still running at its deadline is disconnected and fails with a
+ * {@link WeiboTimeoutException}. {@link HttpRequest#cancel()} aborts a request the
+ * same way.
+ *
+ * @author SINA
+ * @since 2014-04-18
+ */
+public class DefaultHttpTransport implements IHttpTransport {
+    private static final String TAG = DefaultHttpTransport.class.getName();
+
+    private static final int CONNECTION_TIMEOUT = 5000;
+    private static final int SOCKET_TIMEOUT     = 20000;
+    private static final int BUFFER_SIZE        = 8192;
+
+    private static final String BOUNDARY        = newBoundary();
+    private static final String MP_BOUNDARY     = "--" + BOUNDARY;
+    private static final String END_MP_BOUNDARY = "--" + BOUNDARY + "--";
+    private static final String MULTIPART_FORM_DATA = "multipart/form-data";
+    private static final String FORM_URLENCODED = "application/x-www-form-urlencoded";
+    private static final String KEY_CONTENT_TYPE = "content-type";
+
+    /** Read buffers, one per thread */
+    private static final ThreadLocal<byte[]> sBuffers = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
+    private final int mConnectTimeout;
+    private final int mReadTimeout;
+
+    static {
+        // Keep-alive is broken before Froyo, harmless afterwards
+        System.setProperty("http.keepAlive", "true");
+    }
+
+    /**
+     * Returns the shared instance, with the same timeouts as {@link HttpManager}.
+     */
+    public static DefaultHttpTransport getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * @param connectTimeout connection timeout in milliseconds
+     * @param readTimeout    socket read timeout in milliseconds
+     */
+    public DefaultHttpTransport(int connectTimeout, int readTimeout) {
+        mConnectTimeout = connectTimeout;
+        mReadTimeout = readTimeout;
+    }
+
+    @Override
+    public String execute(HttpRequest request) throws WeiboException {
+        String method = request.getHttpMethod();
+        String url = request.getUrl();
+        if (!"POST".equals(method)) {
+            String query = request.encodeParams();
+            if (query.length() > 0) {
+                url = url + (url.indexOf('?') < 0 ? "?" : "&") + query;
+            }
+        }
+
+        long deadline = request.getDeadline();
+        long remaining = CallDeadline.remainingMillis(deadline);
+        if (remaining <= 0) {
+            throw new WeiboTimeoutException("Deadline exceeded before " + request.getUrl());
+        }
+
+        if (request.isCanceled()) {
+            throw new WeiboException("Request canceled: " + request.getUrl());
+        }
+
+        HttpURLConnection connection = null;
+        DisconnectAction disconnect = null;
+        ScheduledFuture<?> watchdog = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout((int) Math.min(mConnectTimeout, remaining));
+            connection.setReadTimeout((int) Math.min(mReadTimeout, remaining));
+            disconnect = new DisconnectAction(connection);
+            request.setCancelAction(disconnect);
+            if (request.isCanceled()) {
+                throw new WeiboException("Request canceled: " + request.getUrl());
+            }
+            if (deadline != CallDeadline.NONE) {
+                watchdog = WatchdogHolder.WATCHDOG.schedule(disconnect, remaining, TimeUnit.MILLISECONDS);
+            }
+            connection.setRequestMethod(method);
+            connection.setUseCaches(false);
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+            if ("POST".equals(method)) {
+                if (request.getParamsBuilder() != null) {
+                    writeBody(connection, request.getParamsBuilder());
+                } else {
+                    writeBody(connection, request.getParams() != null ? request.getParams() : new WeiboParameters());
+                }
+            }
+
+            int statusCode = connection.getResponseCode();
+            InputStream in = statusCode >= HttpURLConnection.HTTP_BAD_REQUEST
+                    ? connection.getErrorStream() : connection.getInputStream();
+            String response = readResponse(connection, in);
+            if (statusCode != HttpURLConnection.HTTP_OK) {
+                throw new WeiboHttpException(response, statusCode);
+            }
+            return response;
+        } catch (IOException e) {
+            // disconnect() is not called on success: it would close the pooled connection
+            if (connection != null) {
+                connection.disconnect();
+            }
+            if (request.isCanceled()) {
+                throw new WeiboException("Request canceled: " + request.getUrl(), e);
+            }
+            if (CallDeadline.remainingMillis(deadline) <= 0) {
+                throw new WeiboTimeoutException("Deadline exceeded: " + request.getUrl(), e);
+            }
+            throw new WeiboException(e);
+        } finally {
+            request.setCancelAction(null);
+            if (watchdog != null) {
+                watchdog.cancel(false);
+            }
+            if (disconnect != null) {
+                // A cancelled watchdog task may stay queued until its deadline
+                disconnect.release();
+            }
+        }
+    }
+
+    /**
+     * Disconnects a connection until released, then holds no reference to it.
+     */
+    private static class DisconnectAction implements Runnable {
+        private final AtomicReference<HttpURLConnection> mConnection;
+
+        DisconnectAction(HttpURLConnection connection) {
+            mConnection = new AtomicReference<HttpURLConnection>(connection);
+        }
+
+        @Override
+        public void run() {
+            HttpURLConnection connection = mConnection.get();
+            if (connection != null) {
+                // Closes the socket, the blocked read fails with an IOException
+                connection.disconnect();
+            }
+        }
+
+        void release() {
+            mConnection.set(null);
+        }
+    }
+
+    private static void writeBody(HttpURLConnection connection, WeiboParameters params) throws IOException {
+        byte[] body;
+        Platform platform = Platform.get();
+        if (hasBinaryData(platform, params)) {
+            connection.setRequestProperty("Content-Type", MULTIPART_FORM_DATA + "; boundary=" + BOUNDARY);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(BUFFER_SIZE);
+            writeMultipart(platform, out, params);
+            body = out.toByteArray();
+        } else {
+            String contentType = FORM_URLENCODED;
+            Object value = params.get(KEY_CONTENT_TYPE);
+            if (value != null) {
+                params.remove(KEY_CONTENT_TYPE);
+                contentType = value.toString();
+            }
+            connection.setRequestProperty("Content-Type", contentType);
+            body = ParamsBuilder.encodeUrl(params).getBytes("UTF-8");
+        }
+
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        OutputStream out = connection.getOutputStream();
+        try {
+            out.write(body);
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    private static void writeBody(HttpURLConnection connection, ParamsBuilder params) throws IOException {
+        ParamsBuilder.Body body = params.encodeBody();
+        connection.setRequestProperty("Content-Type", FORM_URLENCODED);
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length());
+        OutputStream out = connection.getOutputStream();
+        try {
+            body.writeTo(out);
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    private static boolean hasBinaryData(Platform platform, WeiboParameters params) {
+        for (String key : params.keySet()) {
+            if (platform.isBinary(params.get(key))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeMultipart(Platform platform, OutputStream out, WeiboParameters params)
+            throws IOException {
+        StringBuilder part = new StringBuilder();
+        for (String key : params.keySet()) {
+            Object value = params.get(key);
+            if (value instanceof String) {
+                part.setLength(0);
+                part.append(MP_BOUNDARY).append("\r\n");
+                part.append("content-disposition: form-data; name=\"").append(key).append("\"\r\n\r\n");
+                part.append(value).append("\r\n");
+                out.write(part.toString().getBytes("UTF-8"));
+            }
+        }
+
+        for (String key : params.keySet()) {
+            Object value = params.get(key);
+            if (platform.isBinary(value)) {
+                part.setLength(0);
+                part.append(MP_BOUNDARY).append("\r\n");
+                part.append("content-disposition: form-data; name=\"").append(key).append("\"; filename=\"file\"\r\n");
+                part.append("Content-Type: application/octet-stream; charset=utf-8\r\n\r\n");
+                out.write(part.toString().getBytes("UTF-8"));
+                platform.writeBinary(value, out);
+                out.write("\r\n".getBytes("UTF-8"));
+            }
+        }
+        out.write(("\r\n" + END_MP_BOUNDARY).getBytes("UTF-8"));
+    }
+
+    private static String readResponse(HttpURLConnection connection, InputStream in) throws IOException {
+        if (in == null) {
+            return "";
+        }
+        if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+            in = new GZIPInputStream(in);
+        }
+
+        int length = connection.getContentLength();
+        ByteArrayOutputStream content = new ByteArrayOutputStream(length > 0 ? length : BUFFER_SIZE);
+        byte[] buffer = sBuffers.get();
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+        } finally {
+            // Closing a fully read stream hands the connection back to the pool
+            closeQuietly(in);
+        }
+        return toUtf8(content);
+    }
+
+    private static String toUtf8(ByteArrayOutputStream content) {
+        try {
+            return content.toString("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return content.toString();
+        }
+    }
+
+    private static String newBoundary() {
+        StringBuilder boundary = new StringBuilder();
+        Random random = new Random();
+        for (int ix = 0; ix < 12; ix++) {
+            boundary.append(Integer.toHexString(random.nextInt(16)));
+        }
+        return boundary.toString();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                PlatformLog.w(TAG, "Failed to close stream: " + e.getMessage());
+            }
+        }
+    }
+
+    private static class InstanceHolder {
+        static final DefaultHttpTransport INSTANCE = new DefaultHttpTransport(CONNECTION_TIMEOUT, SOCKET_TIMEOUT);
+    }
+
+    /**
+     * Disconnects the requests running past their deadline.
+     */
+    private static class WatchdogHolder {
+        static final ScheduledExecutorService WATCHDOG = newWatchdog();
+
+        private static ScheduledExecutorService newWatchdog() {
+            ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "WeiboTransport watchdog");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            try {
+                // Drops cancelled watchdog tasks at once rather than at their deadline
+                watchdog.setRemoveOnCancelPolicy(true);
+            } catch (NoSuchMethodError e) {
+                // Before Android 5.0: the released DisconnectAction holds no connection meanwhile
+            }
+            return watchdog;
+        }
+    }
+}
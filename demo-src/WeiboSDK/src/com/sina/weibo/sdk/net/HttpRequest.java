@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A request handed to an {@link IHttpTransport}.
+ *
+ * @author SINA
+ * @since 2014-04-18
+ */
+public class HttpRequest {
+
+    /** Header carrying the trace request id, see {@link RequestSpan} */
+    public static final String HEADER_REQUEST_ID = "X-Request-Id";
+
+    private final String mUrl;
+    private final String mHttpMethod;
+    private final WeiboParameters mParams;
+    private final ParamsBuilder mParamsBuilder;
+    private final Map<String, String> mHeaders = new LinkedHashMap<String, String>();
+    private long mDeadlineNanos = CallDeadline.NONE;
+    private volatile boolean mCanceled;
+    /** Aborts the request in flight, guarded by this */
+    private Runnable mCancelAction;
+
+    public HttpRequest(String url, String httpMethod, WeiboParameters params) {
+        mUrl = url;
+        mHttpMethod = httpMethod;
+        mParams = params;
+        mParamsBuilder = null;
+    }
+
+    /**
+     * Creates a request whose parameters are encoded by a {@link ParamsBuilder}.
+     */
+    public HttpRequest(String url, String httpMethod, ParamsBuilder params) {
+        mUrl = url;
+        mHttpMethod = httpMethod;
+        mParams = null;
+        mParamsBuilder = params;
+    }
+
+    public String getUrl() {
+        return mUrl;
+    }
+
+    public String getHttpMethod() {
+        return mHttpMethod;
+    }
+
+    /**
+     * Returns the parameters, null if the request was built with a {@link ParamsBuilder}.
+     */
+    public WeiboParameters getParams() {
+        return mParams;
+    }
+
+    /**
+     * Returns the parameters builder, null if the request was built with {@link WeiboParameters}.
+     */
+    public ParamsBuilder getParamsBuilder() {
+        return mParamsBuilder;
+    }
+
+    /**
+     * Returns the encoded parameters, whichever way they were given.
+     */
+    public String encodeParams() {
+        if (mParamsBuilder != null) {
+            return mParamsBuilder.encodeUrl();
+        }
+        return mParams != null ? ParamsBuilder.encodeUrl(mParams) : "";
+    }
+
+    public void setHeader(String name, String value) {
+        mHeaders.put(name, value);
+    }
+
+    public Map<String, String> getHeaders() {
+        return mHeaders;
+    }
+
+    /**
+     * Sets the deadline of the request, see {@link CallDeadline}.
+     *
+     * @param deadlineNanos {@link System#nanoTime()} deadline, {@link CallDeadline#NONE} for none
+     */
+    public void setDeadline(long deadlineNanos) {
+        mDeadlineNanos = deadlineNanos;
+    }
+
+    public long getDeadline() {
+        return mDeadlineNanos;
+    }
+
+    /**
+     * Cancels the request. A request not started yet is never sent; a request
+     * in flight is aborted by its transport, see {@link #setCancelAction(Runnable)}.
+     */
+    public void cancel() {
+        Runnable action;
+        synchronized (this) {
+            if (mCanceled) {
+                return;
+            }
+            mCanceled = true;
+            action = mCancelAction;
+        }
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    public boolean isCanceled() {
+        return mCanceled;
+    }
+
+    /**
+     * Called by transports to register how to abort the request while it runs.
+     * The action is run at once if the request is already canceled.
+     *
+     * @param action abort action, null once the request is done
+     */
+    public void setCancelAction(Runnable action) {
+        boolean runNow;
+        synchronized (this) {
+            mCancelAction = action;
+            runNow = mCanceled && action != null;
+        }
+        if (runNow) {
+            action.run();
+        }
+    }
+}
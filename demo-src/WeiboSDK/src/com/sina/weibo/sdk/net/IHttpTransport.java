@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+
+/**
+ * Transport SPI used by the OpenAPI classes to execute HTTP requests.
+ *
+ * Implementations must be thread safe: one instance is shared by all requests.
+ *
+ * @see DefaultHttpTransport
+ * @see MockHttpTransport
+ * @author SINA
+ * @since 2014-04-18
+ */
+public interface IHttpTransport {
+
+    /**
+     * Executes a request synchronously.
+     *
+     * @param request the request
+     * @return the response body
+     * @throws WeiboException on I/O errors; {@link com.sina.weibo.sdk.exception.WeiboHttpException}
+     *         when the server answers with a status other than 200
+     */
+    public String execute(HttpRequest request) throws WeiboException;
+}
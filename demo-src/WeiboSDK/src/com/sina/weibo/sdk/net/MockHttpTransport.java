@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.exception.WeiboHttpException;
+
+/**
+ * In-memory {@link IHttpTransport} for tests and offline demos.
+ *
+ * Responses are queued by URL (without query string) and served in order; the
+ * last queued response of a URL is repeated once the queue is drained. Every
+ * executed request is recorded.
+ *
+ * @author SINA
+ * @since 2014-04-18
+ */
+public class MockHttpTransport implements IHttpTransport {
+
+    private final Map<String, LinkedList<Object>> mResponses = new LinkedHashMap<String, LinkedList<Object>>();
+    private final List<HttpRequest> mRequests = new ArrayList<HttpRequest>();
+
+    /**
+     * Queues a response body for a URL.
+     */
+    public synchronized MockHttpTransport enqueue(String url, String response) {
+        obtainQueue(url).add(response);
+        return this;
+    }
+
+    /**
+     * Queues an HTTP error for a URL, thrown as a {@link WeiboHttpException}.
+     */
+    public synchronized MockHttpTransport enqueueError(String url, int statusCode, String response) {
+        obtainQueue(url).add(new WeiboHttpException(response, statusCode));
+        return this;
+    }
+
+    /**
+     * Queues an exception for a URL, for example to simulate a network error.
+     */
+    public synchronized MockHttpTransport enqueueException(String url, WeiboException exception) {
+        obtainQueue(url).add(exception);
+        return this;
+    }
+
+    @Override
+    public String execute(HttpRequest request) throws WeiboException {
+        if (request.isCanceled()) {
+            throw new WeiboException("Request canceled: " + request.getUrl());
+        }
+
+        Object response;
+        synchronized (this) {
+            mRequests.add(request);
+            LinkedList<Object> queue = mResponses.get(stripQuery(request.getUrl()));
+            if (queue == null || queue.isEmpty()) {
+                response = new WeiboHttpException("No response for " + request.getUrl(), 404);
+            } else {
+                response = queue.size() > 1 ? queue.removeFirst() : queue.getFirst();
+            }
+        }
+
+        if (response instanceof WeiboException) {
+            throw (WeiboException) response;
+        }
+        return (String) response;
+    }
+
+    /**
+     * Returns the executed requests, oldest first.
+     */
+    public synchronized List<HttpRequest> getRequests() {
+        return new ArrayList<HttpRequest>(mRequests);
+    }
+
+    /**
+     * Returns the last executed request, or null.
+     */
+    public synchronized HttpRequest getLastRequest() {
+        return mRequests.isEmpty() ? null : mRequests.get(mRequests.size() - 1);
+    }
+
+    public synchronized int getRequestCount() {
+        return mRequests.size();
+    }
+
+    public synchronized void reset() {
+        mResponses.clear();
+        mRequests.clear();
+    }
+
+    private LinkedList<Object> obtainQueue(String url) {
+        String key = stripQuery(url);
+        LinkedList<Object> queue = mResponses.get(key);
+        if (queue == null) {
+            queue = new LinkedList<Object>();
+            mResponses.put(key, queue);
+        }
+        return queue;
+    }
+
+    private static String stripQuery(String url) {
+        int index = url.indexOf('?');
+        return index < 0 ? url : url.substring(0, index);
+    }
+}
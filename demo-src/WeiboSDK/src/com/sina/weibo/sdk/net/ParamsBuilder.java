@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Allocation-light replacement of {@link WeiboParameters} for requests without
+ * binary data.
+ *
+ * Numbers are kept in primitive slots instead of being turned into Strings, keys
+ * are percent-encoded once and cached, and the query string or form body is
+ * encoded in buffers owned by the calling thread. The encoding is the same as
+ * {@link WeiboParameters#encodeUrl()}: UTF-8 URL encoding, empty values skipped.
+ * A builder can be reused with {@link #clear()}.
+ *
+ * This class is not thread safe.
+ *
+ * @author SINA
+ * @since 2014-04-20
+ */
+public class ParamsBuilder {
+
+    private static final int TYPE_LONG   = 0;
+    private static final int TYPE_STRING = 1;
+
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /** Encoded form of the keys which need encoding */
+    private static final ConcurrentHashMap<String, String> sEncodedKeys = new ConcurrentHashMap<String, String>();
+
+    private static final ThreadLocal<Body> sBodies = new ThreadLocal<Body>() {
+        @Override
+        protected Body initialValue() {
+            return new Body();
+        }
+    };
+
+    private String[] mKeys;
+    private String[] mEncodedKeys;
+    private int[] mTypes;
+    private long[] mLongs;
+    private String[] mStrings;
+    private int mSize;
+
+    public ParamsBuilder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ParamsBuilder(int capacity) {
+        capacity = Math.max(1, capacity);
+        mKeys        = new String[capacity];
+        mEncodedKeys = new String[capacity];
+        mTypes       = new int[capacity];
+        mLongs       = new long[capacity];
+        mStrings     = new String[capacity];
+    }
+
+    /**
+     * Sets a parameter, replacing the previous value of the key.
+     */
+    public ParamsBuilder put(String key, String value) {
+        int index = obtainSlot(key);
+        mTypes[index] = TYPE_STRING;
+        mStrings[index] = value;
+        return this;
+    }
+
+    public ParamsBuilder put(String key, int value) {
+        return put(key, (long) value);
+    }
+
+    public ParamsBuilder put(String key, long value) {
+        int index = obtainSlot(key);
+        mTypes[index] = TYPE_LONG;
+        mLongs[index] = value;
+        mStrings[index] = null;
+        return this;
+    }
+
+    public boolean containsKey(String key) {
+        return indexOf(key) >= 0;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Removes all the parameters, keeping the allocated slots.
+     */
+    public void clear() {
+        for (int ix = 0; ix < mSize; ix++) {
+            mKeys[ix] = null;
+            mEncodedKeys[ix] = null;
+            mStrings[ix] = null;
+        }
+        mSize = 0;
+    }
+
+    /**
+     * Appends the encoded parameters, "k1=v1&k2=v2", to a builder.
+     */
+    public void appendTo(StringBuilder out) {
+        boolean first = true;
+        for (int ix = 0; ix < mSize; ix++) {
+            if (mTypes[ix] == TYPE_STRING && (mStrings[ix] == null || mStrings[ix].length() == 0)) {
+                continue;
+            }
+            if (!first) {
+                out.append('&');
+            }
+            first = false;
+            out.append(mEncodedKeys[ix]).append('=');
+            if (mTypes[ix] == TYPE_LONG) {
+                out.append(mLongs[ix]);
+            } else {
+                appendEncoded(out, mStrings[ix]);
+            }
+        }
+    }
+
+    /**
+     * Returns the encoded parameters, same as {@link WeiboParameters#encodeUrl()}.
+     */
+    public String encodeUrl() {
+        Body body = sBodies.get();
+        body.mChars.setLength(0);
+        appendTo(body.mChars);
+        return body.mChars.toString();
+    }
+
+    /**
+     * Encodes the parameters as a form body in a buffer owned by the calling
+     * thread. The returned body is valid until the next call on the same thread.
+     */
+    public Body encodeBody() {
+        Body body = sBodies.get();
+        body.mChars.setLength(0);
+        appendTo(body.mChars);
+        body.fill();
+        return body;
+    }
+
+    /**
+     * Copies the parameters into a {@link WeiboParameters}, for the APIs which
+     * still need one.
+     */
+    public WeiboParameters toWeiboParameters() {
+        WeiboParameters params = new WeiboParameters();
+        for (int ix = 0; ix < mSize; ix++) {
+            if (mTypes[ix] == TYPE_LONG) {
+                params.put(mKeys[ix], mLongs[ix]);
+            } else {
+                params.put(mKeys[ix], mStrings[ix]);
+            }
+        }
+        return params;
+    }
+
+    @Override
+    public String toString() {
+        return encodeUrl();
+    }
+
+    /**
+     * Encodes the String values of a {@link WeiboParameters} like
+     * {@link WeiboParameters#encodeUrl()}, without going through android.text.
+     */
+    public static String encodeUrl(WeiboParameters params) {
+        Body body = sBodies.get();
+        StringBuilder out = body.mChars;
+        out.setLength(0);
+        for (String key : params.keySet()) {
+            Object value = params.get(key);
+            if (!(value instanceof String) || ((String) value).length() == 0) {
+                continue;
+            }
+            if (out.length() > 0) {
+                out.append('&');
+            }
+            out.append(encodeKey(key)).append('=');
+            appendEncoded(out, (String) value);
+        }
+        return out.toString();
+    }
+
+    /**
+     * An encoded form body. All the encoded characters are ASCII, so the body is
+     * copied byte per char.
+     */
+    public static final class Body {
+        private final StringBuilder mChars = new StringBuilder(256);
+        private byte[] mBytes = new byte[256];
+        private int mLength;
+
+        private Body() {
+        }
+
+        private void fill() {
+            mLength = mChars.length();
+            if (mBytes.length < mLength) {
+                mBytes = new byte[Math.max(mLength, mBytes.length * 2)];
+            }
+            for (int ix = 0; ix < mLength; ix++) {
+                mBytes[ix] = (byte) mChars.charAt(ix);
+            }
+        }
+
+        public int length() {
+            return mLength;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(mBytes, 0, mLength);
+        }
+    }
+
+    private int indexOf(String key) {
+        for (int ix = 0; ix < mSize; ix++) {
+            if (mKeys[ix].equals(key)) {
+                return ix;
+            }
+        }
+        return -1;
+    }
+
+    private int obtainSlot(String key) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            return index;
+        }
+        if (mSize == mKeys.length) {
+            grow();
+        }
+        index = mSize++;
+        mKeys[index] = key;
+        mEncodedKeys[index] = encodeKey(key);
+        return index;
+    }
+
+    private void grow() {
+        int capacity = mKeys.length * 2;
+        String[] keys = new String[capacity];
+        String[] encodedKeys = new String[capacity];
+        int[] types = new int[capacity];
+        long[] longs = new long[capacity];
+        String[] strings = new String[capacity];
+        System.arraycopy(mKeys, 0, keys, 0, mSize);
+        System.arraycopy(mEncodedKeys, 0, encodedKeys, 0, mSize);
+        System.arraycopy(mTypes, 0, types, 0, mSize);
+        System.arraycopy(mLongs, 0, longs, 0, mSize);
+        System.arraycopy(mStrings, 0, strings, 0, mSize);
+        mKeys = keys;
+        mEncodedKeys = encodedKeys;
+        mTypes = types;
+        mLongs = longs;
+        mStrings = strings;
+    }
+
+    private static String encodeKey(String key) {
+        int length = key.length();
+        for (int ix = 0; ix < length; ix++) {
+            if (!isUnreserved(key.charAt(ix))) {
+                String encoded = sEncodedKeys.get(key);
+                if (encoded == null) {
+                    StringBuilder builder = new StringBuilder(length * 3);
+                    appendEncoded(builder, key);
+                    encoded = builder.toString();
+                    sEncodedKeys.put(key, encoded);
+                }
+                return encoded;
+            }
+        }
+        // API keys are plain ASCII names, no copy needed
+        return key;
+    }
+
+    /**
+     * Appends a value encoded like {@code URLEncoder.encode(value, "UTF-8")}.
+     */
+    static void appendEncoded(StringBuilder out, String value) {
+        int length = value.length();
+        for (int ix = 0; ix < length; ix++) {
+            char c = value.charAt(ix);
+            if (isUnreserved(c)) {
+                out.append(c);
+            } else if (c == ' ') {
+                out.append('+');
+            } else if (c < 0x80) {
+                appendEscaped(out, c);
+            } else if (c < 0x800) {
+                appendEscaped(out, 0xC0 | (c >> 6));
+                appendEscaped(out, 0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && ix + 1 < length
+                    && Character.isLowSurrogate(value.charAt(ix + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++ix));
+                appendEscaped(out, 0xF0 | (codePoint >> 18));
+                appendEscaped(out, 0x80 | ((codePoint >> 12) & 0x3F));
+                appendEscaped(out, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendEscaped(out, 0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, encoded as '?' like URLEncoder
+                appendEscaped(out, '?');
+            } else {
+                appendEscaped(out, 0xE0 | (c >> 12));
+                appendEscaped(out, 0x80 | ((c >> 6) & 0x3F));
+                appendEscaped(out, 0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static void appendEscaped(StringBuilder out, int b) {
+        out.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '.' || c == '-' || c == '*' || c == '_';
+    }
+}
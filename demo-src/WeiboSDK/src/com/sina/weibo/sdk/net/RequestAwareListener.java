@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+/**
+ * A {@link RequestListener} which is handed the request it listens to, for
+ * example to cancel it.
+ *
+ * Unlike plain listeners, its callbacks are run on the worker thread which
+ * executed the request, and it is notified with
+ * {@link #onWeiboException(com.sina.weibo.sdk.exception.WeiboException)} when the
+ * request cannot be issued at all.
+ *
+ * @see WeiboFuture
+ * @author SINA
+ * @since 2014-04-26
+ */
+public interface RequestAwareListener extends RequestListener {
+
+    /**
+     * Called before the request is executed.
+     */
+    public void onRequestCreated(HttpRequest request);
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+import java.util.concurrent.Executor;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+
+/**
+ * Decides when and on which thread the requests of an OpenAPI instance are
+ * executed, in place of {@link AsyncTransportRunner}.
+ *
+ * @see com.sina.weibo.sdk.openapi.AbsOpenAPI#setScheduler(RequestScheduler)
+ * @author SINA
+ * @since 2014-04-30
+ */
+public interface RequestScheduler {
+
+    /**
+     * Executes a request and waits for its response.
+     *
+     * @param transport transport to use, null for the default one
+     * @param request   the request
+     * @return server response
+     */
+    public String request(IHttpTransport transport, HttpRequest request) throws WeiboException;
+
+    /**
+     * Executes a request asynchronously.
+     *
+     * @param transport        transport to use, null for the default one
+     * @param request          the request
+     * @param listener         callback
+     * @param callbackExecutor executor running the callback, null to run it on the worker thread
+     */
+    public void requestAsync(IHttpTransport transport, HttpRequest request, RequestListener listener,
+            Executor callbackExecutor);
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+import java.util.Random;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.utils.TraceLog;
+
+/**
+ * Trace context of a single OpenAPI request.
+ *
+ * Every span has a request id and optionally a parent span. Requests issued while
+ * a span is current (e.g. from inside a listener callback) automatically become its
+ * children, so a screen that loads the timeline, then the user, then the comments
+ * ends up with one trace id covering all of them.
+ *
+ * @author SINA
+ * @since 2014-04-08
+ */
+public final class RequestSpan {
+
+    private static final Random sRandom = new Random();
+    private static final ThreadLocal<RequestSpan> sCurrent = new ThreadLocal<RequestSpan>();
+
+    private final String mRequestId;
+    private final String mTraceId;
+    private final String mParentId;
+    private final boolean mSampled;
+    private final String mUrl;
+    private final String mHttpMethod;
+    private final long mStartNanos;
+    private volatile long mEndNanos;
+    private volatile WeiboException mError;
+
+    private RequestSpan(RequestSpan parent, String url, String httpMethod) {
+        mRequestId  = newId();
+        mTraceId    = parent != null ? parent.mTraceId : mRequestId;
+        mParentId   = parent != null ? parent.mRequestId : null;
+        mSampled    = parent != null ? parent.mSampled : TraceLog.shouldSample();
+        mUrl        = url;
+        mHttpMethod = httpMethod;
+        mStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts a span as a child of the current span of this thread, or as a new root.
+     *
+     * @param url        HTTP request url
+     * @param httpMethod HTTP request method
+     */
+    public static RequestSpan start(String url, String httpMethod) {
+        return start(sCurrent.get(), url, httpMethod);
+    }
+
+    /**
+     * Starts a span with an explicit parent.
+     *
+     * @param parent     parent span, null to start a new trace
+     * @param url        HTTP request url
+     * @param httpMethod HTTP request method
+     */
+    public static RequestSpan start(RequestSpan parent, String url, String httpMethod) {
+        RequestSpan span = new RequestSpan(parent, url, httpMethod);
+        if (span.mSampled) {
+            TraceLog.log(TraceLog.EVENT_START, span.mTraceId, span.mRequestId, span.mParentId,
+                    httpMethod, url, 0, null);
+        }
+        return span;
+    }
+
+    /**
+     * Returns the span current on this thread, or null.
+     */
+    public static RequestSpan current() {
+        return sCurrent.get();
+    }
+
+    /**
+     * Makes this span current on the calling thread.
+     *
+     * @return the previously current span, pass it to {@link #restore(RequestSpan)}
+     */
+    public RequestSpan makeCurrent() {
+        RequestSpan previous = sCurrent.get();
+        sCurrent.set(this);
+        return previous;
+    }
+
+    /**
+     * Restores the span returned by {@link #makeCurrent()}.
+     */
+    public static void restore(RequestSpan previous) {
+        if (previous == null) {
+            sCurrent.remove();
+        } else {
+            sCurrent.set(previous);
+        }
+    }
+
+    /**
+     * Marks the span as finished, only the first call has effect.
+     *
+     * @param error request error, null if the request succeeded
+     */
+    public void finish(WeiboException error) {
+        if (mEndNanos != 0) {
+            return;
+        }
+        mEndNanos = System.nanoTime();
+        mError = error;
+        if (mSampled) {
+            TraceLog.log(error == null ? TraceLog.EVENT_FINISH : TraceLog.EVENT_ERROR,
+                    mTraceId, mRequestId, mParentId, mHttpMethod, mUrl, getDurationMillis(),
+                    error == null ? null : error.getMessage());
+        }
+    }
+
+    /**
+     * Wraps a listener so that the span is finished before the callback and is the
+     * current span while the callback runs.
+     *
+     * @param listener callback listener
+     */
+    public RequestListener wrap(final RequestListener listener) {
+        return new RequestListener() {
+            @Override
+            public void onComplete(String response) {
+                finish(null);
+                RequestSpan previous = makeCurrent();
+                try {
+                    notifySpanFinished(listener);
+                    listener.onComplete(response);
+                } finally {
+                    restore(previous);
+                }
+            }
+
+            @Override
+            public void onWeiboException(WeiboException e) {
+                finish(e);
+                RequestSpan previous = makeCurrent();
+                try {
+                    notifySpanFinished(listener);
+                    listener.onWeiboException(e);
+                } finally {
+                    restore(previous);
+                }
+            }
+        };
+    }
+
+    public String getRequestId() {
+        return mRequestId;
+    }
+
+    public String getTraceId() {
+        return mTraceId;
+    }
+
+    /**
+     * Returns the request id of the parent span, or null for a root span.
+     */
+    public String getParentId() {
+        return mParentId;
+    }
+
+    public boolean isSampled() {
+        return mSampled;
+    }
+
+    public String getUrl() {
+        return mUrl;
+    }
+
+    public String getHttpMethod() {
+        return mHttpMethod;
+    }
+
+    public boolean isFinished() {
+        return mEndNanos != 0;
+    }
+
+    /**
+     * Returns the request error, null if it succeeded or has not finished yet.
+     */
+    public WeiboException getError() {
+        return mError;
+    }
+
+    /**
+     * Returns the elapsed time of the request, up to now if it has not finished yet.
+     */
+    public long getDurationMillis() {
+        long end = mEndNanos != 0 ? mEndNanos : System.nanoTime();
+        return (end - mStartNanos) / 1000000L;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestSpan{trace=" + mTraceId + ", request=" + mRequestId + ", parent=" + mParentId
+                + ", " + mHttpMethod + " " + mUrl + "}";
+    }
+
+    private void notifySpanFinished(RequestListener listener) {
+        if (listener instanceof TraceRequestListener) {
+            ((TraceRequestListener) listener).onSpanFinished(this);
+        }
+    }
+
+    private static String newId() {
+        long value;
+        synchronized (sRandom) {
+            value = sRandom.nextLong();
+        }
+        String hex = Long.toHexString(value);
+        if (hex.length() < 16) {
+            hex = "0000000000000000".substring(hex.length()) + hex;
+        }
+        return hex;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+
+/**
+ * Converts a response body into a typed result.
+ *
+ * @see com.sina.weibo.sdk.openapi.models.ResponseParsers
+ * @author SINA
+ * @since 2014-04-26
+ */
+public interface ResponseParser<T> {
+
+    /** Returns the response body as is */
+    public static final ResponseParser<String> RAW = new ResponseParser<String>() {
+        @Override
+        public String parse(String response) {
+            return response;
+        }
+    };
+
+    /**
+     * @param response response body
+     * @return the parsed result
+     * @throws WeiboException if the response cannot be parsed
+     */
+    public T parse(String response) throws WeiboException;
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+/**
+ * A {@link RequestListener} that also receives the trace span of its request.
+ *
+ * @author SINA
+ * @since 2014-04-08
+ */
+public interface TraceRequestListener extends RequestListener {
+
+    /**
+     * Called right before {@link #onComplete(String)} or
+     * {@link #onWeiboException(com.sina.weibo.sdk.exception.WeiboException)}.
+     *
+     * @param span the finished span of the request
+     */
+    public void onSpanFinished(RequestSpan span);
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.platform.Platform;
+
+/**
+ * Result of an asynchronous OpenAPI request.
+ *
+ * The response is parsed on the worker thread. Cancelling the future cancels
+ * the HTTP request, even while it is in flight. Independent requests run
+ * concurrently and can be joined with {@link #allOf(WeiboFuture...)}:
+ *
+ * <pre>
+ * WeiboFuture&lt;User&gt; user = usersAPI.showFuture(uid);
+ * WeiboFuture&lt;StatusList&gt; timeline = statusesAPI.friendsTimelineFuture(0, 0, 20, 1, false, 0, false);
+ * WeiboFuture.allOf(user, timeline).addCallback(...);
+ * </pre>
+ *
+ * Any listener based method of any {@link com.sina.weibo.sdk.openapi.AbsOpenAPI}
+ * subclass can be turned into a future with {@link #call(AsyncCall, ResponseParser)}.
+ *
+ * @author SINA
+ * @since 2014-04-26
+ */
+public class WeiboFuture<T> implements Future<T> {
+
+    private static final int STATE_PENDING   = 0;
+    private static final int STATE_SUCCEEDED = 1;
+    private static final int STATE_FAILED    = 2;
+    private static final int STATE_CANCELED  = 3;
+
+    private final ResponseParser<T> mParser;
+    private final Executor mCallbackExecutor;
+    private final CountDownLatch mDone = new CountDownLatch(1);
+
+    /** State below is guarded by this */
+    private int mState = STATE_PENDING;
+    private T mResult;
+    private WeiboException mError;
+    private HttpRequest mRequest;
+    private List<Runnable> mCompletionActions = new ArrayList<Runnable>(2);
+
+    /**
+     * Receives the outcome of a future, on the callback executor of the
+     * {@link Platform}: the main thread on Android.
+     */
+    public interface Callback<T> {
+        public void onSuccess(T result);
+
+        /**
+         * Called when the request failed or was canceled.
+         */
+        public void onWeiboException(WeiboException e);
+    }
+
+    /**
+     * Issues a listener based request.
+     */
+    public interface AsyncCall {
+        public void call(RequestListener listener);
+    }
+
+    /**
+     * @param parser converts the response body, {@link ResponseParser#RAW} to keep it
+     */
+    public WeiboFuture(ResponseParser<T> parser) {
+        mParser = parser;
+        mCallbackExecutor = Platform.get().getCallbackExecutor();
+    }
+
+    /**
+     * Turns a listener based request into a future. This is the typed route for
+     * the methods without a future variant: those of the legacy APIs, of
+     * {@link com.sina.weibo.sdk.openapi.InviteAPI} and of
+     * {@link com.sina.weibo.sdk.openapi.LogoutAPI}. For example
+     * <pre>
+     * WeiboFuture.call(new AsyncCall() {
+     *     public void call(RequestListener listener) {
+     *         legacyStatusesAPI.userTimeline(uid, 0, 0, 20, 1, false, FEATURE_ALL, false, listener);
+     *     }
+     * }, ResponseParsers.STATUS_LIST);
+     * </pre>
+     */
+    public static <T> WeiboFuture<T> call(AsyncCall call, ResponseParser<T> parser) {
+        WeiboFuture<T> future = new WeiboFuture<T>(parser);
+        call.call(future.asListener());
+        return future;
+    }
+
+    /**
+     * Returns a future completed when all the given futures are. It fails with the
+     * first failure; cancelling it cancels the futures still running.
+     */
+    public static WeiboFuture<Void> allOf(final WeiboFuture<?>... futures) {
+        final WeiboFuture<Void> all = new WeiboFuture<Void>(null);
+        if (futures.length == 0) {
+            all.succeed(null);
+            return all;
+        }
+
+        final AtomicInteger pending = new AtomicInteger(futures.length);
+        for (final WeiboFuture<?> future : futures) {
+            future.whenDone(new Runnable() {
+                @Override
+                public void run() {
+                    WeiboException error = future.getError();
+                    if (error != null) {
+                        all.fail(error);
+                    } else if (pending.decrementAndGet() == 0) {
+                        all.succeed(null);
+                    }
+                }
+            });
+        }
+        all.whenDone(new Runnable() {
+            @Override
+            public void run() {
+                if (all.isCancelled()) {
+                    for (WeiboFuture<?> future : futures) {
+                        future.cancel(true);
+                    }
+                }
+            }
+        });
+        return all;
+    }
+
+    /**
+     * Returns the listener completing this future, to pass to a listener based
+     * request method.
+     */
+    public RequestListener asListener() {
+        return new RequestAwareListener() {
+            @Override
+            public void onRequestCreated(HttpRequest request) {
+                bind(request);
+            }
+
+            @Override
+            public void onComplete(String response) {
+                T result;
+                try {
+                    result = mParser != null ? mParser.parse(response) : null;
+                } catch (WeiboException e) {
+                    fail(e);
+                    return;
+                } catch (RuntimeException e) {
+                    fail(new WeiboException(e));
+                    return;
+                }
+                succeed(result);
+            }
+
+            @Override
+            public void onWeiboException(WeiboException e) {
+                fail(e);
+            }
+        };
+    }
+
+    /**
+     * Adds a callback, run on the callback executor once the future is done.
+     */
+    public WeiboFuture<T> addCallback(final Callback<? super T> callback) {
+        whenDone(new Runnable() {
+            @Override
+            public void run() {
+                mCallbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        WeiboException error = getError();
+                        if (error != null) {
+                            callback.onWeiboException(error);
+                        } else {
+                            callback.onSuccess(getResultNow());
+                        }
+                    }
+                });
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        HttpRequest request;
+        synchronized (this) {
+            if (mState != STATE_PENDING) {
+                return false;
+            }
+            mState = STATE_CANCELED;
+            mError = new WeiboException("Request canceled");
+            request = mRequest;
+        }
+        if (request != null) {
+            request.cancel();
+        }
+        complete();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return mState == STATE_CANCELED;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return mState != STATE_PENDING;
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        mDone.await();
+        return report();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+            TimeoutException {
+        if (!mDone.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return report();
+    }
+
+    /**
+     * Waits for the result, rethrowing a failure as is.
+     *
+     * @throws WeiboException if the request failed or was canceled
+     */
+    public T join() throws WeiboException {
+        try {
+            mDone.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(true);
+        }
+        WeiboException error = getError();
+        if (error != null) {
+            throw error;
+        }
+        return getResultNow();
+    }
+
+    private synchronized T getResultNow() {
+        return mResult;
+    }
+
+    private synchronized WeiboException getError() {
+        return mError;
+    }
+
+    private T report() throws ExecutionException {
+        synchronized (this) {
+            if (mState == STATE_CANCELED) {
+                throw new CancellationException();
+            }
+            if (mState == STATE_FAILED) {
+                throw new ExecutionException(mError);
+            }
+            return mResult;
+        }
+    }
+
+    private void bind(HttpRequest request) {
+        boolean canceled;
+        synchronized (this) {
+            mRequest = request;
+            canceled = mState == STATE_CANCELED;
+        }
+        if (canceled) {
+            request.cancel();
+        }
+    }
+
+    private void succeed(T result) {
+        synchronized (this) {
+            if (mState != STATE_PENDING) {
+                return;
+            }
+            mState = STATE_SUCCEEDED;
+            mResult = result;
+            mRequest = null;
+        }
+        complete();
+    }
+
+    private void fail(WeiboException error) {
+        synchronized (this) {
+            if (mState != STATE_PENDING) {
+                return;
+            }
+            mState = STATE_FAILED;
+            mError = error;
+            mRequest = null;
+        }
+        complete();
+    }
+
+    /**
+     * Runs an action on the completing thread once done, or at once.
+     */
+    private void whenDone(Runnable action) {
+        synchronized (this) {
+            if (mState == STATE_PENDING) {
+                mCompletionActions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    private void complete() {
+        List<Runnable> actions;
+        synchronized (this) {
+            actions = mCompletionActions;
+            mCompletionActions = null;
+        }
+        mDone.countDown();
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
+}
@@ -16,13 +16,23 @@
 
 package com.sina.weibo.sdk.openapi;
 
-import android.text.TextUtils;
+import java.util.concurrent.Executor;
 
 import com.sina.weibo.sdk.auth.Oauth2AccessToken;
-import com.sina.weibo.sdk.net.AsyncWeiboRunner;
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.net.AsyncTransportRunner;
+import com.sina.weibo.sdk.net.CallDeadline;
+import com.sina.weibo.sdk.net.HttpRequest;
+import com.sina.weibo.sdk.net.IHttpTransport;
+import com.sina.weibo.sdk.net.ParamsBuilder;
+import com.sina.weibo.sdk.net.RequestAwareListener;
 import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.net.RequestScheduler;
+import com.sina.weibo.sdk.net.RequestSpan;
 import com.sina.weibo.sdk.net.WeiboParameters;
-import com.sina.weibo.sdk.utils.LogUtil;
+import com.sina.weibo.sdk.platform.PlatformLog;
+import com.sina.weibo.sdk.utils.TextHelper;
+import com.sina.weibo.sdk.utils.TraceLog;
 
 /**
  * This is the base class for each API class
@@ -47,6 +57,18 @@ public abstract class AbsOpenAPI {
     protected static final String KEY_ACCESS_TOKEN = "access_token";
     
     protected Oauth2AccessToken mAccessToken;
+    
+    /** Parent span of the requests issued by this instance, null to use the current span */
+    private RequestSpan mParentSpan;
+    
+    /** Transport of the requests issued by this instance, null to use the default one */
+    private IHttpTransport mTransport;
+    
+    /** Timeout of each request issued by this instance in milliseconds, 0 for none */
+    private long mCallTimeoutMillis;
+    
+    /** Scheduler of the requests issued by this instance, null to use {@link AsyncTransportRunner} */
+    private RequestScheduler mScheduler;
 
     /**
      * Constructs an instance with OAuth2 access token.
@@ -56,6 +78,46 @@ public abstract class AbsOpenAPI {
     public AbsOpenAPI(Oauth2AccessToken accessToken) {
         mAccessToken = accessToken;
     }
+    
+    /**
+     * Sets the parent span of the requests issued by this instance. Only used when
+     * tracing is enabled, see {@link TraceLog#enable()}.
+     * 
+     * @param parentSpan parent span, null to use the span current on the calling thread
+     */
+    public void setParentSpan(RequestSpan parentSpan) {
+        mParentSpan = parentSpan;
+    }
+
+    /**
+     * Sets the transport of the requests issued by this instance.
+     * 
+     * @param transport transport, null to use {@link AsyncTransportRunner#getDefaultTransport()}
+     */
+    public void setTransport(IHttpTransport transport) {
+        mTransport = transport;
+    }
+
+    /**
+     * Sets the timeout of each request issued by this instance, on top of the
+     * connection and socket timeouts of the transport. The earliest of this
+     * timeout and the {@link CallDeadline} of the calling thread applies.
+     * 
+     * @param timeoutMillis timeout in milliseconds, 0 for none
+     */
+    public void setCallTimeout(long timeoutMillis) {
+        mCallTimeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Sets the scheduler executing the requests issued by this instance, for
+     * example an {@link AccountPool.Account}.
+     * 
+     * @param scheduler scheduler, null to run the requests with {@link AsyncTransportRunner}
+     */
+    public void setScheduler(RequestScheduler scheduler) {
+        mScheduler = scheduler;
+    }
 
     /**
      * Async HTTP request
@@ -67,16 +129,44 @@ public abstract class AbsOpenAPI {
      */
     protected void requestAsync(String url, WeiboParameters params, String httpMethod, RequestListener listener) {
         if (null == mAccessToken
-                || TextUtils.isEmpty(url)
+                || TextHelper.isEmpty(url)
                 || null == params
-                || TextUtils.isEmpty(httpMethod)
+                || TextHelper.isEmpty(httpMethod)
                 || null == listener) {
-            LogUtil.e(TAG, "Argument error!");
+            PlatformLog.e(TAG, "Argument error!");
+            if (listener instanceof RequestAwareListener) {
+                listener.onWeiboException(new WeiboException("Argument error!"));
+            }
             return;
         }
         
         params.put(KEY_ACCESS_TOKEN, mAccessToken.getToken());
-        AsyncWeiboRunner.requestAsync(url, params, httpMethod, listener);
+        requestAsync(new HttpRequest(url, httpMethod, params), listener);
+    }
+    
+    /**
+     * Async HTTP request with parameters built by a {@link ParamsBuilder}
+     * 
+     * @param url        HTTP request url
+     * @param params     HTTP request parameters
+     * @param httpMethod HTTP request method
+     * @param listener   callback listen
+     */
+    protected void requestAsync(String url, ParamsBuilder params, String httpMethod, RequestListener listener) {
+        if (null == mAccessToken
+                || TextHelper.isEmpty(url)
+                || null == params
+                || TextHelper.isEmpty(httpMethod)
+                || null == listener) {
+            PlatformLog.e(TAG, "Argument error!");
+            if (listener instanceof RequestAwareListener) {
+                listener.onWeiboException(new WeiboException("Argument error!"));
+            }
+            return;
+        }
+        
+        params.put(KEY_ACCESS_TOKEN, mAccessToken.getToken());
+        requestAsync(new HttpRequest(url, httpMethod, params), listener);
     }
     
     /**
@@ -90,14 +180,95 @@ public abstract class AbsOpenAPI {
      */
     protected String requestSync(String url, WeiboParameters params, String httpMethod) {
         if (null == mAccessToken
-                || TextUtils.isEmpty(url)
+                || TextHelper.isEmpty(url)
+                || null == params
+                || TextHelper.isEmpty(httpMethod)) {
+            PlatformLog.e(TAG, "Argument error!");
+            return "";
+        }
+        
+        params.put(KEY_ACCESS_TOKEN, mAccessToken.getToken());
+        return requestSync(new HttpRequest(url, httpMethod, params));
+    }
+    
+    /**
+     * Synchronized HTTP request with parameters built by a {@link ParamsBuilder}
+     * 
+     * @param url        HTTP request url
+     * @param params     HTTP request parameters
+     * @param httpMethod HTTP request method
+     * 
+     * @return server response
+     */
+    protected String requestSync(String url, ParamsBuilder params, String httpMethod) {
+        if (null == mAccessToken
+                || TextHelper.isEmpty(url)
                 || null == params
-                || TextUtils.isEmpty(httpMethod)) {
-            LogUtil.e(TAG, "Argument error!");
+                || TextHelper.isEmpty(httpMethod)) {
+            PlatformLog.e(TAG, "Argument error!");
             return "";
         }
         
         params.put(KEY_ACCESS_TOKEN, mAccessToken.getToken());
-        return AsyncWeiboRunner.request(url, params, httpMethod);
+        return requestSync(new HttpRequest(url, httpMethod, params));
+    }
+    
+    private void requestAsync(HttpRequest request, RequestListener listener) {
+        request.setDeadline(callDeadline());
+        Executor callbackExecutor = null;
+        if (listener instanceof RequestAwareListener) {
+            // Called back on the worker thread, see RequestAwareListener
+            ((RequestAwareListener) listener).onRequestCreated(request);
+        } else {
+            callbackExecutor = AsyncTransportRunner.getCallbackExecutor();
+        }
+        if (TraceLog.isEnabled()) {
+            listener = startSpan(request).wrap(listener);
+        }
+        RequestScheduler scheduler = mScheduler;
+        if (scheduler != null) {
+            scheduler.requestAsync(mTransport, request, listener, callbackExecutor);
+        } else {
+            AsyncTransportRunner.requestAsync(mTransport, request, listener, callbackExecutor);
+        }
+    }
+    
+    private String requestSync(HttpRequest request) {
+        request.setDeadline(callDeadline());
+        if (!TraceLog.isEnabled()) {
+            return execute(request);
+        }
+        
+        RequestSpan span = startSpan(request);
+        try {
+            String response = execute(request);
+            span.finish(null);
+            return response;
+        } catch (WeiboException e) {
+            span.finish(e);
+            throw e;
+        }
+    }
+    
+    private String execute(HttpRequest request) {
+        RequestScheduler scheduler = mScheduler;
+        return scheduler != null
+                ? scheduler.request(mTransport, request)
+                : AsyncTransportRunner.request(mTransport, request);
+    }
+    
+    private long callDeadline() {
+        long deadline = CallDeadline.current();
+        if (mCallTimeoutMillis > 0) {
+            deadline = CallDeadline.earliest(deadline, CallDeadline.after(mCallTimeoutMillis));
+        }
+        return deadline;
+    }
+    
+    private RequestSpan startSpan(HttpRequest request) {
+        RequestSpan parent = mParentSpan != null ? mParentSpan : RequestSpan.current();
+        RequestSpan span = RequestSpan.start(parent, request.getUrl(), request.getHttpMethod());
+        request.setHeader(HttpRequest.HEADER_REQUEST_ID, span.getRequestId());
+        return span;
     }
 }
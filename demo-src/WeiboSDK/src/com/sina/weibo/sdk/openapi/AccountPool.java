@@ -0,0 +1,501 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sina.weibo.sdk.auth.Oauth2AccessToken;
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.net.AsyncTransportRunner;
+import com.sina.weibo.sdk.net.HttpRequest;
+import com.sina.weibo.sdk.net.IHttpTransport;
+import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.net.RequestScheduler;
+import com.sina.weibo.sdk.net.WeiboParameters;
+import com.sina.weibo.sdk.platform.Platform;
+
+/**
+ * Runs the requests of many accounts on one pool of worker threads, so that
+ * a busy account cannot starve the others.
+ *
+ * Each account has its own queue, a limit of requests running at once and a
+ * limit of queued requests. Free workers pick the next request with deficit
+ * round robin: every turn an account earns its quantum, and sends requests
+ * while their cost fits in its credit. A request uploading binary data costs
+ * {@link #COST_UPLOAD}, any other 1, so accounts get a share of the workers
+ * proportional to their quantum whatever they send.
+ *
+ * All the accounts share the transport and the worker threads, hence the
+ * connection pool and the per-thread buffers of {@link com.sina.weibo.sdk.net.DefaultHttpTransport}.
+ *
+ * <pre>
+ * AccountPool pool = new AccountPool(16);
+ * StatusesAPI api = pool.addAccount(token).bind(new StatusesAPI(token));
+ * </pre>
+ *
+ * Both the async and the *Sync methods of a bound API go through the pool.
+ *
+ * @author SINA
+ * @since 2014-04-30
+ */
+public class AccountPool {
+
+    public static final int DEFAULT_THREADS         = 8;
+    public static final int DEFAULT_MAX_CONCURRENCY = 2;
+    public static final int DEFAULT_MAX_QUEUED      = 100;
+    public static final int DEFAULT_QUANTUM         = 1;
+
+    /** Cost of a request uploading binary data */
+    public static final int COST_UPLOAD = 4;
+
+    private final int mThreads;
+    private final ExecutorService mWorkers;
+
+    /** State below is guarded by this */
+    private final Map<String, Account> mAccounts = new HashMap<String, Account>();
+    /** Accounts with queued requests, in round robin order */
+    private final ArrayList<Account> mActive = new ArrayList<Account>();
+    private int mActiveIndex;
+    private int mRunning;
+    private boolean mShutdown;
+
+    public AccountPool() {
+        this(DEFAULT_THREADS);
+    }
+
+    /**
+     * @param threads number of worker threads, i.e. of requests running at once
+     */
+    public AccountPool(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads <= 0");
+        }
+        mThreads = threads;
+        mWorkers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "WeiboAccountPool #" + mCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public Account addAccount(Oauth2AccessToken token) {
+        return addAccount(token, DEFAULT_MAX_CONCURRENCY, DEFAULT_MAX_QUEUED, DEFAULT_QUANTUM);
+    }
+
+    /**
+     * Adds an account.
+     *
+     * @param token          access token of the account
+     * @param maxConcurrency maximum number of its requests running at once
+     * @param maxQueued      maximum number of its requests waiting, further ones fail at once
+     * @param quantum        credit earned per turn, i.e. its weight
+     */
+    public synchronized Account addAccount(Oauth2AccessToken token, int maxConcurrency, int maxQueued,
+            int quantum) {
+        if (token == null || maxConcurrency <= 0 || maxQueued < 0 || quantum <= 0) {
+            throw new IllegalArgumentException("Argument error!");
+        }
+        if (mShutdown) {
+            throw new IllegalStateException("AccountPool is shut down");
+        }
+        if (mAccounts.containsKey(token.getToken())) {
+            throw new IllegalArgumentException("Account already added");
+        }
+        Account account = new Account(token, maxConcurrency, maxQueued, quantum);
+        mAccounts.put(token.getToken(), account);
+        return account;
+    }
+
+    /**
+     * Returns the account of an access token, or null.
+     */
+    public synchronized Account getAccount(String token) {
+        return mAccounts.get(token);
+    }
+
+    public synchronized List<Account> getAccounts() {
+        return new ArrayList<Account>(mAccounts.values());
+    }
+
+    /**
+     * Removes an account. Its queued requests fail, running ones complete.
+     */
+    public void removeAccount(Account account) {
+        List<Task> dropped;
+        synchronized (this) {
+            if (mAccounts.remove(account.mToken.getToken()) == null) {
+                return;
+            }
+            dropped = account.drop();
+        }
+        fail(dropped, "Account removed");
+    }
+
+    /**
+     * Stops the pool. Queued requests fail, running ones complete.
+     */
+    public void shutdown() {
+        List<Task> dropped = new ArrayList<Task>();
+        synchronized (this) {
+            if (mShutdown) {
+                return;
+            }
+            mShutdown = true;
+            for (Account account : mAccounts.values()) {
+                dropped.addAll(account.drop());
+            }
+            mAccounts.clear();
+        }
+        fail(dropped, "AccountPool is shut down");
+        mWorkers.shutdown();
+    }
+
+    private void submit(Task task) {
+        Account account = task.mAccount;
+        String rejection = null;
+        synchronized (this) {
+            if (mShutdown) {
+                rejection = "AccountPool is shut down";
+            } else if (account.mRemoved) {
+                rejection = "Account removed";
+            } else if (account.mQueue.size() >= account.mMaxQueued) {
+                account.mRejected++;
+                rejection = "Too many requests queued for account";
+            } else {
+                account.mSubmitted++;
+                account.mQueue.add(task);
+                if (account.mQueue.size() == 1) {
+                    mActive.add(account);
+                }
+            }
+        }
+
+        if (rejection != null) {
+            task.deliver(null, new WeiboException(rejection));
+        } else {
+            dispatch();
+        }
+    }
+
+    /**
+     * Hands requests to the free workers.
+     */
+    private void dispatch() {
+        List<Task> ready = null;
+        synchronized (this) {
+            while (mRunning < mThreads) {
+                Task task = nextTask();
+                if (task == null) {
+                    break;
+                }
+                mRunning++;
+                task.mAccount.mRunning++;
+                task.mAccount.mWaitNanos += System.nanoTime() - task.mQueuedNanos;
+                if (ready == null) {
+                    ready = new ArrayList<Task>(2);
+                }
+                ready.add(task);
+            }
+        }
+
+        if (ready != null) {
+            for (Task task : ready) {
+                mWorkers.execute(task);
+            }
+        }
+    }
+
+    /**
+     * Deficit round robin over the active accounts. An account keeps its turn
+     * while its credit covers its next request; an account at its concurrency
+     * limit is skipped and earns nothing.
+     */
+    private Task nextTask() {
+        int skipped = 0;
+        while (!mActive.isEmpty() && skipped < mActive.size()) {
+            if (mActiveIndex >= mActive.size()) {
+                mActiveIndex = 0;
+            }
+            Account account = mActive.get(mActiveIndex);
+            if (account.mRunning < account.mMaxConcurrency) {
+                if (!account.mHasTurn) {
+                    account.mDeficit += account.mQuantum;
+                    account.mHasTurn = true;
+                }
+                Task task = account.mQueue.getFirst();
+                if (task.mCost <= account.mDeficit) {
+                    account.mDeficit -= task.mCost;
+                    account.mQueue.removeFirst();
+                    if (account.mQueue.isEmpty()) {
+                        account.mDeficit = 0;
+                        account.mHasTurn = false;
+                        mActive.remove(mActiveIndex);
+                    }
+                    return task;
+                }
+                // The credit grows every turn, the request is sent in a later one
+                skipped = 0;
+            } else {
+                skipped++;
+            }
+            account.mHasTurn = false;
+            mActiveIndex++;
+        }
+        return null;
+    }
+
+    private void finish(Task task, long runNanos, boolean succeeded) {
+        synchronized (this) {
+            mRunning--;
+            Account account = task.mAccount;
+            account.mRunning--;
+            account.mRunNanos += runNanos;
+            if (succeeded) {
+                account.mSucceeded++;
+            } else {
+                account.mFailed++;
+            }
+        }
+        dispatch();
+    }
+
+    private static void fail(List<Task> tasks, String message) {
+        for (Task task : tasks) {
+            task.deliver(null, new WeiboException(message));
+        }
+    }
+
+    private static int costOf(HttpRequest request) {
+        WeiboParameters params = request.getParams();
+        if (params != null) {
+            Platform platform = Platform.get();
+            for (String key : params.keySet()) {
+                if (platform.isBinary(params.get(key))) {
+                    return COST_UPLOAD;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * An account of the pool. Bind OpenAPI instances to it with {@link #bind(AbsOpenAPI)}.
+     */
+    public final class Account implements RequestScheduler {
+
+        private final Oauth2AccessToken mToken;
+        private final int mMaxConcurrency;
+        private final int mMaxQueued;
+        private final int mQuantum;
+
+        /** State below is guarded by the pool */
+        private final LinkedList<Task> mQueue = new LinkedList<Task>();
+        private int mRunning;
+        private int mDeficit;
+        private boolean mHasTurn;
+        private boolean mRemoved;
+        private long mSubmitted;
+        private long mRejected;
+        private long mSucceeded;
+        private long mFailed;
+        private long mWaitNanos;
+        private long mRunNanos;
+
+        private Account(Oauth2AccessToken token, int maxConcurrency, int maxQueued, int quantum) {
+            mToken          = token;
+            mMaxConcurrency = maxConcurrency;
+            mMaxQueued      = maxQueued;
+            mQuantum        = quantum;
+        }
+
+        public Oauth2AccessToken getToken() {
+            return mToken;
+        }
+
+        /**
+         * Makes an OpenAPI instance use the token of this account and run its
+         * requests in the pool.
+         */
+        public <T extends AbsOpenAPI> T bind(T api) {
+            api.mAccessToken = mToken;
+            api.setScheduler(this);
+            return api;
+        }
+
+        /**
+         * Returns a snapshot of the metrics of this account.
+         */
+        public Stats getStats() {
+            synchronized (AccountPool.this) {
+                return new Stats(mQueue.size(), mRunning, mSubmitted, mRejected, mSucceeded, mFailed,
+                        mWaitNanos, mRunNanos);
+            }
+        }
+
+        @Override
+        public String request(IHttpTransport transport, HttpRequest request) throws WeiboException {
+            final CountDownLatch done = new CountDownLatch(1);
+            final String[] response = new String[1];
+            final WeiboException[] error = new WeiboException[1];
+            submit(new Task(this, transport, request, new RequestListener() {
+                @Override
+                public void onComplete(String result) {
+                    response[0] = result;
+                    done.countDown();
+                }
+
+                @Override
+                public void onWeiboException(WeiboException e) {
+                    error[0] = e;
+                    done.countDown();
+                }
+            }, null));
+
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                request.cancel();
+                throw new WeiboException("Interrupted", e);
+            }
+            if (error[0] != null) {
+                throw error[0];
+            }
+            return response[0];
+        }
+
+        @Override
+        public void requestAsync(IHttpTransport transport, HttpRequest request, RequestListener listener,
+                Executor callbackExecutor) {
+            submit(new Task(this, transport, request, listener, callbackExecutor));
+        }
+
+        private List<Task> drop() {
+            mRemoved = true;
+            mActive.remove(this);
+            List<Task> dropped = new ArrayList<Task>(mQueue);
+            mQueue.clear();
+            return dropped;
+        }
+    }
+
+    /**
+     * Metrics of an account.
+     */
+    public static final class Stats {
+        /** Requests waiting */
+        public final int queued;
+        /** Requests running */
+        public final int running;
+        /** Requests accepted */
+        public final long submitted;
+        /** Requests refused because the queue was full */
+        public final long rejected;
+        public final long succeeded;
+        public final long failed;
+        /** Total time requests spent queued, in nanoseconds */
+        public final long waitNanos;
+        /** Total time requests spent running, in nanoseconds */
+        public final long runNanos;
+
+        Stats(int queued, int running, long submitted, long rejected, long succeeded, long failed,
+                long waitNanos, long runNanos) {
+            this.queued    = queued;
+            this.running   = running;
+            this.submitted = submitted;
+            this.rejected  = rejected;
+            this.succeeded = succeeded;
+            this.failed    = failed;
+            this.waitNanos = waitNanos;
+            this.runNanos  = runNanos;
+        }
+    }
+
+    private final class Task implements Runnable {
+        final Account mAccount;
+        final IHttpTransport mTransport;
+        final HttpRequest mRequest;
+        final RequestListener mListener;
+        final Executor mCallbackExecutor;
+        final int mCost;
+        final long mQueuedNanos;
+
+        Task(Account account, IHttpTransport transport, HttpRequest request, RequestListener listener,
+                Executor callbackExecutor) {
+            mAccount          = account;
+            mTransport        = transport;
+            mRequest          = request;
+            mListener         = listener;
+            mCallbackExecutor = callbackExecutor;
+            mCost             = costOf(request);
+            mQueuedNanos      = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            String response = null;
+            WeiboException error = null;
+            try {
+                try {
+                    response = AsyncTransportRunner.request(mTransport, mRequest);
+                } catch (WeiboException e) {
+                    error = e;
+                } catch (RuntimeException e) {
+                    error = new WeiboException(e);
+                }
+                deliver(response, error);
+            } finally {
+                // Frees the running slot whatever happened, or the pool shrinks for good
+                finish(this, System.nanoTime() - start, error == null);
+            }
+        }
+
+        void deliver(final String response, final WeiboException error) {
+            Runnable callback = new Runnable() {
+                @Override
+                public void run() {
+                    if (error != null) {
+                        mListener.onWeiboException(error);
+                    } else {
+                        mListener.onComplete(response);
+                    }
+                }
+            };
+            if (mCallbackExecutor != null) {
+                mCallbackExecutor.execute(callback);
+            } else {
+                callback.run();
+            }
+        }
+    }
+}
@@ -16,11 +16,16 @@
 
 package com.sina.weibo.sdk.openapi;
 
-import android.util.SparseArray;
+import java.util.List;
 
 import com.sina.weibo.sdk.auth.Oauth2AccessToken;
 import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.net.WeiboFuture;
 import com.sina.weibo.sdk.net.WeiboParameters;
+import com.sina.weibo.sdk.openapi.models.Comment;
+import com.sina.weibo.sdk.openapi.models.CommentList;
+import com.sina.weibo.sdk.openapi.models.ResponseParsers;
+import com.sina.weibo.sdk.utils.IntSparseArray;
 
 /**
  * This class wraps the comments API
@@ -68,7 +73,7 @@ public class CommentsAPI extends AbsOpenAPI {
     
     private static final String API_BASE_URL = API_SERVER + "/comments";
     
-    private static final SparseArray<String> sAPIList = new SparseArray<String>();
+    private static final IntSparseArray<String> sAPIList = new IntSparseArray<String>();
     static {
         sAPIList.put(READ_API_TO_ME,           API_BASE_URL + "/to_me.json");
         sAPIList.put(READ_API_BY_ME,           API_BASE_URL + "/by_me.json");
@@ -355,6 +360,109 @@ public class CommentsAPI extends AbsOpenAPI {
         return requestSync(sAPIList.get(WRITE_API_REPLY), params, HTTPMETHOD_POST);
     }
 
+    /**
+     * -----------------------------------------------------------------------
+     * Notice: methods below return a {@link WeiboFuture}, cancelling it cancels
+     * the request
+     * -----------------------------------------------------------------------
+     */
+
+    /**
+     * @see #show(long, long, long, int, int, int, RequestListener)
+     */
+    public WeiboFuture<CommentList> showFuture(long id, long since_id, long max_id, int count, int page,
+            int authorType) {
+        WeiboFuture<CommentList> future = new WeiboFuture<CommentList>(ResponseParsers.COMMENT_LIST);
+        show(id, since_id, max_id, count, page, authorType, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #byME(long, long, int, int, int, RequestListener)
+     */
+    public WeiboFuture<CommentList> byMEFuture(long since_id, long max_id, int count, int page,
+            int sourceType) {
+        WeiboFuture<CommentList> future = new WeiboFuture<CommentList>(ResponseParsers.COMMENT_LIST);
+        byME(since_id, max_id, count, page, sourceType, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #toME(long, long, int, int, int, int, RequestListener)
+     */
+    public WeiboFuture<CommentList> toMEFuture(long since_id, long max_id, int count, int page,
+            int authorType, int sourceType) {
+        WeiboFuture<CommentList> future = new WeiboFuture<CommentList>(ResponseParsers.COMMENT_LIST);
+        toME(since_id, max_id, count, page, authorType, sourceType, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #timeline(long, long, int, int, boolean, RequestListener)
+     */
+    public WeiboFuture<CommentList> timelineFuture(long since_id, long max_id, int count, int page,
+            boolean trim_user) {
+        WeiboFuture<CommentList> future = new WeiboFuture<CommentList>(ResponseParsers.COMMENT_LIST);
+        timeline(since_id, max_id, count, page, trim_user, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #mentions(long, long, int, int, int, int, RequestListener)
+     */
+    public WeiboFuture<CommentList> mentionsFuture(long since_id, long max_id, int count, int page,
+            int authorType, int sourceType) {
+        WeiboFuture<CommentList> future = new WeiboFuture<CommentList>(ResponseParsers.COMMENT_LIST);
+        mentions(since_id, max_id, count, page, authorType, sourceType, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #showBatch(long[], RequestListener)
+     */
+    public WeiboFuture<List<Comment>> showBatchFuture(long[] cids) {
+        WeiboFuture<List<Comment>> future = new WeiboFuture<List<Comment>>(ResponseParsers.COMMENT_ARRAY);
+        showBatch(cids, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #create(String, long, boolean, RequestListener)
+     */
+    public WeiboFuture<Comment> createFuture(String comment, long id, boolean comment_ori) {
+        WeiboFuture<Comment> future = new WeiboFuture<Comment>(ResponseParsers.COMMENT);
+        create(comment, id, comment_ori, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #destroy(long, RequestListener)
+     */
+    public WeiboFuture<Comment> destroyFuture(long cid) {
+        WeiboFuture<Comment> future = new WeiboFuture<Comment>(ResponseParsers.COMMENT);
+        destroy(cid, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #destroyBatch(long[], RequestListener)
+     */
+    public WeiboFuture<List<Comment>> destroyBatchFuture(long[] ids) {
+        WeiboFuture<List<Comment>> future = new WeiboFuture<List<Comment>>(ResponseParsers.COMMENT_ARRAY);
+        destroyBatch(ids, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #reply(long, long, String, boolean, boolean, RequestListener)
+     */
+    public WeiboFuture<Comment> replyFuture(long cid, long id, String comment, boolean without_mention,
+            boolean comment_ori) {
+        WeiboFuture<Comment> future = new WeiboFuture<Comment>(ResponseParsers.COMMENT);
+        reply(cid, id, comment, without_mention, comment_ori, future.asListener());
+        return future;
+    }
+
     /** 
      * build TimeLines paramters
      */
@@ -18,12 +18,11 @@ package com.sina.weibo.sdk.openapi;
 
 import org.json.JSONObject;
 
-import android.text.TextUtils;
-
 import com.sina.weibo.sdk.auth.Oauth2AccessToken;
 import com.sina.weibo.sdk.net.RequestListener;
 import com.sina.weibo.sdk.net.WeiboParameters;
-import com.sina.weibo.sdk.utils.LogUtil;
+import com.sina.weibo.sdk.platform.PlatformLog;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * Inviatation API
@@ -73,16 +72,16 @@ public class InviteAPI extends AbsOpenAPI {
      * 
      */
     public void sendInvite(String uid, JSONObject jsonData, RequestListener listener) {
-        if (!TextUtils.isEmpty(uid) 
+        if (!TextHelper.isEmpty(uid) 
                 && jsonData != null 
-                && !TextUtils.isEmpty(jsonData.toString())) {
+                && !TextHelper.isEmpty(jsonData.toString())) {
             
         	WeiboParameters params = new WeiboParameters();
             params.put("uid", uid);
             params.put("data", jsonData.toString());
             requestAsync(INVITE_URL, params, HTTPMETHOD_POST, listener);
         } else {
-            LogUtil.d(TAG, "Invite args error!");
+            PlatformLog.d(TAG, "Invite args error!");
         }
     }
 }
@@ -17,12 +17,18 @@
 package com.sina.weibo.sdk.openapi;
 
 import android.graphics.Bitmap;
-import android.text.TextUtils;
-import android.util.SparseArray;
 
 import com.sina.weibo.sdk.auth.Oauth2AccessToken;
+import com.sina.weibo.sdk.net.ParamsBuilder;
 import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.net.WeiboFuture;
 import com.sina.weibo.sdk.net.WeiboParameters;
+import com.sina.weibo.sdk.openapi.models.ResponseParsers;
+import com.sina.weibo.sdk.openapi.models.Status;
+import com.sina.weibo.sdk.openapi.models.StatusList;
+import com.sina.weibo.sdk.openapi.models.StatusProjection;
+import com.sina.weibo.sdk.utils.IntSparseArray;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * Weibo APIs
@@ -85,7 +91,7 @@ public class StatusesAPI extends AbsOpenAPI {
     private static final int WRITE_API_UPLOAD          = 4;
     private static final int WRITE_API_UPLOAD_URL_TEXT = 5;
 
-    private static final SparseArray<String> sAPIList = new SparseArray<String>();
+    private static final IntSparseArray<String> sAPIList = new IntSparseArray<String>();
     static {
         sAPIList.put(READ_API_FRIENDS_TIMELINE, API_BASE_URL + "/friends_timeline.json");
         sAPIList.put(READ_API_MENTIONS,         API_BASE_URL + "/mentions.json");
@@ -131,7 +137,7 @@ public class StatusesAPI extends AbsOpenAPI {
      */
     public void friendsTimeline(long since_id, long max_id, int count, int page, boolean base_app,
             int featureType, boolean trim_user, RequestListener listener) {
-        WeiboParameters params = 
+        ParamsBuilder params = 
                 buildTimeLineParamsBase(since_id, max_id, count, page, base_app, trim_user, featureType);
         requestAsync(sAPIList.get(READ_API_FRIENDS_TIMELINE), params, HTTPMETHOD_GET, listener);
     }    
@@ -170,7 +176,7 @@ public class StatusesAPI extends AbsOpenAPI {
      */
     public void mentions(long since_id, long max_id, int count, int page, int authorType, int sourceType,
             int filterType, boolean trim_user, RequestListener listener) {
-        WeiboParameters params = buildMentionsParams(since_id, max_id, count, page, authorType, sourceType, filterType, trim_user);
+        ParamsBuilder params = buildMentionsParams(since_id, max_id, count, page, authorType, sourceType, filterType, trim_user);
         requestAsync(sAPIList.get(READ_API_MENTIONS), params, HTTPMETHOD_GET, listener);
     }
     
@@ -188,17 +194,39 @@ public class StatusesAPI extends AbsOpenAPI {
     }
     
     /**
-     * Post a Weibo with an image
+     * Post a Weibo with an encoded image. Android apps uploading a Bitmap use
+     * {@link com.sina.weibo.sdk.openapi.android.AndroidStatusesAPI}.
      * 
      * @param content  Weibo content, max length is 140 Chinese Characters
-     * @param bitmap   Bitmap, only support JPEG、GIF、PNG formats，max size is 5MB
+     * @param image    JPEG、GIF or PNG file content, max size is 5MB
      * @param lat      latitude，Valid Range [-90.0, 90.0]，+ means north latitude, Default is 0.0
      * @param lon      longitude，Valid Range[-180.0, +180.0]，+ means east longitude, Default is 0.0
      * @param listener callback
      */
+    public void upload(String content, byte[] image, String lat, String lon, RequestListener listener) {
+        uploadImage(content, image, lat, lon, listener);
+    }
+
+    /**
+     * Post a Weibo with a Bitmap. The bitmap is only referenced here, never
+     * loaded, so this class still runs on a plain JVM.
+     * 
+     * @deprecated use {@link com.sina.weibo.sdk.openapi.android.AndroidStatusesAPI}, this
+     *             overload will be removed in the next release
+     */
+    @Deprecated
     public void upload(String content, Bitmap bitmap, String lat, String lon, RequestListener listener) {
+        uploadImage(content, bitmap, lat, lon, listener);
+    }
+
+    /**
+     * Post a Weibo with an image of any type accepted by
+     * {@link com.sina.weibo.sdk.platform.Platform#isBinary(Object)}, for the
+     * platform adapters.
+     */
+    protected void uploadImage(String content, Object image, String lat, String lon, RequestListener listener) {
         WeiboParameters params = buildUpdateParams(content, lat, lon);
-        params.put("pic", bitmap);
+        params.getParams().put("pic", image);
         requestAsync(sAPIList.get(WRITE_API_UPLOAD), params, HTTPMETHOD_POST, listener);
     }
     
@@ -228,7 +256,7 @@ public class StatusesAPI extends AbsOpenAPI {
      */
     public String friendsTimelineSync(long since_id, long max_id, int count, int page, boolean base_app, int featureType,
             boolean trim_user) {
-        WeiboParameters params = buildTimeLineParamsBase(since_id, max_id, count, page, base_app,
+        ParamsBuilder params = buildTimeLineParamsBase(since_id, max_id, count, page, base_app,
                 trim_user, featureType);
         return requestSync(sAPIList.get(READ_API_FRIENDS_TIMELINE), params, HTTPMETHOD_GET);
     }
@@ -244,7 +272,7 @@ public class StatusesAPI extends AbsOpenAPI {
      */
     public String mentionsSync(long since_id, long max_id, int count, int page,
             int authorType, int sourceType, int filterType, boolean trim_user) {
-        WeiboParameters params = buildMentionsParams(since_id, max_id, count, page, authorType, sourceType, filterType, trim_user);
+        ParamsBuilder params = buildMentionsParams(since_id, max_id, count, page, authorType, sourceType, filterType, trim_user);
         return requestSync(sAPIList.get(READ_API_MENTIONS), params, HTTPMETHOD_GET);
     }
 
@@ -257,11 +285,27 @@ public class StatusesAPI extends AbsOpenAPI {
     }
 
     /**
-     * @see #upload(String, Bitmap, String, String, RequestListener)
+     * @see #upload(String, byte[], String, String, RequestListener)
+     */
+    public String uploadSync(String content, byte[] image, String lat, String lon) {
+        return uploadImageSync(content, image, lat, lon);
+    }
+
+    /**
+     * @deprecated use {@link com.sina.weibo.sdk.openapi.android.AndroidStatusesAPI}, this
+     *             overload will be removed in the next release
      */
+    @Deprecated
     public String uploadSync(String content, Bitmap bitmap, String lat, String lon) {
+        return uploadImageSync(content, bitmap, lat, lon);
+    }
+
+    /**
+     * @see #uploadImage(String, Object, String, String, RequestListener)
+     */
+    protected String uploadImageSync(String content, Object image, String lat, String lon) {
         WeiboParameters params = buildUpdateParams(content, lat, lon);
-        params.put("pic", bitmap);
+        params.getParams().put("pic", image);
         return requestSync(sAPIList.get(WRITE_API_UPLOAD), params, HTTPMETHOD_POST);
     }
 
@@ -275,10 +319,95 @@ public class StatusesAPI extends AbsOpenAPI {
         return requestSync(sAPIList.get(WRITE_API_UPLOAD_URL_TEXT), params, HTTPMETHOD_POST);
     }
 
+    /**
+     * -----------------------------------------------------------------------
+     * Notice: methods below return a {@link WeiboFuture}, cancelling it cancels
+     * the request
+     * -----------------------------------------------------------------------
+     */
+
+    /**
+     * @see #friendsTimeline(long, long, int, int, boolean, int, boolean, RequestListener)
+     */
+    public WeiboFuture<StatusList> friendsTimelineFuture(long since_id, long max_id, int count, int page,
+            boolean base_app, int featureType, boolean trim_user) {
+        WeiboFuture<StatusList> future = new WeiboFuture<StatusList>(ResponseParsers.STATUS_LIST);
+        friendsTimeline(since_id, max_id, count, page, base_app, featureType, trim_user, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #mentions(long, long, int, int, int, int, int, boolean, RequestListener)
+     */
+    public WeiboFuture<StatusList> mentionsFuture(long since_id, long max_id, int count, int page,
+            int authorType, int sourceType, int filterType, boolean trim_user) {
+        WeiboFuture<StatusList> future = new WeiboFuture<StatusList>(ResponseParsers.STATUS_LIST);
+        mentions(since_id, max_id, count, page, authorType, sourceType, filterType, trim_user, future.asListener());
+        return future;
+    }
+
+    /**
+     * Parses only the fields of the projection, and sets trim_user unless the
+     * projection needs user details.
+     * 
+     * @param projection fields to parse, null to parse them all
+     * @see #friendsTimeline(long, long, int, int, boolean, int, boolean, RequestListener)
+     */
+    public WeiboFuture<StatusList> friendsTimelineFuture(long since_id, long max_id, int count, int page,
+            boolean base_app, int featureType, StatusProjection projection) {
+        WeiboFuture<StatusList> future = new WeiboFuture<StatusList>(ResponseParsers.statusList(projection));
+        friendsTimeline(since_id, max_id, count, page, base_app, featureType,
+                StatusProjection.trimsUser(projection), future.asListener());
+        return future;
+    }
+
+    /**
+     * Parses only the fields of the projection, and sets trim_user unless the
+     * projection needs user details.
+     * 
+     * @param projection fields to parse, null to parse them all
+     * @see #mentions(long, long, int, int, int, int, int, boolean, RequestListener)
+     */
+    public WeiboFuture<StatusList> mentionsFuture(long since_id, long max_id, int count, int page,
+            int authorType, int sourceType, int filterType, StatusProjection projection) {
+        WeiboFuture<StatusList> future = new WeiboFuture<StatusList>(ResponseParsers.statusList(projection));
+        mentions(since_id, max_id, count, page, authorType, sourceType, filterType,
+                StatusProjection.trimsUser(projection), future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #update(String, String, String, RequestListener)
+     */
+    public WeiboFuture<Status> updateFuture(String content, String lat, String lon) {
+        WeiboFuture<Status> future = new WeiboFuture<Status>(ResponseParsers.STATUS);
+        update(content, lat, lon, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #upload(String, byte[], String, String, RequestListener)
+     */
+    public WeiboFuture<Status> uploadFuture(String content, byte[] image, String lat, String lon) {
+        WeiboFuture<Status> future = new WeiboFuture<Status>(ResponseParsers.STATUS);
+        upload(content, image, lat, lon, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #uploadUrlText(String, String, String, String, String, RequestListener)
+     */
+    public WeiboFuture<Status> uploadUrlTextFuture(String status, String imageUrl, String pic_id, String lat,
+            String lon) {
+        WeiboFuture<Status> future = new WeiboFuture<Status>(ResponseParsers.STATUS);
+        uploadUrlText(status, imageUrl, pic_id, lat, lon, future.asListener());
+        return future;
+    }
+
     // build params for TimeLines
-    private WeiboParameters buildTimeLineParamsBase(long since_id, long max_id, int count, int page,
+    private ParamsBuilder buildTimeLineParamsBase(long since_id, long max_id, int count, int page,
             boolean base_app, boolean trim_user, int featureType) {
-        WeiboParameters params = new WeiboParameters();
+        ParamsBuilder params = new ParamsBuilder();
         params.put("since_id", since_id);
         params.put("max_id", max_id);
         params.put("count", count);
@@ -293,18 +422,18 @@ public class StatusesAPI extends AbsOpenAPI {
     private WeiboParameters buildUpdateParams(String content, String lat, String lon) {
         WeiboParameters params = new WeiboParameters();
         params.put("status", content);
-        if (!TextUtils.isEmpty(lon)) {
+        if (!TextHelper.isEmpty(lon)) {
             params.put("long", lon);
         }
-        if (!TextUtils.isEmpty(lat)) {
+        if (!TextHelper.isEmpty(lat)) {
             params.put("lat", lat);
         }
         return params;
     }
     
-    private WeiboParameters buildMentionsParams(long since_id, long max_id, int count, int page,
+    private ParamsBuilder buildMentionsParams(long since_id, long max_id, int count, int page,
             int authorType, int sourceType, int filterType, boolean trim_user) {
-        WeiboParameters params = new WeiboParameters();
+        ParamsBuilder params = new ParamsBuilder(9);
         params.put("since_id", since_id);
         params.put("max_id", max_id);
         params.put("count", count);
@@ -16,11 +16,16 @@
 
 package com.sina.weibo.sdk.openapi;
 
-import android.util.SparseArray;
+import java.util.List;
 
 import com.sina.weibo.sdk.auth.Oauth2AccessToken;
 import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.net.WeiboFuture;
 import com.sina.weibo.sdk.net.WeiboParameters;
+import com.sina.weibo.sdk.openapi.models.ResponseParsers;
+import com.sina.weibo.sdk.openapi.models.User;
+import com.sina.weibo.sdk.openapi.models.UserCount;
+import com.sina.weibo.sdk.utils.IntSparseArray;
 
 /**
  * Class UsesAPI to access user information
@@ -38,7 +43,7 @@ public class UsersAPI extends AbsOpenAPI {
 
     private static final String API_BASE_URL = API_SERVER + "/users";
 
-    private static final SparseArray<String> sAPIList = new SparseArray<String>();
+    private static final IntSparseArray<String> sAPIList = new IntSparseArray<String>();
     static {
         sAPIList.put(READ_USER,           API_BASE_URL + "/show.json");
         sAPIList.put(READ_USER_BY_DOMAIN, API_BASE_URL + "/domain_show.json");
@@ -137,6 +142,49 @@ public class UsersAPI extends AbsOpenAPI {
         return requestSync(sAPIList.get(READ_USER_COUNT), params, HTTPMETHOD_GET);
     }
 
+    /**
+     * -----------------------------------------------------------------------
+     * Notice: methods below return a {@link WeiboFuture}, cancelling it cancels
+     * the request
+     * -----------------------------------------------------------------------
+     */
+
+    /**
+     * @see #show(long, RequestListener)
+     */
+    public WeiboFuture<User> showFuture(long uid) {
+        WeiboFuture<User> future = new WeiboFuture<User>(ResponseParsers.USER);
+        show(uid, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #show(String, RequestListener)
+     */
+    public WeiboFuture<User> showFuture(String screen_name) {
+        WeiboFuture<User> future = new WeiboFuture<User>(ResponseParsers.USER);
+        show(screen_name, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #domainShow(String, RequestListener)
+     */
+    public WeiboFuture<User> domainShowFuture(String domain) {
+        WeiboFuture<User> future = new WeiboFuture<User>(ResponseParsers.USER);
+        domainShow(domain, future.asListener());
+        return future;
+    }
+
+    /**
+     * @see #counts(long[], RequestListener)
+     */
+    public WeiboFuture<List<UserCount>> countsFuture(long[] uids) {
+        WeiboFuture<List<UserCount>> future = new WeiboFuture<List<UserCount>>(ResponseParsers.USER_COUNT_ARRAY);
+        counts(uids, future.asListener());
+        return future;
+    }
+
     private WeiboParameters buildCountsParams(long[] uids) {
         WeiboParameters params = new WeiboParameters();
         StringBuilder strb = new StringBuilder();
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.sina.weibo.sdk.openapi.android;
+
+import android.graphics.Bitmap;
+
+import com.sina.weibo.sdk.auth.Oauth2AccessToken;
+import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.openapi.legacy.StatusesAPI;
+
+/**
+ * 带有 {@link Bitmap} 上传接口的 {@link StatusesAPI}，供 Android 应用使用。
+ * 
+ * @author SINA
+ * @since 2014-04-22
+ */
+public class AndroidLegacyStatusesAPI extends StatusesAPI {
+
+    public AndroidLegacyStatusesAPI(Oauth2AccessToken accessToken) {
+        super(accessToken);
+    }
+
+    /**
+     * 上传图片并发布一条新微博，此方法会处理urlencode。
+     * 
+     * @param content   要发布的微博文本内容，内容不超过140个汉字
+     * @param bitmap    要上传的图片，仅支持JPEG、GIF、PNG格式，图片大小小于5M
+     * @param lat       纬度，有效范围：-90.0到+90.0，+表示北纬，默认为0.0
+     * @param lon       经度，有效范围：-180.0到+180.0，+表示东经，默认为0.0
+     * @param listener  异步请求回调接口
+     */
+    public void upload(String content, Bitmap bitmap, String lat, String lon, RequestListener listener) {
+        uploadImage(content, bitmap, lat, lon, listener);
+    }
+}
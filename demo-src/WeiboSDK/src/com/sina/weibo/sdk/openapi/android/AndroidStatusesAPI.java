@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.sina.weibo.sdk.openapi.android;
+
+import android.graphics.Bitmap;
+
+import com.sina.weibo.sdk.auth.Oauth2AccessToken;
+import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.net.WeiboFuture;
+import com.sina.weibo.sdk.openapi.StatusesAPI;
+import com.sina.weibo.sdk.openapi.models.ResponseParsers;
+import com.sina.weibo.sdk.openapi.models.Status;
+
+/**
+ * {@link StatusesAPI} with the {@link Bitmap} uploads of Android apps. The
+ * bitmap is compressed on the request thread, see
+ * {@link com.sina.weibo.sdk.platform.AndroidPlatform}.
+ *
+ * This package is the only part of the OpenAPI clients that needs Android, so
+ * that the rest builds and runs on a plain JVM.
+ *
+ * @author SINA
+ * @since 2014-04-22
+ */
+public class AndroidStatusesAPI extends StatusesAPI {
+
+    public AndroidStatusesAPI(Oauth2AccessToken accessToken) {
+        super(accessToken);
+    }
+
+    /**
+     * Post a Weibo with an image
+     * 
+     * @param content  Weibo content, max length is 140 Chinese Characters
+     * @param bitmap   Bitmap, only support JPEG、GIF、PNG formats，max size is 5MB
+     * @param lat      latitude，Valid Range [-90.0, 90.0]，+ means north latitude, Default is 0.0
+     * @param lon      longitude，Valid Range[-180.0, +180.0]，+ means east longitude, Default is 0.0
+     * @param listener callback
+     */
+    public void upload(String content, Bitmap bitmap, String lat, String lon, RequestListener listener) {
+        uploadImage(content, bitmap, lat, lon, listener);
+    }
+
+    /**
+     * @see #upload(String, Bitmap, String, String, RequestListener)
+     */
+    public String uploadSync(String content, Bitmap bitmap, String lat, String lon) {
+        return uploadImageSync(content, bitmap, lat, lon);
+    }
+
+    /**
+     * @see #upload(String, Bitmap, String, String, RequestListener)
+     */
+    public WeiboFuture<Status> uploadFuture(String content, Bitmap bitmap, String lat, String lon) {
+        WeiboFuture<Status> future = new WeiboFuture<Status>(ResponseParsers.STATUS);
+        upload(content, bitmap, lat, lon, future.asListener());
+        return future;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import com.sina.weibo.sdk.platform.PlatformLog;
+
+/**
+ * Files of the caches and other persisted state of the SDK: a magic number and
+ * a format version, then the content. A file is written next to its destination
+ * and renamed over it, so a crash while saving leaves the previous file intact.
+ *
+ * @author SINA
+ * @since 2014-05-12
+ */
+public final class CacheFile {
+    private static final String TAG = CacheFile.class.getName();
+
+    /**
+     * Writes the content of a file, after its header.
+     */
+    public interface Content {
+        public void write(DataOutputStream out) throws IOException;
+    }
+
+    private CacheFile() {
+    }
+
+    public static void save(File file, int magic, int version, Content content) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+        try {
+            out.writeInt(magic);
+            out.writeInt(version);
+            content.write(out);
+        } finally {
+            out.close();
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            file.delete();
+            if (!tmpFile.renameTo(file)) {
+                throw new IOException("Cannot rename " + tmpFile + " to " + file);
+            }
+        }
+    }
+
+    /**
+     * Opens a file and reads its header.
+     *
+     * @return the stream positioned on the content, or null if the file does not
+     *         exist or has another format
+     */
+    public static DataInputStream open(File file, int magic, int version) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        boolean valid = false;
+        try {
+            valid = in.readInt() == magic && in.readInt() == version;
+        } finally {
+            if (!valid) {
+                in.close();
+            }
+        }
+        if (!valid) {
+            PlatformLog.w(TAG, "Unknown cache file format: " + file);
+            return null;
+        }
+        return in;
+    }
+
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
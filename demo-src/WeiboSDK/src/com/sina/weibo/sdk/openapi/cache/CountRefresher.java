@@ -0,0 +1,442 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.openapi.legacy.StatusesAPI;
+import com.sina.weibo.sdk.openapi.models.EntityStore;
+import com.sina.weibo.sdk.openapi.models.Status;
+import com.sina.weibo.sdk.openapi.models.StatusCount;
+import com.sina.weibo.sdk.openapi.models.StatusCountList;
+import com.sina.weibo.sdk.platform.PlatformLog;
+
+/**
+ * Keeps the repost, comment and attitude counts of the statuses on screen up
+ * to date with {@link StatusesAPI#count(String[], RequestListener)}, instead of
+ * fetching whole timelines again.
+ *
+ * The list tells which statuses are visible, typically from its scroll
+ * listener. The visible statuses that are due are sent together, up to
+ * {@link StatusesAPI#MAX_BATCH_COUNT_IDS} per request, with one request in
+ * flight at most. The counts are patched in place, on the callback thread of
+ * the request, and the {@link CountListener} is told which statuses changed:
+ *
+ * <pre>
+ * CountRefresher refresher = new CountRefresher(statusesAPI);
+ * refresher.setListener(listener);
+ * refresher.start();
+ * ...
+ * refresher.setVisible(adapter.getStatuses(firstVisible, lastVisible));
+ * </pre>
+ *
+ * Each status backs off on its own: its refresh interval doubles every time
+ * its counts come back unchanged, up to the maximum interval, and falls back
+ * to the minimum one as soon as they change, so that a status being reposted
+ * is refreshed often and a quiet one rarely. When an {@link EntityStore} is
+ * shared, it is updated too, so every list holding the status is notified.
+ *
+ * @author SINA
+ * @since 2014-05-24
+ */
+public class CountRefresher {
+    private static final String TAG = CountRefresher.class.getName();
+
+    /** Default interval of a status whose counts change */
+    public static final long DEFAULT_MIN_INTERVAL_MILLIS = 30 * 1000;
+    /** Default interval of a status whose counts stopped changing */
+    public static final long DEFAULT_MAX_INTERVAL_MILLIS = 10 * 60 * 1000;
+
+    private final StatusesAPI mApi;
+    private final long mMinIntervalMillis;
+    private final long mMaxIntervalMillis;
+
+    /** State below is guarded by this */
+    private final Map<Long, Tracked> mTracked = new HashMap<Long, Tracked>();
+    private CountListener mListener;
+    private boolean mStarted;
+    private boolean mRequesting;
+    private ScheduledFuture<?> mTick;
+
+    /**
+     * Receives the statuses whose counts changed, on the callback thread of the
+     * request: the main thread on Android.
+     */
+    public interface CountListener {
+        public void onCountsChanged(List<Status> statuses);
+    }
+
+    public CountRefresher(StatusesAPI api) {
+        this(api, DEFAULT_MIN_INTERVAL_MILLIS, DEFAULT_MAX_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param minIntervalMillis interval of a status whose counts change
+     * @param maxIntervalMillis interval of a status whose counts stopped changing
+     */
+    public CountRefresher(StatusesAPI api, long minIntervalMillis, long maxIntervalMillis) {
+        if (minIntervalMillis <= 0 || maxIntervalMillis < minIntervalMillis) {
+            throw new IllegalArgumentException("Invalid intervals: " + minIntervalMillis + ", "
+                    + maxIntervalMillis);
+        }
+        mApi = api;
+        mMinIntervalMillis = minIntervalMillis;
+        mMaxIntervalMillis = maxIntervalMillis;
+    }
+
+    public synchronized void setListener(CountListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Replaces the visible statuses. A status still visible keeps its interval,
+     * a newly visible one is first refreshed after the minimum interval.
+     */
+    public synchronized void setVisible(Collection<Status> statuses) {
+        Set<Long> visible = new HashSet<Long>();
+        for (Status status : statuses) {
+            long id = track(status);
+            if (id > 0) {
+                visible.add(id);
+            }
+        }
+        for (Iterator<Map.Entry<Long, Tracked>> iterator = mTracked.entrySet().iterator(); iterator.hasNext();) {
+            Map.Entry<Long, Tracked> entry = iterator.next();
+            if (!visible.contains(entry.getKey())) {
+                iterator.remove();
+            } else {
+                entry.getValue().retain(statuses);
+            }
+        }
+        scheduleLocked();
+    }
+
+    /**
+     * Adds a visible status.
+     */
+    public synchronized void addVisible(Status status) {
+        if (track(status) > 0) {
+            scheduleLocked();
+        }
+    }
+
+    /**
+     * Removes a status which is no longer visible.
+     */
+    public synchronized void removeVisible(Status status) {
+        long id = parseId(status);
+        Tracked tracked = mTracked.get(id);
+        if (tracked != null && tracked.remove(status)) {
+            mTracked.remove(id);
+        }
+    }
+
+    /**
+     * Returns the number of statuses refreshed.
+     */
+    public synchronized int size() {
+        return mTracked.size();
+    }
+
+    /**
+     * Starts refreshing, e.g. when the list is shown.
+     */
+    public synchronized void start() {
+        mStarted = true;
+        scheduleLocked();
+    }
+
+    /**
+     * Stops refreshing, e.g. when the list is hidden. The request in flight still
+     * patches its statuses.
+     */
+    public synchronized void stop() {
+        mStarted = false;
+        cancelTickLocked();
+    }
+
+    /**
+     * Refreshes every visible status now, e.g. on pull to refresh, and resets
+     * their intervals.
+     */
+    public synchronized void refreshNow() {
+        long now = now();
+        for (Tracked tracked : mTracked.values()) {
+            tracked.mInterval = mMinIntervalMillis;
+            tracked.mDueAt = now;
+        }
+        scheduleLocked();
+    }
+
+    // Returns the ID of the status, or -1 if it cannot be refreshed
+    private long track(Status status) {
+        long id = parseId(status);
+        if (id <= 0) {
+            return -1;
+        }
+        Tracked tracked = mTracked.get(id);
+        if (tracked == null) {
+            tracked = new Tracked(id, mMinIntervalMillis, now() + mMinIntervalMillis);
+            mTracked.put(id, tracked);
+        }
+        tracked.add(status);
+        return id;
+    }
+
+    private void scheduleLocked() {
+        if (!mStarted || mRequesting || mTracked.isEmpty()) {
+            return;
+        }
+        long dueAt = Long.MAX_VALUE;
+        for (Tracked tracked : mTracked.values()) {
+            dueAt = Math.min(dueAt, tracked.mDueAt);
+        }
+        cancelTickLocked();
+        mTick = TickerHolder.TICKER.schedule(new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, Math.max(0, dueAt - now()), TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelTickLocked() {
+        if (mTick != null) {
+            mTick.cancel(false);
+            mTick = null;
+        }
+    }
+
+    private void tick() {
+        final long[] ids;
+        synchronized (this) {
+            mTick = null;
+            if (!mStarted || mRequesting) {
+                return;
+            }
+            // Statuses due soon join the batch rather than waiting for a request of their own
+            long horizon = now() + mMinIntervalMillis / 2;
+            List<Tracked> due = new ArrayList<Tracked>();
+            for (Tracked tracked : mTracked.values()) {
+                if (tracked.mDueAt <= horizon) {
+                    due.add(tracked);
+                }
+            }
+            if (due.isEmpty()) {
+                scheduleLocked();
+                return;
+            }
+            // The most overdue first, so that a full batch never starves the others
+            Collections.sort(due, Tracked.BY_DUE_AT);
+            ids = new long[Math.min(due.size(), StatusesAPI.MAX_BATCH_COUNT_IDS)];
+            for (int ix = 0; ix < ids.length; ix++) {
+                ids[ix] = due.get(ix).mId;
+            }
+            mRequesting = true;
+        }
+
+        String[] idStrings = new String[ids.length];
+        for (int ix = 0; ix < ids.length; ix++) {
+            idStrings[ix] = String.valueOf(ids[ix]);
+        }
+        mApi.count(idStrings, new RequestListener() {
+            @Override
+            public void onComplete(String response) {
+                StatusCountList counts = StatusCountList.parse(response);
+                onCounts(ids, counts != null ? counts.countList : null);
+            }
+
+            @Override
+            public void onWeiboException(WeiboException e) {
+                PlatformLog.w(TAG, "Count refresh failed: " + e.getMessage());
+                onCounts(ids, null);
+            }
+        });
+    }
+
+    /**
+     * Patches the statuses of a batch and backs off the unchanged ones.
+     * 
+     * @param counts null if the request failed
+     */
+    private void onCounts(long[] ids, List<StatusCount> counts) {
+        Map<Long, StatusCount> byId = new HashMap<Long, StatusCount>();
+        if (counts != null) {
+            for (StatusCount count : counts) {
+                byId.put(count.id, count);
+            }
+        }
+
+        List<StatusCount> changedCounts = new ArrayList<StatusCount>();
+        List<List<Status>> changedStatuses = new ArrayList<List<Status>>();
+        CountListener listener;
+        synchronized (this) {
+            mRequesting = false;
+            long now = now();
+            for (long id : ids) {
+                Tracked tracked = mTracked.get(id);
+                if (tracked == null) {
+                    continue;
+                }
+                StatusCount count = byId.get(id);
+                if (count != null && tracked.differs(count)) {
+                    tracked.mInterval = mMinIntervalMillis;
+                    changedCounts.add(count);
+                    changedStatuses.add(new ArrayList<Status>(tracked.mStatuses));
+                } else {
+                    tracked.mInterval = Math.min(mMaxIntervalMillis, tracked.mInterval * 2);
+                }
+                tracked.mDueAt = now + tracked.mInterval;
+            }
+            listener = mListener;
+            scheduleLocked();
+        }
+        if (changedCounts.isEmpty()) {
+            return;
+        }
+
+        // The store first: it only notifies when its own copy is not patched yet
+        EntityStore store = EntityStore.getShared();
+        List<Status> changed = new ArrayList<Status>();
+        for (int ix = 0; ix < changedCounts.size(); ix++) {
+            StatusCount count = changedCounts.get(ix);
+            if (store != null) {
+                store.updateCounts(count.id, count.reposts, count.comments, count.attitudes);
+            }
+            for (Status status : changedStatuses.get(ix)) {
+                status.reposts_count   = count.reposts;
+                status.comments_count  = count.comments;
+                status.attitudes_count = count.attitudes;
+                changed.add(status);
+            }
+        }
+        if (listener != null) {
+            listener.onCountsChanged(changed);
+        }
+    }
+
+    private static long parseId(Status status) {
+        if (status == null || status.id == null || status.id.length() == 0 || status.id.length() > 18) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(status.id);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long now() {
+        return System.nanoTime() / 1000000;
+    }
+
+    private static class TickerHolder {
+        static final ScheduledThreadPoolExecutor TICKER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "weibo-count-refresher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * A visible status: the copies of it held by the lists, usually one, and its
+     * refresh schedule.
+     */
+    private static class Tracked {
+        static final Comparator<Tracked> BY_DUE_AT = new Comparator<Tracked>() {
+            @Override
+            public int compare(Tracked lhs, Tracked rhs) {
+                return lhs.mDueAt < rhs.mDueAt ? -1 : (lhs.mDueAt == rhs.mDueAt ? 0 : 1);
+            }
+        };
+
+        final long mId;
+        final List<Status> mStatuses = new ArrayList<Status>(1);
+        long mInterval;
+        long mDueAt;
+
+        Tracked(long id, long interval, long dueAt) {
+            mId = id;
+            mInterval = interval;
+            mDueAt = dueAt;
+        }
+
+        void add(Status status) {
+            for (Status tracked : mStatuses) {
+                if (tracked == status) {
+                    return;
+                }
+            }
+            mStatuses.add(status);
+        }
+
+        /**
+         * Removes a copy, returning true when none is left.
+         */
+        boolean remove(Status status) {
+            mStatuses.remove(status);
+            return mStatuses.isEmpty();
+        }
+
+        /**
+         * Keeps only the copies in statuses.
+         */
+        void retain(Collection<Status> statuses) {
+            for (Iterator<Status> iterator = mStatuses.iterator(); iterator.hasNext();) {
+                Status tracked = iterator.next();
+                boolean found = false;
+                for (Status status : statuses) {
+                    if (status == tracked) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        boolean differs(StatusCount count) {
+            for (Status status : mStatuses) {
+                if (status.reposts_count != count.reposts || status.comments_count != count.comments
+                        || status.attitudes_count != count.attitudes) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
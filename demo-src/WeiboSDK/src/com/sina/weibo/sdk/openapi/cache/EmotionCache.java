@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.openapi.legacy.StatusesAPI;
+import com.sina.weibo.sdk.openapi.models.Emotion;
+import com.sina.weibo.sdk.openapi.models.EmotionList;
+import com.sina.weibo.sdk.platform.PlatformLog;
+import com.sina.weibo.sdk.utils.PhraseMatcher;
+
+/**
+ * Emotion table of {@link StatusesAPI#emotions}, compiled into a
+ * {@link PhraseMatcher} to find the emotion phrases of a status or comment
+ * text in one pass:
+ *
+ * <pre>
+ * EmotionCache.Dictionary dictionary = emotionCache.getDictionary();
+ * int count = dictionary.find(status.text, spans);
+ * for (int ix = 0; ix &lt; count; ix++) {
+ *     Emotion emotion = dictionary.getEmotion(spans.phrases[ix]);
+ *     // show emotion.url over text[spans.starts[ix], spans.ends[ix])
+ * }
+ * </pre>
+ *
+ * The table is saved between launches and refreshed when older than the
+ * given age. Each table has a version, a hash of its content: a refresh
+ * returning the same table only renews its date and keeps the compiled
+ * automaton.
+ *
+ * @author SINA
+ * @since 2014-05-08
+ */
+public class EmotionCache {
+    private static final String TAG = EmotionCache.class.getName();
+
+    /** Default age after which the table is refreshed: one day */
+    public static final long DEFAULT_MAX_AGE_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static final int FILE_MAGIC   = 0x57424543; // "WBEC"
+    private static final int FILE_VERSION = 1;
+
+    private final String mType;
+    private final String mLanguage;
+    private volatile Dictionary mDictionary = new Dictionary(new Emotion[0], 0, 0);
+
+    /**
+     * Receives the result of a refresh.
+     */
+    public interface RefreshListener {
+        /**
+         * @param changed true if the table differs from the previous one
+         */
+        public void onRefreshed(Dictionary dictionary, boolean changed);
+
+        public void onWeiboException(WeiboException e);
+    }
+
+    /**
+     * An immutable emotion table and its automaton.
+     */
+    public static final class Dictionary {
+        private final Emotion[] mEmotions;
+        private final PhraseMatcher mMatcher;
+        private final long mVersion;
+        private final long mFetchedAt;
+
+        Dictionary(Emotion[] emotions, long version, long fetchedAt) {
+            mEmotions = emotions;
+            mVersion = version;
+            mFetchedAt = fetchedAt;
+            String[] phrases = new String[emotions.length];
+            for (int ix = 0; ix < emotions.length; ix++) {
+                phrases[ix] = emotions[ix].phrase;
+            }
+            mMatcher = new PhraseMatcher(phrases);
+        }
+
+        private Dictionary(Dictionary dictionary, long fetchedAt) {
+            mEmotions = dictionary.mEmotions;
+            mMatcher = dictionary.mMatcher;
+            mVersion = dictionary.mVersion;
+            mFetchedAt = fetchedAt;
+        }
+
+        /**
+         * Finds the emotion phrases of a text.
+         *
+         * @param spans receives the matches, {@link PhraseMatcher.Spans#phrases}
+         *              being indexes for {@link #getEmotion(int)}
+         * @return number of matches
+         */
+        public int find(CharSequence text, PhraseMatcher.Spans spans) {
+            return mMatcher.find(text, spans);
+        }
+
+        public Emotion getEmotion(int index) {
+            return mEmotions[index];
+        }
+
+        public int size() {
+            return mEmotions.length;
+        }
+
+        /**
+         * Returns the hash of the table content, 0 for an empty table.
+         */
+        public long getVersion() {
+            return mVersion;
+        }
+
+        /**
+         * Returns when the table was fetched, in milliseconds since the epoch.
+         */
+        public long getFetchedAt() {
+            return mFetchedAt;
+        }
+    }
+
+    /**
+     * @param type     emotion type, see {@link StatusesAPI#EMOTION_TYPE_FACE}
+     * @param language language, see {@link StatusesAPI#LANGUAGE_CNNAME}
+     */
+    public EmotionCache(String type, String language) {
+        mType = type;
+        mLanguage = language;
+    }
+
+    /**
+     * Returns the current table, empty until loaded or refreshed.
+     */
+    public Dictionary getDictionary() {
+        return mDictionary;
+    }
+
+    /**
+     * Fetches the table again if it is older than maxAgeMillis. The listener is
+     * called synchronously if the table is recent enough.
+     */
+    public void refresh(StatusesAPI api, long maxAgeMillis, final RefreshListener listener) {
+        Dictionary current = mDictionary;
+        if (current.size() > 0 && System.currentTimeMillis() - current.mFetchedAt < maxAgeMillis) {
+            listener.onRefreshed(current, false);
+            return;
+        }
+
+        api.emotions(mType, mLanguage, new RequestListener() {
+            @Override
+            public void onComplete(String response) {
+                EmotionList emotionList = EmotionList.parse(response);
+                if (emotionList == null || emotionList.emotionList == null) {
+                    listener.onWeiboException(new WeiboException("Invalid emotions response"));
+                    return;
+                }
+                List<Emotion> emotions = emotionList.emotionList;
+                boolean changed = update(emotions.toArray(new Emotion[emotions.size()]),
+                        System.currentTimeMillis());
+                listener.onRefreshed(mDictionary, changed);
+            }
+
+            @Override
+            public void onWeiboException(WeiboException e) {
+                listener.onWeiboException(e);
+            }
+        });
+    }
+
+    /**
+     * Replaces the table, unless it has the same content.
+     *
+     * @return true if the content changed
+     */
+    private synchronized boolean update(Emotion[] emotions, long fetchedAt) {
+        long version = versionOf(emotions);
+        if (version == mDictionary.mVersion) {
+            mDictionary = new Dictionary(mDictionary, fetchedAt);
+            return false;
+        }
+        mDictionary = new Dictionary(emotions, version, fetchedAt);
+        PlatformLog.d(TAG, "Emotion table updated: " + emotions.length + " emotions");
+        return true;
+    }
+
+    public void save(File file) throws IOException {
+        final Dictionary dictionary = mDictionary;
+
+        CacheFile.save(file, FILE_MAGIC, FILE_VERSION, new CacheFile.Content() {
+            @Override
+            public void write(DataOutputStream out) throws IOException {
+                CacheFile.writeString(out, mType);
+                CacheFile.writeString(out, mLanguage);
+                out.writeLong(dictionary.mFetchedAt);
+                out.writeInt(dictionary.mEmotions.length);
+                for (Emotion emotion : dictionary.mEmotions) {
+                    CacheFile.writeString(out, emotion.phrase);
+                    CacheFile.writeString(out, emotion.type);
+                    CacheFile.writeString(out, emotion.url);
+                    CacheFile.writeString(out, emotion.icon);
+                    CacheFile.writeString(out, emotion.value);
+                    CacheFile.writeString(out, emotion.category);
+                    out.writeBoolean(emotion.hot);
+                    out.writeBoolean(emotion.common);
+                }
+            }
+        });
+    }
+
+    /**
+     * Restores a saved table, which keeps the date it was fetched at.
+     *
+     * @return false if the file does not exist, has an unknown format or holds
+     *         another type or language
+     */
+    public boolean load(File file) throws IOException {
+        DataInputStream in = CacheFile.open(file, FILE_MAGIC, FILE_VERSION);
+        if (in == null) {
+            return false;
+        }
+
+        try {
+            if (!equals(CacheFile.readString(in), mType) || !equals(CacheFile.readString(in), mLanguage)) {
+                PlatformLog.w(TAG, "Emotion cache saved for another type or language: " + file);
+                return false;
+            }
+
+            long fetchedAt = in.readLong();
+            int count = in.readInt();
+            List<Emotion> emotions = new ArrayList<Emotion>(count);
+            for (int ix = 0; ix < count; ix++) {
+                Emotion emotion = new Emotion();
+                emotion.phrase   = CacheFile.readString(in);
+                emotion.type     = CacheFile.readString(in);
+                emotion.url      = CacheFile.readString(in);
+                emotion.icon     = CacheFile.readString(in);
+                emotion.value    = CacheFile.readString(in);
+                emotion.category = CacheFile.readString(in);
+                emotion.hot      = in.readBoolean();
+                emotion.common   = in.readBoolean();
+                emotions.add(emotion);
+            }
+            update(emotions.toArray(new Emotion[count]), fetchedAt);
+            return true;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a hash of every field of a table that {@link #save(File)} writes,
+     * so that any change of the content is an update.
+     */
+    private static long versionOf(Emotion[] emotions) {
+        if (emotions.length == 0) {
+            return 0;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (Emotion emotion : emotions) {
+            hash = hash(hash, emotion.phrase);
+            hash = hash(hash, emotion.type);
+            hash = hash(hash, emotion.url);
+            hash = hash(hash, emotion.icon);
+            hash = hash(hash, emotion.value);
+            hash = hash(hash, emotion.category);
+            hash = (hash ^ (emotion.hot ? 1 : 0) ^ (emotion.common ? 2 : 0)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, String value) {
+        if (value == null) {
+            // Saved apart from "", so hashed apart from it too
+            return (hash ^ 0xFFFE) * 0x100000001b3L;
+        }
+        for (int ix = 0; ix < value.length(); ix++) {
+            hash = (hash ^ value.charAt(ix)) * 0x100000001b3L;
+        }
+        // Separator, so that ("ab", "c") and ("a", "bc") differ
+        return (hash ^ 0xFFFF) * 0x100000001b3L;
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
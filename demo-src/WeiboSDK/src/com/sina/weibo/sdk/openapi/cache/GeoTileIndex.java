@@ -0,0 +1,429 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grid index of geo-located items (POIs, statuses with a location).
+ *
+ * The world is cut into square tiles of a fixed size in degrees. A tile is
+ * "fetched" once a request for it came back, and "covered" if that request
+ * returned all the items inside it, not a truncated page. A query whose circle
+ * only touches covered tiles can be answered locally;
+ * {@link #missingTiles(double, double, int)} tells which tiles still need a
+ * request, i.e. the ones not fetched yet. Fetched tiles expire after a TTL.
+ *
+ * A request for a whole circle is added with {@link #putCircle}: it marks the
+ * tiles lying inside the circle as covered, and a later query inside the same
+ * circle needs no request even if it touches tiles only partly inside it.
+ *
+ * @author SINA
+ * @since 2014-04-14
+ */
+public class GeoTileIndex<T> {
+
+    /** Default tile size, about 1.1 km of latitude */
+    public static final double DEFAULT_TILE_DEGREES = 0.01;
+    /** Default tile time to live */
+    public static final long DEFAULT_TTL_MILLIS = 10 * 60 * 1000L;
+
+    private static final double EARTH_RADIUS_METERS = 6371000.0;
+    private static final double METERS_PER_DEGREE   = Math.PI * EARTH_RADIUS_METERS / 180.0;
+    /** Maximum number of fetched circles kept, the oldest is dropped first */
+    private static final int MAX_CIRCLES = 16;
+
+    private final double mTileDegrees;
+    private final long mTtlMillis;
+    private final Map<Long, Tile<T>> mTiles = new HashMap<Long, Tile<T>>();
+    private final ArrayList<Circle> mCircles = new ArrayList<Circle>();
+
+    /**
+     * A tile of the grid, identified by its key.
+     */
+    public static class TileKey {
+        public final long key;
+        public final double centerLat;
+        public final double centerLon;
+        /** Radius of the circle enclosing the tile, in meters */
+        public final int radiusMeters;
+
+        TileKey(long key, double centerLat, double centerLon, int radiusMeters) {
+            this.key          = key;
+            this.centerLat    = centerLat;
+            this.centerLon    = centerLon;
+            this.radiusMeters = radiusMeters;
+        }
+    }
+
+    private static class Entry<T> {
+        final String id;
+        final double lat;
+        final double lon;
+        final T item;
+
+        Entry(String id, double lat, double lon, T item) {
+            this.id   = id;
+            this.lat  = lat;
+            this.lon  = lon;
+            this.item = item;
+        }
+    }
+
+    private static class Tile<T> {
+        final ArrayList<Entry<T>> entries = new ArrayList<Entry<T>>();
+        /** Time the tile was fetched, 0 if it only holds incidental items */
+        long fetchedAt;
+        /** True if the fetch returned all the items of the tile */
+        boolean complete;
+    }
+
+    /**
+     * A circle whose items were all fetched.
+     */
+    private static class Circle {
+        final double lat;
+        final double lon;
+        final double radiusMeters;
+        final long fetchedAt;
+
+        Circle(double lat, double lon, double radiusMeters, long fetchedAt) {
+            this.lat          = lat;
+            this.lon          = lon;
+            this.radiusMeters = radiusMeters;
+            this.fetchedAt    = fetchedAt;
+        }
+    }
+
+    public GeoTileIndex() {
+        this(DEFAULT_TILE_DEGREES, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * @param tileDegrees tile size in degrees
+     * @param ttlMillis   how long a fetched tile stays valid
+     */
+    public GeoTileIndex(double tileDegrees, long ttlMillis) {
+        mTileDegrees = tileDegrees;
+        mTtlMillis = ttlMillis;
+    }
+
+    /**
+     * Adds or replaces an item. It does not mark its tile as covered.
+     */
+    public synchronized void put(String id, double lat, double lon, T item) {
+        Tile<T> tile = obtainTile(tileKey(lat, lon));
+        removeFrom(tile, id);
+        tile.entries.add(new Entry<T>(id, lat, lon, item));
+    }
+
+    /**
+     * Marks a tile as fetched, replacing its items with the fetched ones.
+     *
+     * @param key      tile key, see {@link TileKey#key}
+     * @param ids      item ids
+     * @param lats     item latitudes
+     * @param lons     item longitudes
+     * @param items    items; the ones outside the tile are added to their own tile
+     * @param complete true if the request returned every item of the tile, false
+     *                 if its results were truncated
+     */
+    public synchronized void putTile(long key, List<String> ids, double[] lats, double[] lons, List<T> items,
+            boolean complete) {
+        Tile<T> tile = obtainTile(key);
+        tile.entries.clear();
+        tile.fetchedAt = System.currentTimeMillis();
+        tile.complete = complete;
+        int size = items.size();
+        for (int ix = 0; ix < size; ix++) {
+            long itemKey = tileKey(lats[ix], lons[ix]);
+            if (itemKey == key) {
+                tile.entries.add(new Entry<T>(ids.get(ix), lats[ix], lons[ix], items.get(ix)));
+            } else {
+                // Results of a circular request spill over the neighbour tiles
+                Tile<T> other = obtainTile(itemKey);
+                removeFrom(other, ids.get(ix));
+                other.entries.add(new Entry<T>(ids.get(ix), lats[ix], lons[ix], items.get(ix)));
+            }
+        }
+    }
+
+    /**
+     * Adds the results of a request for a whole circle, sorted by distance from
+     * its center. The tiles inside the part of the circle known to be complete
+     * are marked as covered; the other items are added like {@link #put}.
+     *
+     * @param lat         center latitude
+     * @param lon         center longitude
+     * @param rangeMeters radius of the request
+     * @param ids         item ids
+     * @param lats        item latitudes
+     * @param lons        item longitudes
+     * @param items       items, nearest first
+     * @param complete    true if the request returned every item of the circle; if
+     *                    false, only the items up to the farthest one returned are
+     */
+    public synchronized void putCircle(double lat, double lon, int rangeMeters, List<String> ids, double[] lats,
+            double[] lons, List<T> items, boolean complete) {
+        int size = items.size();
+        double radius = rangeMeters;
+        if (!complete) {
+            radius = 0;
+            for (int ix = 0; ix < size; ix++) {
+                radius = Math.max(radius, distanceMeters(lat, lon, lats[ix], lons[ix]));
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        int[] bounds = tileBounds(lat, lon, (int) radius);
+        for (int y = bounds[1]; y <= bounds[3]; y++) {
+            for (int x = bounds[0]; x <= bounds[2]; x++) {
+                if (isTileInside(x, y, lat, lon, radius)) {
+                    Tile<T> tile = obtainTile(key(x, y));
+                    tile.entries.clear();
+                    tile.fetchedAt = now;
+                    tile.complete = true;
+                }
+            }
+        }
+        for (int ix = 0; ix < size; ix++) {
+            Tile<T> tile = obtainTile(tileKey(lats[ix], lons[ix]));
+            removeFrom(tile, ids.get(ix));
+            tile.entries.add(new Entry<T>(ids.get(ix), lats[ix], lons[ix], items.get(ix)));
+        }
+
+        if (radius > 0) {
+            if (mCircles.size() >= MAX_CIRCLES) {
+                mCircles.remove(0);
+            }
+            mCircles.add(new Circle(lat, lon, radius, now));
+        }
+    }
+
+    /**
+     * Returns the tiles touched by the circle that were not fetched, or expired.
+     * A truncated tile is not requested again before it expires. The result is
+     * empty if the circle lies inside a circle added with {@link #putCircle}.
+     */
+    public synchronized List<TileKey> missingTiles(double lat, double lon, int rangeMeters) {
+        List<TileKey> result = new ArrayList<TileKey>();
+        long now = System.currentTimeMillis();
+        if (isInsideCircle(lat, lon, rangeMeters, now)) {
+            return result;
+        }
+        int[] bounds = tileBounds(lat, lon, rangeMeters);
+        for (int y = bounds[1]; y <= bounds[3]; y++) {
+            for (int x = bounds[0]; x <= bounds[2]; x++) {
+                long key = key(x, y);
+                Tile<T> tile = mTiles.get(key);
+                if (tile == null || !isValid(tile, now)) {
+                    result.add(describe(x, y));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the circle can be answered without a request.
+     */
+    public synchronized boolean isCovered(double lat, double lon, int rangeMeters) {
+        long now = System.currentTimeMillis();
+        if (isInsideCircle(lat, lon, rangeMeters, now)) {
+            return true;
+        }
+        int[] bounds = tileBounds(lat, lon, rangeMeters);
+        for (int y = bounds[1]; y <= bounds[3]; y++) {
+            for (int x = bounds[0]; x <= bounds[2]; x++) {
+                Tile<T> tile = mTiles.get(key(x, y));
+                if (tile == null || !isValid(tile, now) || !tile.complete) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cached items inside the circle, nearest first.
+     */
+    public synchronized List<T> query(double lat, double lon, int rangeMeters) {
+        final ArrayList<Entry<T>> hits = new ArrayList<Entry<T>>();
+        final ArrayList<Double> distances = new ArrayList<Double>();
+        int[] bounds = tileBounds(lat, lon, rangeMeters);
+        for (int y = bounds[1]; y <= bounds[3]; y++) {
+            for (int x = bounds[0]; x <= bounds[2]; x++) {
+                Tile<T> tile = mTiles.get(key(x, y));
+                if (tile == null) {
+                    continue;
+                }
+                for (Entry<T> entry : tile.entries) {
+                    double distance = distanceMeters(lat, lon, entry.lat, entry.lon);
+                    if (distance <= rangeMeters) {
+                        // Insertion sort, result sets of a map screen are small
+                        int ix = distances.size();
+                        while (ix > 0 && distances.get(ix - 1) > distance) {
+                            ix--;
+                        }
+                        distances.add(ix, distance);
+                        hits.add(ix, entry);
+                    }
+                }
+            }
+        }
+
+        List<T> result = new ArrayList<T>(hits.size());
+        for (Entry<T> entry : hits) {
+            result.add(entry.item);
+        }
+        return result;
+    }
+
+    /**
+     * Drops expired fetched tiles and returns the number of dropped tiles.
+     */
+    public synchronized int evictExpired() {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        Iterator<Tile<T>> iterator = mTiles.values().iterator();
+        while (iterator.hasNext()) {
+            Tile<T> tile = iterator.next();
+            if (tile.fetchedAt != 0 && !isValid(tile, now)) {
+                iterator.remove();
+                count++;
+            }
+        }
+        Iterator<Circle> circles = mCircles.iterator();
+        while (circles.hasNext()) {
+            if (now - circles.next().fetchedAt >= mTtlMillis) {
+                circles.remove();
+            }
+        }
+        return count;
+    }
+
+    public synchronized void clear() {
+        mTiles.clear();
+        mCircles.clear();
+    }
+
+    /**
+     * Returns the key of the tile containing the point.
+     */
+    public long tileKey(double lat, double lon) {
+        return key(tileX(lon), tileY(lat));
+    }
+
+    /**
+     * Great-circle distance between two points.
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private boolean isValid(Tile<T> tile, long now) {
+        return tile.fetchedAt != 0 && now - tile.fetchedAt < mTtlMillis;
+    }
+
+    private boolean isInsideCircle(double lat, double lon, int rangeMeters, long now) {
+        for (int ix = mCircles.size() - 1; ix >= 0; ix--) {
+            Circle circle = mCircles.get(ix);
+            if (now - circle.fetchedAt < mTtlMillis
+                    && distanceMeters(lat, lon, circle.lat, circle.lon) + rangeMeters <= circle.radiusMeters) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the four corners of the tile are inside the circle.
+     */
+    private boolean isTileInside(int x, int y, double lat, double lon, double radiusMeters) {
+        double minLat = y * mTileDegrees - 90.0;
+        double minLon = x * mTileDegrees - 180.0;
+        double maxLat = minLat + mTileDegrees;
+        double maxLon = minLon + mTileDegrees;
+        return distanceMeters(lat, lon, minLat, minLon) <= radiusMeters
+                && distanceMeters(lat, lon, minLat, maxLon) <= radiusMeters
+                && distanceMeters(lat, lon, maxLat, minLon) <= radiusMeters
+                && distanceMeters(lat, lon, maxLat, maxLon) <= radiusMeters;
+    }
+
+    /**
+     * Returns {minX, minY, maxX, maxY} of the tiles touched by the circle.
+     */
+    private int[] tileBounds(double lat, double lon, int rangeMeters) {
+        double dLat = rangeMeters / METERS_PER_DEGREE;
+        double cos = Math.max(0.01, Math.cos(Math.toRadians(lat)));
+        double dLon = dLat / cos;
+        return new int[] {
+                tileX(lon - dLon), tileY(Math.max(-90.0, lat - dLat)),
+                tileX(lon + dLon), tileY(Math.min(90.0, lat + dLat)) };
+    }
+
+    private TileKey describe(int x, int y) {
+        double centerLat = (y + 0.5) * mTileDegrees - 90.0;
+        double centerLon = (x + 0.5) * mTileDegrees - 180.0;
+        double cornerLat = centerLat + mTileDegrees / 2;
+        double cornerLon = centerLon + mTileDegrees / 2;
+        int radius = (int) Math.ceil(distanceMeters(centerLat, centerLon, cornerLat, cornerLon));
+        return new TileKey(key(x, y), centerLat, centerLon, radius);
+    }
+
+    private int tileX(double lon) {
+        return (int) Math.floor((lon + 180.0) / mTileDegrees);
+    }
+
+    private int tileY(double lat) {
+        return (int) Math.floor((lat + 90.0) / mTileDegrees);
+    }
+
+    private static long key(int x, int y) {
+        return ((long) y << 32) | (x & 0xFFFFFFFFL);
+    }
+
+    private Tile<T> obtainTile(long key) {
+        Tile<T> tile = mTiles.get(key);
+        if (tile == null) {
+            tile = new Tile<T>();
+            mTiles.put(key, tile);
+        }
+        return tile;
+    }
+
+    private static <T> void removeFrom(Tile<T> tile, String id) {
+        if (id == null) {
+            return;
+        }
+        Iterator<Entry<T>> iterator = tile.entries.iterator();
+        while (iterator.hasNext()) {
+            if (id.equals(iterator.next().id)) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.sina.weibo.sdk.openapi.models.Comment;
+import com.sina.weibo.sdk.openapi.models.CommentList;
+import com.sina.weibo.sdk.openapi.models.Status;
+import com.sina.weibo.sdk.openapi.models.StatusList;
+import com.sina.weibo.sdk.openapi.models.User;
+import com.sina.weibo.sdk.utils.IntHashMap;
+import com.sina.weibo.sdk.utils.TextHelper;
+
+/**
+ * On-device inverted index over loaded statuses, comments and users, so that the
+ * user can search the timeline already on screen without calling
+ * {@link com.sina.weibo.sdk.openapi.legacy.SearchAPI}.
+ *
+ * Text is indexed by character unigrams and bigrams, which works for Chinese
+ * without a dictionary. A query looks up the posting lists of its grams, intersects
+ * them, and verifies the remaining candidates against the original text.
+ *
+ * Pages are added as they are parsed; when the index grows beyond its capacity the
+ * oldest documents are evicted.
+ *
+ * @author SINA
+ * @since 2014-04-12
+ */
+public class LocalSearchIndex {
+
+    /** Document types */
+    public static final int TYPE_STATUS  = 0;
+    public static final int TYPE_COMMENT = 1;
+    public static final int TYPE_USER    = 2;
+
+    /** Default maximum number of live documents */
+    public static final int DEFAULT_CAPACITY = 5000;
+
+    private final int mCapacity;
+    /** All documents, position is the document number */
+    private final ArrayList<Document> mDocuments = new ArrayList<Document>();
+    /** Live document number by type and id */
+    private final Map<String, Integer> mDocumentIds = new HashMap<String, Integer>();
+    /**
+     * Posting lists by gram, see {@link #unigram(char)} and {@link #bigram(char, char)}.
+     * Hashed rather than sorted, as Chinese text brings a new bigram with most characters.
+     */
+    private IntHashMap<PostingList> mPostings = new IntHashMap<PostingList>();
+    /** Position of the oldest live document */
+    private int mFirstLive;
+    private int mLiveCount;
+
+    /**
+     * A search hit.
+     */
+    public static class Document {
+        /** Document type, see {@link LocalSearchIndex#TYPE_STATUS} */
+        public final int type;
+        public final String id;
+        /** The indexed Status, Comment or User */
+        public final Object source;
+        private final String mText;
+        private boolean mDeleted;
+
+        Document(int type, String id, Object source, String text) {
+            this.type   = type;
+            this.id     = id;
+            this.source = source;
+            mText       = text;
+        }
+    }
+
+    public LocalSearchIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity maximum number of live documents
+     */
+    public LocalSearchIndex(int capacity) {
+        mCapacity = capacity;
+    }
+
+    public synchronized void addStatus(Status status) {
+        if (status == null) {
+            return;
+        }
+        add(TYPE_STATUS, status.id, status, status.text);
+        if (status.user != null) {
+            addUser(status.user);
+        }
+        if (status.retweeted_status != null) {
+            addStatus(status.retweeted_status);
+        }
+    }
+
+    public synchronized void addComment(Comment comment) {
+        if (comment == null) {
+            return;
+        }
+        add(TYPE_COMMENT, comment.id, comment, comment.text);
+        if (comment.user != null) {
+            addUser(comment.user);
+        }
+    }
+
+    public synchronized void addUser(User user) {
+        if (user == null) {
+            return;
+        }
+        add(TYPE_USER, user.id, user, user.screen_name);
+    }
+
+    /**
+     * Indexes a freshly parsed timeline page.
+     */
+    public synchronized void addStatusList(StatusList statusList) {
+        if (statusList == null || statusList.statusList == null) {
+            return;
+        }
+        for (Status status : statusList.statusList) {
+            addStatus(status);
+        }
+    }
+
+    /**
+     * Indexes a freshly parsed comment page.
+     */
+    public synchronized void addCommentList(CommentList commentList) {
+        if (commentList == null || commentList.commentList == null) {
+            return;
+        }
+        for (Comment comment : commentList.commentList) {
+            addComment(comment);
+        }
+    }
+
+    public synchronized void remove(int type, String id) {
+        Integer docNumber = mDocumentIds.remove(type + ":" + id);
+        if (docNumber != null) {
+            mDocuments.get(docNumber).mDeleted = true;
+            mLiveCount--;
+        }
+    }
+
+    public synchronized int size() {
+        return mLiveCount;
+    }
+
+    public synchronized void clear() {
+        mDocuments.clear();
+        mDocumentIds.clear();
+        mPostings = new IntHashMap<PostingList>();
+        mFirstLive = 0;
+        mLiveCount = 0;
+    }
+
+    /**
+     * Finds the documents containing the query as a contiguous phrase.
+     *
+     * @param query      phrase, case insensitive
+     * @param type       document type, or -1 for all types
+     * @param maxResults maximum number of hits
+     * @return hits, most recently added first
+     */
+    public synchronized List<Document> searchPhrase(String query, int type, int maxResults) {
+        return search(query, type, maxResults, false);
+    }
+
+    /**
+     * Finds the documents containing a word starting with the query. For Chinese
+     * text, where there are no word boundaries, it matches like a phrase.
+     *
+     * @param query      prefix, case insensitive
+     * @param type       document type, or -1 for all types
+     * @param maxResults maximum number of hits
+     * @return hits, most recently added first
+     */
+    public synchronized List<Document> searchPrefix(String query, int type, int maxResults) {
+        return search(query, type, maxResults, true);
+    }
+
+    private List<Document> search(String query, int type, int maxResults, boolean prefix) {
+        List<Document> result = new ArrayList<Document>();
+        String normalized = normalize(query);
+        if (TextHelper.isEmpty(normalized) || maxResults <= 0) {
+            return result;
+        }
+
+        int[] candidates = candidates(normalized);
+        for (int ix = candidates.length - 1; ix >= 0 && result.size() < maxResults; ix--) {
+            Document document = mDocuments.get(candidates[ix]);
+            if (document.mDeleted || (type >= 0 && document.type != type)) {
+                continue;
+            }
+            if (prefix ? containsPrefix(document.mText, normalized) : document.mText.contains(normalized)) {
+                result.add(document);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Intersects the posting lists of the query grams, shortest list first.
+     */
+    private int[] candidates(String query) {
+        int gramCount = query.length() == 1 ? 1 : query.length() - 1;
+        PostingList[] lists = new PostingList[gramCount];
+        for (int ix = 0; ix < gramCount; ix++) {
+            int gram = query.length() == 1
+                    ? unigram(query.charAt(0)) : bigram(query.charAt(ix), query.charAt(ix + 1));
+            PostingList list = mPostings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists[ix] = list;
+        }
+
+        PostingList shortest = lists[0];
+        for (PostingList list : lists) {
+            if (list.mSize < shortest.mSize) {
+                shortest = list;
+            }
+        }
+
+        int[] result = new int[shortest.mSize];
+        System.arraycopy(shortest.mDocs, 0, result, 0, shortest.mSize);
+        int count = shortest.mSize;
+        for (PostingList list : lists) {
+            if (list != shortest && count > 0) {
+                count = intersect(result, count, list);
+            }
+        }
+
+        int[] trimmed = new int[count];
+        System.arraycopy(result, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    private void add(int type, String id, Object source, String text) {
+        if (TextHelper.isEmpty(id)) {
+            return;
+        }
+        remove(type, id);
+
+        String normalized = normalize(text);
+        int docNumber = mDocuments.size();
+        mDocuments.add(new Document(type, id, source, normalized));
+        mDocumentIds.put(type + ":" + id, docNumber);
+        mLiveCount++;
+
+        int length = normalized.length();
+        for (int ix = 0; ix < length; ix++) {
+            char c = normalized.charAt(ix);
+            posting(unigram(c)).add(docNumber);
+            if (ix + 1 < length) {
+                posting(bigram(c, normalized.charAt(ix + 1))).add(docNumber);
+            }
+        }
+
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        while (mLiveCount > mCapacity && mFirstLive < mDocuments.size()) {
+            Document oldest = mDocuments.get(mFirstLive++);
+            if (!oldest.mDeleted) {
+                remove(oldest.type, oldest.id);
+            }
+        }
+
+        // Rebuild once dead documents dominate, so postings do not grow forever
+        if (mDocuments.size() > 2 * mCapacity && mDocuments.size() > 2 * mLiveCount) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        ArrayList<Document> live = new ArrayList<Document>(mLiveCount);
+        for (Document document : mDocuments) {
+            if (!document.mDeleted) {
+                live.add(document);
+            }
+        }
+        clear();
+        for (Document document : live) {
+            add(document.type, document.id, document.source, document.mText);
+        }
+    }
+
+    private PostingList posting(int gram) {
+        PostingList list = mPostings.get(gram);
+        if (list == null) {
+            list = new PostingList();
+            mPostings.put(gram, list);
+        }
+        return list;
+    }
+
+    /**
+     * Keeps the entries of docs[0, count) that are also in the list, in place.
+     */
+    private static int intersect(int[] docs, int count, PostingList list) {
+        int result = 0;
+        int il = 0;
+        for (int ix = 0; ix < count && il < list.mSize; ix++) {
+            int doc = docs[ix];
+            while (il < list.mSize && list.mDocs[il] < doc) {
+                il++;
+            }
+            if (il < list.mSize && list.mDocs[il] == doc) {
+                docs[result++] = doc;
+            }
+        }
+        return result;
+    }
+
+    private static boolean containsPrefix(String text, String prefix) {
+        int from = 0;
+        int ix;
+        while ((ix = text.indexOf(prefix, from)) >= 0) {
+            if (ix == 0 || !isWordChar(text.charAt(ix - 1)) || !isWordChar(prefix.charAt(0))) {
+                return true;
+            }
+            from = ix + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Latin letters and digits form words; CJK characters do not.
+     */
+    private static boolean isWordChar(char c) {
+        return c < 0x2E80 && Character.isLetterOrDigit(c);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.US);
+    }
+
+    private static int unigram(char c) {
+        return c;
+    }
+
+    private static int bigram(char first, char second) {
+        // Unigrams have a zero high half, bigrams a non zero one (first + 1 > 0)
+        return ((first + 1) << 16) | second;
+    }
+
+    /**
+     * Ascending document numbers containing a gram.
+     */
+    private static class PostingList {
+        private int[] mDocs = new int[4];
+        private int mSize;
+
+        void add(int doc) {
+            if (mSize > 0 && mDocs[mSize - 1] == doc) {
+                return;
+            }
+            if (mSize == mDocs.length) {
+                int[] docs = new int[mSize << 1];
+                System.arraycopy(mDocs, 0, docs, 0, mSize);
+                mDocs = docs;
+            }
+            mDocs[mSize++] = doc;
+        }
+    }
+}
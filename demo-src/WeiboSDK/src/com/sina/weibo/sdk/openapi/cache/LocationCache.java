@@ -0,0 +1,393 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.openapi.legacy.LocationAPI;
+import com.sina.weibo.sdk.openapi.models.Coordinate;
+import com.sina.weibo.sdk.openapi.models.Geo;
+import com.sina.weibo.sdk.openapi.models.GeoList;
+import com.sina.weibo.sdk.openapi.models.OffsetGeo;
+import com.sina.weibo.sdk.platform.PlatformLog;
+
+/**
+ * Memoizing front of {@link LocationAPI#gps2Offset} and {@link LocationAPI#geo2Address}.
+ *
+ * Coordinates are quantized into cells. Consecutive location fixes usually fall
+ * in the same cell, so they are answered from an in-memory LRU:
+ * <li>gps2Offset: the offset of a cell is stored as a delta and applied to the
+ *     exact fix, the offset field being smooth at that scale.
+ * <li>geo2Address: the address of a cell is reused as is.
+ *
+ * Cache misses are coalesced: while a request is in flight, new misses are queued
+ * and sent together, up to {@link LocationAPI#MAX_BATCH_COORDINATES} per request.
+ * The cache can be saved and restored between launches.
+ *
+ * @author SINA
+ * @since 2014-04-16
+ */
+public class LocationCache {
+    private static final String TAG = LocationCache.class.getName();
+
+    /** Default offset cell, about 11 m */
+    public static final double DEFAULT_OFFSET_CELL_DEGREES  = 0.0001;
+    /** Default address cell, about 110 m */
+    public static final double DEFAULT_ADDRESS_CELL_DEGREES = 0.001;
+    /** Default number of cells kept per cache */
+    public static final int DEFAULT_MAX_CELLS = 2048;
+
+    private static final int FILE_MAGIC   = 0x57424C43; // "WBLC"
+    private static final int FILE_VERSION = 1;
+
+    private final double mOffsetCellDegrees;
+    private final double mAddressCellDegrees;
+    private final LruMap<Long, double[]> mOffsets;
+    private final LruMap<Long, Geo> mAddresses;
+    private final OffsetBatcher mOffsetBatcher = new OffsetBatcher();
+    private final AddressBatcher mAddressBatcher = new AddressBatcher();
+
+    /**
+     * Receives an offset coordinate.
+     */
+    public interface OffsetListener {
+        public void onOffset(Coordinate offset);
+        public void onWeiboException(WeiboException e);
+    }
+
+    /**
+     * Receives a reverse-geocoded address.
+     */
+    public interface AddressListener {
+        public void onAddress(Geo address);
+        public void onWeiboException(WeiboException e);
+    }
+
+    public LocationCache() {
+        this(DEFAULT_OFFSET_CELL_DEGREES, DEFAULT_ADDRESS_CELL_DEGREES, DEFAULT_MAX_CELLS);
+    }
+
+    /**
+     * @param offsetCellDegrees  cell size of the offset cache
+     * @param addressCellDegrees cell size of the address cache
+     * @param maxCells           number of cells kept per cache
+     */
+    public LocationCache(double offsetCellDegrees, double addressCellDegrees, int maxCells) {
+        mOffsetCellDegrees = offsetCellDegrees;
+        mAddressCellDegrees = addressCellDegrees;
+        mOffsets = new LruMap<Long, double[]>(maxCells);
+        mAddresses = new LruMap<Long, Geo>(maxCells);
+    }
+
+    /**
+     * Returns the offset coordinate of a GPS fix, from the cache or from
+     * {@link LocationAPI#gps2Offset(double[], double[], int, RequestListener)}.
+     * The listener is called synchronously on a cache hit.
+     */
+    public void gps2Offset(LocationAPI api, double longitude, double latitude, OffsetListener listener) {
+        Coordinate cached = getCachedOffset(longitude, latitude);
+        if (cached != null) {
+            listener.onOffset(cached);
+            return;
+        }
+        mOffsetBatcher.enqueue(api, cellKey(longitude, latitude, mOffsetCellDegrees), longitude, latitude,
+                listener);
+    }
+
+    /**
+     * Returns the address of a coordinate, from the cache or from
+     * {@link LocationAPI#geo2Address(double[], double[], int, RequestListener)}.
+     * The listener is called synchronously on a cache hit.
+     */
+    public void geo2Address(LocationAPI api, double longitude, double latitude, AddressListener listener) {
+        Geo cached = getCachedAddress(longitude, latitude);
+        if (cached != null) {
+            listener.onAddress(cached);
+            return;
+        }
+        mAddressBatcher.enqueue(api, cellKey(longitude, latitude, mAddressCellDegrees), longitude, latitude,
+                listener);
+    }
+
+    /**
+     * Returns the cached offset coordinate, or null.
+     */
+    public Coordinate getCachedOffset(double longitude, double latitude) {
+        double[] delta = mOffsets.get(cellKey(longitude, latitude, mOffsetCellDegrees));
+        if (delta == null) {
+            return null;
+        }
+        Coordinate coordinate = new Coordinate();
+        coordinate.Longtitude = longitude + delta[0];
+        coordinate.Latitude   = latitude + delta[1];
+        return coordinate;
+    }
+
+    /**
+     * Returns the cached address, or null.
+     */
+    public Geo getCachedAddress(double longitude, double latitude) {
+        return mAddresses.get(cellKey(longitude, latitude, mAddressCellDegrees));
+    }
+
+    public void clear() {
+        mOffsets.clear();
+        mAddresses.clear();
+    }
+
+    public void save(File file) throws IOException {
+        final List<Map.Entry<Long, double[]>> offsets = mOffsets.entries();
+        final List<Map.Entry<Long, Geo>> addresses = mAddresses.entries();
+
+        CacheFile.save(file, FILE_MAGIC, FILE_VERSION, new CacheFile.Content() {
+            @Override
+            public void write(DataOutputStream out) throws IOException {
+                out.writeDouble(mOffsetCellDegrees);
+                out.writeDouble(mAddressCellDegrees);
+
+                out.writeInt(offsets.size());
+                for (Map.Entry<Long, double[]> entry : offsets) {
+                    out.writeLong(entry.getKey());
+                    out.writeDouble(entry.getValue()[0]);
+                    out.writeDouble(entry.getValue()[1]);
+                }
+
+                out.writeInt(addresses.size());
+                for (Map.Entry<Long, Geo> entry : addresses) {
+                    Geo geo = entry.getValue();
+                    out.writeLong(entry.getKey());
+                    CacheFile.writeString(out, geo.longitude);
+                    CacheFile.writeString(out, geo.latitude);
+                    CacheFile.writeString(out, geo.city);
+                    CacheFile.writeString(out, geo.province);
+                    CacheFile.writeString(out, geo.city_name);
+                    CacheFile.writeString(out, geo.province_name);
+                    CacheFile.writeString(out, geo.address);
+                    CacheFile.writeString(out, geo.pinyin);
+                    CacheFile.writeString(out, geo.more);
+                }
+            }
+        });
+    }
+
+    /**
+     * Restores a saved cache. Entries saved with other cell sizes are ignored.
+     *
+     * @return false if the file does not exist or cannot be used
+     */
+    public boolean load(File file) throws IOException {
+        DataInputStream in = CacheFile.open(file, FILE_MAGIC, FILE_VERSION);
+        if (in == null) {
+            return false;
+        }
+
+        try {
+            if (in.readDouble() != mOffsetCellDegrees || in.readDouble() != mAddressCellDegrees) {
+                PlatformLog.w(TAG, "Location cache saved with other cell sizes: " + file);
+                return false;
+            }
+
+            int offsetCount = in.readInt();
+            for (int ix = 0; ix < offsetCount; ix++) {
+                long key = in.readLong();
+                mOffsets.put(key, new double[] { in.readDouble(), in.readDouble() });
+            }
+
+            int addressCount = in.readInt();
+            for (int ix = 0; ix < addressCount; ix++) {
+                long key = in.readLong();
+                Geo geo = new Geo();
+                geo.longitude     = CacheFile.readString(in);
+                geo.latitude      = CacheFile.readString(in);
+                geo.city          = CacheFile.readString(in);
+                geo.province      = CacheFile.readString(in);
+                geo.city_name     = CacheFile.readString(in);
+                geo.province_name = CacheFile.readString(in);
+                geo.address       = CacheFile.readString(in);
+                geo.pinyin        = CacheFile.readString(in);
+                geo.more          = CacheFile.readString(in);
+                mAddresses.put(key, geo);
+            }
+            return true;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Packs the quantized longitude and latitude of a coordinate into a long.
+     */
+    static long cellKey(double longitude, double latitude, double cellDegrees) {
+        long x = (long) Math.floor((longitude + 180.0) / cellDegrees);
+        long y = (long) Math.floor((latitude + 90.0) / cellDegrees);
+        return (y << 32) | (x & 0xFFFFFFFFL);
+    }
+
+    private class OffsetBatcher extends CellBatcher<OffsetListener> {
+        @Override
+        void request(LocationAPI api, double[] longitudes, double[] latitudes, int count, RequestListener listener) {
+            api.gps2Offset(longitudes, latitudes, count, listener);
+        }
+
+        @Override
+        void deliver(List<Pending<OffsetListener>> batch, String response) {
+            OffsetGeo offsetGeo = OffsetGeo.parse(response);
+            ArrayList<Coordinate> geos = offsetGeo != null ? offsetGeo.Geos : null;
+            for (int ix = 0; ix < batch.size(); ix++) {
+                Pending<OffsetListener> pending = batch.get(ix);
+                Coordinate coordinate = geos != null && ix < geos.size() ? geos.get(ix) : null;
+                if (coordinate == null || coordinate.Longtitude == null || coordinate.Latitude == null
+                        || coordinate.Longtitude.isNaN() || coordinate.Latitude.isNaN()) {
+                    fail(pending, new WeiboException("No offset returned for " + pending.longitude + ","
+                            + pending.latitude));
+                    continue;
+                }
+                double[] delta = new double[] {
+                        coordinate.Longtitude - pending.longitude, coordinate.Latitude - pending.latitude };
+                mOffsets.put(pending.cellKey, delta);
+                for (int il = 0; il < pending.listeners.size(); il++) {
+                    double[] fix = pending.coordinates.get(il);
+                    Coordinate offset = new Coordinate();
+                    offset.Longtitude = fix[0] + delta[0];
+                    offset.Latitude   = fix[1] + delta[1];
+                    pending.listeners.get(il).onOffset(offset);
+                }
+            }
+        }
+
+        @Override
+        void fail(OffsetListener listener, WeiboException e) {
+            listener.onWeiboException(e);
+        }
+    }
+
+    private class AddressBatcher extends CellBatcher<AddressListener> {
+        @Override
+        void request(LocationAPI api, double[] longitudes, double[] latitudes, int count, RequestListener listener) {
+            api.geo2Address(longitudes, latitudes, count, listener);
+        }
+
+        @Override
+        void deliver(List<Pending<AddressListener>> batch, String response) {
+            GeoList geoList = GeoList.parse(response);
+            ArrayList<Geo> geos = geoList != null ? geoList.Geos : null;
+            for (int ix = 0; ix < batch.size(); ix++) {
+                Pending<AddressListener> pending = batch.get(ix);
+                Geo geo = geos != null && ix < geos.size() ? geos.get(ix) : null;
+                if (geo == null) {
+                    fail(pending, new WeiboException("No address returned for " + pending.longitude + ","
+                            + pending.latitude));
+                    continue;
+                }
+                mAddresses.put(pending.cellKey, geo);
+                for (AddressListener listener : pending.listeners) {
+                    listener.onAddress(geo);
+                }
+            }
+        }
+
+        @Override
+        void fail(AddressListener listener, WeiboException e) {
+            listener.onWeiboException(e);
+        }
+    }
+
+    /**
+     * A cell waiting for a response, with every listener that asked for it.
+     */
+    private static class Pending<L> {
+        final long cellKey;
+        final double longitude;
+        final double latitude;
+        final ArrayList<L> listeners = new ArrayList<L>(1);
+        /** Exact coordinates of each listener, in the same order */
+        final ArrayList<double[]> coordinates = new ArrayList<double[]>(1);
+
+        Pending(long cellKey, double longitude, double latitude) {
+            this.cellKey   = cellKey;
+            this.longitude = longitude;
+            this.latitude  = latitude;
+        }
+    }
+
+    /**
+     * Sends the queued cells with one coordinate list request.
+     */
+    private abstract static class CellBatcher<L> extends RequestBatcher<LocationAPI, Long, Pending<L>> {
+        private double mLongitude;
+        private double mLatitude;
+
+        CellBatcher() {
+            super(LocationAPI.MAX_BATCH_COORDINATES);
+        }
+
+        void enqueue(LocationAPI api, long cellKey, double longitude, double latitude, L listener) {
+            synchronized (this) {
+                // The first coordinate of a cell is the one requested
+                mLongitude = longitude;
+                mLatitude  = latitude;
+                Pending<L> pending = obtain(cellKey);
+                pending.listeners.add(listener);
+                pending.coordinates.add(new double[] { longitude, latitude });
+            }
+            flush(api);
+        }
+
+        @Override
+        Pending<L> newPending(Long cellKey) {
+            return new Pending<L>(cellKey, mLongitude, mLatitude);
+        }
+
+        @Override
+        void request(LocationAPI api, List<Pending<L>> batch, RequestListener listener) {
+            int count = batch.size();
+            double[] longitudes = new double[count];
+            double[] latitudes = new double[count];
+            for (int ix = 0; ix < count; ix++) {
+                longitudes[ix] = batch.get(ix).longitude;
+                latitudes[ix] = batch.get(ix).latitude;
+            }
+            request(api, longitudes, latitudes, count, listener);
+        }
+
+        @Override
+        void fail(List<Pending<L>> batch, WeiboException e) {
+            for (Pending<L> pending : batch) {
+                fail(pending, e);
+            }
+        }
+
+        void fail(Pending<L> pending, WeiboException e) {
+            for (L listener : pending.listeners) {
+                fail(listener, e);
+            }
+        }
+
+        abstract void request(LocationAPI api, double[] longitudes, double[] latitudes, int count,
+                RequestListener listener);
+
+        abstract void fail(L listener, WeiboException e);
+    }
+}
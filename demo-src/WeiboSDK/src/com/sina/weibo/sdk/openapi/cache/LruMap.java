@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Access ordered, size bounded map shared by the memoizing caches.
+ *
+ * @author SINA
+ * @since 2014-05-12
+ */
+class LruMap<K, V> {
+    private final LinkedHashMap<K, V> mMap;
+
+    LruMap(final int maxSize) {
+        mMap = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    synchronized V get(K key) {
+        return mMap.get(key);
+    }
+
+    synchronized void put(K key, V value) {
+        mMap.put(key, value);
+    }
+
+    synchronized void clear() {
+        mMap.clear();
+    }
+
+    /**
+     * Returns a copy of the entries, least recently used first.
+     */
+    synchronized List<Map.Entry<K, V>> entries() {
+        return new ArrayList<Map.Entry<K, V>>(mMap.entrySet());
+    }
+}
@@ -0,0 +1,547 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.openapi.legacy.PlaceAPI;
+import com.sina.weibo.sdk.openapi.models.Poi;
+import com.sina.weibo.sdk.openapi.models.PoiList;
+import com.sina.weibo.sdk.openapi.models.Status;
+import com.sina.weibo.sdk.openapi.models.StatusList;
+import com.sina.weibo.sdk.utils.TextHelper;
+
+/**
+ * Map screen cache for {@link PlaceAPI#nearbyPois} and {@link PlaceAPI#nearbyTimeline}.
+ *
+ * Results are stored in {@link GeoTileIndex} tiles. A pan inside tiles that were
+ * already fetched is answered locally; otherwise only the uncovered tiles are
+ * requested, one request per tile centered on it. A tile request pages through
+ * the results until a page comes back short, up to {@link #MAX_PAGES_PER_TILE}
+ * pages; a tile still truncated after that is kept but not marked complete.
+ *
+ * A query touching more than {@link #MAX_TILE_REQUESTS} missing tiles, e.g. the
+ * default range of PlaceAPI, is sent as one request for the whole circle
+ * instead, widened by {@link #CIRCLE_MARGIN_PERCENT}. The tiles inside the
+ * fetched circle become covered, and a pan or zoom staying inside it is
+ * answered locally; see {@link GeoTileIndex#putCircle}.
+ *
+ * POIs found by other calls ({@link PlaceAPI#poisSearch},
+ * {@link com.sina.weibo.sdk.openapi.legacy.LocationAPI#searchPoisByGeo}) can be
+ * added with {@link #addPoiList(PoiList)}; they are returned by queries but do not
+ * make a tile covered.
+ *
+ * @author SINA
+ * @since 2014-04-14
+ */
+public class NearbyCache {
+
+    /** Maximum number of pages requested for one tile */
+    public static final int MAX_PAGES_PER_TILE = 5;
+    /** Maximum number of tiles requested for one query */
+    public static final int MAX_TILE_REQUESTS = 9;
+    /** Margin added to the range of a whole-circle request, so that a pan stays inside it */
+    public static final int CIRCLE_MARGIN_PERCENT = 50;
+
+    /** Maximum range accepted by nearby/pois.json */
+    private static final int MAX_POI_RANGE = 10000;
+    /** Maximum range accepted by nearby_timeline.json */
+    private static final int MAX_TIMELINE_RANGE = 11132;
+
+    private final double mTileDegrees;
+    private final long mTtlMillis;
+    /** POI indexes by category, "" for all categories */
+    private final Map<String, GeoTileIndex<Poi>> mPoiIndexes = new HashMap<String, GeoTileIndex<Poi>>();
+    private final GeoTileIndex<Poi> mLoosePois;
+    private final GeoTileIndex<Status> mStatusIndex;
+
+    /**
+     * Receives the result of a nearby query.
+     */
+    public interface NearbyListener<T> {
+        /**
+         * @param items     items inside the queried circle, nearest first
+         * @param fromCache true if no request was needed
+         */
+        public void onResult(List<T> items, boolean fromCache);
+
+        /**
+         * Called when a tile request failed. The tiles fetched successfully are kept.
+         */
+        public void onWeiboException(WeiboException e);
+    }
+
+    public NearbyCache() {
+        this(GeoTileIndex.DEFAULT_TILE_DEGREES, GeoTileIndex.DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * @param tileDegrees tile size in degrees
+     * @param ttlMillis   how long fetched tiles stay valid
+     */
+    public NearbyCache(double tileDegrees, long ttlMillis) {
+        mTileDegrees = tileDegrees;
+        mTtlMillis = ttlMillis;
+        mLoosePois = new GeoTileIndex<Poi>(tileDegrees, ttlMillis);
+        mStatusIndex = new GeoTileIndex<Status>(tileDegrees, ttlMillis);
+    }
+
+    /**
+     * Returns the POIs around a point, requesting only the tiles not cached yet.
+     *
+     * @param api      PlaceAPI used for the missing tiles
+     * @param lat      latitude
+     * @param lon      longitude
+     * @param range    radius in meters
+     * @param category POI category, null for all
+     * @param count    page size of each tile request, max 50
+     * @param listener result callback
+     */
+    public void nearbyPois(final PlaceAPI api, final double lat, final double lon, final int range,
+            final String category, final int count, final NearbyListener<Poi> listener) {
+        final GeoTileIndex<Poi> index = poiIndex(category);
+        List<GeoTileIndex.TileKey> missing = index.missingTiles(lat, lon, range);
+        if (missing.isEmpty()) {
+            listener.onResult(queryPois(index, lat, lon, range), true);
+            return;
+        }
+
+        if (missing.size() > MAX_TILE_REQUESTS) {
+            final int circleRange = circleRange(range, MAX_POI_RANGE);
+            new PagedFetch<Poi>(count) {
+                @Override
+                void request(int page, RequestListener pageListener) {
+                    api.nearbyPois(String.valueOf(lat), String.valueOf(lon), circleRange, null, category, count,
+                            page, PlaceAPI.NEARBY_POIS_SORT_BY_DISTENCE, false, pageListener);
+                }
+
+                @Override
+                boolean addPage(String response, int page, List<Poi> items) {
+                    return addPois(PoiList.parse(response), page, count, items);
+                }
+
+                @Override
+                void onFetched(List<Poi> items, boolean complete) {
+                    putPoiCircle(index, lat, lon, circleRange, items, complete);
+                    listener.onResult(queryPois(index, lat, lon, range), false);
+                }
+
+                @Override
+                void onFailed(WeiboException e) {
+                    listener.onWeiboException(e);
+                }
+            }.start();
+            return;
+        }
+
+        final TileBatch batch = new TileBatch(missing.size()) {
+            @Override
+            void onAllDone(WeiboException error) {
+                if (error != null) {
+                    listener.onWeiboException(error);
+                } else {
+                    listener.onResult(queryPois(index, lat, lon, range), false);
+                }
+            }
+        };
+        for (final GeoTileIndex.TileKey tile : missing) {
+            new PagedFetch<Poi>(count) {
+                @Override
+                void request(int page, RequestListener pageListener) {
+                    api.nearbyPois(String.valueOf(tile.centerLat), String.valueOf(tile.centerLon),
+                            Math.min(tile.radiusMeters, MAX_POI_RANGE), null, category, count, page,
+                            PlaceAPI.NEARBY_POIS_SORT_BY_DISTENCE, false, pageListener);
+                }
+
+                @Override
+                boolean addPage(String response, int page, List<Poi> items) {
+                    return addPois(PoiList.parse(response), page, count, items);
+                }
+
+                @Override
+                void onFetched(List<Poi> items, boolean complete) {
+                    putPoiTile(index, tile.key, items, complete);
+                    batch.done(null);
+                }
+
+                @Override
+                void onFailed(WeiboException e) {
+                    batch.done(e);
+                }
+            }.start();
+        }
+    }
+
+    /**
+     * Returns the geo-located statuses around a point, requesting only the tiles
+     * not cached yet.
+     *
+     * @param api      PlaceAPI used for the missing tiles
+     * @param lat      latitude
+     * @param lon      longitude
+     * @param range    radius in meters
+     * @param count    page size of each tile request, max 50
+     * @param listener result callback
+     */
+    public void nearbyTimeline(final PlaceAPI api, final double lat, final double lon, final int range,
+            final int count, final NearbyListener<Status> listener) {
+        List<GeoTileIndex.TileKey> missing = mStatusIndex.missingTiles(lat, lon, range);
+        if (missing.isEmpty()) {
+            listener.onResult(mStatusIndex.query(lat, lon, range), true);
+            return;
+        }
+
+        if (missing.size() > MAX_TILE_REQUESTS) {
+            final int circleRange = circleRange(range, MAX_TIMELINE_RANGE);
+            new PagedFetch<Status>(count) {
+                @Override
+                void request(int page, RequestListener pageListener) {
+                    api.nearbyTimeline(String.valueOf(lat), String.valueOf(lon), circleRange, 0, 0,
+                            PlaceAPI.SORT_BY_DISTENCE, count, page, false, false, pageListener);
+                }
+
+                @Override
+                boolean addPage(String response, int page, List<Status> items) {
+                    return addStatuses(StatusList.parse(response), page, count, items);
+                }
+
+                @Override
+                void onFetched(List<Status> items, boolean complete) {
+                    putStatusCircle(lat, lon, circleRange, items, complete);
+                    listener.onResult(mStatusIndex.query(lat, lon, range), false);
+                }
+
+                @Override
+                void onFailed(WeiboException e) {
+                    listener.onWeiboException(e);
+                }
+            }.start();
+            return;
+        }
+
+        final TileBatch batch = new TileBatch(missing.size()) {
+            @Override
+            void onAllDone(WeiboException error) {
+                if (error != null) {
+                    listener.onWeiboException(error);
+                } else {
+                    listener.onResult(mStatusIndex.query(lat, lon, range), false);
+                }
+            }
+        };
+        for (final GeoTileIndex.TileKey tile : missing) {
+            new PagedFetch<Status>(count) {
+                @Override
+                void request(int page, RequestListener pageListener) {
+                    api.nearbyTimeline(String.valueOf(tile.centerLat), String.valueOf(tile.centerLon),
+                            Math.min(tile.radiusMeters, MAX_TIMELINE_RANGE), 0, 0, PlaceAPI.SORT_BY_DISTENCE,
+                            count, page, false, false, pageListener);
+                }
+
+                @Override
+                boolean addPage(String response, int page, List<Status> items) {
+                    return addStatuses(StatusList.parse(response), page, count, items);
+                }
+
+                @Override
+                void onFetched(List<Status> items, boolean complete) {
+                    putStatusTile(tile.key, items, complete);
+                    batch.done(null);
+                }
+
+                @Override
+                void onFailed(WeiboException e) {
+                    batch.done(e);
+                }
+            }.start();
+        }
+    }
+
+    /**
+     * Adds POIs returned by a search; their tiles are not marked as covered.
+     */
+    public void addPoiList(PoiList poiList) {
+        if (poiList == null || poiList.pois == null) {
+            return;
+        }
+        for (Poi poi : poiList.pois) {
+            if (poi != null && isLocated(poi.lat, poi.lon)) {
+                mLoosePois.put(poi.poiid, Double.parseDouble(poi.lat), Double.parseDouble(poi.lon), poi);
+            }
+        }
+    }
+
+    /**
+     * Returns the cached POIs around a point without any request.
+     */
+    public List<Poi> cachedPois(double lat, double lon, int range, String category) {
+        return queryPois(poiIndex(category), lat, lon, range);
+    }
+
+    /**
+     * Drops the expired tiles of every index.
+     */
+    public void evictExpired() {
+        synchronized (mPoiIndexes) {
+            for (GeoTileIndex<Poi> index : mPoiIndexes.values()) {
+                index.evictExpired();
+            }
+        }
+        mStatusIndex.evictExpired();
+    }
+
+    public void clear() {
+        synchronized (mPoiIndexes) {
+            mPoiIndexes.clear();
+        }
+        mLoosePois.clear();
+        mStatusIndex.clear();
+    }
+
+    private GeoTileIndex<Poi> poiIndex(String category) {
+        String key = category == null ? "" : category;
+        synchronized (mPoiIndexes) {
+            GeoTileIndex<Poi> index = mPoiIndexes.get(key);
+            if (index == null) {
+                index = new GeoTileIndex<Poi>(mTileDegrees, mTtlMillis);
+                mPoiIndexes.put(key, index);
+            }
+            return index;
+        }
+    }
+
+    private List<Poi> queryPois(GeoTileIndex<Poi> index, double lat, double lon, int range) {
+        List<Poi> result = index.query(lat, lon, range);
+        for (Poi poi : mLoosePois.query(lat, lon, range)) {
+            if (!containsPoi(result, poi.poiid)) {
+                result.add(poi);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the range of a whole-circle request, with its margin.
+     */
+    private static int circleRange(int range, int maxRange) {
+        return Math.min(range + range / 100 * CIRCLE_MARGIN_PERCENT, maxRange);
+    }
+
+    private static void putPoiCircle(GeoTileIndex<Poi> index, double lat, double lon, int range, List<Poi> pois,
+            boolean complete) {
+        int size = pois.size();
+        List<String> ids = new ArrayList<String>(size);
+        double[] lats = new double[size];
+        double[] lons = new double[size];
+        for (int ix = 0; ix < size; ix++) {
+            Poi poi = pois.get(ix);
+            ids.add(poi.poiid);
+            lats[ix] = Double.parseDouble(poi.lat);
+            lons[ix] = Double.parseDouble(poi.lon);
+        }
+        index.putCircle(lat, lon, range, ids, lats, lons, pois, complete);
+    }
+
+    private void putStatusCircle(double lat, double lon, int range, List<Status> statuses, boolean complete) {
+        int size = statuses.size();
+        List<String> ids = new ArrayList<String>(size);
+        double[] lats = new double[size];
+        double[] lons = new double[size];
+        for (int ix = 0; ix < size; ix++) {
+            Status status = statuses.get(ix);
+            ids.add(status.id);
+            lats[ix] = Double.parseDouble(status.geo.latitude);
+            lons[ix] = Double.parseDouble(status.geo.longitude);
+        }
+        mStatusIndex.putCircle(lat, lon, range, ids, lats, lons, statuses, complete);
+    }
+
+    private static void putPoiTile(GeoTileIndex<Poi> index, long tileKey, List<Poi> pois, boolean complete) {
+        int size = pois.size();
+        List<String> ids = new ArrayList<String>(size);
+        double[] lats = new double[size];
+        double[] lons = new double[size];
+        for (int ix = 0; ix < size; ix++) {
+            Poi poi = pois.get(ix);
+            ids.add(poi.poiid);
+            lats[ix] = Double.parseDouble(poi.lat);
+            lons[ix] = Double.parseDouble(poi.lon);
+        }
+        index.putTile(tileKey, ids, lats, lons, pois, complete);
+    }
+
+    private void putStatusTile(long tileKey, List<Status> statuses, boolean complete) {
+        int size = statuses.size();
+        List<String> ids = new ArrayList<String>(size);
+        double[] lats = new double[size];
+        double[] lons = new double[size];
+        for (int ix = 0; ix < size; ix++) {
+            Status status = statuses.get(ix);
+            ids.add(status.id);
+            lats[ix] = Double.parseDouble(status.geo.latitude);
+            lons[ix] = Double.parseDouble(status.geo.longitude);
+        }
+        mStatusIndex.putTile(tileKey, ids, lats, lons, statuses, complete);
+    }
+
+    /**
+     * Adds the located POIs of a page and returns true if it is the last page.
+     */
+    private static boolean addPois(PoiList poiList, int page, int count, List<Poi> items) {
+        if (poiList == null || poiList.pois == null) {
+            return true;
+        }
+        for (Poi poi : poiList.pois) {
+            if (poi != null && isLocated(poi.lat, poi.lon)) {
+                items.add(poi);
+            }
+        }
+        int total = 0;
+        try {
+            total = TextHelper.isEmpty(poiList.totalNumber) ? 0 : Integer.parseInt(poiList.totalNumber);
+        } catch (NumberFormatException e) {
+            // Unknown total, the page size tells
+        }
+        return isLastPage(poiList.pois.size(), total, page, count);
+    }
+
+    /**
+     * Adds the located statuses of a page and returns true if it is the last page.
+     */
+    private static boolean addStatuses(StatusList statusList, int page, int count, List<Status> items) {
+        if (statusList == null || statusList.statusList == null) {
+            return true;
+        }
+        for (Status status : statusList.statusList) {
+            if (status != null && status.geo != null
+                    && isLocated(status.geo.latitude, status.geo.longitude)) {
+                items.add(status);
+            }
+        }
+        return isLastPage(statusList.statusList.size(), statusList.total_number, page, count);
+    }
+
+    /**
+     * @param returned number of items of the page
+     * @param total    total_number of the response, 0 if unknown
+     */
+    private static boolean isLastPage(int returned, int total, int page, int count) {
+        return returned < count || (total > 0 && total <= page * count);
+    }
+
+    private static boolean containsPoi(List<Poi> pois, String poiid) {
+        for (Poi poi : pois) {
+            if (poi.poiid != null && poi.poiid.equals(poiid)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLocated(String lat, String lon) {
+        if (TextHelper.isEmpty(lat) || TextHelper.isEmpty(lon)) {
+            return false;
+        }
+        try {
+            Double.parseDouble(lat);
+            Double.parseDouble(lon);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Requests the pages of one circle until a short page, or
+     * {@link #MAX_PAGES_PER_TILE} pages.
+     */
+    private abstract static class PagedFetch<T> implements RequestListener {
+        private final int mCount;
+        private final List<T> mItems = new ArrayList<T>();
+        private int mPage = 1;
+
+        PagedFetch(int count) {
+            mCount = count;
+        }
+
+        void start() {
+            request(mPage, this);
+        }
+
+        @Override
+        public void onComplete(String response) {
+            boolean last = addPage(response, mPage, mItems);
+            if (last || mCount <= 0 || mPage >= MAX_PAGES_PER_TILE) {
+                onFetched(mItems, last);
+            } else {
+                request(++mPage, this);
+            }
+        }
+
+        @Override
+        public void onWeiboException(WeiboException e) {
+            onFailed(e);
+        }
+
+        abstract void request(int page, RequestListener pageListener);
+
+        /**
+         * Adds the items of a page and returns true if it is the last page.
+         */
+        abstract boolean addPage(String response, int page, List<T> items);
+
+        /**
+         * @param complete false if the last pages were not requested
+         */
+        abstract void onFetched(List<T> items, boolean complete);
+
+        abstract void onFailed(WeiboException e);
+    }
+
+    /**
+     * Counts down the tile requests of one query.
+     */
+    private abstract static class TileBatch {
+        private int mPending;
+        private WeiboException mError;
+
+        TileBatch(int pending) {
+            mPending = pending;
+        }
+
+        void done(WeiboException error) {
+            WeiboException result;
+            synchronized (this) {
+                if (error != null && mError == null) {
+                    mError = error;
+                }
+                if (--mPending > 0) {
+                    return;
+                }
+                result = mError;
+            }
+            onAllDone(result);
+        }
+
+        abstract void onAllDone(WeiboException error);
+    }
+}
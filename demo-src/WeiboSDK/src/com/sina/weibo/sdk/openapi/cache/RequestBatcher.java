@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.net.RequestListener;
+
+/**
+ * Coalesces the misses of a memoizing cache: one request in flight at a time,
+ * carrying up to a batch size of the keys queued since the previous one.
+ *
+ * A key queued or in flight has a single pending entry, returned by
+ * {@link #obtain(Object)}, to which every caller asking for the key adds its
+ * listener while holding the lock of the batcher. An entry leaves the batcher
+ * under that lock before it is delivered, so no listener added to it is lost.
+ *
+ * @param <A> API sending the requests
+ * @param <K> cache key
+ * @param <P> pending entry
+ *
+ * @author SINA
+ * @since 2014-05-12
+ */
+abstract class RequestBatcher<A, K, P> {
+    private final int mMaxBatchSize;
+    private final Executor mExecutor;
+
+    /** State below is guarded by this */
+    private final LinkedHashMap<K, P> mQueue = new LinkedHashMap<K, P>();
+    private final Map<K, P> mInFlight = new HashMap<K, P>();
+    private boolean mRequesting;
+
+    RequestBatcher(int maxBatchSize) {
+        this(maxBatchSize, null);
+    }
+
+    /**
+     * @param executor runs {@link #takeResolved(Object, Object)} and sends the
+     *                 batches, e.g. when the cache has a disk tier; null to run
+     *                 them on the thread flushing or receiving the response
+     */
+    RequestBatcher(int maxBatchSize, Executor executor) {
+        mMaxBatchSize = maxBatchSize;
+        mExecutor = executor;
+    }
+
+    /**
+     * Returns the pending entry of a key, queued or in flight, queuing a new
+     * one if needed. Hold the lock of the batcher while updating the entry.
+     */
+    synchronized P obtain(K key) {
+        P pending = mInFlight.get(key);
+        if (pending == null) {
+            pending = mQueue.get(key);
+        }
+        if (pending == null) {
+            pending = newPending(key);
+            mQueue.put(key, pending);
+        }
+        return pending;
+    }
+
+    /**
+     * Returns true if the key is queued or in flight.
+     */
+    synchronized boolean isPending(K key) {
+        return mQueue.containsKey(key) || mInFlight.containsKey(key);
+    }
+
+    /**
+     * Sends the queued keys unless a request is in flight; the keys queued
+     * meanwhile are sent when its response comes back.
+     */
+    void flush(A api) {
+        synchronized (this) {
+            if (mRequesting || mQueue.isEmpty()) {
+                return;
+            }
+            mRequesting = true;
+        }
+        sendNext(api);
+    }
+
+    private void sendNext(final A api) {
+        if (mExecutor == null) {
+            send(api);
+            return;
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                send(api);
+            }
+        });
+    }
+
+    private void send(final A api) {
+        for (;;) {
+            final List<K> keys = new ArrayList<K>(mMaxBatchSize);
+            final List<P> batch = new ArrayList<P>(mMaxBatchSize);
+            synchronized (this) {
+                Iterator<Map.Entry<K, P>> iterator = mQueue.entrySet().iterator();
+                while (iterator.hasNext() && keys.size() < mMaxBatchSize) {
+                    Map.Entry<K, P> entry = iterator.next();
+                    iterator.remove();
+                    keys.add(entry.getKey());
+                    batch.add(entry.getValue());
+                    mInFlight.put(entry.getKey(), entry.getValue());
+                }
+                if (keys.isEmpty()) {
+                    mRequesting = false;
+                    return;
+                }
+            }
+
+            // Resolved meanwhile, outside of the lock as it may read a file
+            for (int ix = batch.size() - 1; ix >= 0; ix--) {
+                if (takeResolved(keys.get(ix), batch.get(ix))) {
+                    finish(keys.subList(ix, ix + 1));
+                    deliverResolved(batch.get(ix));
+                    keys.remove(ix);
+                    batch.remove(ix);
+                }
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+
+            try {
+                request(api, batch, new RequestListener() {
+                    @Override
+                    public void onComplete(String response) {
+                        finish(keys);
+                        deliver(batch, response);
+                        sendNext(api);
+                    }
+
+                    @Override
+                    public void onWeiboException(WeiboException e) {
+                        finish(keys);
+                        fail(batch, e);
+                        sendNext(api);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Not sent, e.g. an illegal parameter: fail the batch and go on
+                // with the queue, which clears mRequesting once it is empty
+                finish(keys);
+                fail(batch, new WeiboException(e));
+                continue;
+            }
+            return;
+        }
+    }
+
+    private synchronized void finish(List<K> keys) {
+        for (K key : keys) {
+            mInFlight.remove(key);
+        }
+    }
+
+    abstract P newPending(K key);
+
+    /**
+     * Returns true if the key no longer needs a request, e.g. it was loaded
+     * meanwhile; the entry is then passed to {@link #deliverResolved(Object)}.
+     */
+    boolean takeResolved(K key, P pending) {
+        return false;
+    }
+
+    void deliverResolved(P pending) {
+    }
+
+    abstract void request(A api, List<P> batch, RequestListener listener);
+
+    /**
+     * Delivers the response of a batch, the entries are no longer pending.
+     */
+    abstract void deliver(List<P> batch, String response);
+
+    abstract void fail(List<P> batch, WeiboException e);
+}
@@ -0,0 +1,470 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.net.AsyncTransportRunner;
+import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.openapi.legacy.ShortUrlAPI;
+import com.sina.weibo.sdk.openapi.models.ShortUrl;
+import com.sina.weibo.sdk.openapi.models.ShortUrlList;
+import com.sina.weibo.sdk.openapi.models.Status;
+import com.sina.weibo.sdk.openapi.models.TextEntities;
+
+/**
+ * Memoizing front of {@link ShortUrlAPI#expand}.
+ *
+ * Expanded links are kept in an in-memory LRU and, when a directory is given to
+ * {@link #ShortUrlCache(int, File, int)}, in a bounded disk tier: every resolved
+ * link is written through to it, and a link missing from memory is looked up on
+ * disk before it is requested. A t.cn link never changes target, so neither tier
+ * expires. Disk reads and writes run on a background thread; a link found on disk
+ * is delivered like a response, on {@link AsyncTransportRunner#getCallbackExecutor()}.
+ * Independently of the disk tier, {@link #save(File)} and {@link #load(File)}
+ * write and restore a snapshot of the memory tier.
+ *
+ * Misses are coalesced like in {@link LocationCache}: while a request is in
+ * flight, new misses are queued and sent together, up to
+ * {@link ShortUrlAPI#MAX_BATCH_URLS} per request, and every listener waiting for
+ * a link is called once it is resolved.
+ *
+ * {@link #prefetch(ShortUrlAPI, List)} queues the short links of a freshly parsed
+ * page at once, so they are resolved in as few requests as possible before the
+ * link previews ask for them:
+ *
+ * <pre>
+ * StatusList page = StatusList.parse(response);
+ * shortUrlCache.prefetch(shortUrlAPI, page.statusList);
+ * ...
+ * shortUrlCache.expand(shortUrlAPI, url, listener);
+ * </pre>
+ *
+ * @author SINA
+ * @since 2014-05-12
+ */
+public class ShortUrlCache {
+
+    /** Default number of links kept in memory */
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /** Default number of links kept on disk */
+    public static final int DEFAULT_MAX_DISK_ENTRIES = 16384;
+
+    private static final int FILE_MAGIC   = 0x57425543; // "WBUC"
+    private static final int FILE_VERSION = 1;
+
+    private static final String DISK_FILE_PREFIX = "short_urls_";
+
+    private static final String HTTP  = "http://";
+    private static final String HTTPS = "https://";
+
+    private final LruMap<String, String> mLinks;
+    /** Disk tier, null if none */
+    private final StringDiskCache mDisk;
+    private final ExpandBatcher mBatcher;
+
+    /**
+     * Receives the target of a short link.
+     */
+    public interface ExpandListener {
+        /**
+         * @param shortUrl the short link as passed to {@link ShortUrlCache#expand}
+         * @param longUrl  its target
+         */
+        public void onExpanded(String shortUrl, String longUrl);
+
+        public void onWeiboException(WeiboException e);
+    }
+
+    public ShortUrlCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructs a cache without disk tier.
+     *
+     * @param maxEntries number of links kept in memory
+     */
+    public ShortUrlCache(int maxEntries) {
+        this(maxEntries, null, 0);
+    }
+
+    /**
+     * @param maxEntries     number of links kept in memory
+     * @param diskDirectory  directory of the disk tier, e.g. a subdirectory of the
+     *                       cache directory of the application; null for none
+     * @param maxDiskEntries number of links kept on disk, see {@link #DEFAULT_MAX_DISK_ENTRIES}
+     */
+    public ShortUrlCache(int maxEntries, File diskDirectory, int maxDiskEntries) {
+        mLinks = new LruMap<String, String>(maxEntries);
+        if (diskDirectory != null) {
+            mDisk = new StringDiskCache(diskDirectory, DISK_FILE_PREFIX, maxDiskEntries);
+            mBatcher = new ExpandBatcher(DiskHolder.EXECUTOR);
+        } else {
+            mDisk = null;
+            mBatcher = new ExpandBatcher(null);
+        }
+    }
+
+    /**
+     * Returns true for the links of the Weibo shortener, t.cn and sinaurl.cn.
+     */
+    public static boolean isShortUrl(CharSequence url) {
+        int start;
+        if (startsWith(url, 0, HTTP)) {
+            start = HTTP.length();
+        } else if (startsWith(url, 0, HTTPS)) {
+            start = HTTPS.length();
+        } else {
+            return false;
+        }
+        return (startsWith(url, start, "t.cn/") && url.length() > start + 5)
+                || (startsWith(url, start, "sinaurl.cn/") && url.length() > start + 11);
+    }
+
+    /**
+     * Returns the target of a short link, from the cache or from
+     * {@link ShortUrlAPI#expand(String[], RequestListener)}. The listener is
+     * called synchronously on a memory hit.
+     */
+    public void expand(ShortUrlAPI api, String shortUrl, ExpandListener listener) {
+        String key = normalize(shortUrl);
+        String longUrl = mLinks.get(key);
+        if (longUrl != null) {
+            listener.onExpanded(shortUrl, longUrl);
+            return;
+        }
+        synchronized (mBatcher) {
+            Pending pending = mBatcher.obtain(key);
+            pending.listeners.add(listener);
+            pending.shortUrls.add(shortUrl);
+        }
+        mBatcher.flush(api);
+    }
+
+    /**
+     * Returns the target of a short link cached in memory, or null.
+     */
+    public String getCachedUrl(String shortUrl) {
+        return mLinks.get(normalize(shortUrl));
+    }
+
+    /**
+     * Queues the short links of statuses and of the statuses they repost, if not
+     * cached in memory yet. The entities parsed with the statuses are used when
+     * present, see {@link TextEntities#setExtractOnParse(boolean)}.
+     *
+     * @return number of links queued
+     */
+    public int prefetch(ShortUrlAPI api, List<Status> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return 0;
+        }
+
+        int queued = 0;
+        synchronized (mBatcher) {
+            for (Status status : statuses) {
+                for (Status source = status; source != null; source = source.retweeted_status) {
+                    queued += enqueueLinks(source.text, source.text_entities);
+                }
+            }
+        }
+        if (queued > 0) {
+            mBatcher.flush(api);
+        }
+        return queued;
+    }
+
+    /**
+     * Queues the short links of a text, if not cached in memory yet.
+     *
+     * @return number of links queued
+     */
+    public int prefetch(ShortUrlAPI api, CharSequence text) {
+        int queued;
+        synchronized (mBatcher) {
+            queued = enqueueLinks(text, null);
+        }
+        if (queued > 0) {
+            mBatcher.flush(api);
+        }
+        return queued;
+    }
+
+    /**
+     * Clears both tiers. The disk tier is cleared in the background, after the
+     * writes already queued.
+     */
+    public void clear() {
+        mLinks.clear();
+        if (mDisk != null) {
+            DiskHolder.EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    mDisk.clear();
+                }
+            });
+        }
+    }
+
+    /**
+     * Saves a snapshot of the memory tier.
+     */
+    public void save(File file) throws IOException {
+        final List<Map.Entry<String, String>> links = mLinks.entries();
+
+        CacheFile.save(file, FILE_MAGIC, FILE_VERSION, new CacheFile.Content() {
+            @Override
+            public void write(DataOutputStream out) throws IOException {
+                out.writeInt(links.size());
+                // Least recently used first, so that loading keeps the order
+                for (Map.Entry<String, String> entry : links) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue());
+                }
+            }
+        });
+    }
+
+    /**
+     * Restores a snapshot of the memory tier.
+     *
+     * @return false if the file does not exist or cannot be used
+     */
+    public boolean load(File file) throws IOException {
+        DataInputStream in = CacheFile.open(file, FILE_MAGIC, FILE_VERSION);
+        if (in == null) {
+            return false;
+        }
+
+        try {
+            int count = in.readInt();
+            for (int ix = 0; ix < count; ix++) {
+                String shortUrl = in.readUTF();
+                mLinks.put(shortUrl, in.readUTF());
+            }
+            return true;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Queues the short links found in a text. Must hold the lock of the batcher.
+     */
+    private int enqueueLinks(CharSequence text, TextEntities entities) {
+        if (entities == null) {
+            entities = TextEntities.extract(text);
+        }
+        if (entities == null) {
+            return 0;
+        }
+
+        int queued = 0;
+        for (int ix = 0; ix < entities.size(); ix++) {
+            if (entities.getType(ix) != TextEntities.TYPE_URL) {
+                continue;
+            }
+            String url = text.subSequence(entities.getStart(ix), entities.getEnd(ix)).toString();
+            if (!isShortUrl(url)) {
+                continue;
+            }
+            String key = normalize(url);
+            if (mLinks.get(key) == null && !mBatcher.isPending(key)) {
+                mBatcher.obtain(key);
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * Cache key of a short link: http scheme, no trailing slash.
+     */
+    static String normalize(String url) {
+        if (url == null) {
+            return "";
+        }
+        url = url.trim();
+        if (startsWith(url, 0, HTTPS)) {
+            url = HTTP + url.substring(HTTPS.length());
+        }
+        int end = url.length();
+        while (end > 0 && url.charAt(end - 1) == '/') {
+            end--;
+        }
+        return end == url.length() ? url : url.substring(0, end);
+    }
+
+    private static boolean startsWith(CharSequence text, int start, String prefix) {
+        if (text.length() - start < prefix.length()) {
+            return false;
+        }
+        for (int ix = 0; ix < prefix.length(); ix++) {
+            if (Character.toLowerCase(text.charAt(start + ix)) != prefix.charAt(ix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sends the links missing from both tiers to {@link ShortUrlAPI#expand}.
+     */
+    private class ExpandBatcher extends RequestBatcher<ShortUrlAPI, String, Pending> {
+
+        ExpandBatcher(Executor diskExecutor) {
+            super(ShortUrlAPI.MAX_BATCH_URLS, diskExecutor);
+        }
+
+        @Override
+        Pending newPending(String key) {
+            return new Pending(key);
+        }
+
+        @Override
+        boolean takeResolved(String key, Pending pending) {
+            // Resolved meanwhile, for example by load(), or on disk
+            String longUrl = mLinks.get(key);
+            if (longUrl == null && mDisk != null) {
+                longUrl = mDisk.get(key);
+                if (longUrl != null) {
+                    mLinks.put(key, longUrl);
+                }
+            }
+            pending.longUrl = longUrl;
+            return longUrl != null;
+        }
+
+        @Override
+        void deliverResolved(final Pending pending) {
+            if (mDisk == null) {
+                pending.deliver();
+                return;
+            }
+            // Found on the disk thread, called back like a response
+            AsyncTransportRunner.getCallbackExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    pending.deliver();
+                }
+            });
+        }
+
+        @Override
+        void request(ShortUrlAPI api, List<Pending> batch, RequestListener listener) {
+            String[] urls = new String[batch.size()];
+            for (int ix = 0; ix < urls.length; ix++) {
+                urls[ix] = batch.get(ix).key;
+            }
+            api.expand(urls, listener);
+        }
+
+        @Override
+        void deliver(List<Pending> batch, String response) {
+            ShortUrlList shortUrlList = ShortUrlList.parse(response);
+            Map<String, String> targets = new HashMap<String, String>();
+            if (shortUrlList != null && shortUrlList.urlList != null) {
+                for (ShortUrl shortUrl : shortUrlList.urlList) {
+                    if (shortUrl.result && shortUrl.url_long != null && shortUrl.url_long.length() > 0) {
+                        targets.put(normalize(shortUrl.url_short), shortUrl.url_long);
+                    }
+                }
+            }
+
+            final Map<String, String> resolved = new HashMap<String, String>();
+            for (Pending pending : batch) {
+                pending.longUrl = targets.get(pending.key);
+                if (pending.longUrl == null) {
+                    pending.fail(new WeiboException("Cannot expand " + pending.key));
+                    continue;
+                }
+                mLinks.put(pending.key, pending.longUrl);
+                resolved.put(pending.key, pending.longUrl);
+                pending.deliver();
+            }
+
+            if (mDisk != null && !resolved.isEmpty()) {
+                DiskHolder.EXECUTOR.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        mDisk.putAll(resolved);
+                    }
+                });
+            }
+        }
+
+        @Override
+        void fail(List<Pending> batch, WeiboException e) {
+            for (Pending pending : batch) {
+                pending.fail(e);
+            }
+        }
+    }
+
+    /**
+     * A short link waiting for a response, with every listener that asked for it.
+     * Prefetched links have no listener.
+     */
+    private static class Pending {
+        final String key;
+        final ArrayList<ExpandListener> listeners = new ArrayList<ExpandListener>(1);
+        /** Link as passed by each listener, in the same order */
+        final ArrayList<String> shortUrls = new ArrayList<String>(1);
+        String longUrl;
+
+        Pending(String key) {
+            this.key = key;
+        }
+
+        void deliver() {
+            for (int ix = 0; ix < listeners.size(); ix++) {
+                listeners.get(ix).onExpanded(shortUrls.get(ix), longUrl);
+            }
+        }
+
+        void fail(WeiboException e) {
+            for (ExpandListener listener : listeners) {
+                listener.onWeiboException(e);
+            }
+        }
+    }
+
+    private static class DiskHolder {
+        static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "weibo-short-url-disk");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
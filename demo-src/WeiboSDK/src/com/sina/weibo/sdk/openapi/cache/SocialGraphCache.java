@@ -0,0 +1,515 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.openapi.legacy.FriendshipsAPI;
+import com.sina.weibo.sdk.utils.LongHashSet;
+import com.sina.weibo.sdk.utils.TextHelper;
+
+/**
+ * Local cache of the social graph returned by {@link FriendshipsAPI#friendsIds},
+ * {@link FriendshipsAPI#followersIds} and {@link FriendshipsAPI#bilateralIds}.
+ *
+ * IDs are kept as primitive longs: an open-addressing set while pages are merged,
+ * and a sorted long[] snapshot for intersections (mutual friends, in common).
+ * A fetch from the first page builds a new set, which replaces the previous one
+ * once the last page is merged, so the users unfollowed since are dropped.
+ * The cache can be saved to and restored from a compact delta-encoded file.
+ *
+ * @author SINA
+ * @since 2014-04-10
+ */
+public class SocialGraphCache {
+    /** Relation types */
+    public static final int RELATION_FRIENDS   = 0;
+    public static final int RELATION_FOLLOWERS = 1;
+    public static final int RELATION_BILATERAL = 2;
+
+    /** Cache file format */
+    private static final int FILE_MAGIC   = 0x57424752; // "WBGR"
+    private static final int FILE_VERSION = 1;
+
+    private final Map<String, Graph> mGraphs = new HashMap<String, Graph>();
+
+    /**
+     * IDs of one relation of one user, plus the paging state of its fetch.
+     */
+    public static class Graph {
+        private final int mRelation;
+        private final long mUid;
+        /** IDs of the last complete fetch, plus the ones merged since */
+        private LongHashSet mIds;
+        /** IDs of the fetch in progress, mIds itself for a first fetch, null if none */
+        private LongHashSet mFetching;
+        private long[] mSorted;
+        /** next_cursor for friends/followers, next page number for bilateral */
+        private int mNextCursor;
+        private int mTotalNumber;
+        private boolean mComplete;
+
+        Graph(int relation, long uid, int expectedSize) {
+            mRelation = relation;
+            mUid = uid;
+            mIds = new LongHashSet(expectedSize);
+            mNextCursor = firstCursor();
+        }
+
+        public int getRelation() {
+            return mRelation;
+        }
+
+        public long getUid() {
+            return mUid;
+        }
+
+        public synchronized boolean contains(long id) {
+            return mIds.contains(id);
+        }
+
+        public synchronized int size() {
+            return mIds.size();
+        }
+
+        /**
+         * Returns the IDs in ascending order. Do not modify the returned array.
+         */
+        public synchronized long[] sortedIds() {
+            if (mSorted == null) {
+                mSorted = mIds.toSortedArray();
+            }
+            return mSorted;
+        }
+
+        public synchronized int getNextCursor() {
+            return mNextCursor;
+        }
+
+        public synchronized int getTotalNumber() {
+            return mTotalNumber;
+        }
+
+        /**
+         * Returns true once the last page has been merged.
+         */
+        public synchronized boolean isComplete() {
+            return mComplete;
+        }
+
+        /**
+         * Merges one page of IDs, the one at the stored cursor. The IDs are
+         * visible at once; the IDs missing from a fetch that started from the
+         * first page are dropped when its last page is merged.
+         *
+         * @return the number of IDs that were not known yet
+         */
+        public synchronized int merge(long[] ids, int length, int nextCursor, int totalNumber) {
+            if (mNextCursor == firstCursor()) {
+                mFetching = mIds.isEmpty() ? mIds : new LongHashSet(Math.max(mIds.size(), length));
+            } else if (mFetching == null) {
+                // Resumed from a saved first fetch
+                mFetching = mIds;
+            }
+            int added = mIds.addAll(ids, 0, length);
+            if (mFetching != mIds) {
+                mFetching.addAll(ids, 0, length);
+            }
+            if (added > 0) {
+                mSorted = null;
+            }
+            if (totalNumber > 0) {
+                mTotalNumber = totalNumber;
+            }
+            if (mRelation == RELATION_BILATERAL) {
+                // bilateral/ids.json pages by page number and has no cursor
+                mComplete = length == 0;
+                if (!mComplete) {
+                    mNextCursor++;
+                }
+            } else {
+                mNextCursor = nextCursor;
+                mComplete = nextCursor == 0;
+            }
+            if (mComplete) {
+                if (mFetching != mIds) {
+                    mIds = mFetching;
+                    mSorted = null;
+                }
+                mFetching = null;
+            }
+            return added;
+        }
+
+        /**
+         * Adds an ID, e.g. after following a user.
+         */
+        public synchronized void add(long id) {
+            if (isRefetching()) {
+                mFetching.add(id);
+            }
+            if (mIds.add(id)) {
+                mSorted = null;
+            }
+        }
+
+        /**
+         * Removes an ID, e.g. after unfollowing a user.
+         */
+        public synchronized void remove(long id) {
+            if (isRefetching()) {
+                mFetching.remove(id);
+            }
+            if (mIds.remove(id)) {
+                mSorted = null;
+            }
+        }
+
+        /**
+         * Forgets the paging state so the next fetch starts from the first page
+         * again. Cached IDs are kept until that fetch completes.
+         */
+        public synchronized void resetCursor() {
+            mNextCursor = firstCursor();
+            mComplete = false;
+            mFetching = null;
+        }
+
+        private int firstCursor() {
+            return mRelation == RELATION_BILATERAL ? 1 : 0;
+        }
+
+        /**
+         * Returns true while a fetch from the first page replaces existing IDs.
+         */
+        private boolean isRefetching() {
+            return mFetching != null && mFetching != mIds;
+        }
+    }
+
+    /**
+     * Returns the cached graph, or null if nothing has been fetched for it.
+     */
+    public synchronized Graph getGraph(int relation, long uid) {
+        return mGraphs.get(key(relation, uid));
+    }
+
+    /**
+     * Returns the cached graph, creating an empty one if needed.
+     */
+    public synchronized Graph obtainGraph(int relation, long uid) {
+        String key = key(relation, uid);
+        Graph graph = mGraphs.get(key);
+        if (graph == null) {
+            graph = new Graph(relation, uid, 0);
+            mGraphs.put(key, graph);
+        }
+        return graph;
+    }
+
+    public synchronized void remove(int relation, long uid) {
+        mGraphs.remove(key(relation, uid));
+    }
+
+    public synchronized void clear() {
+        mGraphs.clear();
+    }
+
+    public boolean contains(int relation, long uid, long id) {
+        Graph graph = getGraph(relation, uid);
+        return graph != null && graph.contains(id);
+    }
+
+    /**
+     * Returns the users followed by both users, from the cached friend lists.
+     */
+    public long[] mutualFriends(long uid, long otherUid) {
+        return intersect(RELATION_FRIENDS, uid, RELATION_FRIENDS, otherUid);
+    }
+
+    /**
+     * Returns the IDs present in both cached graphs, in ascending order.
+     */
+    public long[] intersect(int relation, long uid, int otherRelation, long otherUid) {
+        Graph graph = getGraph(relation, uid);
+        Graph other = getGraph(otherRelation, otherUid);
+        if (graph == null || other == null) {
+            return new long[0];
+        }
+        return intersect(graph.sortedIds(), other.sortedIds());
+    }
+
+    /**
+     * Intersects two ascending arrays. When one array is much smaller than the
+     * other, its elements are binary searched instead of merged linearly.
+     */
+    public static long[] intersect(long[] sortedA, long[] sortedB) {
+        if (sortedA.length > sortedB.length) {
+            long[] tmp = sortedA;
+            sortedA = sortedB;
+            sortedB = tmp;
+        }
+
+        long[] result = new long[sortedA.length];
+        int count = 0;
+        if (sortedA.length * 16 < sortedB.length) {
+            int from = 0;
+            for (long value : sortedA) {
+                int ix = binarySearch(sortedB, from, sortedB.length, value);
+                if (ix >= 0) {
+                    result[count++] = value;
+                    from = ix + 1;
+                } else {
+                    from = -ix - 1;
+                }
+            }
+        } else {
+            int ia = 0;
+            int ib = 0;
+            while (ia < sortedA.length && ib < sortedB.length) {
+                long a = sortedA[ia];
+                long b = sortedB[ib];
+                if (a < b) {
+                    ia++;
+                } else if (a > b) {
+                    ib++;
+                } else {
+                    result[count++] = a;
+                    ia++;
+                    ib++;
+                }
+            }
+        }
+
+        long[] trimmed = new long[count];
+        System.arraycopy(result, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     * Merges a response of friends/ids.json, followers/ids.json or
+     * friends/bilateral/ids.json into the cache.
+     *
+     * @return the graph the page was merged into, null if the response is invalid
+     */
+    public Graph mergeIdsPage(int relation, long uid, String response) {
+        if (TextHelper.isEmpty(response)) {
+            return null;
+        }
+
+        try {
+            JSONObject jsonObject = new JSONObject(response);
+            JSONArray jsonArray = jsonObject.optJSONArray("ids");
+            int length = jsonArray != null ? jsonArray.length() : 0;
+            long[] ids = new long[length];
+            for (int ix = 0; ix < length; ix++) {
+                ids[ix] = jsonArray.optLong(ix);
+            }
+
+            Graph graph = obtainGraph(relation, uid);
+            graph.merge(ids, length, jsonObject.optInt("next_cursor", 0),
+                    jsonObject.optInt("total_number", 0));
+            return graph;
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Fetches the next page of a graph from its stored cursor and merges it.
+     *
+     * @param api      FriendshipsAPI used to fetch the page
+     * @param relation relation type, see {@link #RELATION_FRIENDS}
+     * @param uid      owner of the graph
+     * @param count    page size
+     * @param listener callback, receives the raw response after it has been merged
+     */
+    public void fetchNextPage(FriendshipsAPI api, final int relation, final long uid, int count,
+            final RequestListener listener) {
+        int cursor = obtainGraph(relation, uid).getNextCursor();
+        RequestListener mergeListener = new RequestListener() {
+            @Override
+            public void onComplete(String response) {
+                mergeIdsPage(relation, uid, response);
+                if (listener != null) {
+                    listener.onComplete(response);
+                }
+            }
+
+            @Override
+            public void onWeiboException(WeiboException e) {
+                if (listener != null) {
+                    listener.onWeiboException(e);
+                }
+            }
+        };
+
+        switch (relation) {
+        case RELATION_FRIENDS:
+            api.friendsIds(uid, count, cursor, mergeListener);
+            break;
+
+        case RELATION_FOLLOWERS:
+            api.followersIds(uid, count, cursor, mergeListener);
+            break;
+
+        case RELATION_BILATERAL:
+            api.bilateralIds(uid, count, cursor, mergeListener);
+            break;
+
+        default:
+            throw new IllegalArgumentException("Unknown relation: " + relation);
+        }
+    }
+
+    /**
+     * Saves all graphs. IDs are written sorted, as zig-zag varint deltas. A
+     * refetch in progress is not saved: it starts again from the first page.
+     */
+    public void save(File file) throws IOException {
+        final Graph[] graphs;
+        synchronized (this) {
+            graphs = mGraphs.values().toArray(new Graph[mGraphs.size()]);
+        }
+
+        CacheFile.save(file, FILE_MAGIC, FILE_VERSION, new CacheFile.Content() {
+            @Override
+            public void write(DataOutputStream out) throws IOException {
+                out.writeInt(graphs.length);
+                for (Graph graph : graphs) {
+                    synchronized (graph) {
+                        long[] ids = graph.sortedIds();
+                        boolean refetching = graph.isRefetching();
+                        out.writeInt(graph.mRelation);
+                        out.writeLong(graph.mUid);
+                        out.writeInt(refetching ? graph.firstCursor() : graph.mNextCursor);
+                        out.writeInt(graph.mTotalNumber);
+                        out.writeBoolean(graph.mComplete);
+                        out.writeInt(ids.length);
+                        long previous = 0;
+                        for (long id : ids) {
+                            writeVarLong(out, id - previous);
+                            previous = id;
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Replaces the cache content with the graphs saved in the file.
+     *
+     * @return false if the file does not exist or has an unknown format
+     */
+    public boolean load(File file) throws IOException {
+        DataInputStream in = CacheFile.open(file, FILE_MAGIC, FILE_VERSION);
+        if (in == null) {
+            return false;
+        }
+
+        try {
+            Map<String, Graph> graphs = new HashMap<String, Graph>();
+            int graphCount = in.readInt();
+            for (int ig = 0; ig < graphCount; ig++) {
+                int relation = in.readInt();
+                long uid = in.readLong();
+                int nextCursor = in.readInt();
+                int totalNumber = in.readInt();
+                boolean complete = in.readBoolean();
+                int size = in.readInt();
+
+                Graph graph = new Graph(relation, uid, size);
+                long[] ids = new long[size];
+                long previous = 0;
+                for (int ix = 0; ix < size; ix++) {
+                    previous += readVarLong(in);
+                    ids[ix] = previous;
+                }
+                graph.mIds.addAll(ids, 0, size);
+                graph.mSorted = ids;
+                graph.mNextCursor = nextCursor;
+                graph.mTotalNumber = totalNumber;
+                graph.mComplete = complete;
+                graphs.put(key(relation, uid), graph);
+            }
+
+            synchronized (this) {
+                mGraphs.clear();
+                mGraphs.putAll(graphs);
+            }
+            return true;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String key(int relation, long uid) {
+        return relation + ":" + uid;
+    }
+
+    private static int binarySearch(long[] array, int from, int to, long value) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midValue = array[mid];
+            if (midValue < value) {
+                low = mid + 1;
+            } else if (midValue > value) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long zigzag = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
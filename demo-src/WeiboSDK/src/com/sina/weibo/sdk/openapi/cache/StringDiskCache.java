@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sina.weibo.sdk.platform.PlatformLog;
+
+/**
+ * Bounded string map on disk, the second tier of a memory cache.
+ *
+ * Keys are spread by hash over a fixed number of small bucket files, so a read
+ * or a write only touches one of them. Each bucket keeps at most its share of
+ * the entries and drops the least recently written ones beyond it, so a bucket
+ * receiving more keys than the others may evict before the cache is full.
+ * Buckets are written with {@link CacheFile}, a crash while writing loses no
+ * other entry.
+ *
+ * Calls do file I/O, do not make them on the main thread.
+ *
+ * @author SINA
+ * @since 2014-05-12
+ */
+class StringDiskCache {
+    private static final String TAG = StringDiskCache.class.getName();
+
+    private static final int MAX_BUCKETS = 64;
+    /** Entries per bucket below which fewer buckets are used, so that hash skew evicts little */
+    private static final int MIN_BUCKET_ENTRIES = 32;
+
+    private static final int FILE_MAGIC   = 0x57425344; // "WBSD"
+    private static final int FILE_VERSION = 1;
+
+    private final File mDirectory;
+    private final String mPrefix;
+    private final int mMaxBucketEntries;
+    /** Lock of each bucket file */
+    private final Object[] mLocks;
+
+    /**
+     * @param directory  directory of the bucket files, created if needed
+     * @param prefix     name prefix of the bucket files
+     * @param maxEntries number of entries kept, rounded up to a multiple of the buckets
+     */
+    StringDiskCache(File directory, String prefix, int maxEntries) {
+        int buckets = Math.max(1, Math.min(MAX_BUCKETS, maxEntries / MIN_BUCKET_ENTRIES));
+        mDirectory = directory;
+        mPrefix = prefix;
+        mMaxBucketEntries = (Math.max(1, maxEntries) + buckets - 1) / buckets;
+        mLocks = new Object[buckets];
+        for (int ix = 0; ix < buckets; ix++) {
+            mLocks[ix] = new Object();
+        }
+    }
+
+    /**
+     * Returns the value of a key, or null.
+     */
+    String get(String key) {
+        int bucket = bucketOf(key);
+        synchronized (mLocks[bucket]) {
+            return read(bucket).get(key);
+        }
+    }
+
+    /**
+     * Writes entries, rewriting each bucket they fall in once.
+     */
+    void putAll(Map<String, String> entries) {
+        List<List<Map.Entry<String, String>>> buckets =
+                new ArrayList<List<Map.Entry<String, String>>>(mLocks.length);
+        for (int ix = 0; ix < mLocks.length; ix++) {
+            buckets.add(null);
+        }
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            int bucket = bucketOf(entry.getKey());
+            if (buckets.get(bucket) == null) {
+                buckets.set(bucket, new ArrayList<Map.Entry<String, String>>());
+            }
+            buckets.get(bucket).add(entry);
+        }
+
+        for (int bucket = 0; bucket < mLocks.length; bucket++) {
+            List<Map.Entry<String, String>> added = buckets.get(bucket);
+            if (added == null) {
+                continue;
+            }
+            synchronized (mLocks[bucket]) {
+                LinkedHashMap<String, String> content = read(bucket);
+                for (Map.Entry<String, String> entry : added) {
+                    // Moves the key to the end: least recently written first
+                    content.remove(entry.getKey());
+                    content.put(entry.getKey(), entry.getValue());
+                }
+                write(bucket, content);
+            }
+        }
+    }
+
+    void clear() {
+        for (int bucket = 0; bucket < mLocks.length; bucket++) {
+            synchronized (mLocks[bucket]) {
+                fileOf(bucket).delete();
+            }
+        }
+    }
+
+    private int bucketOf(String key) {
+        return (key.hashCode() & 0x7FFFFFFF) % mLocks.length;
+    }
+
+    private File fileOf(int bucket) {
+        return new File(mDirectory, mPrefix + bucket);
+    }
+
+    /**
+     * Reads a bucket, empty if it does not exist or cannot be read.
+     */
+    private LinkedHashMap<String, String> read(int bucket) {
+        LinkedHashMap<String, String> content = new LinkedHashMap<String, String>();
+        File file = fileOf(bucket);
+        try {
+            DataInputStream in = CacheFile.open(file, FILE_MAGIC, FILE_VERSION);
+            if (in == null) {
+                return content;
+            }
+            try {
+                int count = in.readInt();
+                for (int ix = 0; ix < count; ix++) {
+                    String key = in.readUTF();
+                    content.put(key, in.readUTF());
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            PlatformLog.w(TAG, "Cannot read " + file + ": " + e);
+            content.clear();
+        }
+        return content;
+    }
+
+    private void write(int bucket, LinkedHashMap<String, String> content) {
+        final List<Map.Entry<String, String>> entries = new ArrayList<Map.Entry<String, String>>(content.entrySet());
+        final int from = Math.max(0, entries.size() - mMaxBucketEntries);
+        File file = fileOf(bucket);
+        try {
+            if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+                throw new IOException("Cannot create " + mDirectory);
+            }
+            CacheFile.save(file, FILE_MAGIC, FILE_VERSION, new CacheFile.Content() {
+                @Override
+                public void write(DataOutputStream out) throws IOException {
+                    out.writeInt(entries.size() - from);
+                    for (int ix = from; ix < entries.size(); ix++) {
+                        out.writeUTF(entries.get(ix).getKey());
+                        out.writeUTF(entries.get(ix).getValue());
+                    }
+                }
+            });
+        } catch (IOException e) {
+            PlatformLog.w(TAG, "Cannot write " + file + ": " + e);
+        }
+    }
+}
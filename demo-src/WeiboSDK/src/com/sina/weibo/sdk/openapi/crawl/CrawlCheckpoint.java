@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.crawl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sina.weibo.sdk.openapi.cache.CacheFile;
+import com.sina.weibo.sdk.platform.PlatformLog;
+
+/**
+ * Per user timeline cursors of a {@link TimelineCrawler}, persisted in a file.
+ *
+ * Every update is appended to the file and flushed, so a crawl killed at any
+ * point resumes from the last page written to its sink. The file is compacted
+ * when opened and when it grows too large; a record cut short by a crash is
+ * ignored.
+ *
+ * @author SINA
+ * @since 2014-05-02
+ */
+public class CrawlCheckpoint {
+    private static final String TAG = CrawlCheckpoint.class.getName();
+
+    private static final int FILE_MAGIC   = 0x57424350;
+    private static final int FILE_VERSION = 1;
+
+    /** The file is compacted once it holds this many records per user */
+    private static final int COMPACT_RATIO = 8;
+
+    private final File mFile;
+
+    /** State below is guarded by this */
+    private final Map<Long, Cursor> mCursors = new HashMap<Long, Cursor>();
+    private DataOutputStream mJournal;
+    private int mRecords;
+
+    /**
+     * Position of the crawl of a user timeline.
+     */
+    public static final class Cursor {
+        public final long uid;
+        /** Lower bound of the walk: only statuses newer than it are fetched */
+        public final long floor;
+        /** Newest status fetched */
+        public final long top;
+        /** max_id of the next page, 0 for the newest status */
+        public final long maxId;
+        /**
+         * True once the walk reached its floor or the oldest status. A walk
+         * stopped earlier keeps its floor and max_id, and resumes there.
+         */
+        public final boolean done;
+
+        public Cursor(long uid, long floor, long top, long maxId, boolean done) {
+            this.uid   = uid;
+            this.floor = floor;
+            this.top   = top;
+            this.maxId = maxId;
+            this.done  = done;
+        }
+    }
+
+    /**
+     * Opens a checkpoint file, creating it if needed.
+     */
+    public CrawlCheckpoint(File file) throws IOException {
+        mFile = file;
+        load();
+        rewrite();
+    }
+
+    /**
+     * Returns the cursor of a user, or null if the user was never crawled.
+     */
+    public synchronized Cursor get(long uid) {
+        return mCursors.get(uid);
+    }
+
+    public synchronized int size() {
+        return mCursors.size();
+    }
+
+    /**
+     * Records the cursor of a user.
+     */
+    public synchronized void put(Cursor cursor) throws IOException {
+        if (mJournal == null) {
+            throw new IOException("Checkpoint closed");
+        }
+        mCursors.put(cursor.uid, cursor);
+        if (++mRecords > COMPACT_RATIO * mCursors.size()) {
+            rewrite();
+        } else {
+            writeCursor(mJournal, cursor);
+            mJournal.flush();
+        }
+    }
+
+    /**
+     * Prepares an incremental crawl: the walks which are done start again
+     * from the newest status, down to the newest one already fetched. The
+     * walks not done yet first finish the statuses they stopped at.
+     */
+    public synchronized void startNewRound() throws IOException {
+        List<Cursor> cursors = new ArrayList<Cursor>(mCursors.values());
+        for (Cursor cursor : cursors) {
+            if (cursor.done) {
+                mCursors.put(cursor.uid, new Cursor(cursor.uid, cursor.top, cursor.top, 0, false));
+            }
+        }
+        rewrite();
+    }
+
+    public synchronized void close() throws IOException {
+        if (mJournal != null) {
+            mJournal.close();
+            mJournal = null;
+        }
+    }
+
+    private void load() throws IOException {
+        if (!mFile.exists()) {
+            return;
+        }
+
+        DataInputStream in = CacheFile.open(mFile, FILE_MAGIC, FILE_VERSION);
+        if (in == null) {
+            throw new IOException("Unknown checkpoint format: " + mFile);
+        }
+        try {
+            for (;;) {
+                long uid = in.readLong();
+                long floor = in.readLong();
+                long top = in.readLong();
+                long maxId = in.readLong();
+                boolean done = in.readBoolean();
+                mCursors.put(uid, new Cursor(uid, floor, top, maxId, done));
+            }
+        } catch (EOFException e) {
+            // End of the journal, possibly in the middle of a record written during a crash
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes the current cursors, one per user, and reopens the journal after them.
+     */
+    private void rewrite() throws IOException {
+        close();
+
+        CacheFile.save(mFile, FILE_MAGIC, FILE_VERSION, new CacheFile.Content() {
+            @Override
+            public void write(DataOutputStream out) throws IOException {
+                for (Cursor cursor : mCursors.values()) {
+                    writeCursor(out, cursor);
+                }
+            }
+        });
+
+        mRecords = mCursors.size();
+        PlatformLog.d(TAG, "Checkpoint " + mFile + ": " + mCursors.size() + " users");
+        mJournal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(mFile, true)));
+    }
+
+    private static void writeCursor(DataOutputStream out, Cursor cursor) throws IOException {
+        out.writeLong(cursor.uid);
+        out.writeLong(cursor.floor);
+        out.writeLong(cursor.top);
+        out.writeLong(cursor.maxId);
+        out.writeBoolean(cursor.done);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.crawl;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+
+import org.json.JSONArray;
+
+/**
+ * {@link TimelineCrawler.Sink} appending each status to a file, one JSON
+ * object per line. Every page is flushed before the crawler records its
+ * cursor, so a resumed crawl may write the last page of a user twice, but
+ * never skips one. The statuses are written as the server sent them, see
+ * {@link TimelineCrawler.RawSink}.
+ *
+ * @author SINA
+ * @since 2014-05-02
+ */
+public class JsonLinesSink implements TimelineCrawler.RawSink {
+
+    private final Writer mWriter;
+
+    /**
+     * @param file   output file
+     * @param append true to add to the file, e.g. when resuming a crawl
+     */
+    public JsonLinesSink(File file, boolean append) throws IOException {
+        mWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, append), "UTF-8"));
+    }
+
+    @Override
+    public synchronized boolean onPage(long uid, JSONArray statuses) throws IOException {
+        int length = statuses.length();
+        for (int ix = 0; ix < length; ix++) {
+            mWriter.write(String.valueOf(statuses.opt(ix)));
+            mWriter.write('\n');
+        }
+        mWriter.flush();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean onRawPage(long uid, List<String> statuses) throws IOException {
+        for (String status : statuses) {
+            // A raw line break can only be whitespace between tokens
+            if (status.indexOf('\n') >= 0 || status.indexOf('\r') >= 0) {
+                status = status.replace('\n', ' ').replace('\r', ' ');
+            }
+            mWriter.write(status);
+            mWriter.write('\n');
+        }
+        mWriter.flush();
+        return true;
+    }
+
+    public synchronized void close() throws IOException {
+        mWriter.close();
+    }
+}
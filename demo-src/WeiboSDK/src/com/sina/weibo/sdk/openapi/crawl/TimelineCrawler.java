@@ -0,0 +1,613 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.crawl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.exception.WeiboHttpException;
+import com.sina.weibo.sdk.net.HttpRequest;
+import com.sina.weibo.sdk.net.RequestAwareListener;
+import com.sina.weibo.sdk.openapi.legacy.StatusesAPI;
+import com.sina.weibo.sdk.openapi.models.ErrorInfo;
+import com.sina.weibo.sdk.platform.PlatformLog;
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.StructuralIndex;
+
+/**
+ * Crawls the timelines of many users with {@link StatusesAPI#userTimeline} or
+ * {@link StatusesAPI#userTimelineIds}.
+ *
+ * Up to {@link #setParallelism(int)} users are crawled at once. Each timeline
+ * is walked from the newest status down with max_id until a page is empty,
+ * the sink asks to stop or {@link #setMaxStatusesPerUser(int)} is reached.
+ * Pages are handed to the {@link Sink} as they arrive, then the cursor of the
+ * user is recorded in the {@link CrawlCheckpoint}: a crawl started again with
+ * the same checkpoint skips the users done and resumes the others where they
+ * stopped. A user is done once the walk reached the oldest status, or the
+ * newest one of the previous round; a walk stopped by the sink or the limit
+ * is resumed by the next crawl, so no status is skipped. {@link CrawlCheckpoint#startNewRound()} turns the next
+ * crawl into an incremental one, fetching only the statuses posted since.
+ *
+ * Requests are spaced by {@link #setRequestsPerSecond(double)}. When the
+ * server reports a rate limit, the whole crawl pauses for
+ * {@link #setRateLimitBackoff(long)} and retries; network and server errors
+ * are retried a few times before the user is reported as failed.
+ *
+ * <pre>
+ * CrawlCheckpoint checkpoint = new CrawlCheckpoint(new File(dir, "crawl.cp"));
+ * JsonLinesSink sink = new JsonLinesSink(new File(dir, "statuses.jsonl"), true);
+ * new TimelineCrawler(statusesAPI, checkpoint, sink)
+ *         .setParallelism(8)
+ *         .setRequestsPerSecond(5)
+ *         .start(uids, listener);
+ * </pre>
+ *
+ * The sink and the listener are called on worker threads, for several users
+ * at once. A {@link RawSink} receives the statuses as the text of the
+ * response: the page is then only scanned once into a {@link StructuralIndex}
+ * to find the statuses and their ids, and no JSON tree is built.
+ *
+ * @author SINA
+ * @since 2014-05-02
+ */
+public class TimelineCrawler {
+    private static final String TAG = TimelineCrawler.class.getName();
+
+    public static final int DEFAULT_PARALLELISM = 4;
+    /** Maximum count accepted by user_timeline.json */
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final long DEFAULT_RATE_LIMIT_BACKOFF_MILLIS = 60 * 1000;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
+    /** Delay before the first retry of a failed page, doubled on each retry */
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private static final JsonReader.Names PAGE_NAMES   = new JsonReader.Names("statuses");
+    private static final JsonReader.Names STATUS_NAMES = new JsonReader.Names("id");
+
+    /** error_code of the rate limit errors: IP, user and user per API limits */
+    private static final String[] RATE_LIMIT_ERROR_CODES = { "10022", "10023", "10024" };
+
+    /**
+     * Receives the crawled pages.
+     */
+    public interface Sink {
+        /**
+         * Called with each non empty page of a timeline, newest status first.
+         * The elements are status objects, or status ids in ids only mode.
+         *
+         * @return false to stop crawling this user in this crawl; the next crawl resumes there
+         * @throws IOException to abort the crawl
+         */
+        public boolean onPage(long uid, JSONArray statuses) throws IOException;
+    }
+
+    /**
+     * A {@link Sink} receiving the JSON text of each status, e.g. to store it
+     * as it is.
+     */
+    public interface RawSink extends Sink {
+        /**
+         * Called instead of {@link #onPage(long, JSONArray)}, with the text of
+         * each status (or status id) as found in the response.
+         *
+         * @return false to stop crawling this user in this crawl; the next crawl resumes there
+         * @throws IOException to abort the crawl
+         */
+        public boolean onRawPage(long uid, List<String> statuses) throws IOException;
+    }
+
+    /**
+     * Receives the outcome of a crawl.
+     */
+    public interface Listener {
+        /**
+         * Called when a user could not be crawled. Its cursor is kept, so a
+         * later crawl retries it.
+         */
+        public void onUserFailed(long uid, Exception e);
+
+        /**
+         * Called once all the users were crawled, or the crawl was canceled or aborted.
+         */
+        public void onFinished();
+    }
+
+    private final StatusesAPI mAPI;
+    private final CrawlCheckpoint mCheckpoint;
+    private final Sink mSink;
+
+    private int mParallelism = DEFAULT_PARALLELISM;
+    private int mPageSize = MAX_PAGE_SIZE;
+    private int mMaxStatusesPerUser;
+    private boolean mIdsOnly;
+    private int mFeatureType = StatusesAPI.FEATURE_ALL;
+    private boolean mTrimUser;
+    private long mIntervalNanos;
+    private long mRateLimitBackoffMillis = DEFAULT_RATE_LIMIT_BACKOFF_MILLIS;
+    private int mMaxRetries = DEFAULT_MAX_RETRIES;
+
+    /** State below is guarded by this */
+    private long[] mUids;
+    private int mNextUid;
+    private final List<Walk> mWalks = new ArrayList<Walk>();
+    private Listener mListener;
+    private boolean mCanceled;
+    private boolean mFinished;
+    private long mNextSlotNanos;
+    private long mStatusCount;
+    private int mUsersDone;
+    private int mUsersSkipped;
+    private int mUsersFailed;
+
+    public TimelineCrawler(StatusesAPI api, CrawlCheckpoint checkpoint, Sink sink) {
+        mAPI        = api;
+        mCheckpoint = checkpoint;
+        mSink       = sink;
+    }
+
+    /**
+     * Sets the number of users crawled at once.
+     */
+    public TimelineCrawler setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism <= 0");
+        }
+        mParallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the page size, at most {@link #MAX_PAGE_SIZE} (the default).
+     */
+    public TimelineCrawler setPageSize(int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize must be in [1, " + MAX_PAGE_SIZE + "]");
+        }
+        mPageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * Stops the walk of a user after this many statuses in one crawl, 0 for no limit.
+     */
+    public TimelineCrawler setMaxStatusesPerUser(int maxStatuses) {
+        mMaxStatusesPerUser = maxStatuses;
+        return this;
+    }
+
+    /**
+     * Crawls status ids only, with {@link StatusesAPI#userTimelineIds}.
+     */
+    public TimelineCrawler setIdsOnly(boolean idsOnly) {
+        mIdsOnly = idsOnly;
+        return this;
+    }
+
+    /**
+     * Sets the featureType and trim_user parameters of the requests.
+     */
+    public TimelineCrawler setFilter(int featureType, boolean trim_user) {
+        mFeatureType = featureType;
+        mTrimUser    = trim_user;
+        return this;
+    }
+
+    /**
+     * Limits the rate of the requests, 0 for no limit.
+     */
+    public TimelineCrawler setRequestsPerSecond(double requestsPerSecond) {
+        if (requestsPerSecond < 0) {
+            throw new IllegalArgumentException("requestsPerSecond < 0");
+        }
+        mIntervalNanos = requestsPerSecond > 0 ? (long) (1000000000L / requestsPerSecond) : 0;
+        return this;
+    }
+
+    /**
+     * Sets the pause after a rate limit error.
+     */
+    public TimelineCrawler setRateLimitBackoff(long backoffMillis) {
+        mRateLimitBackoffMillis = backoffMillis;
+        return this;
+    }
+
+    /**
+     * Sets how many times a page failing with a network or server error is retried.
+     */
+    public TimelineCrawler setMaxRetries(int maxRetries) {
+        mMaxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * Starts crawling. Returns at once; the listener is notified at the end.
+     */
+    public void start(long[] uids, Listener listener) {
+        synchronized (this) {
+            if (mUids != null) {
+                throw new IllegalStateException("Crawl already started");
+            }
+            mUids = uids.clone();
+            mListener = listener;
+        }
+        fill();
+    }
+
+    /**
+     * Stops the crawl. Pages in flight are aborted; the checkpoint keeps the
+     * position of every user.
+     */
+    public void cancel() {
+        List<Walk> walks;
+        synchronized (this) {
+            mCanceled = true;
+            walks = new ArrayList<Walk>(mWalks);
+        }
+        for (Walk walk : walks) {
+            walk.cancel();
+        }
+        fill();
+    }
+
+    /**
+     * Returns the number of statuses handed to the sink.
+     */
+    public synchronized long getStatusCount() {
+        return mStatusCount;
+    }
+
+    /**
+     * Returns the number of users whose walk is done, including those skipped
+     * because the checkpoint had them done already.
+     */
+    public synchronized int getUsersDone() {
+        return mUsersDone + mUsersSkipped;
+    }
+
+    public synchronized int getUsersFailed() {
+        return mUsersFailed;
+    }
+
+    /**
+     * Starts the walks of the next users, or notifies the end of the crawl.
+     */
+    private void fill() {
+        List<Walk> started = null;
+        Listener finished = null;
+        synchronized (this) {
+            if (mUids == null) {
+                return;
+            }
+            while (!mCanceled && mWalks.size() < mParallelism && mNextUid < mUids.length) {
+                long uid = mUids[mNextUid++];
+                CrawlCheckpoint.Cursor cursor = mCheckpoint.get(uid);
+                if (cursor != null && cursor.done) {
+                    mUsersSkipped++;
+                    continue;
+                }
+                Walk walk = new Walk(uid, cursor);
+                mWalks.add(walk);
+                if (started == null) {
+                    started = new ArrayList<Walk>();
+                }
+                started.add(walk);
+            }
+            if (mWalks.isEmpty() && !mFinished && (mCanceled || mNextUid == mUids.length)) {
+                mFinished = true;
+                finished = mListener;
+            }
+        }
+
+        if (started != null) {
+            for (Walk walk : started) {
+                walk.schedule(0);
+            }
+        }
+        if (finished != null) {
+            PlatformLog.i(TAG, "Crawl finished: " + getUsersDone() + " users done, "
+                    + getUsersFailed() + " failed, " + getStatusCount() + " statuses");
+            finished.onFinished();
+        }
+    }
+
+    private void end(Walk walk, boolean done, Exception error) {
+        Listener listener;
+        synchronized (this) {
+            mWalks.remove(walk);
+            if (done) {
+                mUsersDone++;
+            } else if (error != null) {
+                mUsersFailed++;
+            }
+            listener = mListener;
+        }
+        if (error != null) {
+            listener.onUserFailed(walk.mUid, error);
+        }
+        fill();
+    }
+
+    private synchronized void abort() {
+        mCanceled = true;
+    }
+
+    private synchronized boolean isCanceled() {
+        return mCanceled;
+    }
+
+    /**
+     * Reserves a slot for a request and returns the delay before sending it,
+     * at least minDelayNanos. A delayed request does not hold back the others.
+     */
+    private synchronized long reserveSlot(long minDelayNanos) {
+        long now = System.nanoTime();
+        long slot = now;
+        if (slot - mNextSlotNanos < 0) {
+            slot = mNextSlotNanos;
+        }
+        mNextSlotNanos = slot + mIntervalNanos;
+        return Math.max(slot - now, minDelayNanos);
+    }
+
+    /**
+     * Delays every request not sent yet by the given time.
+     */
+    private synchronized void pause(long pauseNanos) {
+        long resume = System.nanoTime() + pauseNanos;
+        if (resume - mNextSlotNanos > 0) {
+            mNextSlotNanos = resume;
+        }
+    }
+
+    private static boolean isRateLimited(WeiboException e) {
+        if (!(e instanceof WeiboHttpException)) {
+            return false;
+        }
+        int statusCode = ((WeiboHttpException) e).getStatusCode();
+        if (statusCode == 429) {
+            return true;
+        }
+        if (statusCode != 403) {
+            return false;
+        }
+        ErrorInfo errorInfo = ErrorInfo.parse(e.getMessage());
+        if (errorInfo != null) {
+            for (String errorCode : RATE_LIMIT_ERROR_CODES) {
+                if (errorCode.equals(errorInfo.error_code)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRetryable(WeiboException e) {
+        return !(e instanceof WeiboHttpException) || ((WeiboHttpException) e).getStatusCode() >= 500;
+    }
+
+    private static long idAt(JSONArray statuses, int index) {
+        JSONObject status = statuses.optJSONObject(index);
+        return status != null ? status.optLong("id") : statuses.optLong(index);
+    }
+
+    /**
+     * Returns the element ranges of the "statuses" array of a page, see
+     * {@link JsonReader#nextElementRanges()}, and an empty array if it has none.
+     */
+    private static int[] statusRanges(StructuralIndex index) throws JSONException {
+        int[] ranges = new int[0];
+        JsonReader reader = new JsonReader(index);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName(PAGE_NAMES) == 0 && reader.peek() == JsonReader.BEGIN_ARRAY) {
+                ranges = reader.nextElementRanges();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return ranges;
+    }
+
+    /**
+     * Reads the id of the status, or the status id, found in [start, end).
+     */
+    private static long idAt(StructuralIndex index, int start, int end) throws JSONException {
+        JsonReader reader = new JsonReader(index, start, end);
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            return reader.nextLong(0);
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName(STATUS_NAMES) == 0) {
+                return reader.nextLong(0);
+            }
+            reader.skipValue();
+        }
+        return 0;
+    }
+
+    private static final class SchedulerHolder {
+        static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "weibo-crawler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Walk of one user timeline. A walk has one page in flight at most.
+     */
+    private final class Walk implements RequestAwareListener, Runnable {
+        final long mUid;
+        private final long mFloor;
+        private long mTop;
+        private long mMaxId;
+        private int mFetched;
+        private int mRetries;
+        private volatile HttpRequest mRequest;
+
+        Walk(long uid, CrawlCheckpoint.Cursor cursor) {
+            mUid = uid;
+            if (cursor != null) {
+                mFloor = cursor.floor;
+                mTop   = cursor.top;
+                mMaxId = cursor.maxId;
+            } else {
+                mFloor = 0;
+            }
+        }
+
+        void schedule(long minDelayNanos) {
+            SchedulerHolder.SCHEDULER.schedule(this, reserveSlot(minDelayNanos), TimeUnit.NANOSECONDS);
+        }
+
+        void cancel() {
+            HttpRequest request = mRequest;
+            if (request != null) {
+                request.cancel();
+            }
+        }
+
+        @Override
+        public void run() {
+            if (isCanceled()) {
+                end(this, false, null);
+                return;
+            }
+
+            int count = mPageSize;
+            if (mMaxStatusesPerUser > 0) {
+                count = Math.min(count, mMaxStatusesPerUser - mFetched);
+            }
+            if (mIdsOnly) {
+                mAPI.userTimelineIds(mUid, mFloor, mMaxId, count, 1, false, mFeatureType, this);
+            } else {
+                mAPI.userTimeline(mUid, mFloor, mMaxId, count, 1, false, mFeatureType, mTrimUser, this);
+            }
+        }
+
+        @Override
+        public void onRequestCreated(HttpRequest request) {
+            mRequest = request;
+            if (isCanceled()) {
+                request.cancel();
+            }
+        }
+
+        @Override
+        public void onComplete(String response) {
+            mRequest = null;
+            JSONArray statuses = null;
+            List<String> rawStatuses = null;
+            int length = 0;
+            long first = 0;
+            long last = 0;
+            try {
+                if (mSink instanceof RawSink) {
+                    StructuralIndex index = StructuralIndex.build(response);
+                    int[] ranges = statusRanges(index);
+                    length = ranges.length / 2;
+                    rawStatuses = new ArrayList<String>(length);
+                    for (int ix = 0; ix < length; ix++) {
+                        rawStatuses.add(response.substring(ranges[2 * ix], ranges[2 * ix + 1]));
+                    }
+                    if (length > 0) {
+                        first = idAt(index, ranges[0], ranges[1]);
+                        last  = idAt(index, ranges[2 * length - 2], ranges[2 * length - 1]);
+                    }
+                } else {
+                    statuses = new JSONObject(response).optJSONArray("statuses");
+                    length = statuses != null ? statuses.length() : 0;
+                    if (length > 0) {
+                        first = idAt(statuses, 0);
+                        last  = idAt(statuses, length - 1);
+                    }
+                }
+            } catch (JSONException e) {
+                onWeiboException(new WeiboException(e));
+                return;
+            }
+
+            // Done once the walk reached its floor; stopped earlier, it resumes at max_id next time
+            boolean done = length == 0;
+            boolean more = !done;
+            try {
+                if (length > 0) {
+                    more = rawStatuses != null ? ((RawSink) mSink).onRawPage(mUid, rawStatuses)
+                            : mSink.onPage(mUid, statuses);
+                    mTop = Math.max(mTop, first);
+                    mMaxId = last - 1;
+                    mFetched += length;
+                    synchronized (TimelineCrawler.this) {
+                        mStatusCount += length;
+                    }
+                    done = mMaxId <= mFloor || mMaxId <= 0;
+                    if (done || (mMaxStatusesPerUser > 0 && mFetched >= mMaxStatusesPerUser)) {
+                        more = false;
+                    }
+                }
+                mCheckpoint.put(new CrawlCheckpoint.Cursor(mUid, mFloor, mTop, mMaxId, done));
+            } catch (IOException e) {
+                PlatformLog.e(TAG, "Crawl aborted: " + e);
+                abort();
+                end(this, false, e);
+                return;
+            }
+
+            mRetries = 0;
+            if (!more) {
+                end(this, true, null);
+            } else if (isCanceled()) {
+                end(this, false, null);
+            } else {
+                schedule(0);
+            }
+        }
+
+        @Override
+        public void onWeiboException(WeiboException e) {
+            mRequest = null;
+            if (isCanceled()) {
+                end(this, false, null);
+            } else if (isRateLimited(e)) {
+                PlatformLog.w(TAG, "Rate limited, pausing for " + mRateLimitBackoffMillis + " ms");
+                pause(TimeUnit.MILLISECONDS.toNanos(mRateLimitBackoffMillis));
+                schedule(0);
+            } else if (isRetryable(e) && mRetries < mMaxRetries) {
+                long delay = RETRY_DELAY_MILLIS << mRetries++;
+                schedule(TimeUnit.MILLISECONDS.toNanos(delay));
+            } else {
+                end(this, false, e);
+            }
+        }
+    }
+}
@@ -16,12 +16,11 @@
 
 package com.sina.weibo.sdk.openapi.legacy;
 
-import android.text.TextUtils;
-
 import com.sina.weibo.sdk.auth.Oauth2AccessToken;
 import com.sina.weibo.sdk.net.RequestListener;
 import com.sina.weibo.sdk.net.WeiboParameters;
 import com.sina.weibo.sdk.openapi.AbsOpenAPI;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * 此类封装了账号的接口，详情见<a href="http://t.cn/8F1Egjs">账号接口</a>
@@ -83,9 +82,9 @@ public class AccountAPI extends AbsOpenAPI {
         params.put("city", city);
         params.put("area", area);
         params.put("type", schoolType);
-        if (!TextUtils.isEmpty(capital.name())) {
+        if (!TextHelper.isEmpty(capital.name())) {
             params.put("capital", capital.name());
-        } else if (!TextUtils.isEmpty(keyword)) {
+        } else if (!TextHelper.isEmpty(keyword)) {
             params.put("keyword", keyword);
         }
         params.put("count", count);
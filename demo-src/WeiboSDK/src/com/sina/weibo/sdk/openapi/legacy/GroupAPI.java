@@ -16,12 +16,11 @@
 
 package com.sina.weibo.sdk.openapi.legacy;
 
-import android.text.TextUtils;
-
 import com.sina.weibo.sdk.auth.Oauth2AccessToken;
 import com.sina.weibo.sdk.net.RequestListener;
 import com.sina.weibo.sdk.net.WeiboParameters;
 import com.sina.weibo.sdk.openapi.AbsOpenAPI;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * 此类封装了分组的接口。
@@ -163,10 +162,10 @@ public class GroupAPI extends AbsOpenAPI {
     public void create(String name, String description, String tags, RequestListener listener) {
         WeiboParameters params = new WeiboParameters();
         params.put("name", name);
-        if (TextUtils.isEmpty(description) == false) {
+        if (TextHelper.isEmpty(description) == false) {
             params.put("description", description);
         }
-        if (TextUtils.isEmpty(tags) == false) {
+        if (TextHelper.isEmpty(tags) == false) {
             params.put("tags", tags);
         }
         requestAsync(SERVER_URL_PRIX + "/create.json", params, HTTPMETHOD_POST, listener);
@@ -184,13 +183,13 @@ public class GroupAPI extends AbsOpenAPI {
     public void update(long list_id, String name, String description, String tags, RequestListener listener) {
         WeiboParameters params = new WeiboParameters();
         params.put("list_id", list_id);
-        if (TextUtils.isEmpty(name) == false) {
+        if (TextHelper.isEmpty(name) == false) {
             params.put("name", name);
         }
-        if (TextUtils.isEmpty(description) == false) {
+        if (TextHelper.isEmpty(description) == false) {
             params.put("description", description);
         }
-        if (TextUtils.isEmpty(tags) == false) {
+        if (TextHelper.isEmpty(tags) == false) {
             params.put("tags", tags);
         }
         requestAsync(SERVER_URL_PRIX + "/update.json", params, HTTPMETHOD_POST, listener);
@@ -244,7 +243,7 @@ public class GroupAPI extends AbsOpenAPI {
      */
     public void updateMembers(long list_id, long uid, String group_description, RequestListener listener) {
         WeiboParameters params = buildeMembersParams(list_id, uid);
-        if (TextUtils.isDigitsOnly(group_description) == false) {
+        if (TextHelper.isDigitsOnly(group_description) == false) {
             params.put("group_description", group_description);
         }
         requestAsync(SERVER_URL_PRIX + "/members/update.json", params, HTTPMETHOD_POST, listener);
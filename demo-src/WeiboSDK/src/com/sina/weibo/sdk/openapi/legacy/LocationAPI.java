@@ -16,12 +16,16 @@
 
 package com.sina.weibo.sdk.openapi.legacy;
 
-import android.util.SparseArray;
+import java.util.ArrayList;
 
 import com.sina.weibo.sdk.auth.Oauth2AccessToken;
 import com.sina.weibo.sdk.net.RequestListener;
 import com.sina.weibo.sdk.net.WeiboParameters;
 import com.sina.weibo.sdk.openapi.AbsOpenAPI;
+import com.sina.weibo.sdk.openapi.models.Coordinate;
+import com.sina.weibo.sdk.openapi.models.OffsetGeo;
+import com.sina.weibo.sdk.utils.CoordinateTransform;
+import com.sina.weibo.sdk.utils.IntSparseArray;
 
 /**
  * 地理信息相关接口。
@@ -31,6 +35,9 @@ import com.sina.weibo.sdk.openapi.AbsOpenAPI;
  * @since 2013-12-4
  */
 public class LocationAPI extends AbsOpenAPI {
+    /** 批量坐标接口单次请求的最大坐标个数 */
+    public static final int MAX_BATCH_COORDINATES = 20;
+
     /** API URL */
     private static final String API_BASE_URL = API_SERVER + "/location";
     
@@ -44,7 +51,7 @@ public class LocationAPI extends AbsOpenAPI {
     private static final int READ_API_SEARCH_POIS_BY_GEO = 1;
     private static final int READ_API_GET_TO_ADDRESS     = 2;
 
-    private static final SparseArray<String> sAPIList = new SparseArray<String>();
+    private static final IntSparseArray<String> sAPIList = new IntSparseArray<String>();
     static {
         sAPIList.put(READ_API_GPS_TO_OFFSET,      API_BASE_URL + "/geo/gps_to_offset.json");
         sAPIList.put(READ_API_SEARCH_POIS_BY_GEO, API_BASE_URL + "/pois/search/by_geo.json");
@@ -62,6 +69,7 @@ public class LocationAPI extends AbsOpenAPI {
 
     /**
      * 根据GPS坐标获取偏移后的坐标
+     * 同样的结果可以用 {@link #gps2OffsetLocal(double, double)} 在本地计算，本接口可用于校验。
      * 
      * @param longtitude 纬度，有效范围：-90.0到+90.0，+表示北纬，默认为0.0。
      * @param latitude   纬度，有效范围：-90.0到+90.0，+表示北纬，默认为0.0。
@@ -97,6 +105,71 @@ public class LocationAPI extends AbsOpenAPI {
         requestAsync(sAPIList.get(READ_API_GET_TO_ADDRESS), params, HTTPMETHOD_GET, listener);
     }
 
+    /**
+     * 批量根据GPS坐标获取偏移后的坐标。
+     * 
+     * @param longtitudes 经度数组，有效范围：-180.0到+180.0，+表示东经。
+     * @param latitudes   纬度数组，有效范围：-90.0到+90.0，+表示北纬，长度须与经度数组相同。
+     * @param count       坐标个数，最多不超过{@link #MAX_BATCH_COORDINATES}个。
+     * @param listener    异步请求回调接口
+     */
+    public void gps2Offset(double[] longtitudes, double[] latitudes, int count, RequestListener listener) {
+        WeiboParameters params = buildBatchCoordinateParams(longtitudes, latitudes, count);
+        requestAsync(sAPIList.get(READ_API_GPS_TO_OFFSET), params, HTTPMETHOD_GET, listener);
+    }
+
+    /**
+     * 在本地计算GPS坐标偏移后的坐标（WGS84 转 GCJ02），不发起请求。中国境外的坐标不偏移。
+     * 
+     * @param longtitude 经度，有效范围：-180.0到+180.0，+表示东经。
+     * @param latitude   纬度，有效范围：-90.0到+90.0，+表示北纬。
+     * @return 偏移后的坐标
+     * @see CoordinateTransform
+     */
+    public static Coordinate gps2OffsetLocal(double longtitude, double latitude) {
+        double[] point = new double[2];
+        CoordinateTransform.wgs84ToGcj02(longtitude, latitude, point);
+        Coordinate coordinate = new Coordinate();
+        coordinate.Longtitude = point[0];
+        coordinate.Latitude   = point[1];
+        return coordinate;
+    }
+
+    /**
+     * 在本地批量计算GPS坐标偏移后的坐标，不发起请求，坐标个数不受限制。
+     * 
+     * @param longtitudes 经度数组
+     * @param latitudes   纬度数组，长度须与经度数组相同。
+     * @param count       坐标个数
+     * @return 偏移后的坐标，顺序与参数一致
+     */
+    public static OffsetGeo gps2OffsetLocal(double[] longtitudes, double[] latitudes, int count) {
+        double[] point = new double[2];
+        OffsetGeo offsetGeo = new OffsetGeo();
+        offsetGeo.Geos = new ArrayList<Coordinate>(count);
+        for (int ix = 0; ix < count; ix++) {
+            CoordinateTransform.wgs84ToGcj02(longtitudes[ix], latitudes[ix], point);
+            Coordinate coordinate = new Coordinate();
+            coordinate.Longtitude = point[0];
+            coordinate.Latitude   = point[1];
+            offsetGeo.Geos.add(coordinate);
+        }
+        return offsetGeo;
+    }
+
+    /**
+     * 批量根据地理信息坐标返回实际地址。
+     * 
+     * @param longtitudes 经度数组，有效范围：-180.0到+180.0，+表示东经。
+     * @param latitudes   纬度数组，有效范围：-90.0到+90.0，+表示北纬，长度须与经度数组相同。
+     * @param count       坐标个数，最多不超过{@link #MAX_BATCH_COORDINATES}个。
+     * @param listener    异步请求回调接口
+     */
+    public void geo2Address(double[] longtitudes, double[] latitudes, int count, RequestListener listener) {
+        WeiboParameters params = buildBatchCoordinateParams(longtitudes, latitudes, count);
+        requestAsync(sAPIList.get(READ_API_GET_TO_ADDRESS), params, HTTPMETHOD_GET, listener);
+    }
+
     /**
      * @see #gps2Offset(Double, Double, RequestListener)
      */
@@ -128,6 +201,20 @@ public class LocationAPI extends AbsOpenAPI {
         return params;
     }
 
+    // 多个坐标之间用竖线分隔，如：116.3,39.9|116.4,39.8
+    private WeiboParameters buildBatchCoordinateParams(double[] longtitudes, double[] latitudes, int count) {
+        WeiboParameters params = new WeiboParameters();
+        StringBuilder strb = new StringBuilder(count * 24);
+        for (int ix = 0; ix < count; ix++) {
+            if (ix > 0) {
+                strb.append('|');
+            }
+            strb.append(longtitudes[ix]).append(',').append(latitudes[ix]);
+        }
+        params.put("coordinate", strb.toString());
+        return params;
+    }
+
     private WeiboParameters buildSerarPoiByGeoParmas(Double longtitude, Double latitude, String keyWord) {
         WeiboParameters params = new WeiboParameters();
         String coordinate = longtitude + "," + latitude;
@@ -16,6 +16,9 @@
  
 package com.sina.weibo.sdk.openapi.legacy;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
 import com.sina.weibo.sdk.auth.Oauth2AccessToken;
 import com.sina.weibo.sdk.net.RequestListener;
 import com.sina.weibo.sdk.net.WeiboParameters;
@@ -35,6 +38,9 @@ public class ShortUrlAPI extends AbsOpenAPI {
 
     private static final String SERVER_URL_PRIX = API_SERVER + "/short_url";
 
+    /** 批量链接接口单次请求的最大链接个数 */
+    public static final int MAX_BATCH_URLS = 20;
+
     /**
      * 将一个或多个长链接转换成短链接
      * 
@@ -42,8 +48,8 @@ public class ShortUrlAPI extends AbsOpenAPI {
      * @param listener  异步请求回调接口
      */
     public void shorten(String[] url_long, RequestListener listener) {
-        WeiboParameters params = buildURLRequest(url_long, "url_long");
-        requestAsync(SERVER_URL_PRIX + "/shorten.json", params, HTTPMETHOD_GET, listener);
+        String url = buildURLRequest(SERVER_URL_PRIX + "/shorten.json", url_long, "url_long");
+        requestAsync(url, new WeiboParameters(), HTTPMETHOD_GET, listener);
     }
 
     /**
@@ -53,13 +59,13 @@ public class ShortUrlAPI extends AbsOpenAPI {
      * @param listener  异步请求回调接口
      */
     public void expand(String[] url_short, RequestListener listener) {
-        WeiboParameters params = buildURLRequest(url_short, "url_short");
-        requestAsync(SERVER_URL_PRIX + "/expand.json", params, HTTPMETHOD_GET, listener);
+        String url = buildURLRequest(SERVER_URL_PRIX + "/expand.json", url_short, "url_short");
+        requestAsync(url, new WeiboParameters(), HTTPMETHOD_GET, listener);
     }
 
     public String expandSync(String[] url_short) {
-        WeiboParameters params = buildURLRequest(url_short, "url_short");
-        return requestSync(SERVER_URL_PRIX + "/expand.json", params, HTTPMETHOD_GET);
+        String url = buildURLRequest(SERVER_URL_PRIX + "/expand.json", url_short, "url_short");
+        return requestSync(url, new WeiboParameters(), HTTPMETHOD_GET);
     }
 
     /**
@@ -69,8 +75,8 @@ public class ShortUrlAPI extends AbsOpenAPI {
      * @param listener      异步请求回调接口
      */
     public void clicks(String[] url_short, RequestListener listener) {
-        WeiboParameters params = buildURLRequest(url_short, "url_short");
-        requestAsync(SERVER_URL_PRIX + "/clicks.json", params, HTTPMETHOD_GET, listener);
+        String url = buildURLRequest(SERVER_URL_PRIX + "/clicks.json", url_short, "url_short");
+        requestAsync(url, new WeiboParameters(), HTTPMETHOD_GET, listener);
     }
 
     /**
@@ -104,8 +110,8 @@ public class ShortUrlAPI extends AbsOpenAPI {
      * @param listener      异步请求回调接口
      */
     public void shareCounts(String[] url_short, RequestListener listener) {
-        WeiboParameters params = buildURLRequest(url_short, "url_short");
-        requestAsync(SERVER_URL_PRIX + "/share/counts.json", params, HTTPMETHOD_GET, listener);
+        String url = buildURLRequest(SERVER_URL_PRIX + "/share/counts.json", url_short, "url_short");
+        requestAsync(url, new WeiboParameters(), HTTPMETHOD_GET, listener);
     }
 
     /**
@@ -131,8 +137,8 @@ public class ShortUrlAPI extends AbsOpenAPI {
      * @param listener  异步请求回调接口
      */
     public void commentCounts(String[] url_short, RequestListener listener) {
-        WeiboParameters params = buildURLRequest(url_short, "url_short");
-        requestAsync(SERVER_URL_PRIX + "/comment/counts.json", params, HTTPMETHOD_GET, listener);
+        String url = buildURLRequest(SERVER_URL_PRIX + "/comment/counts.json", url_short, "url_short");
+        requestAsync(url, new WeiboParameters(), HTTPMETHOD_GET, listener);
     }
 
     /**
@@ -161,16 +167,30 @@ public class ShortUrlAPI extends AbsOpenAPI {
         return params;
     }
 
-    // 组装URL参数
-    private WeiboParameters buildURLRequest(String[] url, String type) {
-        WeiboParameters params = new WeiboParameters();
-        if (url != null) {
-            int length = url.length;
-            for (int i = 0; i < length; i++) {
-                params.put(type, url[i]);
+    /**
+     * 组装URL参数。将多个链接拼接到请求地址的查询串中：服务器要求每个链接作为一个同名参数，
+     * 而 {@link WeiboParameters} 同名参数只保留最后一个。
+     */
+    private String buildURLRequest(String path, String[] url, String type) {
+        if (url == null || url.length == 0) {
+            return path;
+        }
+        StringBuilder builder = new StringBuilder(path.length() + url.length * 32);
+        builder.append(path);
+        char separator = '?';
+        for (int i = 0; i < url.length; i++) {
+            if (url[i] == null || url[i].length() == 0) {
+                continue;
             }
+            builder.append(separator).append(type).append('=');
+            try {
+                builder.append(URLEncoder.encode(url[i], "UTF-8"));
+            } catch (UnsupportedEncodingException e) {
+                builder.append(url[i]);
+            }
+            separator = '&';
         }
-        return params;
+        return builder.toString();
     }
 
 }
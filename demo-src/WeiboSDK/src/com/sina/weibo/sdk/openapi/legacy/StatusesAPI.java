@@ -16,13 +16,27 @@
  
 package com.sina.weibo.sdk.openapi.legacy;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
 import android.graphics.Bitmap;
-import android.text.TextUtils;
 
 import com.sina.weibo.sdk.auth.Oauth2AccessToken;
+import com.sina.weibo.sdk.exception.WeiboException;
 import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.net.ResponseParser;
+import com.sina.weibo.sdk.net.WeiboFuture;
 import com.sina.weibo.sdk.net.WeiboParameters;
 import com.sina.weibo.sdk.openapi.AbsOpenAPI;
+import com.sina.weibo.sdk.openapi.models.ResponseParsers;
+import com.sina.weibo.sdk.openapi.models.StatusList;
+import com.sina.weibo.sdk.openapi.models.StatusProjection;
+import com.sina.weibo.sdk.utils.MidCodec;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * 该类封装了微博接口。
@@ -74,12 +88,18 @@ public class StatusesAPI extends AbsOpenAPI {
     public static final String LANGUAGE_CNNAME = "cnname";
     public static final String LANGUAGE_TWNAME = "twname";
 
+    /** count.json 每次最多查询的微博个数 */
+    public static final int MAX_BATCH_COUNT_IDS = 100;
+
     public StatusesAPI(Oauth2AccessToken accessToken) {
         super(accessToken);
     }
 
     private static final String SERVER_URL_PRIX = API_SERVER + "/statuses";
 
+    /** queryid.json 每次最多查询的MID个数 */
+    private static final int QUERY_ID_MAX_BATCH = 20;
+
     /**
      * 返回最新的公共微博。
      * 
@@ -191,6 +211,21 @@ public class StatusesAPI extends AbsOpenAPI {
         requestAsync(SERVER_URL_PRIX + "/user_timeline.json", params, HTTPMETHOD_GET, listener);
     }
 
+    /**
+     * 获取某个用户最新发表的微博列表，只解析投影中的字段，见 {@link StatusProjection}。
+     * 投影不需要作者的详细信息时带上 trim_user=1。
+     * 
+     * @param projection 字段投影，为 null 时解析全部字段
+     * @see #userTimeline(long, long, long, int, int, boolean, int, boolean, RequestListener)
+     */
+    public WeiboFuture<StatusList> userTimelineFuture(long uid, long since_id, long max_id, int count, int page,
+            boolean base_app, int featureType, StatusProjection projection) {
+        WeiboFuture<StatusList> future = new WeiboFuture<StatusList>(ResponseParsers.statusList(projection));
+        userTimeline(uid, since_id, max_id, count, page, base_app, featureType,
+                StatusProjection.trimsUser(projection), future.asListener());
+        return future;
+    }
+
     /**
      * 获取某个用户最新发表的微博列表。
      * 
@@ -446,6 +481,7 @@ public class StatusesAPI extends AbsOpenAPI {
 
     /**
      * 通过微博（评论、私信）ID获取其MID。
+     * 微博ID的MID可以直接使用 {@link MidCodec#idToMid(long)} 在本地计算，不必发起请求。
      * 
      * @param ids       需要查询的微博（评论、私信）ID，最多不超过20个。
      * @param type      获取类型，1：微博、2：评论、3：私信，默认为1。可为几下几种： 
@@ -505,6 +541,73 @@ public class StatusesAPI extends AbsOpenAPI {
         requestAsync(SERVER_URL_PRIX + "/queryid.json", params, HTTPMETHOD_GET, listener);
     }
 
+    /**
+     * 通过base62编码的MID获取微博ID。能在本地解码的MID（见 {@link MidCodec}）不发起请求，
+     * 其余的MID通过 {@link #queryID} 查询，每次最多20个。
+     * 
+     * @param mids 微博MID
+     * @return 各MID对应的微博ID，服务器未返回的为 {@link MidCodec#INVALID_ID}
+     */
+    public WeiboFuture<long[]> resolveIds(String[] mids) {
+        final long[] ids = new long[mids.length];
+        int unknown = MidCodec.midsToIds(mids, ids);
+        final WeiboFuture<long[]> result = new WeiboFuture<long[]>(new ResponseParser<long[]>() {
+            @Override
+            public long[] parse(String response) {
+                return ids;
+            }
+        });
+        final RequestListener resultListener = result.asListener();
+        if (unknown == 0) {
+            resultListener.onComplete(null);
+            return result;
+        }
+
+        List<WeiboFuture<?>> queries = new ArrayList<WeiboFuture<?>>();
+        int[] indexes = new int[unknown];
+        int count = 0;
+        for (int ix = 0; ix < mids.length; ix++) {
+            if (ids[ix] == MidCodec.INVALID_ID) {
+                indexes[count++] = ix;
+            }
+        }
+        for (int start = 0; start < count; start += QUERY_ID_MAX_BATCH) {
+            int end = Math.min(count, start + QUERY_ID_MAX_BATCH);
+            final String[] batch = new String[end - start];
+            final int[] batchIndexes = new int[end - start];
+            for (int ix = start; ix < end; ix++) {
+                batch[ix - start] = mids[indexes[ix]];
+                batchIndexes[ix - start] = indexes[ix];
+            }
+            queries.add(WeiboFuture.call(new WeiboFuture.AsyncCall() {
+                @Override
+                public void call(RequestListener listener) {
+                    queryID(batch, TYPE_STATUSES, false, true, listener);
+                }
+            }, new ResponseParser<Void>() {
+                @Override
+                public Void parse(String response) throws WeiboException {
+                    parseQueryIdResponse(response, batch, batchIndexes, ids);
+                    return null;
+                }
+            }));
+        }
+
+        WeiboFuture.allOf(queries.toArray(new WeiboFuture<?>[queries.size()]))
+                .addCallback(new WeiboFuture.Callback<Void>() {
+                    @Override
+                    public void onSuccess(Void nothing) {
+                        resultListener.onComplete(null);
+                    }
+
+                    @Override
+                    public void onWeiboException(WeiboException e) {
+                        resultListener.onWeiboException(e);
+                    }
+                });
+        return result;
+    }
+
     /**
      * 按天返回热门微博转发榜的微博列表。
      * 
@@ -556,8 +659,9 @@ public class StatusesAPI extends AbsOpenAPI {
     /**
      * 批量获取指定微博的转发数评论数。
      * 
-     * @param ids       需要获取数据的微博ID，最多不超过100个
+     * @param ids       需要获取数据的微博ID，最多不超过{@link #MAX_BATCH_COUNT_IDS}个
      * @param listener  异步请求回调接口
+     * @see com.sina.weibo.sdk.openapi.cache.CountRefresher
      */
     public void count(String[] ids, RequestListener listener) {
         WeiboParameters params = new WeiboParameters();
@@ -617,17 +721,35 @@ public class StatusesAPI extends AbsOpenAPI {
 
     /**
      * 上传图片并发布一条新微博，此方法会处理urlencode。
+     * 上传 Bitmap 请使用 {@link com.sina.weibo.sdk.openapi.android.AndroidLegacyStatusesAPI}。
      * 
      * @param content   要发布的微博文本内容，内容不超过140个汉字
-     * @param bitmap    要上传的图片，仅支持JPEG、GIF、PNG格式，图片大小小于5M
+     * @param image     要上传的图片文件内容，仅支持JPEG、GIF、PNG格式，图片大小小于5M
      * @param lat       纬度，有效范围：-90.0到+90.0，+表示北纬，默认为0.0
      * @param lon       经度，有效范围：-180.0到+180.0，+表示东经，默认为0.0
      * @param listener  异步请求回调接口
-     
      */
+    public void upload(String content, byte[] image, String lat, String lon, RequestListener listener) {
+        uploadImage(content, image, lat, lon, listener);
+    }
+
+    /**
+     * 上传 Bitmap 并发布一条新微博。
+     * 
+     * @deprecated 请使用 {@link com.sina.weibo.sdk.openapi.android.AndroidLegacyStatusesAPI}，下一版本将删除此方法
+     */
+    @Deprecated
     public void upload(String content, Bitmap bitmap, String lat, String lon, RequestListener listener) {
+        uploadImage(content, bitmap, lat, lon, listener);
+    }
+
+    /**
+     * 上传图片并发布一条新微博，图片可为 {@link com.sina.weibo.sdk.platform.Platform#isBinary(Object)}
+     * 接受的任意类型，供各平台的适配类使用。
+     */
+    protected void uploadImage(String content, Object image, String lat, String lon, RequestListener listener) {
         WeiboParameters params = buildUpdateParams(content, lat, lon);
-        params.put("pic", bitmap);
+        params.getParams().put("pic", image);
         requestAsync(SERVER_URL_PRIX + "/upload.json", params, HTTPMETHOD_POST, listener);
     }
 
@@ -651,6 +773,7 @@ public class StatusesAPI extends AbsOpenAPI {
 
     /**
      * 获取微博官方表情的详细信息。
+     * 缓存表情并在文本中查找表情短语，请使用 {@link com.sina.weibo.sdk.openapi.cache.EmotionCache}。
      * 
      * @param type      表情类别，表情类别，face：普通表情、ani：魔法表情、cartoon：动漫表情，默认为face。可为以下几种： 
      *                  <li> {@link #EMOTION_TYPE_FACE}
@@ -704,13 +827,39 @@ public class StatusesAPI extends AbsOpenAPI {
     private WeiboParameters buildUpdateParams(String content, String lat, String lon) {
         WeiboParameters params = new WeiboParameters();
         params.put("status", content);
-        if (!TextUtils.isEmpty(lon)) {
+        if (!TextHelper.isEmpty(lon)) {
             params.put("long", lon);
         }
-        if (!TextUtils.isEmpty(lat)) {
+        if (!TextHelper.isEmpty(lat)) {
             params.put("lat", lat);
         }
         return params;
     }
 
+    /**
+     * 解析 queryid.json 的结果：单个MID时为 {"id":...}，批量时为 [{"mid":"id"}, ...]。
+     */
+    private static void parseQueryIdResponse(String response, String[] mids, int[] indexes, long[] ids)
+            throws WeiboException {
+        try {
+            if (mids.length == 1) {
+                ids[indexes[0]] = new JSONObject(response).optLong("id", MidCodec.INVALID_ID);
+                return;
+            }
+            JSONArray results = new JSONArray(response);
+            for (int ir = 0; ir < results.length(); ir++) {
+                JSONObject result = results.optJSONObject(ir);
+                if (result == null) {
+                    continue;
+                }
+                for (int im = 0; im < mids.length; im++) {
+                    if (result.has(mids[im])) {
+                        ids[indexes[im]] = result.optLong(mids[im], MidCodec.INVALID_ID);
+                    }
+                }
+            }
+        } catch (JSONException e) {
+            throw new WeiboException(e);
+        }
+    }
 }
@@ -19,7 +19,7 @@ package com.sina.weibo.sdk.openapi.models;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import android.text.TextUtils;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * 该类用于解析Object类型数据。
@@ -31,7 +31,7 @@ public class AbsDataObject implements IParseable {
 
     @Override
     public Object parse(String parseString) {
-        if (TextUtils.isEmpty(parseString)) {
+        if (TextHelper.isEmpty(parseString)) {
             return null;
         }
         
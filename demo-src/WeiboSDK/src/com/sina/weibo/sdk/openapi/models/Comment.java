@@ -16,8 +16,11 @@
 
 package com.sina.weibo.sdk.openapi.models;
 
+import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.sina.weibo.sdk.utils.JsonReader;
+
 /**
  * 评论结构体。
  * 
@@ -44,6 +47,8 @@ public class Comment {
     public Status status;
     /** 评论来源评论，当本评论属于对另一评论的回复时返回此字段 */
     public Comment reply_comment;
+    /** 评论内容中的实体表，仅在开启 {@link TextEntities#setExtractOnParse(boolean)} 后生成，没有实体时为 null */
+    public TextEntities text_entities;
     
     public static Comment parse(JSONObject jsonObject) {
         if (null == jsonObject) {
@@ -51,16 +56,80 @@ public class Comment {
         }
 
         Comment comment = new Comment();
-        comment.created_at    = jsonObject.optString("created_at");
-        comment.id            = jsonObject.optString("id");
-        comment.text          = jsonObject.optString("text");
-        comment.source        = jsonObject.optString("source");
+        comment.created_at    = JsonReader.optString(jsonObject, "created_at", "");
+        comment.id            = JsonReader.optString(jsonObject, "id", "");
+        comment.text          = JsonReader.optString(jsonObject, "text", "");
+        comment.text_entities = TextEntities.parseIfEnabled(comment.text);
+        comment.source        = JsonReader.optString(jsonObject, "source", "");
         comment.user          = User.parse(jsonObject.optJSONObject("user"));
-        comment.mid           = jsonObject.optString("mid");
-        comment.idstr         = jsonObject.optString("idstr");
+        comment.mid           = JsonReader.optString(jsonObject, "mid", "");
+        comment.idstr         = JsonReader.optString(jsonObject, "idstr", "");
         comment.status        = Status.parse(jsonObject.optJSONObject("status"));            
         comment.reply_comment = Comment.parse(jsonObject.optJSONObject("reply_comment"));
         
-        return comment;
+        return EntityStore.putIfEnabled(comment);
+    }
+
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "created_at", "id", "text", "source",
+            "user", "mid", "idstr", "status",
+            "reply_comment");
+
+    /**
+     * 从 JSON 流中读取评论，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static Comment read(JsonReader reader) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        Comment comment = new Comment();
+        comment.created_at = "";
+        comment.id         = "";
+        comment.text       = "";
+        comment.source     = "";
+        comment.mid        = "";
+        comment.idstr      = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+            case 0:
+                comment.created_at = reader.nextString("");
+                break;
+            case 1:
+                comment.id = reader.nextString("");
+                break;
+            case 2:
+                comment.text = reader.nextString("");
+                break;
+            case 3:
+                comment.source = reader.nextString("");
+                break;
+            case 4:
+                comment.user = User.read(reader);
+                break;
+            case 5:
+                comment.mid = reader.nextString("");
+                break;
+            case 6:
+                comment.idstr = reader.nextString("");
+                break;
+            case 7:
+                comment.status = Status.read(reader);
+                break;
+            case 8:
+                comment.reply_comment = Comment.read(reader);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        comment.text_entities = TextEntities.parseIfEnabled(comment.text);
+        return EntityStore.putIfEnabled(comment);
     }
 }
@@ -17,12 +17,12 @@
 package com.sina.weibo.sdk.openapi.models;
 
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
-import android.text.TextUtils;
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * 评论列表结构体。
@@ -38,26 +38,49 @@ public class CommentList {
     public String next_cursor;
     public int total_number;
     
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "previous_cursor", "next_cursor", "total_number", "comments");
+
     public static CommentList parse(String jsonString) {
-        if (TextUtils.isEmpty(jsonString)) {
+        return parse(jsonString, null);
+    }
+
+    /**
+     * 解析评论列表，评论较多时在给定的线程池中并行解析，见 {@link ParallelParser}。
+     * 
+     * @param executor 解析线程池，为 null 时依次解析
+     */
+    public static CommentList parse(String jsonString, Executor executor) {
+        if (TextHelper.isEmpty(jsonString)) {
             return null;
         }
         
         CommentList comments = new CommentList();
         try {
-            JSONObject jsonObject = new JSONObject(jsonString);
-            comments.previous_cursor = jsonObject.optString("previous_cursor", "0");
-            comments.next_cursor     = jsonObject.optString("next_cursor", "0");
-            comments.total_number    = jsonObject.optInt("total_number", 0);
-            
-            JSONArray jsonArray      = jsonObject.optJSONArray("comments");
-            if (jsonArray != null && jsonArray.length() > 0) {
-                int length = jsonArray.length();
-                comments.commentList = new ArrayList<Comment>(length);
-                for (int ix = 0; ix < length; ix++) {
-                    comments.commentList.add(Comment.parse(jsonArray.optJSONObject(ix)));
+            JsonReader reader = new JsonReader(jsonString);
+            reader.beginObject();
+            comments.previous_cursor = "0";
+            comments.next_cursor = "0";
+            while (reader.hasNext()) {
+                switch (reader.nextName(NAMES)) {
+                case 0:
+                    comments.previous_cursor = reader.nextString("0");
+                    break;
+                case 1:
+                    comments.next_cursor = reader.nextString("0");
+                    break;
+                case 2:
+                    comments.total_number = reader.nextInt(0);
+                    break;
+                case 3:
+                    comments.commentList = ParallelParser.readArray(reader, ParallelParser.COMMENT, executor);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
                 }
             }
+            reader.endObject();
         } catch (JSONException e) {
             e.printStackTrace();
         }
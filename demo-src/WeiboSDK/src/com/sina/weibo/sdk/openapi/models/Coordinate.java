@@ -16,8 +16,11 @@
 
 package com.sina.weibo.sdk.openapi.models;
 
+import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.sina.weibo.sdk.utils.JsonReader;
+
 /**
  * 该类用于解析JSONObject类型数据。
  * 
@@ -39,4 +42,39 @@ public class Coordinate {
 
         return coordinate;
     }
+
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "longitude", "latitude");
+
+    /**
+     * 从 JSON 流中读取坐标，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static Coordinate read(JsonReader reader) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        Coordinate coordinate = new Coordinate();
+        coordinate.Longtitude = Double.NaN;
+        coordinate.Latitude   = Double.NaN;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+            case 0:
+                coordinate.Longtitude = reader.nextDouble(Double.NaN);
+                break;
+            case 1:
+                coordinate.Latitude = reader.nextDouble(Double.NaN);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        return coordinate;
+    }
 }
\ No newline at end of file
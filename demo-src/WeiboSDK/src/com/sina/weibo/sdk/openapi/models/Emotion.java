@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.models;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.sina.weibo.sdk.utils.JsonReader;
+
+/**
+ * 微博官方表情结构体。
+ * 
+ * @author SINA
+ * @since 2014-05-08
+ */
+public class Emotion {
+
+    /** 表情在微博正文中的文字，如“[哈哈]” */
+    public String phrase;
+    /** 表情类别，face：普通表情、ani：魔法表情、cartoon：动漫表情 */
+    public String type;
+    /** 表情图片地址 */
+    public String url;
+    /** 表情图标地址 */
+    public String icon;
+    /** 表情的值，一般与 phrase 相同 */
+    public String value;
+    /** 表情分类 */
+    public String category;
+    /** 是否为热门表情 */
+    public boolean hot;
+    /** 是否为常用表情 */
+    public boolean common;
+
+    public static Emotion parse(JSONObject jsonObject) {
+        if (null == jsonObject) {
+            return null;
+        }
+
+        Emotion emotion = new Emotion();
+        emotion.phrase   = JsonReader.optString(jsonObject, "phrase", "");
+        emotion.type     = JsonReader.optString(jsonObject, "type", "");
+        emotion.url      = JsonReader.optString(jsonObject, "url", "");
+        emotion.icon     = JsonReader.optString(jsonObject, "icon", "");
+        emotion.value    = JsonReader.optString(jsonObject, "value", "");
+        emotion.category = JsonReader.optString(jsonObject, "category", "");
+        emotion.hot      = jsonObject.optBoolean("hot", false);
+        emotion.common   = jsonObject.optBoolean("common", false);
+
+        return emotion;
+    }
+
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "phrase", "type", "url", "icon",
+            "value", "category", "hot", "common");
+
+    /**
+     * 从 JSON 流中读取表情，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static Emotion read(JsonReader reader) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        Emotion emotion = new Emotion();
+        emotion.phrase   = "";
+        emotion.type     = "";
+        emotion.url      = "";
+        emotion.icon     = "";
+        emotion.value    = "";
+        emotion.category = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+            case 0:
+                emotion.phrase = reader.nextString("");
+                break;
+            case 1:
+                emotion.type = reader.nextString("");
+                break;
+            case 2:
+                emotion.url = reader.nextString("");
+                break;
+            case 3:
+                emotion.icon = reader.nextString("");
+                break;
+            case 4:
+                emotion.value = reader.nextString("");
+                break;
+            case 5:
+                emotion.category = reader.nextString("");
+                break;
+            case 6:
+                emotion.hot = reader.nextBoolean(false);
+                break;
+            case 7:
+                emotion.common = reader.nextBoolean(false);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        return emotion;
+    }
+}
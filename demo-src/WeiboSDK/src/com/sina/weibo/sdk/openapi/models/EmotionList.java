@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.models;
+
+import java.util.ArrayList;
+
+import org.json.JSONException;
+
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.TextHelper;
+
+/**
+ * 官方表情列表，emotions.json 的返回结果。
+ * 
+ * @author SINA
+ * @since 2014-05-08
+ */
+public class EmotionList {
+    /** 表情列表 */
+    public ArrayList<Emotion> emotionList;
+
+    public static EmotionList parse(String jsonString) {
+        if (TextHelper.isEmpty(jsonString)) {
+            return null;
+        }
+
+        EmotionList emotions = new EmotionList();
+        try {
+            JsonReader reader = new JsonReader(jsonString);
+            reader.beginArray();
+            emotions.emotionList = new ArrayList<Emotion>();
+            while (reader.hasNext()) {
+                Emotion emotion = Emotion.read(reader);
+                if (emotion != null) {
+                    emotions.emotionList.add(emotion);
+                }
+            }
+            reader.endArray();
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+
+        return emotions;
+    }
+}
@@ -0,0 +1,520 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.models;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import com.sina.weibo.sdk.platform.Platform;
+import com.sina.weibo.sdk.utils.TextHelper;
+
+/**
+ * 按 ID 归一的微博、用户及评论表。
+ * 
+ * 同一条微博会同时出现在首页、分组时间线、收藏（{@link Favorite#status}）及评论
+ * （{@link Comment#status}）中。调用 {@link #setShared(EntityStore)} 开启后，解析器每生成一个对象
+ * 都写入该表：表中已有同一 ID 的对象时，把新内容复制到已有对象上并返回已有对象，
+ * 因此各列表引用的是同一个对象，一处更新的转发数、收藏状态等在所有列表中都是最新的：
+ * 
+ * <pre>
+ * EntityStore store = new EntityStore();
+ * EntityStore.setShared(store);
+ * store.addStatusListener(statusId, new EntityStore.ChangeListener&lt;Status&gt;() {
+ *     public void onChanged(Status status) {
+ *         // 刷新显示该微博的视图
+ *     }
+ * });
+ * </pre>
+ * 
+ * 表中只保留弱引用，不再被任何列表引用的对象随时可被回收。内容有变化时，
+ * 在 {@link Platform} 的回调线程上（Android 上为主线程）通知该 ID 的监听者。
+ * 已有对象的字段也在该线程上原地更新，因此在该线程上读取的视图不会看到更新到一半的对象，
+ * 如新的正文配旧的实体表；解析器返回的已有对象要等该线程执行更新后才是新内容。
+ * 新内容缺少用户、原微博等（如 trim_user 返回的微博）时保留已有的。
+ * 按 {@link StatusProjection} 解析的部分内容不写入该表。
+ * 
+ * @author SINA
+ * @since 2014-05-22
+ */
+public final class EntityStore {
+
+    /**
+     * 某个 ID 的对象内容有变化时调用。
+     */
+    public interface ChangeListener<T> {
+        public void onChanged(T entity);
+    }
+
+    private static volatile EntityStore sShared;
+
+    private final Executor mCallbackExecutor;
+
+    private final Table<Status> mStatuses = new Table<Status>() {
+        @Override
+        String idOf(Status status) {
+            return status.id;
+        }
+
+        @Override
+        boolean merge(Status target, Status source) {
+            return mergeStatus(target, source);
+        }
+    };
+
+    private final Table<User> mUsers = new Table<User>() {
+        @Override
+        String idOf(User user) {
+            return user.id;
+        }
+
+        @Override
+        boolean merge(User target, User source) {
+            return mergeUser(target, source);
+        }
+    };
+
+    private final Table<Comment> mComments = new Table<Comment>() {
+        @Override
+        String idOf(Comment comment) {
+            return comment.id;
+        }
+
+        @Override
+        boolean merge(Comment target, Comment source) {
+            return mergeComment(target, source);
+        }
+    };
+
+    public EntityStore() {
+        this(Platform.get().getCallbackExecutor());
+    }
+
+    /**
+     * @param callbackExecutor 执行 {@link ChangeListener} 的线程
+     */
+    public EntityStore(Executor callbackExecutor) {
+        mCallbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * 设置解析器写入的表。
+     * 
+     * @param store 为 null 时解析器不写入任何表，默认为 null
+     */
+    public static void setShared(EntityStore store) {
+        sShared = store;
+    }
+
+    public static EntityStore getShared() {
+        return sShared;
+    }
+
+    public Status getStatus(long id) {
+        return mStatuses.get(id);
+    }
+
+    public User getUser(long id) {
+        return mUsers.get(id);
+    }
+
+    public Comment getComment(long id) {
+        return mComments.get(id);
+    }
+
+    /**
+     * 写入微博，返回表中该 ID 的对象。其中的用户及原微博不写入，由解析器分别写入。
+     */
+    public Status putStatus(Status status) {
+        return mStatuses.put(status);
+    }
+
+    /**
+     * 写入用户，返回表中该 ID 的对象。
+     */
+    public User putUser(User user) {
+        return mUsers.put(user);
+    }
+
+    /**
+     * 写入评论，返回表中该 ID 的对象。
+     */
+    public Comment putComment(Comment comment) {
+        return mComments.put(comment);
+    }
+
+    public void addStatusListener(long id, ChangeListener<Status> listener) {
+        mStatuses.addListener(id, listener);
+    }
+
+    public void removeStatusListener(long id, ChangeListener<Status> listener) {
+        mStatuses.removeListener(id, listener);
+    }
+
+    public void addUserListener(long id, ChangeListener<User> listener) {
+        mUsers.addListener(id, listener);
+    }
+
+    public void removeUserListener(long id, ChangeListener<User> listener) {
+        mUsers.removeListener(id, listener);
+    }
+
+    public void addCommentListener(long id, ChangeListener<Comment> listener) {
+        mComments.addListener(id, listener);
+    }
+
+    public void removeCommentListener(long id, ChangeListener<Comment> listener) {
+        mComments.removeListener(id, listener);
+    }
+
+    /**
+     * 更新表中微博的转发数、评论数及表态数。
+     * 
+     * @return 表中没有该微博时返回 false
+     */
+    public boolean updateCounts(long id, int reposts, int comments, int attitudes) {
+        synchronized (mStatuses) {
+            Status status = mStatuses.get(id);
+            if (status == null) {
+                return false;
+            }
+            if (status.reposts_count == reposts && status.comments_count == comments
+                    && status.attitudes_count == attitudes) {
+                return true;
+            }
+            status.reposts_count = reposts;
+            status.comments_count = comments;
+            status.attitudes_count = attitudes;
+        }
+        mStatuses.notifyChanged(id);
+        return true;
+    }
+
+    /**
+     * 更新表中微博的收藏状态，如收藏或取消收藏成功后。
+     * 
+     * @return 表中没有该微博时返回 false
+     */
+    public boolean setFavorited(long id, boolean favorited) {
+        synchronized (mStatuses) {
+            Status status = mStatuses.get(id);
+            if (status == null) {
+                return false;
+            }
+            if (status.favorited == favorited) {
+                return true;
+            }
+            status.favorited = favorited;
+        }
+        mStatuses.notifyChanged(id);
+        return true;
+    }
+
+    /**
+     * 直接修改表中的微博后调用，通知该微博的监听者。
+     */
+    public void notifyStatusChanged(long id) {
+        mStatuses.notifyChanged(id);
+    }
+
+    public void notifyUserChanged(long id) {
+        mUsers.notifyChanged(id);
+    }
+
+    public void notifyCommentChanged(long id) {
+        mComments.notifyChanged(id);
+    }
+
+    /**
+     * 清空表及所有监听者。
+     */
+    public void clear() {
+        mStatuses.clear();
+        mUsers.clear();
+        mComments.clear();
+    }
+
+    static Status putIfEnabled(Status status) {
+        EntityStore store = sShared;
+        return store != null && status != null ? store.putStatus(status) : status;
+    }
+
+    static User putIfEnabled(User user) {
+        EntityStore store = sShared;
+        return store != null && user != null ? store.putUser(user) : user;
+    }
+
+    static Comment putIfEnabled(Comment comment) {
+        EntityStore store = sShared;
+        return store != null && comment != null ? store.putComment(comment) : comment;
+    }
+
+    /**
+     * 返回 ID 的数值，不是数字时返回 -1。
+     */
+    static long parseId(String id) {
+        if (TextHelper.isEmpty(id) || id.length() > 18 || !TextHelper.isDigitsOnly(id)) {
+            return -1;
+        }
+        return Long.parseLong(id);
+    }
+
+    private static boolean mergeStatus(Status target, Status source) {
+        // trim_user 等返回的内容缺少用户、原微博等时，保留已有的
+        User user              = source.user != null ? source.user : target.user;
+        Status retweetedStatus = source.retweeted_status != null ? source.retweeted_status : target.retweeted_status;
+        ArrayList<String> picUrls = source.pic_urls != null ? source.pic_urls : target.pic_urls;
+        boolean changed = target.favorited != source.favorited
+                || target.reposts_count != source.reposts_count
+                || target.comments_count != source.comments_count
+                || target.attitudes_count != source.attitudes_count
+                || target.user != user
+                || target.retweeted_status != retweetedStatus
+                || !equals(target.text, source.text)
+                || !equals(target.pic_urls, picUrls);
+        target.created_at              = source.created_at;
+        target.id                      = source.id;
+        target.mid                     = source.mid;
+        target.idstr                   = source.idstr;
+        target.text                    = source.text;
+        target.text_entities           = source.text_entities;
+        target.source                  = source.source;
+        target.favorited               = source.favorited;
+        target.truncated               = source.truncated;
+        target.in_reply_to_status_id   = source.in_reply_to_status_id;
+        target.in_reply_to_user_id     = source.in_reply_to_user_id;
+        target.in_reply_to_screen_name = source.in_reply_to_screen_name;
+        target.thumbnail_pic           = source.thumbnail_pic;
+        target.bmiddle_pic             = source.bmiddle_pic;
+        target.original_pic            = source.original_pic;
+        target.geo                     = source.geo != null ? source.geo : target.geo;
+        target.user                    = user;
+        target.retweeted_status        = retweetedStatus;
+        target.reposts_count           = source.reposts_count;
+        target.comments_count          = source.comments_count;
+        target.attitudes_count         = source.attitudes_count;
+        target.mlevel                  = source.mlevel;
+        target.visible                 = source.visible != null ? source.visible : target.visible;
+        target.pic_urls                = picUrls;
+        return changed;
+    }
+
+    private static boolean mergeUser(User target, User source) {
+        boolean changed = target.following != source.following
+                || target.follow_me != source.follow_me
+                || target.followers_count != source.followers_count
+                || target.friends_count != source.friends_count
+                || target.statuses_count != source.statuses_count
+                || target.favourites_count != source.favourites_count
+                || target.bi_followers_count != source.bi_followers_count
+                || target.online_status != source.online_status
+                || target.verified != source.verified
+                || !equals(target.screen_name, source.screen_name)
+                || !equals(target.remark, source.remark)
+                || !equals(target.description, source.description)
+                || !equals(target.profile_image_url, source.profile_image_url)
+                || !equals(target.avatar_large, source.avatar_large);
+        target.id                 = source.id;
+        target.idstr              = source.idstr;
+        target.screen_name        = source.screen_name;
+        target.name               = source.name;
+        target.province           = source.province;
+        target.city               = source.city;
+        target.location           = source.location;
+        target.description        = source.description;
+        target.url                = source.url;
+        target.profile_image_url  = source.profile_image_url;
+        target.profile_url        = source.profile_url;
+        target.domain             = source.domain;
+        target.weihao             = source.weihao;
+        target.gender             = source.gender;
+        target.followers_count    = source.followers_count;
+        target.friends_count      = source.friends_count;
+        target.statuses_count     = source.statuses_count;
+        target.favourites_count   = source.favourites_count;
+        target.created_at         = source.created_at;
+        target.following          = source.following;
+        target.allow_all_act_msg  = source.allow_all_act_msg;
+        target.geo_enabled        = source.geo_enabled;
+        target.verified           = source.verified;
+        target.verified_type      = source.verified_type;
+        target.remark             = source.remark;
+        target.status             = source.status != null ? source.status : target.status;
+        target.allow_all_comment  = source.allow_all_comment;
+        target.avatar_large       = source.avatar_large;
+        target.avatar_hd          = source.avatar_hd;
+        target.verified_reason    = source.verified_reason;
+        target.follow_me          = source.follow_me;
+        target.online_status      = source.online_status;
+        target.bi_followers_count = source.bi_followers_count;
+        target.lang               = source.lang;
+        target.star               = source.star;
+        target.mbtype             = source.mbtype;
+        target.mbrank             = source.mbrank;
+        target.block_word         = source.block_word;
+        return changed;
+    }
+
+    private static boolean mergeComment(Comment target, Comment source) {
+        User user            = source.user != null ? source.user : target.user;
+        Status status        = source.status != null ? source.status : target.status;
+        Comment replyComment = source.reply_comment != null ? source.reply_comment : target.reply_comment;
+        boolean changed = target.user != user
+                || target.status != status
+                || target.reply_comment != replyComment
+                || !equals(target.text, source.text);
+        target.created_at    = source.created_at;
+        target.id            = source.id;
+        target.text          = source.text;
+        target.text_entities = source.text_entities;
+        target.source        = source.source;
+        target.user          = user;
+        target.mid           = source.mid;
+        target.idstr         = source.idstr;
+        target.status        = status;
+        target.reply_comment = replyComment;
+        return changed;
+    }
+
+    private static boolean equals(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static class IdReference<T> extends WeakReference<T> {
+        final long mId;
+
+        IdReference(long id, T referent, ReferenceQueue<? super T> queue) {
+            super(referent, queue);
+            mId = id;
+        }
+    }
+
+    /**
+     * 一类对象的表，由自身的锁保护。
+     */
+    private abstract class Table<T> {
+        private final HashMap<Long, IdReference<T>> mEntries = new HashMap<Long, IdReference<T>>();
+        private final HashMap<Long, List<ChangeListener<T>>> mListeners = new HashMap<Long, List<ChangeListener<T>>>();
+        private final ReferenceQueue<T> mQueue = new ReferenceQueue<T>();
+
+        abstract String idOf(T entity);
+
+        /**
+         * 在回调线程上把 source 的内容复制到 target 上，返回内容是否有变化。
+         */
+        abstract boolean merge(T target, T source);
+
+        synchronized T get(long id) {
+            IdReference<T> reference = mEntries.get(id);
+            return reference != null ? reference.get() : null;
+        }
+
+        T put(final T entity) {
+            final long id = parseId(idOf(entity));
+            if (id < 0) {
+                return entity;
+            }
+
+            final T existing;
+            synchronized (this) {
+                expungeCollected();
+                IdReference<T> reference = mEntries.get(id);
+                existing = reference != null ? reference.get() : null;
+                if (existing == null) {
+                    mEntries.put(id, new IdReference<T>(id, entity, mQueue));
+                    return entity;
+                }
+            }
+            if (existing != entity) {
+                // Merged on the thread reading the entities, so a view never sees half an update
+                mCallbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        boolean changed;
+                        synchronized (Table.this) {
+                            changed = merge(existing, entity);
+                        }
+                        if (changed) {
+                            notifyChanged(id);
+                        }
+                    }
+                });
+            }
+            return existing;
+        }
+
+        synchronized void addListener(long id, ChangeListener<T> listener) {
+            List<ChangeListener<T>> listeners = mListeners.get(id);
+            if (listeners == null) {
+                listeners = new ArrayList<ChangeListener<T>>(1);
+                mListeners.put(id, listeners);
+            }
+            listeners.add(listener);
+        }
+
+        synchronized void removeListener(long id, ChangeListener<T> listener) {
+            List<ChangeListener<T>> listeners = mListeners.get(id);
+            if (listeners != null && listeners.remove(listener) && listeners.isEmpty()) {
+                mListeners.remove(id);
+            }
+        }
+
+        void notifyChanged(final long id) {
+            final List<ChangeListener<T>> listeners;
+            synchronized (this) {
+                List<ChangeListener<T>> registered = mListeners.get(id);
+                if (registered == null) {
+                    return;
+                }
+                listeners = new ArrayList<ChangeListener<T>>(registered);
+            }
+            mCallbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // Delivers the latest content, which may be newer than the change
+                    T entity = get(id);
+                    if (entity == null) {
+                        return;
+                    }
+                    for (ChangeListener<T> listener : listeners) {
+                        listener.onChanged(entity);
+                    }
+                }
+            });
+        }
+
+        synchronized void clear() {
+            mEntries.clear();
+            mListeners.clear();
+            expungeCollected();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void expungeCollected() {
+            IdReference<T> reference;
+            while ((reference = (IdReference<T>) mQueue.poll()) != null) {
+                // The entry may already hold a newer object for the same ID
+                if (mEntries.get(reference.mId) == reference) {
+                    mEntries.remove(reference.mId);
+                }
+            }
+        }
+    }
+}
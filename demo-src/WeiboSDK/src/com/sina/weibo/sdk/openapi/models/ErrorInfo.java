@@ -17,9 +17,9 @@
 package com.sina.weibo.sdk.openapi.models;
 
 import org.json.JSONException;
-import org.json.JSONObject;
 
-import android.text.TextUtils;
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * 错误信息结构体。
@@ -32,20 +32,42 @@ public class ErrorInfo {
     public String error_code;
     public String request;
 
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "error", "error_code", "request");
+
     public static ErrorInfo parse(String jsonString) {
-        if (TextUtils.isEmpty(jsonString)) {
+        if (TextHelper.isEmpty(jsonString)) {
             return null;
         }
 
         ErrorInfo errorInfo = new ErrorInfo();
         try {
-            JSONObject jsonObject = new JSONObject(jsonString);
-            errorInfo.error      = jsonObject.optString("error");
-            errorInfo.error_code = jsonObject.optString("error_code");
-            errorInfo.request    = jsonObject.optString("request");
+            JsonReader reader = new JsonReader(jsonString);
+            reader.beginObject();
+            errorInfo.error      = "";
+            errorInfo.error_code = "";
+            errorInfo.request    = "";
+            while (reader.hasNext()) {
+                switch (reader.nextName(NAMES)) {
+                case 0:
+                    errorInfo.error = reader.nextString("");
+                    break;
+                case 1:
+                    errorInfo.error_code = reader.nextString("");
+                    break;
+                case 2:
+                    errorInfo.request = reader.nextString("");
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+                }
+            }
+            reader.endObject();
         } catch (JSONException e) {
             e.printStackTrace();
         }
+
         return errorInfo;
     }
     
@@ -22,6 +22,9 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.TextHelper;
+
 /**
  * 我喜欢的微博信息结构体。
  * 
@@ -38,9 +41,12 @@ public class Favorite {
     public String favorited_time;
     
     public static Favorite parse(String jsonString) {
+        if (TextHelper.isEmpty(jsonString)) {
+            return null;
+        }
+        
         try {
-            JSONObject object = new JSONObject(jsonString);
-            return Favorite.parse(object);
+            return Favorite.read(new JsonReader(jsonString));
         } catch (JSONException e) {
             e.printStackTrace();
         }
@@ -55,7 +61,7 @@ public class Favorite {
 
         Favorite favorite = new Favorite();
         favorite.status         = Status.parse(jsonObject.optJSONObject("status"));
-        favorite.favorited_time = jsonObject.optString("favorited_time");
+        favorite.favorited_time = JsonReader.optString(jsonObject, "favorited_time", "");
             
         JSONArray jsonArray    = jsonObject.optJSONArray("tags");
         if (jsonArray != null && jsonArray.length() > 0) {
@@ -68,4 +74,41 @@ public class Favorite {
 
         return favorite;
     }
+
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "status", "favorited_time", "tags");
+
+    /**
+     * 从 JSON 流中读取收藏，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static Favorite read(JsonReader reader) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        Favorite favorite = new Favorite();
+        favorite.favorited_time = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+            case 0:
+                favorite.status = Status.read(reader);
+                break;
+            case 1:
+                favorite.favorited_time = reader.nextString("");
+                break;
+            case 2:
+                favorite.tags = Tag.readList(reader, false);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        return favorite;
+    }
 }
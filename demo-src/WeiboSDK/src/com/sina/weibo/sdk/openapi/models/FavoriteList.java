@@ -17,12 +17,12 @@
 package com.sina.weibo.sdk.openapi.models;
 
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
-import android.text.TextUtils;
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * 我喜欢的微博信息列表结构体。
@@ -36,24 +36,41 @@ public class FavoriteList {
     public ArrayList<Favorite> favoriteList;
     public int total_number;
     
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "total_number", "favorites");
+
     public static FavoriteList parse(String jsonString) {
-        if (TextUtils.isEmpty(jsonString)) {
+        return parse(jsonString, null);
+    }
+
+    /**
+     * 解析收藏列表，收藏较多时在给定的线程池中并行解析，见 {@link ParallelParser}。
+     * 
+     * @param executor 解析线程池，为 null 时依次解析
+     */
+    public static FavoriteList parse(String jsonString, Executor executor) {
+        if (TextHelper.isEmpty(jsonString)) {
             return null;
         }
         
         FavoriteList favorites = new FavoriteList();
         try {
-            JSONObject jsonObject  = new JSONObject(jsonString);
-            favorites.total_number = jsonObject.optInt("total_number", 0);
-            
-            JSONArray jsonArray    = jsonObject.optJSONArray("favorites");
-            if (jsonArray != null && jsonArray.length() > 0) {
-                int length = jsonArray.length();
-                favorites.favoriteList = new ArrayList<Favorite>(length);
-                for (int ix = 0; ix < length; ix++) {
-                    favorites.favoriteList.add(Favorite.parse(jsonArray.optJSONObject(ix)));
+            JsonReader reader = new JsonReader(jsonString);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(NAMES)) {
+                case 0:
+                    favorites.total_number = reader.nextInt(0);
+                    break;
+                case 1:
+                    favorites.favoriteList = ParallelParser.readArray(reader, ParallelParser.FAVORITE, executor);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
                 }
             }
+            reader.endObject();
         } catch (JSONException e) {
             e.printStackTrace();
         }
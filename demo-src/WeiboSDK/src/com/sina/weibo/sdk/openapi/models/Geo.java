@@ -19,7 +19,9 @@ package com.sina.weibo.sdk.openapi.models;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import android.text.TextUtils;
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.StringPool;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * 地理信息结构体。
@@ -49,14 +51,13 @@ public class Geo {
     public String more;
     
     public static Geo parse(String jsonString) {
-        if (TextUtils.isEmpty(jsonString)) {
+        if (TextHelper.isEmpty(jsonString)) {
             return null;
         }
 
         Geo geo = null;
         try {
-            JSONObject jsonObject = new JSONObject(jsonString);
-            geo = parse(jsonObject);
+            geo = read(new JsonReader(jsonString));
         } catch (JSONException e) {
             e.printStackTrace();
         }
@@ -70,16 +71,81 @@ public class Geo {
         }
         
         Geo geo = new Geo();
-        geo.longitude       = jsonObject.optString("longitude");
-        geo.latitude        = jsonObject.optString("latitude");
-        geo.city            = jsonObject.optString("city");
-        geo.province        = jsonObject.optString("province");
-        geo.city_name       = jsonObject.optString("city_name");
-        geo.province_name   = jsonObject.optString("province_name");
-        geo.address         = jsonObject.optString("address");
-        geo.pinyin          = jsonObject.optString("pinyin");
-        geo.more            = jsonObject.optString("more");
+        geo.longitude       = JsonReader.optString(jsonObject, "longitude", "");
+        geo.latitude        = JsonReader.optString(jsonObject, "latitude", "");
+        geo.city            = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "city", ""));
+        geo.province        = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "province", ""));
+        geo.city_name       = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "city_name", ""));
+        geo.province_name   = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "province_name", ""));
+        geo.address         = JsonReader.optString(jsonObject, "address", "");
+        geo.pinyin          = JsonReader.optString(jsonObject, "pinyin", "");
+        geo.more            = JsonReader.optString(jsonObject, "more", "");
         
         return geo;
     }
+
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "longitude", "latitude", "city", "province",
+            "city_name", "province_name", "address", "pinyin",
+            "more");
+
+    /**
+     * 从 JSON 流中读取地理信息，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static Geo read(JsonReader reader) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        Geo geo = new Geo();
+        geo.longitude     = "";
+        geo.latitude      = "";
+        geo.city          = "";
+        geo.province      = "";
+        geo.city_name     = "";
+        geo.province_name = "";
+        geo.address       = "";
+        geo.pinyin        = "";
+        geo.more          = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+            case 0:
+                geo.longitude = reader.nextString("");
+                break;
+            case 1:
+                geo.latitude = reader.nextString("");
+                break;
+            case 2:
+                geo.city = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 3:
+                geo.province = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 4:
+                geo.city_name = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 5:
+                geo.province_name = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 6:
+                geo.address = reader.nextString("");
+                break;
+            case 7:
+                geo.pinyin = reader.nextString("");
+                break;
+            case 8:
+                geo.more = reader.nextString("");
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        return geo;
+    }
 }
@@ -18,11 +18,10 @@ package com.sina.weibo.sdk.openapi.models;
 
 import java.util.ArrayList;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
-import android.text.TextUtils;
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * 地理信息结构体。
@@ -33,28 +32,44 @@ import android.text.TextUtils;
 public class GeoList {
     public ArrayList<Geo> Geos;
 
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "geos");
+
     public static GeoList parse(String jsonString) {
-        if (TextUtils.isEmpty(jsonString)) {
+        if (TextHelper.isEmpty(jsonString)) {
             return null;
         }
-
+        
         GeoList geoList = new GeoList();
         try {
-            JSONObject jsonObject = new JSONObject(jsonString);
-
-            JSONArray jsonArray = jsonObject.optJSONArray("geos");
-            if (jsonArray != null && jsonArray.length() > 0) {
-                int length = jsonArray.length();
-                geoList.Geos = new ArrayList<Geo>(length);
-                for (int ix = 0; ix < length; ix++) {
-                    geoList.Geos.add(Geo.parse(jsonArray.optJSONObject(ix)));
+            JsonReader reader = new JsonReader(jsonString);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(NAMES)) {
+                case 0:
+                    if (reader.peek() != JsonReader.BEGIN_ARRAY) {
+                        reader.skipValue();
+                        break;
+                    }
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (geoList.Geos == null) {
+                            geoList.Geos = new ArrayList<Geo>();
+                        }
+                        geoList.Geos.add(Geo.read(reader));
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
                 }
             }
-
+            reader.endObject();
         } catch (JSONException e) {
             e.printStackTrace();
         }
-
+        
         return geoList;
     }
 }
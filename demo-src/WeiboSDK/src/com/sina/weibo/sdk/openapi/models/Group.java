@@ -19,8 +19,11 @@ package com.sina.weibo.sdk.openapi.models;
 import java.util.ArrayList;
 
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.sina.weibo.sdk.utils.JsonReader;
+
 /**
  * 好友分组信息。
  * 
@@ -62,16 +65,16 @@ public class Group {
 
         Group group = new Group();
         group.user = User.parse(jsonObject.optJSONObject("user"));
-        group.id                = jsonObject.optString("id");
-        group.idStr             = jsonObject.optString("idstr");
-        group.name              = jsonObject.optString("name");
-        group.mode              = jsonObject.optString("mode");
+        group.id                = JsonReader.optString(jsonObject, "id", "");
+        group.idStr             = JsonReader.optString(jsonObject, "idstr", "");
+        group.name              = JsonReader.optString(jsonObject, "name", "");
+        group.mode              = JsonReader.optString(jsonObject, "mode", "");
         group.visible           = jsonObject.optInt("visible");
         group.like_count        = jsonObject.optInt("like_count");
         group.member_count      = jsonObject.optInt("member_count");
-        group.description       = jsonObject.optString("description");
-        group.profile_image_url = jsonObject.optString("profile_image_url");
-        group.createAtTime      = jsonObject.optString("create_time", "");
+        group.description       = JsonReader.optString(jsonObject, "description", "");
+        group.profile_image_url = JsonReader.optString(jsonObject, "profile_image_url", "");
+        group.createAtTime      = JsonReader.optString(jsonObject, "create_time", "");
 
         JSONArray jsonArray = jsonObject.optJSONArray("tags");
         if (jsonArray != null && jsonObject.length() > 0) {
@@ -84,4 +87,76 @@ public class Group {
 
         return group;
     }
+
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "user", "id", "idstr", "name",
+            "mode", "visible", "like_count", "member_count",
+            "description", "profile_image_url", "create_time", "tags");
+
+    /**
+     * 从 JSON 流中读取分组，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static Group read(JsonReader reader) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        Group group = new Group();
+        group.id                = "";
+        group.idStr             = "";
+        group.name              = "";
+        group.mode              = "";
+        group.description       = "";
+        group.profile_image_url = "";
+        group.createAtTime      = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+            case 0:
+                group.user = User.read(reader);
+                break;
+            case 1:
+                group.id = reader.nextString("");
+                break;
+            case 2:
+                group.idStr = reader.nextString("");
+                break;
+            case 3:
+                group.name = reader.nextString("");
+                break;
+            case 4:
+                group.mode = reader.nextString("");
+                break;
+            case 5:
+                group.visible = reader.nextInt(0);
+                break;
+            case 6:
+                group.like_count = reader.nextInt(0);
+                break;
+            case 7:
+                group.member_count = reader.nextInt(0);
+                break;
+            case 8:
+                group.description = reader.nextString("");
+                break;
+            case 9:
+                group.profile_image_url = reader.nextString("");
+                break;
+            case 10:
+                group.createAtTime = reader.nextString("");
+                break;
+            case 11:
+                group.tags = Tag.readList(reader, true);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        return group;
+    }
 }
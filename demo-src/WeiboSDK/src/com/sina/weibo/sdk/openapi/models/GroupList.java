@@ -18,11 +18,10 @@ package com.sina.weibo.sdk.openapi.models;
 
 import java.util.ArrayList;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
-import android.text.TextUtils;
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * 好友分组列表。
@@ -36,28 +35,47 @@ public class GroupList {
     /** 分组数目 **/
     public int total_number;
 
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "total_number", "lists");
+
     public static GroupList parse(String jsonString) {
-        if (TextUtils.isEmpty(jsonString)) {
+        if (TextHelper.isEmpty(jsonString)) {
             return null;
         }
-
+        
         GroupList groupList = new GroupList();
         try {
-            JSONObject jsonObject  = new JSONObject(jsonString);
-            groupList.total_number = jsonObject.optInt("total_number");
-
-            JSONArray jsonArray = jsonObject.optJSONArray("lists");
-            if (jsonArray != null && jsonArray.length() > 0) {
-                int length = jsonArray.length();
-                groupList.groupList = new ArrayList<Group>(length);
-                for (int ix = 0; ix < length; ix++) {
-                    groupList.groupList.add(Group.parse(jsonArray.optJSONObject(ix)));
+            JsonReader reader = new JsonReader(jsonString);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(NAMES)) {
+                case 0:
+                    groupList.total_number = reader.nextInt(0);
+                    break;
+                case 1:
+                    if (reader.peek() != JsonReader.BEGIN_ARRAY) {
+                        reader.skipValue();
+                        break;
+                    }
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (groupList.groupList == null) {
+                            groupList.groupList = new ArrayList<Group>();
+                        }
+                        groupList.groupList.add(Group.read(reader));
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
                 }
             }
+            reader.endObject();
         } catch (JSONException e) {
             e.printStackTrace();
         }
-
+        
         return groupList;
     }
 }
@@ -0,0 +1,473 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.models;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import com.sina.weibo.sdk.utils.StringPool;
+
+/**
+ * 各数据结构的二进制序列化，用于缓存微博、用户等数据，读取时不必再解析 JSON。
+ * 
+ * 每个结构先写一个 boolean 表示是否为 null，再按字段声明顺序写各字段；
+ * 字段有变化时，应同时修改 {@link #FORMAT_VERSION}，由调用者随数据保存，
+ * 版本不同的数据不应再读取。{@link TextEntities} 不保存，读取时重新生成。
+ * 
+ * @author SINA
+ * @since 2014-05-16
+ */
+public final class ModelSerializer {
+
+    /** 序列化格式的版本 */
+    public static final int FORMAT_VERSION = 1;
+
+    private ModelSerializer() {
+    }
+
+    public static void writeStatus(DataOutput out, Status status) throws IOException {
+        out.writeBoolean(status != null);
+        if (status == null) {
+            return;
+        }
+        writeString(out, status.created_at);
+        writeString(out, status.id);
+        writeString(out, status.mid);
+        writeString(out, status.idstr);
+        writeString(out, status.text);
+        writeString(out, status.source);
+        out.writeBoolean(status.favorited);
+        out.writeBoolean(status.truncated);
+        writeString(out, status.in_reply_to_status_id);
+        writeString(out, status.in_reply_to_user_id);
+        writeString(out, status.in_reply_to_screen_name);
+        writeString(out, status.thumbnail_pic);
+        writeString(out, status.bmiddle_pic);
+        writeString(out, status.original_pic);
+        writeGeo(out, status.geo);
+        writeUser(out, status.user);
+        writeStatus(out, status.retweeted_status);
+        out.writeInt(status.reposts_count);
+        out.writeInt(status.comments_count);
+        out.writeInt(status.attitudes_count);
+        out.writeInt(status.mlevel);
+        writeVisible(out, status.visible);
+        writeStrings(out, status.pic_urls);
+    }
+
+    public static Status readStatus(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Status status = new Status();
+        status.created_at = readString(in);
+        status.id = readString(in);
+        status.mid = readString(in);
+        status.idstr = readString(in);
+        status.text = readString(in);
+        status.source = StringPool.SHARED.intern(readString(in));
+        status.favorited = in.readBoolean();
+        status.truncated = in.readBoolean();
+        status.in_reply_to_status_id = readString(in);
+        status.in_reply_to_user_id = readString(in);
+        status.in_reply_to_screen_name = readString(in);
+        status.thumbnail_pic = readString(in);
+        status.bmiddle_pic = readString(in);
+        status.original_pic = readString(in);
+        status.geo = readGeo(in);
+        status.user = readUser(in);
+        status.retweeted_status = readStatus(in);
+        status.reposts_count = in.readInt();
+        status.comments_count = in.readInt();
+        status.attitudes_count = in.readInt();
+        status.mlevel = in.readInt();
+        status.visible = readVisible(in);
+        status.pic_urls = readStrings(in);
+        status.text_entities = TextEntities.parseIfEnabled(status.text);
+        return status;
+    }
+
+    public static void writeUser(DataOutput out, User user) throws IOException {
+        out.writeBoolean(user != null);
+        if (user == null) {
+            return;
+        }
+        writeString(out, user.id);
+        writeString(out, user.idstr);
+        writeString(out, user.screen_name);
+        writeString(out, user.name);
+        out.writeInt(user.province);
+        out.writeInt(user.city);
+        writeString(out, user.location);
+        writeString(out, user.description);
+        writeString(out, user.url);
+        writeString(out, user.profile_image_url);
+        writeString(out, user.profile_url);
+        writeString(out, user.domain);
+        writeString(out, user.weihao);
+        writeString(out, user.gender);
+        out.writeInt(user.followers_count);
+        out.writeInt(user.friends_count);
+        out.writeInt(user.statuses_count);
+        out.writeInt(user.favourites_count);
+        writeString(out, user.created_at);
+        out.writeBoolean(user.following);
+        out.writeBoolean(user.allow_all_act_msg);
+        out.writeBoolean(user.geo_enabled);
+        out.writeBoolean(user.verified);
+        out.writeInt(user.verified_type);
+        writeString(out, user.remark);
+        writeStatus(out, user.status);
+        out.writeBoolean(user.allow_all_comment);
+        writeString(out, user.avatar_large);
+        writeString(out, user.avatar_hd);
+        writeString(out, user.verified_reason);
+        out.writeBoolean(user.follow_me);
+        out.writeInt(user.online_status);
+        out.writeInt(user.bi_followers_count);
+        writeString(out, user.lang);
+        writeString(out, user.star);
+        writeString(out, user.mbtype);
+        writeString(out, user.mbrank);
+        writeString(out, user.block_word);
+    }
+
+    public static User readUser(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        User user = new User();
+        user.id = readString(in);
+        user.idstr = readString(in);
+        user.screen_name = readString(in);
+        user.name = readString(in);
+        user.province = in.readInt();
+        user.city = in.readInt();
+        user.location = StringPool.SHARED.intern(readString(in));
+        user.description = readString(in);
+        user.url = readString(in);
+        user.profile_image_url = readString(in);
+        user.profile_url = readString(in);
+        user.domain = readString(in);
+        user.weihao = readString(in);
+        user.gender = StringPool.SHARED.intern(readString(in));
+        user.followers_count = in.readInt();
+        user.friends_count = in.readInt();
+        user.statuses_count = in.readInt();
+        user.favourites_count = in.readInt();
+        user.created_at = readString(in);
+        user.following = in.readBoolean();
+        user.allow_all_act_msg = in.readBoolean();
+        user.geo_enabled = in.readBoolean();
+        user.verified = in.readBoolean();
+        user.verified_type = in.readInt();
+        user.remark = readString(in);
+        user.status = readStatus(in);
+        user.allow_all_comment = in.readBoolean();
+        user.avatar_large = readString(in);
+        user.avatar_hd = readString(in);
+        user.verified_reason = StringPool.SHARED.intern(readString(in));
+        user.follow_me = in.readBoolean();
+        user.online_status = in.readInt();
+        user.bi_followers_count = in.readInt();
+        user.lang = StringPool.SHARED.intern(readString(in));
+        user.star = StringPool.SHARED.intern(readString(in));
+        user.mbtype = StringPool.SHARED.intern(readString(in));
+        user.mbrank = StringPool.SHARED.intern(readString(in));
+        user.block_word = readString(in);
+        return user;
+    }
+
+    public static void writeComment(DataOutput out, Comment comment) throws IOException {
+        out.writeBoolean(comment != null);
+        if (comment == null) {
+            return;
+        }
+        writeString(out, comment.created_at);
+        writeString(out, comment.id);
+        writeString(out, comment.text);
+        writeString(out, comment.source);
+        writeUser(out, comment.user);
+        writeString(out, comment.mid);
+        writeString(out, comment.idstr);
+        writeStatus(out, comment.status);
+        writeComment(out, comment.reply_comment);
+    }
+
+    public static Comment readComment(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Comment comment = new Comment();
+        comment.created_at = readString(in);
+        comment.id = readString(in);
+        comment.text = readString(in);
+        comment.source = readString(in);
+        comment.user = readUser(in);
+        comment.mid = readString(in);
+        comment.idstr = readString(in);
+        comment.status = readStatus(in);
+        comment.reply_comment = readComment(in);
+        comment.text_entities = TextEntities.parseIfEnabled(comment.text);
+        return comment;
+    }
+
+    public static void writeGeo(DataOutput out, Geo geo) throws IOException {
+        out.writeBoolean(geo != null);
+        if (geo == null) {
+            return;
+        }
+        writeString(out, geo.longitude);
+        writeString(out, geo.latitude);
+        writeString(out, geo.city);
+        writeString(out, geo.province);
+        writeString(out, geo.city_name);
+        writeString(out, geo.province_name);
+        writeString(out, geo.address);
+        writeString(out, geo.pinyin);
+        writeString(out, geo.more);
+    }
+
+    public static Geo readGeo(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Geo geo = new Geo();
+        geo.longitude = readString(in);
+        geo.latitude = readString(in);
+        geo.city = StringPool.SHARED.intern(readString(in));
+        geo.province = StringPool.SHARED.intern(readString(in));
+        geo.city_name = StringPool.SHARED.intern(readString(in));
+        geo.province_name = StringPool.SHARED.intern(readString(in));
+        geo.address = readString(in);
+        geo.pinyin = readString(in);
+        geo.more = readString(in);
+        return geo;
+    }
+
+    public static void writeVisible(DataOutput out, Visible visible) throws IOException {
+        out.writeBoolean(visible != null);
+        if (visible == null) {
+            return;
+        }
+        out.writeInt(visible.type);
+        out.writeInt(visible.list_id);
+    }
+
+    public static Visible readVisible(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Visible visible = new Visible();
+        visible.type = in.readInt();
+        visible.list_id = in.readInt();
+        return visible;
+    }
+
+    public static void writeFavorite(DataOutput out, Favorite favorite) throws IOException {
+        out.writeBoolean(favorite != null);
+        if (favorite == null) {
+            return;
+        }
+        writeStatus(out, favorite.status);
+        writeTags(out, favorite.tags);
+        writeString(out, favorite.favorited_time);
+    }
+
+    public static Favorite readFavorite(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Favorite favorite = new Favorite();
+        favorite.status = readStatus(in);
+        favorite.tags = readTags(in);
+        favorite.favorited_time = readString(in);
+        return favorite;
+    }
+
+    public static void writeTag(DataOutput out, Tag tag) throws IOException {
+        out.writeBoolean(tag != null);
+        if (tag == null) {
+            return;
+        }
+        out.writeInt(tag.id);
+        writeString(out, tag.tag);
+    }
+
+    public static Tag readTag(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Tag tag = new Tag();
+        tag.id = in.readInt();
+        tag.tag = readString(in);
+        return tag;
+    }
+
+    public static void writeGroup(DataOutput out, Group group) throws IOException {
+        out.writeBoolean(group != null);
+        if (group == null) {
+            return;
+        }
+        writeString(out, group.id);
+        writeString(out, group.idStr);
+        writeString(out, group.name);
+        writeString(out, group.mode);
+        out.writeInt(group.visible);
+        out.writeInt(group.like_count);
+        out.writeInt(group.member_count);
+        writeString(out, group.description);
+        writeTags(out, group.tags);
+        writeString(out, group.profile_image_url);
+        writeUser(out, group.user);
+        writeString(out, group.createAtTime);
+    }
+
+    public static Group readGroup(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Group group = new Group();
+        group.id = readString(in);
+        group.idStr = readString(in);
+        group.name = readString(in);
+        group.mode = readString(in);
+        group.visible = in.readInt();
+        group.like_count = in.readInt();
+        group.member_count = in.readInt();
+        group.description = readString(in);
+        group.tags = readTags(in);
+        group.profile_image_url = readString(in);
+        group.user = readUser(in);
+        group.createAtTime = readString(in);
+        return group;
+    }
+
+    public static void writePoi(DataOutput out, Poi poi) throws IOException {
+        out.writeBoolean(poi != null);
+        if (poi == null) {
+            return;
+        }
+        writeString(out, poi.poiid);
+        writeString(out, poi.title);
+        writeString(out, poi.address);
+        writeString(out, poi.lon);
+        writeString(out, poi.lat);
+        writeString(out, poi.category);
+        writeString(out, poi.city);
+        writeString(out, poi.province);
+        writeString(out, poi.country);
+        writeString(out, poi.url);
+        writeString(out, poi.phone);
+        writeString(out, poi.postcode);
+        writeString(out, poi.weibo_id);
+        writeString(out, poi.categorys);
+        writeString(out, poi.category_name);
+        writeString(out, poi.icon);
+        writeString(out, poi.checkin_num);
+        writeString(out, poi.checkin_user_num);
+        writeString(out, poi.tip_num);
+        writeString(out, poi.photo_num);
+        writeString(out, poi.todo_num);
+        writeString(out, poi.distance);
+    }
+
+    public static Poi readPoi(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Poi poi = new Poi();
+        poi.poiid = readString(in);
+        poi.title = readString(in);
+        poi.address = readString(in);
+        poi.lon = readString(in);
+        poi.lat = readString(in);
+        poi.category = StringPool.SHARED.intern(readString(in));
+        poi.city = StringPool.SHARED.intern(readString(in));
+        poi.province = StringPool.SHARED.intern(readString(in));
+        poi.country = StringPool.SHARED.intern(readString(in));
+        poi.url = readString(in);
+        poi.phone = readString(in);
+        poi.postcode = readString(in);
+        poi.weibo_id = readString(in);
+        poi.categorys = StringPool.SHARED.intern(readString(in));
+        poi.category_name = StringPool.SHARED.intern(readString(in));
+        poi.icon = readString(in);
+        poi.checkin_num = readString(in);
+        poi.checkin_user_num = readString(in);
+        poi.tip_num = readString(in);
+        poi.photo_num = readString(in);
+        poi.todo_num = readString(in);
+        poi.distance = readString(in);
+        return poi;
+    }
+
+    private static void writeTags(DataOutput out, ArrayList<Tag> tags) throws IOException {
+        out.writeInt(tags != null ? tags.size() : -1);
+        if (tags != null) {
+            for (Tag tag : tags) {
+                writeTag(out, tag);
+            }
+        }
+    }
+
+    private static ArrayList<Tag> readTags(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        ArrayList<Tag> tags = new ArrayList<Tag>(size);
+        for (int ix = 0; ix < size; ix++) {
+            tags.add(readTag(in));
+        }
+        return tags;
+    }
+
+    private static void writeStrings(DataOutput out, ArrayList<String> values) throws IOException {
+        out.writeInt(values != null ? values.size() : -1);
+        if (values != null) {
+            for (String value : values) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    private static ArrayList<String> readStrings(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        ArrayList<String> values = new ArrayList<String>(size);
+        for (int ix = 0; ix < size; ix++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
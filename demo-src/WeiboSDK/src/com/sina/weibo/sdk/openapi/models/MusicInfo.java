@@ -16,8 +16,11 @@
 
 package com.sina.weibo.sdk.openapi.models;
 
+import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.sina.weibo.sdk.utils.JsonReader;
+
 /**
  * 音乐结构体。
  * 
@@ -42,11 +45,54 @@ public class MusicInfo {
         }
         
         MusicInfo music = new MusicInfo();
-        music.author   = jsonObject.optString("author");
-        music.title    = jsonObject.optString("title");
-        music.album    = jsonObject.optString("album");
-        music.playUrl  = jsonObject.optString("playUrl");
+        music.author   = JsonReader.optString(jsonObject, "author", "");
+        music.title    = JsonReader.optString(jsonObject, "title", "");
+        music.album    = JsonReader.optString(jsonObject, "album", "");
+        music.playUrl  = JsonReader.optString(jsonObject, "playUrl", "");
         
         return music;
     }
+
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "author", "title", "album", "playUrl");
+
+    /**
+     * 从 JSON 流中读取音乐信息，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static MusicInfo read(JsonReader reader) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        MusicInfo music = new MusicInfo();
+        music.author  = "";
+        music.title   = "";
+        music.album   = "";
+        music.playUrl = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+            case 0:
+                music.author = reader.nextString("");
+                break;
+            case 1:
+                music.title = reader.nextString("");
+                break;
+            case 2:
+                music.album = reader.nextString("");
+                break;
+            case 3:
+                music.playUrl = reader.nextString("");
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        return music;
+    }
 }
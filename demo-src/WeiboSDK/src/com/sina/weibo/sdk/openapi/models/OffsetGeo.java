@@ -18,11 +18,10 @@ package com.sina.weibo.sdk.openapi.models;
 
 import java.util.ArrayList;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
-import android.text.TextUtils;
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * 地理位置纠正信息.
@@ -34,28 +33,44 @@ public class OffsetGeo {
 
     public ArrayList<Coordinate> Geos;
 
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "geos");
+
     public static OffsetGeo parse(String jsonString) {
-        if (TextUtils.isEmpty(jsonString)) {
+        if (TextHelper.isEmpty(jsonString)) {
             return null;
         }
-
+        
         OffsetGeo offsetGeo = new OffsetGeo();
         try {
-            JSONObject jsonObject = new JSONObject(jsonString);
-
-            JSONArray jsonArray = jsonObject.optJSONArray("geos");
-            if (jsonArray != null && jsonArray.length() > 0) {
-                int length = jsonArray.length();
-                offsetGeo.Geos = new ArrayList<Coordinate>(length);
-                for (int ix = 0; ix < length; ix++) {
-                    offsetGeo.Geos.add(Coordinate.parse(jsonArray.optJSONObject(ix)));
+            JsonReader reader = new JsonReader(jsonString);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(NAMES)) {
+                case 0:
+                    if (reader.peek() != JsonReader.BEGIN_ARRAY) {
+                        reader.skipValue();
+                        break;
+                    }
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (offsetGeo.Geos == null) {
+                            offsetGeo.Geos = new ArrayList<Coordinate>();
+                        }
+                        offsetGeo.Geos.add(Coordinate.read(reader));
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
                 }
             }
-
+            reader.endObject();
         } catch (JSONException e) {
             e.printStackTrace();
         }
-
+        
         return offsetGeo;
     }
 }
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.models;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONException;
+
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.StructuralIndex;
+
+/**
+ * 并行解析返回结果中的大数组，如 count=200 的微博列表。
+ * 
+ * 先用 {@link JsonReader#nextElementRanges()} 扫描一遍数组，只确定各元素的起止位置，
+ * 再把元素分成若干段交给线程池解析，结果按原顺序放回列表。调用线程也参与解析：
+ * 线程池繁忙，或调用线程本身就是线程池的线程时，也不会死锁。
+ * 数组较小时直接在调用线程上依次解析。
+ * 
+ * Android 4.x 没有 ForkJoinPool，因此这里只依赖 {@link Executor}；
+ * 在 JVM 上可以传入 ForkJoinPool.commonPool()。
+ * 
+ * @author SINA
+ * @since 2014-05-18
+ */
+public final class ParallelParser {
+
+    /** 数组文本小于该长度（字符数）时依次解析 */
+    public static final int MIN_PARALLEL_CHARS = 32 * 1024;
+    /** 每段至少包含的元素个数 */
+    private static final int MIN_CHUNK_ELEMENTS = 8;
+    /** 每个线程平均分到的段数，段越多各线程负载越均衡 */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * 解析数组中的一个元素。
+     */
+    public interface ElementReader<T> {
+        public T read(JsonReader reader) throws JSONException;
+    }
+
+    public static final ElementReader<Status> STATUS = new ElementReader<Status>() {
+        @Override
+        public Status read(JsonReader reader) throws JSONException {
+            return Status.read(reader);
+        }
+    };
+
+    public static final ElementReader<User> USER = new ElementReader<User>() {
+        @Override
+        public User read(JsonReader reader) throws JSONException {
+            return User.read(reader);
+        }
+    };
+
+    public static final ElementReader<Comment> COMMENT = new ElementReader<Comment>() {
+        @Override
+        public Comment read(JsonReader reader) throws JSONException {
+            return Comment.read(reader);
+        }
+    };
+
+    public static final ElementReader<Favorite> FAVORITE = new ElementReader<Favorite>() {
+        @Override
+        public Favorite read(JsonReader reader) throws JSONException {
+            return Favorite.read(reader);
+        }
+    };
+
+    public static final ElementReader<Poi> POI = new ElementReader<Poi>() {
+        @Override
+        public Poi read(JsonReader reader) throws JSONException {
+            return Poi.read(reader);
+        }
+    };
+
+    public static final ElementReader<UserCount> USER_COUNT = new ElementReader<UserCount>() {
+        @Override
+        public UserCount read(JsonReader reader) throws JSONException {
+            return UserCount.read(reader);
+        }
+    };
+
+    private ParallelParser() {
+    }
+
+    /**
+     * 返回默认的解析线程池：处理器个数减一个守护线程，调用线程是另一个。
+     */
+    public static Executor getDefaultExecutor() {
+        return ExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * 解析下一个数组，数组为空时返回 null，与各列表的 parse(String) 相同。
+     * 
+     * @param executor 解析线程池，为 null 时依次解析
+     */
+    public static <T> ArrayList<T> readArray(JsonReader reader, final ElementReader<T> elementReader,
+            Executor executor) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        if (executor == null) {
+            return readSequential(reader, elementReader);
+        }
+
+        int start = reader.getPosition();
+        final int[] ranges = reader.nextElementRanges();
+        final int count = ranges.length / 2;
+        if (count == 0) {
+            return null;
+        }
+
+        final String in = reader.getInput();
+        final StructuralIndex index = reader.getIndex();
+        final Object[] results = new Object[count];
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (threads < 2 || reader.getPosition() - start < MIN_PARALLEL_CHARS
+                || count < 2 * MIN_CHUNK_ELEMENTS) {
+            readRange(in, index, ranges, 0, count, elementReader, results);
+            return toList(results);
+        }
+
+        final int chunkSize = Math.max(MIN_CHUNK_ELEMENTS, count / (threads * CHUNKS_PER_THREAD));
+        final int chunkCount = (count + chunkSize - 1) / chunkSize;
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(chunkCount);
+        final JSONException[] error = new JSONException[1];
+
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int chunk;
+                while ((chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                    int from = chunk * chunkSize;
+                    try {
+                        readRange(in, index, ranges, from, Math.min(count, from + chunkSize), elementReader,
+                                results);
+                    } catch (JSONException e) {
+                        synchronized (error) {
+                            if (error[0] == null) {
+                                error[0] = e;
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        synchronized (error) {
+                            if (error[0] == null) {
+                                error[0] = new JSONException(e.toString());
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+
+        int helpers = Math.min(threads, chunkCount) - 1;
+        for (int ix = 0; ix < helpers; ix++) {
+            executor.execute(worker);
+        }
+        // The calling thread takes chunks too, so that it never waits for a busy pool
+        worker.run();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JSONException("Interrupted while parsing");
+        }
+
+        synchronized (error) {
+            if (error[0] != null) {
+                throw error[0];
+            }
+        }
+        return toList(results);
+    }
+
+    private static <T> ArrayList<T> readSequential(JsonReader reader, ElementReader<T> elementReader)
+            throws JSONException {
+        ArrayList<T> list = null;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (list == null) {
+                list = new ArrayList<T>();
+            }
+            list.add(elementReader.read(reader));
+        }
+        reader.endArray();
+        return list;
+    }
+
+    private static <T> void readRange(String in, StructuralIndex index, int[] ranges, int from, int to,
+            ElementReader<T> elementReader, Object[] results) throws JSONException {
+        for (int ix = from; ix < to; ix++) {
+            int start = ranges[2 * ix];
+            int end = ranges[2 * ix + 1];
+            results[ix] = elementReader.read(index != null
+                    ? new JsonReader(index, start, end) : new JsonReader(in, start, end));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArrayList<T> toList(Object[] results) {
+        ArrayList<T> list = new ArrayList<T>(results.length);
+        for (Object result : results) {
+            list.add((T) result);
+        }
+        return list;
+    }
+
+    private static class ExecutorHolder {
+        static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1), new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "WeiboParser #" + mCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+}
@@ -19,7 +19,9 @@ package com.sina.weibo.sdk.openapi.models;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import android.text.TextUtils;
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.StringPool;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * 位置信息结构体。
@@ -75,14 +77,13 @@ public class Poi {
     public String distance;
 
     public static Poi parse(String jsonString) {
-        if (TextUtils.isEmpty(jsonString)) {
+        if (TextHelper.isEmpty(jsonString)) {
             return null;
         }
 
         Poi poi = null;
         try {
-            JSONObject jsonObject = new JSONObject(jsonString);
-            poi = parse(jsonObject);
+            poi = read(new JsonReader(jsonString));
         } catch (JSONException e) {
             e.printStackTrace();
         }
@@ -96,29 +97,149 @@ public class Poi {
         }
         
         Poi poi = new Poi();
-        poi.poiid               = jsonObject.optString("poiid");
-        poi.title               = jsonObject.optString("title");
-        poi.address             = jsonObject.optString("address");
-        poi.lon                 = jsonObject.optString("lon");
-        poi.lat                 = jsonObject.optString("lat");
-        poi.category            = jsonObject.optString("category");
-        poi.city                = jsonObject.optString("city");
-        poi.province            = jsonObject.optString("province");
-        poi.country             = jsonObject.optString("country");
-        poi.url                 = jsonObject.optString("url");
-        poi.phone               = jsonObject.optString("phone");
-        poi.postcode            = jsonObject.optString("postcode");
-        poi.weibo_id            = jsonObject.optString("weibo_id");
-        poi.categorys           = jsonObject.optString("categorys");
-        poi.category_name       = jsonObject.optString("category_name");
-        poi.icon                = jsonObject.optString("icon");
-        poi.checkin_num         = jsonObject.optString("checkin_num");
-        poi.checkin_user_num    = jsonObject.optString("checkin_user_num");
-        poi.tip_num             = jsonObject.optString("tip_num");
-        poi.photo_num           = jsonObject.optString("photo_num");
-        poi.todo_num            = jsonObject.optString("todo_num");
-        poi.distance            = jsonObject.optString("distance");
+        poi.poiid               = JsonReader.optString(jsonObject, "poiid", "");
+        poi.title               = JsonReader.optString(jsonObject, "title", "");
+        poi.address             = JsonReader.optString(jsonObject, "address", "");
+        poi.lon                 = JsonReader.optString(jsonObject, "lon", "");
+        poi.lat                 = JsonReader.optString(jsonObject, "lat", "");
+        poi.category            = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "category", ""));
+        poi.city                = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "city", ""));
+        poi.province            = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "province", ""));
+        poi.country             = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "country", ""));
+        poi.url                 = JsonReader.optString(jsonObject, "url", "");
+        poi.phone               = JsonReader.optString(jsonObject, "phone", "");
+        poi.postcode            = JsonReader.optString(jsonObject, "postcode", "");
+        poi.weibo_id            = JsonReader.optString(jsonObject, "weibo_id", "");
+        poi.categorys           = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "categorys", ""));
+        poi.category_name       = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "category_name", ""));
+        poi.icon                = JsonReader.optString(jsonObject, "icon", "");
+        poi.checkin_num         = JsonReader.optString(jsonObject, "checkin_num", "");
+        poi.checkin_user_num    = JsonReader.optString(jsonObject, "checkin_user_num", "");
+        poi.tip_num             = JsonReader.optString(jsonObject, "tip_num", "");
+        poi.photo_num           = JsonReader.optString(jsonObject, "photo_num", "");
+        poi.todo_num            = JsonReader.optString(jsonObject, "todo_num", "");
+        poi.distance            = JsonReader.optString(jsonObject, "distance", "");
         
         return poi;
     }
+
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "poiid", "title", "address", "lon",
+            "lat", "category", "city", "province",
+            "country", "url", "phone", "postcode",
+            "weibo_id", "categorys", "category_name", "icon",
+            "checkin_num", "checkin_user_num", "tip_num", "photo_num",
+            "todo_num", "distance");
+
+    /**
+     * 从 JSON 流中读取位置，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static Poi read(JsonReader reader) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        Poi poi = new Poi();
+        poi.poiid            = "";
+        poi.title            = "";
+        poi.address          = "";
+        poi.lon              = "";
+        poi.lat              = "";
+        poi.category         = "";
+        poi.city             = "";
+        poi.province         = "";
+        poi.country          = "";
+        poi.url              = "";
+        poi.phone            = "";
+        poi.postcode         = "";
+        poi.weibo_id         = "";
+        poi.categorys        = "";
+        poi.category_name    = "";
+        poi.icon             = "";
+        poi.checkin_num      = "";
+        poi.checkin_user_num = "";
+        poi.tip_num          = "";
+        poi.photo_num        = "";
+        poi.todo_num         = "";
+        poi.distance         = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+            case 0:
+                poi.poiid = reader.nextString("");
+                break;
+            case 1:
+                poi.title = reader.nextString("");
+                break;
+            case 2:
+                poi.address = reader.nextString("");
+                break;
+            case 3:
+                poi.lon = reader.nextString("");
+                break;
+            case 4:
+                poi.lat = reader.nextString("");
+                break;
+            case 5:
+                poi.category = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 6:
+                poi.city = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 7:
+                poi.province = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 8:
+                poi.country = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 9:
+                poi.url = reader.nextString("");
+                break;
+            case 10:
+                poi.phone = reader.nextString("");
+                break;
+            case 11:
+                poi.postcode = reader.nextString("");
+                break;
+            case 12:
+                poi.weibo_id = reader.nextString("");
+                break;
+            case 13:
+                poi.categorys = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 14:
+                poi.category_name = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 15:
+                poi.icon = reader.nextString("");
+                break;
+            case 16:
+                poi.checkin_num = reader.nextString("");
+                break;
+            case 17:
+                poi.checkin_user_num = reader.nextString("");
+                break;
+            case 18:
+                poi.tip_num = reader.nextString("");
+                break;
+            case 19:
+                poi.photo_num = reader.nextString("");
+                break;
+            case 20:
+                poi.todo_num = reader.nextString("");
+                break;
+            case 21:
+                poi.distance = reader.nextString("");
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        return poi;
+    }
 }
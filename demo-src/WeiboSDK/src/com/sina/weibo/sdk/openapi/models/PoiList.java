@@ -17,12 +17,12 @@
 package com.sina.weibo.sdk.openapi.models;
 
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
-import android.text.TextUtils;
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * 地理列表结构体。
@@ -34,28 +34,46 @@ public class PoiList {
     public ArrayList<Poi> pois;
     public String totalNumber;
 
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "total_number", "geos");
+
     public static PoiList parse(String jsonString) {
-        if (TextUtils.isEmpty(jsonString)) {
+        return parse(jsonString, null);
+    }
+
+    /**
+     * 解析位置列表，位置较多时在给定的线程池中并行解析，见 {@link ParallelParser}。
+     * 
+     * @param executor 解析线程池，为 null 时依次解析
+     */
+    public static PoiList parse(String jsonString, Executor executor) {
+        if (TextHelper.isEmpty(jsonString)) {
             return null;
         }
-
+        
         PoiList poiList = new PoiList();
         try {
-            JSONObject jsonObject = new JSONObject(jsonString);
-
-            poiList.totalNumber = jsonObject.optString("total_number");
-            JSONArray jsonArray = jsonObject.optJSONArray("geos");
-            if (jsonArray != null && jsonArray.length() > 0) {
-                int length = jsonArray.length();
-                poiList.pois = new ArrayList<Poi>(length);
-                for (int ix = 0; ix < length; ix++) {
-                    poiList.pois.add(Poi.parse(jsonArray.optJSONObject(ix)));
+            JsonReader reader = new JsonReader(jsonString);
+            reader.beginObject();
+            poiList.totalNumber = "";
+            while (reader.hasNext()) {
+                switch (reader.nextName(NAMES)) {
+                case 0:
+                    poiList.totalNumber = reader.nextString("");
+                    break;
+                case 1:
+                    poiList.pois = ParallelParser.readArray(reader, ParallelParser.POI, executor);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
                 }
             }
-
+            reader.endObject();
         } catch (JSONException e) {
             e.printStackTrace();
         }
+        
         return poiList;
     }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONException;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.net.ResponseParser;
+import com.sina.weibo.sdk.utils.JsonReader;
+
+/**
+ * 各数据结构的 {@link ResponseParser}，用于 {@link com.sina.weibo.sdk.net.WeiboFuture}。
+ *
+ * @author SINA
+ * @since 2014-04-26
+ */
+public class ResponseParsers {
+
+    /** 单条微博 */
+    public static final ResponseParser<Status> STATUS = new ResponseParser<Status>() {
+        @Override
+        public Status parse(String response) {
+            return Status.parse(response);
+        }
+    };
+
+    /** 微博列表 */
+    public static final ResponseParser<StatusList> STATUS_LIST = new ResponseParser<StatusList>() {
+        @Override
+        public StatusList parse(String response) {
+            return StatusList.parse(response);
+        }
+    };
+
+    /**
+     * 只读取投影中字段的微博列表
+     */
+    public static ResponseParser<StatusList> statusList(final StatusProjection projection) {
+        return new ResponseParser<StatusList>() {
+            @Override
+            public StatusList parse(String response) {
+                return StatusList.parse(response, null, projection);
+            }
+        };
+    }
+
+    /** 用户信息 */
+    public static final ResponseParser<User> USER = new ResponseParser<User>() {
+        @Override
+        public User parse(String response) {
+            return User.parse(response);
+        }
+    };
+
+    /** 单条评论 */
+    public static final ResponseParser<Comment> COMMENT = new ResponseParser<Comment>() {
+        @Override
+        public Comment parse(String response) throws WeiboException {
+            try {
+                return Comment.read(new JsonReader(response));
+            } catch (JSONException e) {
+                throw new WeiboException(e);
+            }
+        }
+    };
+
+    /** 评论数组，如批量获取、批量删除评论的返回结果 */
+    public static final ResponseParser<List<Comment>> COMMENT_ARRAY = array(ParallelParser.COMMENT);
+
+    /** 评论列表 */
+    public static final ResponseParser<CommentList> COMMENT_LIST = new ResponseParser<CommentList>() {
+        @Override
+        public CommentList parse(String response) {
+            return CommentList.parse(response);
+        }
+    };
+
+    /** 收藏列表 */
+    public static final ResponseParser<FavoriteList> FAVORITE_LIST = new ResponseParser<FavoriteList>() {
+        @Override
+        public FavoriteList parse(String response) {
+            return FavoriteList.parse(response);
+        }
+    };
+
+    /** 位置信息列表 */
+    public static final ResponseParser<PoiList> POI_LIST = new ResponseParser<PoiList>() {
+        @Override
+        public PoiList parse(String response) {
+            return PoiList.parse(response);
+        }
+    };
+
+    /** 用户计数数组 */
+    public static final ResponseParser<List<UserCount>> USER_COUNT_ARRAY = array(ParallelParser.USER_COUNT);
+
+    /**
+     * 解析 JSON 数组，数组为空时返回空列表
+     */
+    public static <T> ResponseParser<List<T>> array(final ParallelParser.ElementReader<T> elementReader) {
+        return new ResponseParser<List<T>>() {
+            @Override
+            public List<T> parse(String response) throws WeiboException {
+                try {
+                    List<T> list = ParallelParser.readArray(new JsonReader(response), elementReader, null);
+                    return list != null ? list : new ArrayList<T>();
+                } catch (JSONException e) {
+                    throw new WeiboException(e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.models;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.sina.weibo.sdk.utils.JsonReader;
+
+/**
+ * 短链接结构体。
+ * 
+ * @author SINA
+ * @since 2014-05-12
+ */
+public class ShortUrl {
+    /** 短链接 */
+    public String url_short;
+    /** 原始长链接 */
+    public String url_long;
+    /** 链接的类型，0：普通网页、1：视频、2：音乐、3：活动、5：投票 */
+    public int type;
+    /** 短链接转换是否成功 */
+    public boolean result;
+
+    public static ShortUrl parse(JSONObject jsonObject) {
+        if (null == jsonObject) {
+            return null;
+        }
+
+        ShortUrl shortUrl = new ShortUrl();
+        shortUrl.url_short = JsonReader.optString(jsonObject, "url_short", "");
+        shortUrl.url_long  = JsonReader.optString(jsonObject, "url_long", "");
+        shortUrl.type      = jsonObject.optInt("type");
+        shortUrl.result    = jsonObject.optBoolean("result", false);
+        return shortUrl;
+    }
+
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "url_short", "url_long", "type", "result");
+
+    /**
+     * 从 JSON 流中读取短链接，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static ShortUrl read(JsonReader reader) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        ShortUrl shortUrl = new ShortUrl();
+        shortUrl.url_short = "";
+        shortUrl.url_long  = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+            case 0:
+                shortUrl.url_short = reader.nextString("");
+                break;
+            case 1:
+                shortUrl.url_long = reader.nextString("");
+                break;
+            case 2:
+                shortUrl.type = reader.nextInt(0);
+                break;
+            case 3:
+                shortUrl.result = reader.nextBoolean(false);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        return shortUrl;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.models;
+
+import java.util.ArrayList;
+
+import org.json.JSONException;
+
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.TextHelper;
+
+/**
+ * 短链接列表，short_url/shorten.json 及 short_url/expand.json 的返回结果。
+ * 
+ * @author SINA
+ * @since 2014-05-12
+ */
+public class ShortUrlList {
+    /** 短链接列表 */
+    public ArrayList<ShortUrl> urlList;
+
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "urls");
+
+    public static ShortUrlList parse(String jsonString) {
+        if (TextHelper.isEmpty(jsonString)) {
+            return null;
+        }
+        
+        ShortUrlList urls = new ShortUrlList();
+        try {
+            JsonReader reader = new JsonReader(jsonString);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(NAMES)) {
+                case 0:
+                    if (reader.peek() != JsonReader.BEGIN_ARRAY) {
+                        reader.skipValue();
+                        break;
+                    }
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (urls.urlList == null) {
+                            urls.urlList = new ArrayList<ShortUrl>();
+                        }
+                        ShortUrl element = ShortUrl.read(reader);
+                        if (element != null) {
+                            urls.urlList.add(element);
+                        }
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+                }
+            }
+            reader.endObject();
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+        
+        return urls;
+    }
+}
@@ -22,6 +22,10 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.StringPool;
+import com.sina.weibo.sdk.utils.TextHelper;
+
 /**
  * 微博结构体。
  * 
@@ -80,13 +84,18 @@ public class Status {
     public Visible visible;
     /** 微博配图地址。多图时返回多图链接。无配图返回"[]" */
     public ArrayList<String> pic_urls;
+    /** 正文中的实体表，仅在开启 {@link TextEntities#setExtractOnParse(boolean)} 后生成，没有实体时为 null */
+    public TextEntities text_entities;
     /** 微博流内的推广微博ID */
     //public Ad ad;
     
     public static Status parse(String jsonString) {
+        if (TextHelper.isEmpty(jsonString)) {
+            return null;
+        }
+        
         try {
-            JSONObject jsonObject = new JSONObject(jsonString);
-            return Status.parse(jsonObject);
+            return Status.read(new JsonReader(jsonString));
         } catch (JSONException e) {
             e.printStackTrace();
         }
@@ -100,23 +109,24 @@ public class Status {
         }
         
         Status status = new Status();
-        status.created_at       = jsonObject.optString("created_at");
-        status.id               = jsonObject.optString("id");
-        status.mid              = jsonObject.optString("mid");
-        status.idstr            = jsonObject.optString("idstr");
-        status.text             = jsonObject.optString("text");
-        status.source           = jsonObject.optString("source");
+        status.created_at       = JsonReader.optString(jsonObject, "created_at", "");
+        status.id               = JsonReader.optString(jsonObject, "id", "");
+        status.mid              = JsonReader.optString(jsonObject, "mid", "");
+        status.idstr            = JsonReader.optString(jsonObject, "idstr", "");
+        status.text             = JsonReader.optString(jsonObject, "text", "");
+        status.text_entities    = TextEntities.parseIfEnabled(status.text);
+        status.source           = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "source", ""));
         status.favorited        = jsonObject.optBoolean("favorited", false);
         status.truncated        = jsonObject.optBoolean("truncated", false);
         
         // Have NOT supported
-        status.in_reply_to_status_id   = jsonObject.optString("in_reply_to_status_id");
-        status.in_reply_to_user_id     = jsonObject.optString("in_reply_to_user_id");
-        status.in_reply_to_screen_name = jsonObject.optString("in_reply_to_screen_name");
+        status.in_reply_to_status_id   = JsonReader.optString(jsonObject, "in_reply_to_status_id", "");
+        status.in_reply_to_user_id     = JsonReader.optString(jsonObject, "in_reply_to_user_id", "");
+        status.in_reply_to_screen_name = JsonReader.optString(jsonObject, "in_reply_to_screen_name", "");
         
-        status.thumbnail_pic    = jsonObject.optString("thumbnail_pic");
-        status.bmiddle_pic      = jsonObject.optString("bmiddle_pic");
-        status.original_pic     = jsonObject.optString("original_pic");
+        status.thumbnail_pic    = JsonReader.optString(jsonObject, "thumbnail_pic", "");
+        status.bmiddle_pic      = JsonReader.optString(jsonObject, "bmiddle_pic", "");
+        status.original_pic     = JsonReader.optString(jsonObject, "original_pic", "");
         status.geo              = Geo.parse(jsonObject.optJSONObject("geo"));
         status.user             = User.parse(jsonObject.optJSONObject("user"));
         status.retweeted_status = Status.parse(jsonObject.optJSONObject("retweeted_status"));
@@ -134,13 +144,187 @@ public class Status {
             for (int ix = 0; ix < length; ix++) {
                 tmpObject = picUrlsArray.optJSONObject(ix);
                 if (tmpObject != null) {
-                    status.pic_urls.add(tmpObject.optString("thumbnail_pic"));
+                    status.pic_urls.add(JsonReader.optString(tmpObject, "thumbnail_pic", ""));
                 }
             }
         }
         
-        //status.ad = jsonObject.optString("ad", "");
+        //status.ad = JsonReader.optString(jsonObject, "ad", "");
         
-        return status;
+        return EntityStore.putIfEnabled(status);
+    }
+
+    static final JsonReader.Names NAMES = new JsonReader.Names(
+            "created_at", "id", "mid", "idstr",
+            "text", "source", "favorited", "truncated",
+            "in_reply_to_status_id", "in_reply_to_user_id", "in_reply_to_screen_name", "thumbnail_pic",
+            "bmiddle_pic", "original_pic", "geo", "user",
+            "retweeted_status", "reposts_count", "comments_count", "attitudes_count",
+            "mlevel", "visible", "pic_urls", "uid");
+
+    /** user 及 uid 在 NAMES 中的位置 */
+    static final int FIELD_USER = NAMES.indexOf("user");
+    static final int FIELD_UID  = NAMES.indexOf("uid");
+
+    /**
+     * 从 JSON 流中读取微博，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static Status read(JsonReader reader) throws JSONException {
+        return read(reader, null);
+    }
+
+    /**
+     * 从 JSON 流中读取微博，只读取投影中的字段。
+     * 
+     * @param projection 字段投影，为 null 时读取全部字段
+     */
+    public static Status read(JsonReader reader, StatusProjection projection) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        Status status = new Status();
+        status.created_at              = "";
+        status.id                      = "";
+        status.mid                     = "";
+        status.idstr                   = "";
+        status.text                    = "";
+        status.source                  = "";
+        status.in_reply_to_status_id   = "";
+        status.in_reply_to_user_id     = "";
+        status.in_reply_to_screen_name = "";
+        status.thumbnail_pic           = "";
+        status.bmiddle_pic             = "";
+        status.original_pic            = "";
+        status.mlevel                  = -1;
+
+        String uid = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int field = reader.nextName(NAMES);
+            if (projection != null && !projection.includesStatusField(field)
+                    && !(field == FIELD_UID && projection.includesStatusField(FIELD_USER))) {
+                field = -1;
+            }
+            switch (field) {
+            case 0:
+                status.created_at = reader.nextString("");
+                break;
+            case 1:
+                status.id = reader.nextString("");
+                break;
+            case 2:
+                status.mid = reader.nextString("");
+                break;
+            case 3:
+                status.idstr = reader.nextString("");
+                break;
+            case 4:
+                status.text = reader.nextString("");
+                break;
+            case 5:
+                status.source = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 6:
+                status.favorited = reader.nextBoolean(false);
+                break;
+            case 7:
+                status.truncated = reader.nextBoolean(false);
+                break;
+            case 8:
+                status.in_reply_to_status_id = reader.nextString("");
+                break;
+            case 9:
+                status.in_reply_to_user_id = reader.nextString("");
+                break;
+            case 10:
+                status.in_reply_to_screen_name = reader.nextString("");
+                break;
+            case 11:
+                status.thumbnail_pic = reader.nextString("");
+                break;
+            case 12:
+                status.bmiddle_pic = reader.nextString("");
+                break;
+            case 13:
+                status.original_pic = reader.nextString("");
+                break;
+            case 14:
+                status.geo = Geo.read(reader);
+                break;
+            case 15:
+                status.user = User.read(reader, projection);
+                break;
+            case 16:
+                status.retweeted_status = Status.read(reader, projection);
+                break;
+            case 17:
+                status.reposts_count = reader.nextInt(0);
+                break;
+            case 18:
+                status.comments_count = reader.nextInt(0);
+                break;
+            case 19:
+                status.attitudes_count = reader.nextInt(0);
+                break;
+            case 20:
+                status.mlevel = reader.nextInt(-1);
+                break;
+            case 21:
+                status.visible = Visible.read(reader);
+                break;
+            case 22:
+                status.pic_urls = readPicUrls(reader);
+                break;
+            case 23:
+                // trim_user=1 时只返回作者的 ID
+                uid = reader.nextString(null);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        if (projection != null && status.user == null && uid != null) {
+            status.user = User.withId(uid);
+        }
+        status.text_entities = TextEntities.parseIfEnabled(status.text);
+        return projection == null ? EntityStore.putIfEnabled(status) : status;
+    }
+
+    // 与 parse(JSONObject) 相同：数组非空时才生成列表，只取对象元素的 thumbnail_pic
+    private static ArrayList<String> readPicUrls(JsonReader reader) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+
+        ArrayList<String> picUrls = null;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (picUrls == null) {
+                picUrls = new ArrayList<String>();
+            }
+            if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            String thumbnail = "";
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("thumbnail_pic".equals(reader.nextName())) {
+                    thumbnail = reader.nextString("");
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            picUrls.add(thumbnail);
+        }
+        reader.endArray();
+        return picUrls;
     }
 }
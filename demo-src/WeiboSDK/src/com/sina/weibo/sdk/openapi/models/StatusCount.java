@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.models;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.sina.weibo.sdk.utils.JsonReader;
+
+/**
+ * 微博的转发数、评论数及表态数，count.json 返回结果中的一项。
+ * 
+ * @author SINA
+ * @since 2014-05-24
+ */
+public class StatusCount {
+    /** 微博ID */
+    public long id;
+    /** 评论数 */
+    public int comments;
+    /** 转发数 */
+    public int reposts;
+    /** 表态数 */
+    public int attitudes;
+
+    public static StatusCount parse(JSONObject jsonObject) {
+        if (null == jsonObject) {
+            return null;
+        }
+
+        StatusCount count = new StatusCount();
+        count.id        = jsonObject.optLong("id");
+        count.comments  = jsonObject.optInt("comments");
+        count.reposts   = jsonObject.optInt("reposts");
+        count.attitudes = jsonObject.optInt("attitudes");
+        return count;
+    }
+
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "id", "comments", "reposts", "attitudes");
+
+    /**
+     * 从 JSON 流中读取计数，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static StatusCount read(JsonReader reader) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        StatusCount count = new StatusCount();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+            case 0:
+                count.id = reader.nextLong(0);
+                break;
+            case 1:
+                count.comments = reader.nextInt(0);
+                break;
+            case 2:
+                count.reposts = reader.nextInt(0);
+                break;
+            case 3:
+                count.attitudes = reader.nextInt(0);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        return count;
+    }
+}
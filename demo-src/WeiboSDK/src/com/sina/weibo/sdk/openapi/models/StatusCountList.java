@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.models;
+
+import java.util.ArrayList;
+
+import org.json.JSONException;
+
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.TextHelper;
+
+/**
+ * 批量微博计数，count.json 的返回结果。
+ * 
+ * @author SINA
+ * @since 2014-05-24
+ */
+public class StatusCountList {
+    /** 计数列表 */
+    public ArrayList<StatusCount> countList;
+
+    public static StatusCountList parse(String jsonString) {
+        if (TextHelper.isEmpty(jsonString)) {
+            return null;
+        }
+
+        StatusCountList counts = new StatusCountList();
+        try {
+            JsonReader reader = new JsonReader(jsonString);
+            reader.beginArray();
+            counts.countList = new ArrayList<StatusCount>();
+            while (reader.hasNext()) {
+                StatusCount count = StatusCount.read(reader);
+                if (count != null) {
+                    counts.countList.add(count);
+                }
+            }
+            reader.endArray();
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+
+        return counts;
+    }
+}
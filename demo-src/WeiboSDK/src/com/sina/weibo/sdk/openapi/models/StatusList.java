@@ -17,12 +17,12 @@
 package com.sina.weibo.sdk.openapi.models;
 
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
-import android.text.TextUtils;
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.TextHelper;
 
 /**
  * 微博列表结构。
@@ -42,27 +42,63 @@ public class StatusList {
     public int total_number;
     public Object[] advertises;
     
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "hasvisible", "previous_cursor", "next_cursor", "total_number", "statuses");
+
     public static StatusList parse(String jsonString) {
-        if (TextUtils.isEmpty(jsonString)) {
+        return parse(jsonString, null);
+    }
+
+    /**
+     * 解析微博列表，微博较多时在给定的线程池中并行解析，见 {@link ParallelParser}。
+     * 
+     * @param executor 解析线程池，为 null 时依次解析
+     */
+    public static StatusList parse(String jsonString, Executor executor) {
+        return parse(jsonString, executor, null);
+    }
+
+    /**
+     * 解析微博列表，只读取投影中的字段，见 {@link StatusProjection}。
+     * 
+     * @param executor   解析线程池，为 null 时依次解析
+     * @param projection 字段投影，为 null 时读取全部字段
+     */
+    public static StatusList parse(String jsonString, Executor executor, StatusProjection projection) {
+        if (TextHelper.isEmpty(jsonString)) {
             return null;
         }
         
         StatusList statuses = new StatusList();
         try {
-            JSONObject jsonObject = new JSONObject(jsonString);
-            statuses.hasvisible      = jsonObject.optBoolean("hasvisible", false);
-            statuses.previous_cursor = jsonObject.optString("previous_cursor", "0");
-            statuses.next_cursor     = jsonObject.optString("next_cursor", "0");
-            statuses.total_number    = jsonObject.optInt("total_number", 0);
-            
-            JSONArray jsonArray      = jsonObject.optJSONArray("statuses");
-            if (jsonArray != null && jsonArray.length() > 0) {
-                int length = jsonArray.length();
-                statuses.statusList = new ArrayList<Status>(length);
-                for (int ix = 0; ix < length; ix++) {
-                    statuses.statusList.add(Status.parse(jsonArray.getJSONObject(ix)));
+            JsonReader reader = new JsonReader(jsonString);
+            reader.beginObject();
+            statuses.previous_cursor = "0";
+            statuses.next_cursor = "0";
+            while (reader.hasNext()) {
+                switch (reader.nextName(NAMES)) {
+                case 0:
+                    statuses.hasvisible = reader.nextBoolean(false);
+                    break;
+                case 1:
+                    statuses.previous_cursor = reader.nextString("0");
+                    break;
+                case 2:
+                    statuses.next_cursor = reader.nextString("0");
+                    break;
+                case 3:
+                    statuses.total_number = reader.nextInt(0);
+                    break;
+                case 4:
+                    statuses.statusList = ParallelParser.readArray(reader,
+                            projection != null ? projection.asElementReader() : ParallelParser.STATUS, executor);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
                 }
             }
+            reader.endObject();
         } catch (JSONException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.models;
+
+import org.json.JSONException;
+
+import com.sina.weibo.sdk.utils.JsonReader;
+
+/**
+ * 微博的字段投影：解析时只读取指定的字段，其余字段及子结构在 JSON 流中直接跳过，
+ * 不生成对象，解析耗时及内存随所取字段而不是返回内容增长。
+ * 
+ * 字段名与 {@link Status} 的成员同名，作者的字段写作 "user.字段名"，"user" 表示作者的全部字段：
+ * 
+ * <pre>
+ * StatusProjection projection = StatusProjection.of(
+ *         "id", "created_at", "user.id", "reposts_count", "comments_count");
+ * statusesAPI.friendsTimelineFuture(0, 0, 100, 1, false, StatusesAPI.FEATURE_ALL, projection);
+ * </pre>
+ * 
+ * 未取的字段保持默认值，与返回结果中缺少该字段时相同。选取 "retweeted_status" 时，
+ * 原微博按同一投影解析。不需要作者的详细信息时（只取 user.id 或 user.idstr），
+ * 时间线接口会带上 trim_user=1，此时服务器只返回作者的 ID。
+ * 
+ * @author SINA
+ * @since 2014-05-20
+ */
+public final class StatusProjection {
+
+    private static final String USER_PREFIX = "user.";
+
+    private final long mStatusMask;
+    private final long mUserMask;
+    private final boolean mUserDetails;
+
+    private final ParallelParser.ElementReader<Status> mElementReader = new ParallelParser.ElementReader<Status>() {
+        @Override
+        public Status read(JsonReader reader) throws JSONException {
+            return Status.read(reader, StatusProjection.this);
+        }
+    };
+
+    private StatusProjection(long statusMask, long userMask, boolean userDetails) {
+        mStatusMask = statusMask;
+        mUserMask = userMask;
+        mUserDetails = userDetails;
+    }
+
+    /**
+     * @param fields 所取的字段，如 "id"、"user.id"
+     * @throws IllegalArgumentException 字段名不存在时
+     */
+    public static StatusProjection of(String... fields) {
+        long statusMask = 0;
+        long userMask = 0;
+        boolean userDetails = false;
+        for (String field : fields) {
+            if (field.startsWith(USER_PREFIX)) {
+                String userField = field.substring(USER_PREFIX.length());
+                int index = User.NAMES.indexOf(userField);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Unknown field: " + field);
+                }
+                userMask |= 1L << index;
+                if (!"id".equals(userField) && !"idstr".equals(userField)) {
+                    userDetails = true;
+                }
+                statusMask |= 1L << Status.FIELD_USER;
+            } else {
+                int index = Status.NAMES.indexOf(field);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Unknown field: " + field);
+                }
+                statusMask |= 1L << index;
+                if (index == Status.FIELD_USER) {
+                    userMask = -1L;
+                    userDetails = true;
+                }
+            }
+        }
+        return new StatusProjection(statusMask, userMask, userDetails);
+    }
+
+    /**
+     * 是否需要作者的详细信息，不需要时时间线接口带上 trim_user=1。
+     */
+    public boolean needsUserDetails() {
+        return mUserDetails;
+    }
+
+    /**
+     * 时间线接口是否带上 trim_user=1。
+     * 
+     * @param projection 字段投影，为 null 时表示全部字段，不带 trim_user
+     */
+    public static boolean trimsUser(StatusProjection projection) {
+        return projection != null && !projection.mUserDetails;
+    }
+
+    /**
+     * 是否读取 {@link Status} 的第 index 个字段。
+     */
+    boolean includesStatusField(int index) {
+        return index >= 0 && (mStatusMask & (1L << index)) != 0;
+    }
+
+    /**
+     * 是否读取 {@link User} 的第 index 个字段。
+     */
+    boolean includesUserField(int index) {
+        return index >= 0 && (mUserMask & (1L << index)) != 0;
+    }
+
+    ParallelParser.ElementReader<Status> asElementReader() {
+        return mElementReader;
+    }
+}
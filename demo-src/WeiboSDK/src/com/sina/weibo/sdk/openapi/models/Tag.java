@@ -16,8 +16,13 @@
 
 package com.sina.weibo.sdk.openapi.models;
 
+import java.util.ArrayList;
+
+import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.sina.weibo.sdk.utils.JsonReader;
+
 /**
  * 我喜欢的微博标签（Tag）结构体。
  * 
@@ -38,8 +43,65 @@ public class Tag {
         
         Tag tag = new Tag();
         tag.id  = jsonObject.optInt("id", 0);
-        tag.tag = jsonObject.optString("tag", "");
+        tag.tag = JsonReader.optString(jsonObject, "tag", "");
         
         return tag;
     }
+
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "id", "tag");
+
+    /**
+     * 从 JSON 流中读取 Tag，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static Tag read(JsonReader reader) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        Tag tag = new Tag();
+        tag.tag = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+            case 0:
+                tag.id = reader.nextInt(0);
+                break;
+            case 1:
+                tag.tag = reader.nextString("");
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        return tag;
+    }
+
+    /**
+     * 从 JSON 流中读取 Tag 列表。
+     * 
+     * @param keepEmpty 数组为空时是否返回空列表，否则返回 null
+     */
+    static ArrayList<Tag> readList(JsonReader reader, boolean keepEmpty) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+
+        ArrayList<Tag> tags = keepEmpty ? new ArrayList<Tag>() : null;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (tags == null) {
+                tags = new ArrayList<Tag>();
+            }
+            tags.add(Tag.read(reader));
+        }
+        reader.endArray();
+        return tags;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.models;
+
+/**
+ * 微博及评论正文中的实体表：@用户、#话题#、链接及 [表情]。
+ * 
+ * 实体按出现顺序存放在一个 int 数组中，每个实体占三项：起始位置、结束位置（不含）及类型。
+ * 调用 {@link #setExtractOnParse(boolean)} 开启后，{@link Status#parse(org.json.JSONObject)}
+ * 及 {@link Comment#parse(org.json.JSONObject)} 在解析线程上一次扫描正文生成实体表，
+ * 列表滚动时直接复用，无需在主线程上用正则表达式重复扫描：
+ * 
+ * <pre>
+ * TextEntities entities = status.text_entities;
+ * for (int ix = 0; entities != null &amp;&amp; ix &lt; entities.size(); ix++) {
+ *     if (entities.getType(ix) == TextEntities.TYPE_MENTION) {
+ *         // text[getStart(ix), getEnd(ix)) 为 "@screen_name"
+ *     }
+ * }
+ * </pre>
+ * 
+ * [表情] 仅按格式识别，可用 {@link com.sina.weibo.sdk.openapi.cache.EmotionCache} 确认是否为官方表情。
+ * 
+ * @author SINA
+ * @since 2014-05-10
+ */
+public final class TextEntities {
+
+    /** @用户，包含 @ */
+    public static final int TYPE_MENTION = 1;
+    /** #话题#，包含两个 # */
+    public static final int TYPE_TOPIC   = 2;
+    /** http:// 或 https:// 链接，如短链 http://t.cn/xxxx */
+    public static final int TYPE_URL     = 3;
+    /** [表情]，包含方括号 */
+    public static final int TYPE_EMOTION = 4;
+
+    /** 昵称最长 30 个字符 */
+    private static final int MAX_MENTION_LENGTH = 30;
+    private static final int MAX_TOPIC_LENGTH   = 64;
+    private static final int MAX_EMOTION_LENGTH = 10;
+
+    private static volatile boolean sExtractOnParse = false;
+
+    /** 每个实体依次为 start、end、type */
+    private final int[] mEntities;
+
+    private TextEntities(int[] entities) {
+        mEntities = entities;
+    }
+
+    /**
+     * 设置解析 {@link Status} 及 {@link Comment} 时是否生成实体表，默认不生成。
+     */
+    public static void setExtractOnParse(boolean extractOnParse) {
+        sExtractOnParse = extractOnParse;
+    }
+
+    public static boolean isExtractOnParse() {
+        return sExtractOnParse;
+    }
+
+    /**
+     * 若已开启，生成正文的实体表。
+     */
+    static TextEntities parseIfEnabled(String text) {
+        return sExtractOnParse ? extract(text) : null;
+    }
+
+    /**
+     * 扫描一次正文，生成实体表。
+     * 
+     * @return 实体表，正文中没有实体时返回 null
+     */
+    public static TextEntities extract(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+
+        int[] entities = null;
+        int count = 0;
+        int length = text.length();
+        int ix = 0;
+        while (ix < length) {
+            char c = text.charAt(ix);
+            int end = -1;
+            int type = 0;
+            if (c == '@') {
+                end = scanMention(text, ix + 1, length);
+                type = TYPE_MENTION;
+            } else if (c == '#') {
+                end = scanTopic(text, ix + 1, length);
+                type = TYPE_TOPIC;
+            } else if (c == '[') {
+                end = scanEmotion(text, ix + 1, length);
+                type = TYPE_EMOTION;
+            } else if (c == 'h') {
+                end = scanUrl(text, ix, length);
+                type = TYPE_URL;
+            }
+
+            if (end < 0) {
+                ix++;
+                continue;
+            }
+            if (entities == null) {
+                entities = new int[3 * 4];
+            } else if (count * 3 == entities.length) {
+                int[] grown = new int[entities.length * 2];
+                System.arraycopy(entities, 0, grown, 0, entities.length);
+                entities = grown;
+            }
+            entities[count * 3]     = ix;
+            entities[count * 3 + 1] = end;
+            entities[count * 3 + 2] = type;
+            count++;
+            ix = end;
+        }
+
+        if (count == 0) {
+            return null;
+        }
+        if (count * 3 < entities.length) {
+            int[] trimmed = new int[count * 3];
+            System.arraycopy(entities, 0, trimmed, 0, trimmed.length);
+            entities = trimmed;
+        }
+        return new TextEntities(entities);
+    }
+
+    /**
+     * @return 实体个数
+     */
+    public int size() {
+        return mEntities.length / 3;
+    }
+
+    public int getStart(int index) {
+        return mEntities[index * 3];
+    }
+
+    public int getEnd(int index) {
+        return mEntities[index * 3 + 1];
+    }
+
+    public int getType(int index) {
+        return mEntities[index * 3 + 2];
+    }
+
+    /**
+     * 返回实体数组，每个实体依次为 start、end、type，调用者不应修改。
+     */
+    public int[] toArray() {
+        return mEntities;
+    }
+
+    // 昵称：中文、英文字母、数字、"_" 及 "-"
+    private static int scanMention(CharSequence text, int start, int length) {
+        int ix = start;
+        int limit = Math.min(length, start + MAX_MENTION_LENGTH);
+        while (ix < limit && isNameChar(text.charAt(ix))) {
+            ix++;
+        }
+        return ix > start ? ix : -1;
+    }
+
+    // 话题：两个 # 之间不含换行的非空文本
+    private static int scanTopic(CharSequence text, int start, int length) {
+        int limit = Math.min(length, start + MAX_TOPIC_LENGTH + 1);
+        for (int ix = start; ix < limit; ix++) {
+            char c = text.charAt(ix);
+            if (c == '#') {
+                return ix > start ? ix + 1 : -1;
+            }
+            if (c == '\n' || c == '\r') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    // 表情：方括号之间不含空白及方括号的非空文本
+    private static int scanEmotion(CharSequence text, int start, int length) {
+        int limit = Math.min(length, start + MAX_EMOTION_LENGTH + 1);
+        for (int ix = start; ix < limit; ix++) {
+            char c = text.charAt(ix);
+            if (c == ']') {
+                return ix > start ? ix + 1 : -1;
+            }
+            if (c == '[' || Character.isWhitespace(c)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int scanUrl(CharSequence text, int start, int length) {
+        int ix;
+        if (startsWith(text, start, length, "http://")) {
+            ix = start + 7;
+        } else if (startsWith(text, start, length, "https://")) {
+            ix = start + 8;
+        } else {
+            return -1;
+        }
+
+        int hostStart = ix;
+        while (ix < length && isUrlChar(text.charAt(ix))) {
+            ix++;
+        }
+        return ix > hostStart ? ix : -1;
+    }
+
+    private static boolean startsWith(CharSequence text, int start, int length, String prefix) {
+        if (length - start < prefix.length()) {
+            return false;
+        }
+        for (int ix = 0; ix < prefix.length(); ix++) {
+            if (text.charAt(start + ix) != prefix.charAt(ix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '_' || c == '-' || (c >= '\u4e00' && c <= '\u9fa5');
+    }
+
+    // RFC 3986 中链接可用的 ASCII 字符，不含 "#"、"[" 及 "]" 以免吞掉后面的话题和表情
+    private static boolean isUrlChar(char c) {
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+            return true;
+        }
+        switch (c) {
+        case '-': case '.': case '_': case '~': case ':': case '/': case '?': case '@':
+        case '!': case '$': case '&': case '\'': case '(': case ')': case '*': case '+':
+        case ',': case ';': case '=': case '%':
+            return true;
+        default:
+            return false;
+        }
+    }
+}
@@ -19,6 +19,10 @@ package com.sina.weibo.sdk.openapi.models;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.sina.weibo.sdk.utils.JsonReader;
+import com.sina.weibo.sdk.utils.StringPool;
+import com.sina.weibo.sdk.utils.TextHelper;
+
 /**
  * 用户信息结构体。
  * 
@@ -103,9 +107,12 @@ public class User {
     public String block_word;
     
     public static User parse(String jsonString) {
+        if (TextHelper.isEmpty(jsonString)) {
+            return null;
+        }
+        
         try {
-            JSONObject jsonObject = new JSONObject(jsonString);
-            return User.parse(jsonObject);
+            return User.read(new JsonReader(jsonString));
         } catch (JSONException e) {
             e.printStackTrace();
         }
@@ -119,47 +126,246 @@ public class User {
         }
         
         User user = new User();
-        user.id                 = jsonObject.optString("id", "");
-        user.idstr              = jsonObject.optString("idstr", "");
-        user.screen_name        = jsonObject.optString("screen_name", "");
-        user.name               = jsonObject.optString("name", "");
+        user.id                 = JsonReader.optString(jsonObject, "id", "");
+        user.idstr              = JsonReader.optString(jsonObject, "idstr", "");
+        user.screen_name        = JsonReader.optString(jsonObject, "screen_name", "");
+        user.name               = JsonReader.optString(jsonObject, "name", "");
         user.province           = jsonObject.optInt("province", -1);
         user.city               = jsonObject.optInt("city", -1);
-        user.location           = jsonObject.optString("location", "");
-        user.description        = jsonObject.optString("description", "");
-        user.url                = jsonObject.optString("url", "");
-        user.profile_image_url  = jsonObject.optString("profile_image_url", "");
-        user.profile_url        = jsonObject.optString("profile_url", "");
-        user.domain             = jsonObject.optString("domain", "");
-        user.weihao             = jsonObject.optString("weihao", "");
-        user.gender             = jsonObject.optString("gender", "");
+        user.location           = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "location", ""));
+        user.description        = JsonReader.optString(jsonObject, "description", "");
+        user.url                = JsonReader.optString(jsonObject, "url", "");
+        user.profile_image_url  = JsonReader.optString(jsonObject, "profile_image_url", "");
+        user.profile_url        = JsonReader.optString(jsonObject, "profile_url", "");
+        user.domain             = JsonReader.optString(jsonObject, "domain", "");
+        user.weihao             = JsonReader.optString(jsonObject, "weihao", "");
+        user.gender             = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "gender", ""));
         user.followers_count    = jsonObject.optInt("followers_count", 0);
         user.friends_count      = jsonObject.optInt("friends_count", 0);
         user.statuses_count     = jsonObject.optInt("statuses_count", 0);
         user.favourites_count   = jsonObject.optInt("favourites_count", 0);
-        user.created_at         = jsonObject.optString("created_at", "");
+        user.created_at         = JsonReader.optString(jsonObject, "created_at", "");
         user.following          = jsonObject.optBoolean("following", false);
         user.allow_all_act_msg  = jsonObject.optBoolean("allow_all_act_msg", false);
         user.geo_enabled        = jsonObject.optBoolean("geo_enabled", false);
         user.verified           = jsonObject.optBoolean("verified", false);
         user.verified_type      = jsonObject.optInt("verified_type", -1);
-        user.remark             = jsonObject.optString("remark", "");
-        //user.status             = jsonObject.optString("status", ""); // XXX: NO Need ?
+        user.remark             = JsonReader.optString(jsonObject, "remark", "");
+        //user.status             = JsonReader.optString(jsonObject, "status", ""); // XXX: NO Need ?
         user.allow_all_comment  = jsonObject.optBoolean("allow_all_comment", true);
-        user.avatar_large       = jsonObject.optString("avatar_large", "");
-        user.avatar_hd          = jsonObject.optString("avatar_hd", "");
-        user.verified_reason    = jsonObject.optString("verified_reason", "");
+        user.avatar_large       = JsonReader.optString(jsonObject, "avatar_large", "");
+        user.avatar_hd          = JsonReader.optString(jsonObject, "avatar_hd", "");
+        user.verified_reason    = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "verified_reason", ""));
         user.follow_me          = jsonObject.optBoolean("follow_me", false);
         user.online_status      = jsonObject.optInt("online_status", 0);
         user.bi_followers_count = jsonObject.optInt("bi_followers_count", 0);
-        user.lang               = jsonObject.optString("lang", "");
+        user.lang               = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "lang", ""));
         
         // 注意：以下字段暂时不清楚具体含义，OpenAPI 说明文档暂时没有同步更新对应字段含义
-        user.star               = jsonObject.optString("star", "");
-        user.mbtype             = jsonObject.optString("mbtype", "");
-        user.mbrank             = jsonObject.optString("mbrank", "");
-        user.block_word         = jsonObject.optString("block_word", "");
+        user.star               = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "star", ""));
+        user.mbtype             = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "mbtype", ""));
+        user.mbrank             = StringPool.SHARED.intern(JsonReader.optString(jsonObject, "mbrank", ""));
+        user.block_word         = JsonReader.optString(jsonObject, "block_word", "");
         
+        return EntityStore.putIfEnabled(user);
+    }
+
+    static final JsonReader.Names NAMES = new JsonReader.Names(
+            "id", "idstr", "screen_name", "name",
+            "province", "city", "location", "description",
+            "url", "profile_image_url", "profile_url", "domain",
+            "weihao", "gender", "followers_count", "friends_count",
+            "statuses_count", "favourites_count", "created_at", "following",
+            "allow_all_act_msg", "geo_enabled", "verified", "verified_type",
+            "remark", "allow_all_comment", "avatar_large", "avatar_hd",
+            "verified_reason", "follow_me", "online_status", "bi_followers_count",
+            "lang", "star", "mbtype", "mbrank",
+            "block_word");
+
+    /**
+     * 从 JSON 流中读取用户，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static User read(JsonReader reader) throws JSONException {
+        return read(reader, null);
+    }
+
+    /**
+     * 从 JSON 流中读取用户，只读取投影中 "user." 开头的字段。
+     */
+    static User read(JsonReader reader, StatusProjection projection) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        User user = newUser();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int field = reader.nextName(NAMES);
+            if (projection != null && !projection.includesUserField(field)) {
+                field = -1;
+            }
+            switch (field) {
+            case 0:
+                user.id = reader.nextString("");
+                break;
+            case 1:
+                user.idstr = reader.nextString("");
+                break;
+            case 2:
+                user.screen_name = reader.nextString("");
+                break;
+            case 3:
+                user.name = reader.nextString("");
+                break;
+            case 4:
+                user.province = reader.nextInt(-1);
+                break;
+            case 5:
+                user.city = reader.nextInt(-1);
+                break;
+            case 6:
+                user.location = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 7:
+                user.description = reader.nextString("");
+                break;
+            case 8:
+                user.url = reader.nextString("");
+                break;
+            case 9:
+                user.profile_image_url = reader.nextString("");
+                break;
+            case 10:
+                user.profile_url = reader.nextString("");
+                break;
+            case 11:
+                user.domain = reader.nextString("");
+                break;
+            case 12:
+                user.weihao = reader.nextString("");
+                break;
+            case 13:
+                user.gender = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 14:
+                user.followers_count = reader.nextInt(0);
+                break;
+            case 15:
+                user.friends_count = reader.nextInt(0);
+                break;
+            case 16:
+                user.statuses_count = reader.nextInt(0);
+                break;
+            case 17:
+                user.favourites_count = reader.nextInt(0);
+                break;
+            case 18:
+                user.created_at = reader.nextString("");
+                break;
+            case 19:
+                user.following = reader.nextBoolean(false);
+                break;
+            case 20:
+                user.allow_all_act_msg = reader.nextBoolean(false);
+                break;
+            case 21:
+                user.geo_enabled = reader.nextBoolean(false);
+                break;
+            case 22:
+                user.verified = reader.nextBoolean(false);
+                break;
+            case 23:
+                user.verified_type = reader.nextInt(-1);
+                break;
+            case 24:
+                user.remark = reader.nextString("");
+                break;
+            case 25:
+                user.allow_all_comment = reader.nextBoolean(true);
+                break;
+            case 26:
+                user.avatar_large = reader.nextString("");
+                break;
+            case 27:
+                user.avatar_hd = reader.nextString("");
+                break;
+            case 28:
+                user.verified_reason = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 29:
+                user.follow_me = reader.nextBoolean(false);
+                break;
+            case 30:
+                user.online_status = reader.nextInt(0);
+                break;
+            case 31:
+                user.bi_followers_count = reader.nextInt(0);
+                break;
+            case 32:
+                user.lang = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 33:
+                user.star = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 34:
+                user.mbtype = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 35:
+                user.mbrank = StringPool.SHARED.intern(reader.nextString(""));
+                break;
+            case 36:
+                user.block_word = reader.nextString("");
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        return projection == null ? EntityStore.putIfEnabled(user) : user;
+    }
+
+    /**
+     * 只有 ID 的用户，用于 trim_user=1 的返回结果。
+     */
+    static User withId(String id) {
+        User user = newUser();
+        user.id = id;
+        user.idstr = id;
+        return user;
+    }
+
+    // 与 parse(JSONObject) 中缺少对应字段时的取值相同
+    private static User newUser() {
+        User user = new User();
+        user.id                = "";
+        user.idstr             = "";
+        user.screen_name       = "";
+        user.name              = "";
+        user.province          = -1;
+        user.city              = -1;
+        user.location          = "";
+        user.description       = "";
+        user.url               = "";
+        user.profile_image_url = "";
+        user.profile_url       = "";
+        user.domain            = "";
+        user.weihao            = "";
+        user.gender            = "";
+        user.created_at        = "";
+        user.verified_type     = -1;
+        user.remark            = "";
+        user.allow_all_comment = true;
+        user.avatar_large      = "";
+        user.avatar_hd         = "";
+        user.verified_reason   = "";
+        user.lang              = "";
+        user.star              = "";
+        user.mbtype            = "";
+        user.mbrank            = "";
+        user.block_word        = "";
         return user;
     }
 }
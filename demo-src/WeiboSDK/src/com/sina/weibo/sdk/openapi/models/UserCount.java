@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.models;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.sina.weibo.sdk.utils.JsonReader;
+
+/**
+ * 用户的粉丝数、关注数及微博数，users/counts.json 返回结果中的一项。
+ * 
+ * @author SINA
+ * @since 2014-05-24
+ */
+public class UserCount {
+    /** 用户UID */
+    public long id;
+    /** 粉丝数 */
+    public int followers_count;
+    /** 关注数 */
+    public int friends_count;
+    /** 微博数 */
+    public int statuses_count;
+
+    public static UserCount parse(JSONObject jsonObject) {
+        if (null == jsonObject) {
+            return null;
+        }
+
+        UserCount count = new UserCount();
+        count.id              = jsonObject.optLong("id");
+        count.followers_count = jsonObject.optInt("followers_count");
+        count.friends_count   = jsonObject.optInt("friends_count");
+        count.statuses_count  = jsonObject.optInt("statuses_count");
+        return count;
+    }
+
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "id", "followers_count", "friends_count", "statuses_count");
+
+    /**
+     * 从 JSON 流中读取计数，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static UserCount read(JsonReader reader) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        UserCount count = new UserCount();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+            case 0:
+                count.id = reader.nextLong(0);
+                break;
+            case 1:
+                count.followers_count = reader.nextInt(0);
+                break;
+            case 2:
+                count.friends_count = reader.nextInt(0);
+                break;
+            case 3:
+                count.statuses_count = reader.nextInt(0);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        return count;
+    }
+}
@@ -16,8 +16,11 @@
 
 package com.sina.weibo.sdk.openapi.models;
 
+import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.sina.weibo.sdk.utils.JsonReader;
+
 /**
  * 微博可见性结构体。
  * 
@@ -47,4 +50,37 @@ public class Visible {
         
         return visible;
     }
+
+    private static final JsonReader.Names NAMES = new JsonReader.Names(
+            "type", "list_id");
+
+    /**
+     * 从 JSON 流中读取可见性，结果与 {@link #parse(JSONObject)} 相同。
+     * 下一个值不是对象时跳过该值并返回 null。
+     */
+    public static Visible read(JsonReader reader) throws JSONException {
+        if (reader.peek() != JsonReader.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        Visible visible = new Visible();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+            case 0:
+                visible.type = reader.nextInt(0);
+                break;
+            case 1:
+                visible.list_id = reader.nextInt(0);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        return visible;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,462 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.net.HttpRequest;
+import com.sina.weibo.sdk.net.RequestAwareListener;
+import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.openapi.StatusesAPI;
+import com.sina.weibo.sdk.openapi.models.ParallelParser;
+import com.sina.weibo.sdk.openapi.models.Status;
+import com.sina.weibo.sdk.utils.JsonReader;
+
+/**
+ * Publishes a timeline page by page, as its subscribers ask for statuses.
+ *
+ * Pages are walked from the newest status down with max_id, and since_id as
+ * the lower bound, so statuses posted while reading neither shift pages nor
+ * get delivered twice. A page is only requested once the previous one is
+ * delivered and the subscriber asked for more, so at most one page is
+ * buffered per subscriber. Pages always have the page size, whatever the
+ * demand: a subscriber requesting one status at a time is served from the
+ * buffer, not with one request per status. Each page is parsed with the
+ * incremental {@link JsonReader} on the worker thread.
+ *
+ * <pre>
+ * TimelinePublisher.mentions(statusesAPI, AUTHOR_FILTER_ALL, SRC_FILTER_ALL, TYPE_FILTER_ALL, false)
+ *         .setSinceId(lastArchivedId)
+ *         .subscribe(archiver);
+ * </pre>
+ *
+ * By default the stream completes once the oldest status is reached. With
+ * {@link #follow(long)} it keeps polling instead: every poll walks down from
+ * the newest status to the newest one already delivered, so the statuses of
+ * a poll are delivered newest first, and nothing is missed when more than a
+ * page was posted between two polls.
+ *
+ * Signals are delivered on the thread calling {@link WeiboFlow.Subscription#request(long)}
+ * or on the worker thread which executed the page request.
+ *
+ * @author SINA
+ * @since 2014-04-28
+ */
+public class TimelinePublisher implements WeiboFlow.Publisher<Status> {
+
+    /** Default page size */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    /** Maximum count accepted by the timeline APIs */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final JsonReader.Names PAGE_NAMES = new JsonReader.Names("statuses");
+
+    /**
+     * Requests one page of a timeline.
+     */
+    public interface PageSource {
+        /**
+         * @param since_id only return statuses newer than this one, 0 for no bound
+         * @param max_id   only return statuses older than or equal to this one, 0 for no bound
+         * @param count    page size
+         * @param listener receives a response holding a "statuses" array
+         */
+        public void fetch(long since_id, long max_id, int count, RequestListener listener);
+    }
+
+    private final PageSource mSource;
+    private long mSinceId;
+    private long mMaxId;
+    private int mPageSize = DEFAULT_PAGE_SIZE;
+    private long mPollIntervalMillis = -1;
+
+    public TimelinePublisher(PageSource source) {
+        mSource = source;
+    }
+
+    /**
+     * Publishes {@link StatusesAPI#friendsTimeline}.
+     */
+    public static TimelinePublisher friendsTimeline(final StatusesAPI api, final boolean base_app,
+            final int featureType, final boolean trim_user) {
+        return new TimelinePublisher(new PageSource() {
+            @Override
+            public void fetch(long since_id, long max_id, int count, RequestListener listener) {
+                api.friendsTimeline(since_id, max_id, count, 1, base_app, featureType, trim_user, listener);
+            }
+        });
+    }
+
+    /**
+     * Publishes {@link StatusesAPI#mentions}.
+     */
+    public static TimelinePublisher mentions(final StatusesAPI api, final int authorType,
+            final int sourceType, final int filterType, final boolean trim_user) {
+        return new TimelinePublisher(new PageSource() {
+            @Override
+            public void fetch(long since_id, long max_id, int count, RequestListener listener) {
+                api.mentions(since_id, max_id, count, 1, authorType, sourceType, filterType, trim_user, listener);
+            }
+        });
+    }
+
+    /**
+     * Only publishes statuses newer than since_id, e.g. the newest one already archived.
+     */
+    public TimelinePublisher setSinceId(long since_id) {
+        mSinceId = since_id;
+        return this;
+    }
+
+    /**
+     * Starts from max_id instead of the newest status, e.g. to resume a walk.
+     */
+    public TimelinePublisher setMaxId(long max_id) {
+        mMaxId = max_id;
+        return this;
+    }
+
+    /**
+     * Sets the size of the pages requested, at most {@link #MAX_PAGE_SIZE}.
+     */
+    public TimelinePublisher setPageSize(int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize must be in [1, " + MAX_PAGE_SIZE + "]");
+        }
+        mPageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * Polls for new statuses every pollIntervalMillis instead of completing.
+     */
+    public TimelinePublisher follow(long pollIntervalMillis) {
+        if (pollIntervalMillis < 0) {
+            throw new IllegalArgumentException("pollIntervalMillis < 0");
+        }
+        mPollIntervalMillis = pollIntervalMillis;
+        return this;
+    }
+
+    @Override
+    public void subscribe(WeiboFlow.Subscriber<? super Status> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        TimelineSubscription subscription = new TimelineSubscription(subscriber, mSinceId, mMaxId,
+                mPageSize, mPollIntervalMillis);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private static long parseId(Status status) {
+        try {
+            return Long.parseLong(status.id);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static final class PollerHolder {
+        static final ScheduledThreadPoolExecutor POLLER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "weibo-timeline-poller");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private final class TimelineSubscription implements WeiboFlow.Subscription {
+
+        private final WeiboFlow.Subscriber<? super Status> mSubscriber;
+        private final int mPageSize;
+        private final long mInterval;
+
+        /** State below is guarded by this */
+        private long mDemand;
+        private boolean mEmitting;
+        private boolean mMissed;
+        private boolean mTerminated;
+        private Throwable mError;
+
+        /** Current page and position of the next status to deliver */
+        private List<Status> mPage;
+        private int mPageIndex;
+
+        /** Lower bound of the current walk */
+        private long mFloor;
+        /** max_id of the next page, 0 for the newest status */
+        private long mCursor;
+        /** Newest status seen by the current walk */
+        private long mNewest;
+        private boolean mWalkDone;
+
+        private boolean mFetching;
+        private boolean mPolling;
+        private HttpRequest mRequest;
+        private ScheduledFuture<?> mPoll;
+
+        TimelineSubscription(WeiboFlow.Subscriber<? super Status> subscriber, long since_id, long max_id,
+                int pageSize, long interval) {
+            mSubscriber = subscriber;
+            mFloor      = since_id;
+            mCursor     = max_id;
+            mNewest     = since_id;
+            mPageSize   = pageSize;
+            mInterval   = interval;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (mTerminated) {
+                    return;
+                }
+                if (n <= 0) {
+                    mError = new IllegalArgumentException("request(" + n + "), n must be positive");
+                } else {
+                    mDemand = mDemand + n < 0 ? Long.MAX_VALUE : mDemand + n;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            HttpRequest request;
+            ScheduledFuture<?> poll;
+            synchronized (this) {
+                if (mTerminated) {
+                    return;
+                }
+                mTerminated = true;
+                mPage = null;
+                request = mRequest;
+                poll = mPoll;
+            }
+            if (request != null) {
+                request.cancel();
+            }
+            if (poll != null) {
+                poll.cancel(false);
+            }
+        }
+
+        /**
+         * Delivers what can be delivered and requests the next page if needed.
+         * Only one thread drains at a time; a thread arriving while another
+         * drains makes it loop once more.
+         */
+        private void drain() {
+            synchronized (this) {
+                if (mEmitting) {
+                    mMissed = true;
+                    return;
+                }
+                mEmitting = true;
+            }
+
+            for (;;) {
+                Status item = null;
+                Throwable error = null;
+                boolean complete = false;
+                boolean fetch = false;
+                boolean poll = false;
+                long since_id = 0;
+                long max_id = 0;
+                int count = 0;
+
+                synchronized (this) {
+                    if (mTerminated) {
+                        mEmitting = false;
+                        return;
+                    }
+                    if (mError != null) {
+                        error = mError;
+                        mTerminated = true;
+                    } else if (mPage != null && mPageIndex < mPage.size()) {
+                        if (mDemand > 0) {
+                            item = mPage.get(mPageIndex++);
+                            if (mDemand != Long.MAX_VALUE) {
+                                mDemand--;
+                            }
+                        }
+                    } else {
+                        mPage = null;
+                        if (mDemand > 0 && !mFetching && !mPolling) {
+                            if (!mWalkDone) {
+                                fetch    = true;
+                                mFetching = true;
+                                since_id = mFloor;
+                                max_id   = mCursor;
+                                count    = mPageSize;
+                            } else if (mInterval >= 0) {
+                                poll = true;
+                                mPolling = true;
+                            } else {
+                                complete = true;
+                                mTerminated = true;
+                            }
+                        }
+                    }
+
+                    if (item == null && error == null && !complete && !fetch && !poll) {
+                        if (!mMissed) {
+                            mEmitting = false;
+                            return;
+                        }
+                        mMissed = false;
+                        continue;
+                    }
+                }
+
+                if (error != null) {
+                    mSubscriber.onError(error);
+                    return;
+                }
+                if (complete) {
+                    mSubscriber.onComplete();
+                    return;
+                }
+                if (item != null) {
+                    mSubscriber.onNext(item);
+                }
+                if (poll) {
+                    schedulePoll();
+                }
+                if (fetch) {
+                    mSource.fetch(since_id, max_id, count, new PageListener());
+                }
+            }
+        }
+
+        private void schedulePoll() {
+            ScheduledFuture<?> poll = PollerHolder.POLLER.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (TimelineSubscription.this) {
+                        mPolling  = false;
+                        mPoll     = null;
+                        mFloor    = mNewest;
+                        mCursor   = 0;
+                        mWalkDone = false;
+                    }
+                    drain();
+                }
+            }, mInterval, TimeUnit.MILLISECONDS);
+
+            boolean canceled;
+            synchronized (this) {
+                if (mPolling) {
+                    mPoll = poll;
+                }
+                canceled = mTerminated;
+            }
+            if (canceled) {
+                poll.cancel(false);
+            }
+        }
+
+        /**
+         * @param statuses statuses of the page, without null elements
+         */
+        private void onPage(List<Status> statuses) {
+            synchronized (this) {
+                mFetching = false;
+                mRequest  = null;
+                if (statuses.isEmpty()) {
+                    mWalkDone = true;
+                } else {
+                    long first = parseId(statuses.get(0));
+                    long last  = parseId(statuses.get(statuses.size() - 1));
+                    mNewest    = Math.max(mNewest, first);
+                    mCursor    = last - 1;
+                    mPage      = statuses;
+                    mPageIndex = 0;
+                }
+            }
+            drain();
+        }
+
+        private void onFailure(WeiboException e) {
+            synchronized (this) {
+                mFetching = false;
+                mRequest  = null;
+                if (mError == null) {
+                    mError = e;
+                }
+            }
+            drain();
+        }
+
+        private final class PageListener implements RequestAwareListener {
+            @Override
+            public void onRequestCreated(HttpRequest request) {
+                boolean canceled;
+                synchronized (TimelineSubscription.this) {
+                    mRequest = request;
+                    canceled = mTerminated;
+                }
+                if (canceled) {
+                    request.cancel();
+                }
+            }
+
+            @Override
+            public void onComplete(String response) {
+                List<Status> statuses = new ArrayList<Status>();
+                try {
+                    JsonReader reader = new JsonReader(response);
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (reader.nextName(PAGE_NAMES) == 0) {
+                            List<Status> page = ParallelParser.readArray(reader, ParallelParser.STATUS, null);
+                            if (page != null) {
+                                for (Status status : page) {
+                                    if (status != null) {
+                                        statuses.add(status);
+                                    }
+                                }
+                            }
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                } catch (JSONException e) {
+                    onFailure(new WeiboException(e));
+                    return;
+                }
+                onPage(statuses);
+            }
+
+            @Override
+            public void onWeiboException(WeiboException e) {
+                onFailure(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.stream;
+
+/**
+ * Reactive streams interfaces, with the same contract as
+ * java.util.concurrent.Flow, which is not available before Java 9 (Android API 30).
+ *
+ * A {@link Subscriber} receives items only after asking for them with
+ * {@link Subscription#request(long)}, so a slow consumer bounds what the
+ * {@link Publisher} fetches and buffers.
+ *
+ * @author SINA
+ * @since 2014-04-28
+ */
+public final class WeiboFlow {
+
+    private WeiboFlow() {
+    }
+
+    /**
+     * Produces items for any number of subscribers.
+     */
+    public interface Publisher<T> {
+        public void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * Receives items of a {@link Publisher}. Its methods are never called
+     * concurrently.
+     */
+    public interface Subscriber<T> {
+        public void onSubscribe(Subscription subscription);
+
+        public void onNext(T item);
+
+        /**
+         * Terminal: called once the publisher failed.
+         */
+        public void onError(Throwable throwable);
+
+        /**
+         * Terminal: called once all the items were delivered.
+         */
+        public void onComplete();
+    }
+
+    /**
+     * Link between a {@link Publisher} and one of its subscribers.
+     */
+    public interface Subscription {
+        /**
+         * Asks for up to n more items. {@link Long#MAX_VALUE} means no limit.
+         */
+        public void request(long n);
+
+        /**
+         * Stops the delivery of items, aborting a page request in flight.
+         */
+        public void cancel();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.platform;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.sina.weibo.sdk.utils.LogUtil;
+
+/**
+ * Android {@link Platform}: callbacks on the main thread, {@link Bitmap} uploads
+ * and logs through {@link LogUtil}.
+ *
+ * @author SINA
+ * @since 2014-04-22
+ */
+public class AndroidPlatform extends Platform {
+
+    private final Executor mMainThreadExecutor = new Executor() {
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable command) {
+            mHandler.post(command);
+        }
+    };
+
+    @Override
+    public Executor getCallbackExecutor() {
+        return mMainThreadExecutor;
+    }
+
+    @Override
+    public void log(int priority, String tag, String message) {
+        switch (priority) {
+        case DEBUG:
+            LogUtil.d(tag, message);
+            break;
+        case INFO:
+            LogUtil.i(tag, message);
+            break;
+        case WARN:
+            LogUtil.w(tag, message);
+            break;
+        default:
+            LogUtil.e(tag, message);
+            break;
+        }
+    }
+
+    @Override
+    public boolean isBinary(Object value) {
+        return value instanceof Bitmap || super.isBinary(value);
+    }
+
+    @Override
+    public void writeBinary(Object value, OutputStream out) throws IOException {
+        if (value instanceof Bitmap) {
+            // Same format as HttpManager
+            ((Bitmap) value).compress(Bitmap.CompressFormat.PNG, 100, out);
+        } else {
+            super.writeBinary(value, out);
+        }
+    }
+}
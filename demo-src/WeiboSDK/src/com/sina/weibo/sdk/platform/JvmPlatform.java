@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.platform;
+
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Plain JVM {@link Platform}, for server side use of the OpenAPI clients.
+ *
+ * There is no main thread, so callbacks run on the worker thread which executed
+ * the request; logs go to java.util.logging. Images are uploaded as byte[] or
+ * ByteArrayOutputStream.
+ *
+ * @author SINA
+ * @since 2014-04-22
+ */
+public class JvmPlatform extends Platform {
+
+    private static final Logger sLogger = Logger.getLogger("com.sina.weibo.sdk");
+
+    private final Executor mCallbackExecutor;
+
+    public JvmPlatform() {
+        this(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+    }
+
+    /**
+     * @param callbackExecutor executor running the callbacks of asynchronous requests
+     */
+    public JvmPlatform(Executor callbackExecutor) {
+        mCallbackExecutor = callbackExecutor;
+    }
+
+    @Override
+    public Executor getCallbackExecutor() {
+        return mCallbackExecutor;
+    }
+
+    @Override
+    public void log(int priority, String tag, String message) {
+        Level level;
+        switch (priority) {
+        case DEBUG:
+            level = Level.FINE;
+            break;
+        case INFO:
+            level = Level.INFO;
+            break;
+        case WARN:
+            level = Level.WARNING;
+            break;
+        default:
+            level = Level.SEVERE;
+            break;
+        }
+        if (sLogger.isLoggable(level)) {
+            sLogger.log(level, tag + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.platform;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Executor;
+
+/**
+ * The few services the OpenAPI core needs from the platform it runs on.
+ *
+ * The net, openapi and models packages only go through this class, so the same
+ * clients run on Android and on a plain JVM. The platform is detected on first
+ * use: {@link AndroidPlatform} when the Android framework is present,
+ * {@link JvmPlatform} otherwise. It can be replaced with {@link #set(Platform)}.
+ *
+ * @author SINA
+ * @since 2014-04-22
+ */
+public abstract class Platform {
+
+    /** Log priorities, same values as android.util.Log */
+    public static final int DEBUG = 3;
+    public static final int INFO  = 4;
+    public static final int WARN  = 5;
+    public static final int ERROR = 6;
+
+    private static final String ANDROID_PLATFORM = "com.sina.weibo.sdk.platform.AndroidPlatform";
+    private static final String ANDROID_PROBE    = "android.os.Looper";
+
+    private static volatile Platform sPlatform;
+
+    /**
+     * Returns the current platform.
+     */
+    public static Platform get() {
+        Platform platform = sPlatform;
+        if (platform == null) {
+            synchronized (Platform.class) {
+                if (sPlatform == null) {
+                    sPlatform = detect();
+                }
+                platform = sPlatform;
+            }
+        }
+        return platform;
+    }
+
+    /**
+     * Replaces the current platform, null to detect it again.
+     */
+    public static void set(Platform platform) {
+        synchronized (Platform.class) {
+            sPlatform = platform;
+        }
+    }
+
+    /**
+     * Returns the executor running the callbacks of asynchronous requests.
+     */
+    public abstract Executor getCallbackExecutor();
+
+    /**
+     * Writes a log message.
+     *
+     * @param priority one of {@link #DEBUG}, {@link #INFO}, {@link #WARN}, {@link #ERROR}
+     */
+    public abstract void log(int priority, String tag, String message);
+
+    /**
+     * Returns true if a request parameter value must be sent as a multipart file.
+     * byte[] and ByteArrayOutputStream are supported everywhere.
+     */
+    public boolean isBinary(Object value) {
+        return value instanceof byte[] || value instanceof ByteArrayOutputStream;
+    }
+
+    /**
+     * Writes a value accepted by {@link #isBinary(Object)}.
+     */
+    public void writeBinary(Object value, OutputStream out) throws IOException {
+        if (value instanceof byte[]) {
+            out.write((byte[]) value);
+        } else if (value instanceof ByteArrayOutputStream) {
+            ((ByteArrayOutputStream) value).writeTo(out);
+        } else {
+            throw new IllegalArgumentException("Not binary data: " + value);
+        }
+    }
+
+    private static Platform detect() {
+        try {
+            Class.forName(ANDROID_PROBE);
+            // Loaded by name so that the JVM never resolves the Android classes
+            return (Platform) Class.forName(ANDROID_PLATFORM).getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return new JvmPlatform();
+        } catch (NoSuchMethodException e) {
+            return new JvmPlatform();
+        } catch (InstantiationException e) {
+            return new JvmPlatform();
+        } catch (IllegalAccessException e) {
+            return new JvmPlatform();
+        } catch (InvocationTargetException e) {
+            return new JvmPlatform();
+        }
+    }
+}
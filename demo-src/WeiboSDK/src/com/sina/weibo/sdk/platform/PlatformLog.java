@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.platform;
+
+/**
+ * Log helper of the OpenAPI core, same methods as
+ * {@link com.sina.weibo.sdk.utils.LogUtil} but written through {@link Platform}.
+ *
+ * @author SINA
+ * @since 2014-04-22
+ */
+public class PlatformLog {
+
+    public static void d(String tag, String msg) {
+        Platform.get().log(Platform.DEBUG, tag, msg);
+    }
+
+    public static void i(String tag, String msg) {
+        Platform.get().log(Platform.INFO, tag, msg);
+    }
+
+    public static void w(String tag, String msg) {
+        Platform.get().log(Platform.WARN, tag, msg);
+    }
+
+    public static void e(String tag, String msg) {
+        Platform.get().log(Platform.ERROR, tag, msg);
+    }
+}
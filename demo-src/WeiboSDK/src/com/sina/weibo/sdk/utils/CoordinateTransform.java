@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+/**
+ * Converts WGS84 coordinates, as given by GPS, to the GCJ02 coordinates of
+ * Chinese maps, the conversion done by the location/geo/gps_to_offset API.
+ *
+ * Coordinates outside China are not offset. The transform is closed form and
+ * works on primitive doubles; arrays may be converted in place.
+ *
+ * @author SINA
+ * @since 2014-05-06
+ */
+public final class CoordinateTransform {
+
+    /** Semi-major axis of the Krasovsky 1940 ellipsoid */
+    private static final double AXIS = 6378245.0;
+    /** Eccentricity squared of the Krasovsky 1940 ellipsoid */
+    private static final double EE = 0.00669342162296594323;
+
+    /** Precision of {@link #gcj02ToWgs84(double, double, double[])}, in degrees */
+    private static final double INVERSE_PRECISION = 1e-9;
+    private static final int INVERSE_MAX_ITERATIONS = 10;
+
+    private CoordinateTransform() {
+    }
+
+    /**
+     * Returns true if the coordinates are outside the bounding box of China,
+     * where no offset applies.
+     */
+    public static boolean isOutOfChina(double longitude, double latitude) {
+        return longitude < 72.004 || longitude > 137.8347 || latitude < 0.8293 || latitude > 55.8271;
+    }
+
+    /**
+     * Converts WGS84 coordinates to GCJ02.
+     *
+     * @param out receives the longitude at index 0 and the latitude at index 1
+     */
+    public static void wgs84ToGcj02(double longitude, double latitude, double[] out) {
+        if (isOutOfChina(longitude, latitude)) {
+            out[0] = longitude;
+            out[1] = latitude;
+            return;
+        }
+
+        double x = longitude - 105.0;
+        double y = latitude - 35.0;
+        double radLat = latitude / 180.0 * Math.PI;
+        double magic = Math.sin(radLat);
+        magic = 1 - EE * magic * magic;
+        double sqrtMagic = Math.sqrt(magic);
+        double dLat = transformLatitude(x, y) * 180.0 / ((AXIS * (1 - EE)) / (magic * sqrtMagic) * Math.PI);
+        double dLon = transformLongitude(x, y) * 180.0 / (AXIS / sqrtMagic * Math.cos(radLat) * Math.PI);
+        out[0] = longitude + dLon;
+        out[1] = latitude + dLat;
+    }
+
+    /**
+     * Converts count WGS84 coordinates to GCJ02. The output arrays may be the input ones.
+     */
+    public static void wgs84ToGcj02(double[] longitudes, double[] latitudes, int count,
+            double[] outLongitudes, double[] outLatitudes) {
+        double[] point = new double[2];
+        for (int ix = 0; ix < count; ix++) {
+            wgs84ToGcj02(longitudes[ix], latitudes[ix], point);
+            outLongitudes[ix] = point[0];
+            outLatitudes[ix]  = point[1];
+        }
+    }
+
+    /**
+     * Converts GCJ02 coordinates back to WGS84, by iterating the forward
+     * transform, to within 1e-9 degree.
+     *
+     * @param out receives the longitude at index 0 and the latitude at index 1
+     */
+    public static void gcj02ToWgs84(double longitude, double latitude, double[] out) {
+        double wgsLon = longitude;
+        double wgsLat = latitude;
+        for (int iteration = 0; iteration < INVERSE_MAX_ITERATIONS; iteration++) {
+            wgs84ToGcj02(wgsLon, wgsLat, out);
+            double dLon = out[0] - longitude;
+            double dLat = out[1] - latitude;
+            wgsLon -= dLon;
+            wgsLat -= dLat;
+            if (Math.abs(dLon) < INVERSE_PRECISION && Math.abs(dLat) < INVERSE_PRECISION) {
+                break;
+            }
+        }
+        out[0] = wgsLon;
+        out[1] = wgsLat;
+    }
+
+    /**
+     * Returns the distance in meters between two nearby points, e.g. to compare
+     * a local result with the one of the API.
+     */
+    public static double distanceMeters(double longitude1, double latitude1, double longitude2, double latitude2) {
+        double radLat1 = Math.toRadians(latitude1);
+        double radLat2 = Math.toRadians(latitude2);
+        double sinLat = Math.sin((radLat2 - radLat1) / 2);
+        double sinLon = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        double h = sinLat * sinLat + Math.cos(radLat1) * Math.cos(radLat2) * sinLon * sinLon;
+        return 2 * 6371008.8 * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    private static double transformLatitude(double x, double y) {
+        double result = -100.0 + 2.0 * x + 3.0 * y + 0.2 * y * y + 0.1 * x * y + 0.2 * Math.sqrt(Math.abs(x));
+        result += (20.0 * Math.sin(6.0 * x * Math.PI) + 20.0 * Math.sin(2.0 * x * Math.PI)) * 2.0 / 3.0;
+        result += (20.0 * Math.sin(y * Math.PI) + 40.0 * Math.sin(y / 3.0 * Math.PI)) * 2.0 / 3.0;
+        result += (160.0 * Math.sin(y / 12.0 * Math.PI) + 320 * Math.sin(y * Math.PI / 30.0)) * 2.0 / 3.0;
+        return result;
+    }
+
+    private static double transformLongitude(double x, double y) {
+        double result = 300.0 + x + 2.0 * y + 0.1 * x * x + 0.1 * x * y + 0.1 * Math.sqrt(Math.abs(x));
+        result += (20.0 * Math.sin(6.0 * x * Math.PI) + 20.0 * Math.sin(2.0 * x * Math.PI)) * 2.0 / 3.0;
+        result += (20.0 * Math.sin(x * Math.PI) + 40.0 * Math.sin(x / 3.0 * Math.PI)) * 2.0 / 3.0;
+        result += (150.0 * Math.sin(x / 12.0 * Math.PI) + 300.0 * Math.sin(x / 30.0 * Math.PI)) * 2.0 / 3.0;
+        return result;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive ints to objects (linear probing, no
+ * boxing). Unlike {@link IntSparseArray}, inserting is O(1) whatever the order
+ * of the keys; the entries are not ordered.
+ *
+ * Values cannot be null: a slot without a value is empty. Entries are not
+ * removed one by one, {@link #clear()} empties the map.
+ * This class is not thread safe.
+ *
+ * @author SINA
+ * @since 2014-04-12
+ */
+public class IntHashMap<V> {
+    private static final int   MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR  = 0.6f;
+
+    private int[] mKeys;
+    private Object[] mValues;
+    private int mSize;
+    private int mResizeThreshold;
+
+    public IntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of entries the map should hold without resizing
+     */
+    public IntHashMap(int expectedSize) {
+        allocate(tableSizeFor((int) (expectedSize / LOAD_FACTOR) + 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int mask = mKeys.length - 1;
+        int ix = hash(key) & mask;
+        Object value;
+        while ((value = mValues[ix]) != null) {
+            if (mKeys[ix] == key) {
+                return (V) value;
+            }
+            ix = (ix + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * @param value not null
+     * @return the previous value of the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+
+        int mask = mKeys.length - 1;
+        int ix = hash(key) & mask;
+        Object current;
+        while ((current = mValues[ix]) != null) {
+            if (mKeys[ix] == key) {
+                mValues[ix] = value;
+                return (V) current;
+            }
+            ix = (ix + 1) & mask;
+        }
+        mKeys[ix] = key;
+        mValues[ix] = value;
+        if (++mSize >= mResizeThreshold) {
+            rehash(mKeys.length << 1);
+        }
+        return null;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(mValues, null);
+        mSize = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = mKeys;
+        Object[] oldValues = mValues;
+        allocate(newCapacity);
+        int mask = mKeys.length - 1;
+        for (int io = 0; io < oldKeys.length; io++) {
+            if (oldValues[io] != null) {
+                int ix = hash(oldKeys[io]) & mask;
+                while (mValues[ix] != null) {
+                    ix = (ix + 1) & mask;
+                }
+                mKeys[ix] = oldKeys[io];
+                mValues[ix] = oldValues[io];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new int[capacity];
+        mValues = new Object[capacity];
+        mResizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int size) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(int key) {
+        // Fibonacci hashing, high half folded in: bigrams of one character share their high bits
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
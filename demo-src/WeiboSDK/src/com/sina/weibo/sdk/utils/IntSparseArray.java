@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+import java.util.Arrays;
+
+/**
+ * Pure Java replacement of android.util.SparseArray: int keys mapped to objects,
+ * kept in two sorted arrays and looked up by binary search.
+ *
+ * This class is not thread safe; the static API tables built in class
+ * initializers are only read afterwards.
+ *
+ * @author SINA
+ * @since 2014-04-22
+ */
+public class IntSparseArray<E> {
+
+    private int[] mKeys;
+    private Object[] mValues;
+    private int mSize;
+
+    public IntSparseArray() {
+        this(10);
+    }
+
+    public IntSparseArray(int initialCapacity) {
+        initialCapacity = Math.max(1, initialCapacity);
+        mKeys = new int[initialCapacity];
+        mValues = new Object[initialCapacity];
+    }
+
+    /**
+     * Returns the value mapped to the key, or null.
+     */
+    public E get(int key) {
+        return get(key, null);
+    }
+
+    /**
+     * Returns the value mapped to the key, or valueIfKeyNotFound.
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int key, E valueIfKeyNotFound) {
+        int index = Arrays.binarySearch(mKeys, 0, mSize, key);
+        return index >= 0 ? (E) mValues[index] : valueIfKeyNotFound;
+    }
+
+    /**
+     * Maps a key to a value, replacing the previous mapping.
+     */
+    public void put(int key, E value) {
+        int index = Arrays.binarySearch(mKeys, 0, mSize, key);
+        if (index >= 0) {
+            mValues[index] = value;
+            return;
+        }
+
+        index = ~index;
+        if (mSize == mKeys.length) {
+            int capacity = mSize * 2;
+            mKeys = Arrays.copyOf(mKeys, capacity);
+            mValues = Arrays.copyOf(mValues, capacity);
+        }
+        System.arraycopy(mKeys, index, mKeys, index + 1, mSize - index);
+        System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+        mKeys[index] = key;
+        mValues[index] = value;
+        mSize++;
+    }
+
+    /**
+     * Removes the mapping of a key, if any.
+     */
+    public void remove(int key) {
+        int index = Arrays.binarySearch(mKeys, 0, mSize, key);
+        if (index >= 0) {
+            System.arraycopy(mKeys, index + 1, mKeys, index, mSize - index - 1);
+            System.arraycopy(mValues, index + 1, mValues, index, mSize - index - 1);
+            mValues[--mSize] = null;
+        }
+    }
+
+    public int indexOfKey(int key) {
+        return Arrays.binarySearch(mKeys, 0, mSize, key);
+    }
+
+    public int keyAt(int index) {
+        return mKeys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public E valueAt(int index) {
+        return (E) mValues[index];
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public void clear() {
+        Arrays.fill(mValues, 0, mSize, null);
+        mSize = 0;
+    }
+}
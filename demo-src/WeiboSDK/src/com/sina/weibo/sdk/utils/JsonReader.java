@@ -0,0 +1,729 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Streaming pull reader over a JSON text, building no tree.
+ *
+ * The model readers, such as {@code Status.read(JsonReader)}, walk a response
+ * with it in one pass: object keys are matched against a {@link Names} table
+ * without allocating a String and dispatched with a switch, unknown keys and
+ * unwanted subtrees are skipped by a plain character scan, or by a lookup when
+ * the reader is created on a {@link StructuralIndex}.
+ *
+ * The typed getters coerce values like the opt methods of org.json: a number
+ * in a string is read as a number, a scalar is read as its text, and a value
+ * of the wrong type gives the fallback. Unlike Android's org.json, which reads
+ * null as the String "null", {@link #nextString(String)} gives the fallback for
+ * null; the tree parsers of the models use {@link #optString(JSONObject, String, String)}
+ * to read null the same way. Every getter consumes the value.
+ *
+ * This class is not thread safe.
+ *
+ * @author SINA
+ * @since 2014-05-16
+ */
+public final class JsonReader {
+
+    /** Types returned by {@link #peek()} */
+    public static final int BEGIN_OBJECT = 1;
+    public static final int END_OBJECT   = 2;
+    public static final int BEGIN_ARRAY  = 3;
+    public static final int END_ARRAY    = 4;
+    public static final int STRING       = 5;
+    public static final int NUMBER       = 6;
+    public static final int BOOLEAN      = 7;
+    public static final int NULL         = 8;
+    public static final int END_DOCUMENT = 9;
+
+    private final String mIn;
+    private final int mEnd;
+    private int mPos;
+    /** Index of mIn, null to scan characters */
+    private final StructuralIndex mIndex;
+    /** Entry of the index where the next lookup starts */
+    private int mEntry;
+
+    /** Whether a ',' is due before the next element of each open container */
+    private boolean[] mNeedComma = new boolean[16];
+    /** Whether each open container is an object */
+    private boolean[] mInObject = new boolean[16];
+    private int mDepth;
+
+    private final StringBuilder mBuffer = new StringBuilder(64);
+
+    /**
+     * Key table of an object type, matched by {@link JsonReader#nextName(Names)}.
+     */
+    public static final class Names {
+        private final String[] mNames;
+        private final String[] mSlots;
+        private final int[] mIndexes;
+        private final int mMask;
+
+        /**
+         * @param names keys; the index of a key is what nextName returns for it
+         */
+        public Names(String... names) {
+            mNames = names.clone();
+            int size = 4;
+            while (size < names.length * 2) {
+                size <<= 1;
+            }
+            mSlots = new String[size];
+            mIndexes = new int[size];
+            mMask = size - 1;
+            for (int ix = 0; ix < names.length; ix++) {
+                int slot = names[ix].hashCode() & mMask;
+                while (mSlots[slot] != null) {
+                    if (mSlots[slot].equals(names[ix])) {
+                        throw new IllegalArgumentException("Duplicate name: " + names[ix]);
+                    }
+                    slot = (slot + 1) & mMask;
+                }
+                mSlots[slot] = names[ix];
+                mIndexes[slot] = ix;
+            }
+        }
+
+        public String get(int index) {
+            return mNames[index];
+        }
+
+        public int size() {
+            return mNames.length;
+        }
+
+        /**
+         * Returns the index of the key in[start, end) with the given String hash, -1 if unknown.
+         */
+        int indexOf(String in, int start, int end, int hash) {
+            int length = end - start;
+            for (int slot = hash & mMask; mSlots[slot] != null; slot = (slot + 1) & mMask) {
+                String name = mSlots[slot];
+                if (name.length() == length && in.regionMatches(start, name, 0, length)) {
+                    return mIndexes[slot];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the index of a key, -1 if unknown.
+         */
+        public int indexOf(String name) {
+            return indexOf(name, 0, name.length(), name.hashCode());
+        }
+    }
+
+    public JsonReader(String in) {
+        this(in, 0, in.length());
+    }
+
+    /**
+     * Reads the JSON text in[start, end).
+     */
+    public JsonReader(String in, int start, int end) {
+        mIn = in;
+        mPos = start;
+        mEnd = end;
+        mIndex = null;
+    }
+
+    /**
+     * Reads an indexed JSON text, skipping strings and subtrees with index lookups.
+     */
+    public JsonReader(StructuralIndex index) {
+        this(index, index.getStart(), index.getEnd());
+    }
+
+    /**
+     * Reads the indexed JSON text [start, end), which must be a value of the text.
+     */
+    public JsonReader(StructuralIndex index, int start, int end) {
+        mIn = index.getInput();
+        mPos = start;
+        mEnd = end;
+        mIndex = index;
+        mEntry = Math.max(0, index.find(start, -1));
+    }
+
+    /**
+     * Returns the type of the next value, {@link #END_OBJECT} or {@link #END_ARRAY}
+     * at the end of the current container, without consuming anything.
+     */
+    public int peek() throws JSONException {
+        int c = peekChar();
+        switch (c) {
+        case '{':
+            return BEGIN_OBJECT;
+        case '}':
+            return END_OBJECT;
+        case '[':
+            return BEGIN_ARRAY;
+        case ']':
+            return END_ARRAY;
+        case '"':
+            return STRING;
+        case 't':
+        case 'f':
+            return BOOLEAN;
+        case 'n':
+            return NULL;
+        case -1:
+            return END_DOCUMENT;
+        default:
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                return NUMBER;
+            }
+            throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * Returns the position of the next character to read.
+     */
+    public int getPosition() {
+        return mPos;
+    }
+
+    public void beginObject() throws JSONException {
+        expect('{');
+        push(true);
+    }
+
+    public void endObject() throws JSONException {
+        expect('}');
+        pop();
+    }
+
+    public void beginArray() throws JSONException {
+        expect('[');
+        push(false);
+    }
+
+    public void endArray() throws JSONException {
+        expect(']');
+        pop();
+    }
+
+    /**
+     * Returns true if the current object or array has another element,
+     * consuming the ',' before it.
+     */
+    public boolean hasNext() throws JSONException {
+        int c = peekChar();
+        if (c == '}' || c == ']' || c == -1) {
+            return false;
+        }
+        if (mNeedComma[mDepth]) {
+            if (c != ',') {
+                throw syntaxError("Expected ','");
+            }
+            mPos++;
+            mNeedComma[mDepth] = false;
+            if (peekChar() == -1) {
+                throw syntaxError("Unterminated container");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next key of the current object and the ':' after it.
+     *
+     * @return index of the key in names, -1 if it is not there; the value must
+     *         then be read or skipped
+     */
+    public int nextName(Names names) throws JSONException {
+        if (peekChar() != '"') {
+            throw syntaxError("Expected a name");
+        }
+        int start = ++mPos;
+        int hash = 0;
+        int index;
+        for (;;) {
+            if (mPos >= mEnd) {
+                throw syntaxError("Unterminated string");
+            }
+            char c = mIn.charAt(mPos);
+            if (c == '"') {
+                index = names.indexOf(mIn, start, mPos, hash);
+                mPos++;
+                break;
+            }
+            if (c == '\\') {
+                // Escaped keys are rare, decode them the slow way
+                mPos = start - 1;
+                index = names.indexOf(readString());
+                break;
+            }
+            hash = 31 * hash + c;
+            mPos++;
+        }
+        expect(':');
+        return index;
+    }
+
+    /**
+     * Reads the next key of the current object and the ':' after it.
+     */
+    public String nextName() throws JSONException {
+        if (peekChar() != '"') {
+            throw syntaxError("Expected a name");
+        }
+        String name = readString();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * Reads a value as a String: strings as is, scalars as their text, objects
+     * and arrays as their JSON text, like org.json's optString.
+     */
+    public String nextString() throws JSONException {
+        int c = peekChar();
+        String value;
+        if (c == '"') {
+            value = readString();
+        } else if (c == '{' || c == '[') {
+            int start = mPos;
+            skipContainer();
+            value = mIn.substring(start, mPos);
+        } else {
+            int start = mPos;
+            skipLiteral();
+            value = mIn.substring(start, mPos);
+        }
+        mNeedComma[mDepth] = true;
+        return value;
+    }
+
+    /**
+     * Reads a value as a String, giving the fallback if it is null.
+     */
+    public String nextString(String fallback) throws JSONException {
+        if (peekChar() == 'n') {
+            skipValue();
+            return fallback;
+        }
+        return nextString();
+    }
+
+    /**
+     * Reads a value of an object like {@link #nextString(String)} reads it from
+     * the stream: the fallback if it is missing or null, its text otherwise.
+     * {@code JSONObject.optString} gives "null" for null on Android.
+     */
+    public static String optString(JSONObject object, String name, String fallback) {
+        Object value = object.opt(name);
+        return value == null || JSONObject.NULL.equals(value) ? fallback : value.toString();
+    }
+
+    public int nextInt(int fallback) throws JSONException {
+        long value = nextLong(Long.MIN_VALUE);
+        return value == Long.MIN_VALUE ? fallback : (int) value;
+    }
+
+    /**
+     * Reads a number, or a string holding a number.
+     */
+    public long nextLong(long fallback) throws JSONException {
+        int c = peekChar();
+        if (c == '"') {
+            String value = readString();
+            mNeedComma[mDepth] = true;
+            try {
+                return (long) Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }
+        if (c != '-' && (c < '0' || c > '9')) {
+            skipValue();
+            return fallback;
+        }
+
+        int start = mPos;
+        boolean integral = true;
+        skipLiteral();
+        for (int ix = c == '-' ? start + 1 : start; ix < mPos; ix++) {
+            char d = mIn.charAt(ix);
+            if (d < '0' || d > '9') {
+                integral = false;
+                break;
+            }
+        }
+        mNeedComma[mDepth] = true;
+        // 18 digits always fit in a long
+        if (integral && mPos - start <= 18 && mPos - start > (c == '-' ? 1 : 0)) {
+            return parseLong(start, mPos);
+        }
+        try {
+            return (long) Double.parseDouble(mIn.substring(start, mPos));
+        } catch (NumberFormatException e) {
+            throw syntaxError("Invalid number");
+        }
+    }
+
+    /**
+     * Reads a number, or a string holding a number.
+     */
+    public double nextDouble(double fallback) throws JSONException {
+        int c = peekChar();
+        String value;
+        if (c == '"') {
+            value = readString();
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
+            int start = mPos;
+            skipLiteral();
+            value = mIn.substring(start, mPos);
+        } else {
+            skipValue();
+            return fallback;
+        }
+        mNeedComma[mDepth] = true;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Reads a boolean, or a string holding "true" or "false".
+     */
+    public boolean nextBoolean(boolean fallback) throws JSONException {
+        int c = peekChar();
+        if (c == 't' || c == 'f') {
+            boolean value = mIn.startsWith("true", mPos);
+            skipLiteral();
+            mNeedComma[mDepth] = true;
+            return value;
+        }
+        if (c == '"') {
+            String value = readString();
+            mNeedComma[mDepth] = true;
+            if ("true".equalsIgnoreCase(value)) {
+                return true;
+            }
+            if ("false".equalsIgnoreCase(value)) {
+                return false;
+            }
+            return fallback;
+        }
+        skipValue();
+        return fallback;
+    }
+
+    /**
+     * Skips the next value, with all its nested values.
+     */
+    public void skipValue() throws JSONException {
+        int c = peekChar();
+        if (c == '"') {
+            skipString();
+        } else if (c == '{' || c == '[') {
+            skipContainer();
+        } else if (c == -1) {
+            throw syntaxError("Expected a value");
+        } else {
+            skipLiteral();
+        }
+        mNeedComma[mDepth] = true;
+    }
+
+    /**
+     * Reads the next array without parsing its elements, returning where each
+     * element lies: element i is the text [ranges[2 * i], ranges[2 * i + 1]),
+     * to be read with {@link #JsonReader(String, int, int)}, or with
+     * {@link #JsonReader(StructuralIndex, int, int)} when {@link #getIndex()} is not null.
+     */
+    public int[] nextElementRanges() throws JSONException {
+        int[] ranges = new int[32];
+        int count = 0;
+        beginArray();
+        while (hasNext()) {
+            if (count == ranges.length) {
+                int[] grown = new int[count * 2];
+                System.arraycopy(ranges, 0, grown, 0, count);
+                ranges = grown;
+            }
+            ranges[count++] = mPos;
+            skipValue();
+            ranges[count++] = mPos;
+        }
+        endArray();
+
+        int[] trimmed = new int[count];
+        System.arraycopy(ranges, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     * Returns the text being read.
+     */
+    public String getInput() {
+        return mIn;
+    }
+
+    /**
+     * Returns the index of the text being read, null if it is not indexed.
+     */
+    public StructuralIndex getIndex() {
+        return mIndex;
+    }
+
+    /**
+     * Skips the remaining elements of the current object or array and its end.
+     */
+    public void skipToEnd() throws JSONException {
+        while (hasNext()) {
+            if (mInObject[mDepth]) {
+                if (peekChar() != '"') {
+                    throw syntaxError("Expected a name");
+                }
+                skipString();
+                expect(':');
+            }
+            skipValue();
+        }
+        int c = peekChar();
+        if (c != '}' && c != ']') {
+            throw syntaxError("Unterminated container");
+        }
+        mPos++;
+        pop();
+    }
+
+    private void push(boolean object) {
+        mNeedComma[mDepth] = true;
+        if (++mDepth == mNeedComma.length) {
+            boolean[] grown = new boolean[mDepth * 2];
+            System.arraycopy(mNeedComma, 0, grown, 0, mDepth);
+            mNeedComma = grown;
+            grown = new boolean[mDepth * 2];
+            System.arraycopy(mInObject, 0, grown, 0, mDepth);
+            mInObject = grown;
+        }
+        mNeedComma[mDepth] = false;
+        mInObject[mDepth] = object;
+    }
+
+    private void pop() throws JSONException {
+        if (mDepth == 0) {
+            throw syntaxError("Unbalanced container");
+        }
+        mDepth--;
+    }
+
+    private int peekChar() {
+        while (mPos < mEnd) {
+            char c = mIn.charAt(mPos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return c;
+            }
+            mPos++;
+        }
+        return -1;
+    }
+
+    private void expect(char expected) throws JSONException {
+        if (peekChar() != expected) {
+            throw syntaxError("Expected '" + expected + "'");
+        }
+        mPos++;
+    }
+
+    /**
+     * Reads the string starting at the current '"', without allocating a
+     * builder when it has no escape.
+     */
+    private String readString() throws JSONException {
+        if (mIndex != null) {
+            int entry = findEntry();
+            if (entry >= 0 && !mIndex.isEscaped(entry)) {
+                int end = mIndex.getPosition(entry + 1);
+                String value = mIn.substring(mPos + 1, end);
+                mPos = end + 1;
+                mEntry = entry + 2;
+                return value;
+            }
+        }
+
+        int start = ++mPos;
+        while (mPos < mEnd) {
+            char c = mIn.charAt(mPos);
+            if (c == '"') {
+                return mIn.substring(start, mPos++);
+            }
+            if (c == '\\') {
+                break;
+            }
+            mPos++;
+        }
+        if (mPos >= mEnd) {
+            throw syntaxError("Unterminated string");
+        }
+
+        StringBuilder buffer = mBuffer;
+        buffer.setLength(0);
+        buffer.append(mIn, start, mPos);
+        while (mPos < mEnd) {
+            char c = mIn.charAt(mPos++);
+            if (c == '"') {
+                return buffer.toString();
+            }
+            if (c != '\\') {
+                buffer.append(c);
+                continue;
+            }
+            if (mPos >= mEnd) {
+                break;
+            }
+            char escaped = mIn.charAt(mPos++);
+            switch (escaped) {
+            case 'b':
+                buffer.append('\b');
+                break;
+            case 'f':
+                buffer.append('\f');
+                break;
+            case 'n':
+                buffer.append('\n');
+                break;
+            case 'r':
+                buffer.append('\r');
+                break;
+            case 't':
+                buffer.append('\t');
+                break;
+            case 'u':
+                if (mPos + 4 > mEnd) {
+                    throw syntaxError("Invalid escape");
+                }
+                try {
+                    buffer.append((char) Integer.parseInt(mIn.substring(mPos, mPos + 4), 16));
+                } catch (NumberFormatException e) {
+                    throw syntaxError("Invalid escape");
+                }
+                mPos += 4;
+                break;
+            default:
+                buffer.append(escaped);
+                break;
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private void skipString() throws JSONException {
+        if (mIndex != null && skipIndexed()) {
+            return;
+        }
+
+        mPos++;
+        while (mPos < mEnd) {
+            char c = mIn.charAt(mPos++);
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                mPos++;
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    /**
+     * Skips an object or array by counting brackets outside of strings.
+     */
+    private void skipContainer() throws JSONException {
+        if (mIndex != null && skipIndexed()) {
+            return;
+        }
+
+        int depth = 0;
+        while (mPos < mEnd) {
+            char c = mIn.charAt(mPos);
+            if (c == '"') {
+                skipString();
+                continue;
+            }
+            mPos++;
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return;
+            }
+        }
+        throw syntaxError("Unterminated container");
+    }
+
+    /**
+     * Jumps past the string or container starting at the current position.
+     */
+    private boolean skipIndexed() {
+        int entry = findEntry();
+        if (entry < 0) {
+            return false;
+        }
+        int match = mIndex.getMatch(entry);
+        mPos = mIndex.getPosition(match) + 1;
+        mEntry = match + 1;
+        return true;
+    }
+
+    private int findEntry() {
+        int entry = mIndex.find(mPos, mEntry);
+        if (entry >= 0) {
+            mEntry = entry;
+        }
+        return entry;
+    }
+
+    private void skipLiteral() throws JSONException {
+        int start = mPos;
+        while (mPos < mEnd) {
+            char c = mIn.charAt(mPos);
+            if (c == ',' || c == '}' || c == ']' || c == ':' || c == ' ' || c == '\t' || c == '\n' || c == '\r'
+                    || c == '"' || c == '{' || c == '[') {
+                break;
+            }
+            mPos++;
+        }
+        if (mPos == start) {
+            throw syntaxError("Expected a value");
+        }
+    }
+
+    private long parseLong(int start, int end) {
+        boolean negative = mIn.charAt(start) == '-';
+        long value = 0;
+        for (int ix = negative ? start + 1 : start; ix < end; ix++) {
+            value = value * 10 + (mIn.charAt(ix) - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private JSONException syntaxError(String message) {
+        return new JSONException(message + " at character " + mPos);
+    }
+}
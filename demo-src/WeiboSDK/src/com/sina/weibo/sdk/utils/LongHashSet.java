@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of primitive longs (linear probing, no boxing).
+ *
+ * Slots holding 0 are empty, the value 0 itself is tracked by a separate flag.
+ * This class is not thread safe.
+ *
+ * @author SINA
+ * @since 2014-04-10
+ */
+public class LongHashSet {
+    private static final int   MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR  = 0.6f;
+
+    private long[] mTable;
+    private int mSize;
+    private boolean mHasZero;
+    private int mResizeThreshold;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of elements the set should hold without resizing
+     */
+    public LongHashSet(int expectedSize) {
+        allocate(tableSizeFor((int) (expectedSize / LOAD_FACTOR) + 1));
+    }
+
+    /**
+     * @return true if the value was not in the set yet
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (mHasZero) {
+                return false;
+            }
+            mHasZero = true;
+            mSize++;
+            return true;
+        }
+
+        int mask = mTable.length - 1;
+        int ix = hash(value) & mask;
+        long current;
+        while ((current = mTable[ix]) != 0) {
+            if (current == value) {
+                return false;
+            }
+            ix = (ix + 1) & mask;
+        }
+        mTable[ix] = value;
+        if (++mSize >= mResizeThreshold) {
+            rehash(mTable.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Adds all the values of the array.
+     *
+     * @return the number of values that were not in the set yet
+     */
+    public int addAll(long[] values, int offset, int length) {
+        int added = 0;
+        for (int ix = offset; ix < offset + length; ix++) {
+            if (add(values[ix])) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) {
+            return mHasZero;
+        }
+
+        int mask = mTable.length - 1;
+        int ix = hash(value) & mask;
+        long current;
+        while ((current = mTable[ix]) != 0) {
+            if (current == value) {
+                return true;
+            }
+            ix = (ix + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the value was in the set
+     */
+    public boolean remove(long value) {
+        if (value == 0) {
+            if (!mHasZero) {
+                return false;
+            }
+            mHasZero = false;
+            mSize--;
+            return true;
+        }
+
+        int mask = mTable.length - 1;
+        int ix = hash(value) & mask;
+        long current;
+        while ((current = mTable[ix]) != 0) {
+            if (current == value) {
+                mTable[ix] = 0;
+                mSize--;
+                shiftBack(ix);
+                return true;
+            }
+            ix = (ix + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(mTable, 0);
+        mHasZero = false;
+        mSize = 0;
+    }
+
+    /**
+     * Returns the values in no particular order.
+     */
+    public long[] toArray() {
+        long[] result = new long[mSize];
+        int count = 0;
+        if (mHasZero) {
+            result[count++] = 0;
+        }
+        for (long value : mTable) {
+            if (value != 0) {
+                result[count++] = value;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values in ascending order.
+     */
+    public long[] toSortedArray() {
+        long[] result = toArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Backward-shift deletion: moves the following entries of the probe chain
+     * into the freed slot so lookups never need tombstones.
+     */
+    private void shiftBack(int freed) {
+        int mask = mTable.length - 1;
+        int ix = (freed + 1) & mask;
+        long current;
+        while ((current = mTable[ix]) != 0) {
+            int home = hash(current) & mask;
+            // Move the entry if its home slot is not in the (freed, ix] range
+            boolean movable = freed <= ix ? (home <= freed || home > ix) : (home <= freed && home > ix);
+            if (movable) {
+                mTable[freed] = current;
+                mTable[ix] = 0;
+                freed = ix;
+            }
+            ix = (ix + 1) & mask;
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] old = mTable;
+        allocate(newCapacity);
+        int mask = mTable.length - 1;
+        for (long value : old) {
+            if (value != 0) {
+                int ix = hash(value) & mask;
+                while (mTable[ix] != 0) {
+                    ix = (ix + 1) & mask;
+                }
+                mTable[ix] = value;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mTable = new long[capacity];
+        mResizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int size) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long value) {
+        // Fibonacci hashing spreads sequential ids across the table
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+/**
+ * Converts status ids to and from the base62 MIDs of weibo.com URLs, e.g.
+ * 3501756485200075 and "z0JH2lOMb", without any request.
+ *
+ * The decimal id is cut into groups of 7 digits from the right, and each
+ * group is written in base62 with the alphabet 0-9a-zA-Z, on 4 characters
+ * except the leftmost group which is not padded. Only the canonical form is
+ * accepted when decoding, so that {@code idToMid(midToId(mid))} always gives
+ * back mid.
+ *
+ * None of the methods allocate, except those returning a new String or array.
+ *
+ * @author SINA
+ * @since 2014-05-04
+ */
+public final class MidCodec {
+
+    /** Returned by the decoding methods for a string which is not a MID */
+    public static final long INVALID_ID = -1;
+
+    /** Maximum length of a MID: a positive long has at most 3 groups */
+    public static final int MAX_MID_LENGTH = 12;
+
+    private static final char[] ALPHABET =
+            "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+    private static final int BASE = 62;
+    private static final int GROUP_CHARS = 4;
+    private static final long GROUP_MODULUS = 10000000L;
+
+    /** Digit value of each ASCII character, -1 if not in the alphabet */
+    private static final byte[] DIGITS = new byte[128];
+    static {
+        for (int ix = 0; ix < DIGITS.length; ix++) {
+            DIGITS[ix] = -1;
+        }
+        for (int ix = 0; ix < ALPHABET.length; ix++) {
+            DIGITS[ALPHABET[ix]] = (byte) ix;
+        }
+    }
+
+    private static final ThreadLocal<char[]> sBuffer = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[MAX_MID_LENGTH];
+        }
+    };
+
+    private MidCodec() {
+    }
+
+    /**
+     * Returns the MID of a status id.
+     *
+     * @throws IllegalArgumentException if id is not positive
+     */
+    public static String idToMid(long id) {
+        char[] mid = new char[MAX_MID_LENGTH];
+        int length = idToMid(id, mid, 0);
+        return new String(mid, 0, length);
+    }
+
+    /**
+     * Writes the MID of a status id into a buffer.
+     *
+     * @param out    buffer, with room for {@link #MAX_MID_LENGTH} characters from offset
+     * @param offset position of the first character
+     * @return number of characters written
+     * @throws IllegalArgumentException if id is not positive
+     */
+    public static int idToMid(long id, char[] out, int offset) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Invalid status id: " + id);
+        }
+
+        // Groups are produced right to left, into the end of the MID area
+        int end = offset + MAX_MID_LENGTH;
+        int position = end;
+        long rest = id;
+        for (;;) {
+            int group = (int) (rest % GROUP_MODULUS);
+            rest /= GROUP_MODULUS;
+            if (rest > 0) {
+                for (int ix = 0; ix < GROUP_CHARS; ix++) {
+                    out[--position] = ALPHABET[group % BASE];
+                    group /= BASE;
+                }
+            } else {
+                do {
+                    out[--position] = ALPHABET[group % BASE];
+                    group /= BASE;
+                } while (group > 0);
+                break;
+            }
+        }
+
+        int length = end - position;
+        System.arraycopy(out, position, out, offset, length);
+        return length;
+    }
+
+    /**
+     * Appends the MID of a status id, e.g. to build a status URL:
+     * <pre>
+     * url.append("http://weibo.com/").append(uid).append('/');
+     * MidCodec.appendMid(url, id);
+     * </pre>
+     */
+    public static StringBuilder appendMid(StringBuilder builder, long id) {
+        char[] buffer = sBuffer.get();
+        int length = idToMid(id, buffer, 0);
+        return builder.append(buffer, 0, length);
+    }
+
+    /**
+     * Returns the status id of a MID, or {@link #INVALID_ID} if the string is
+     * not a canonical MID.
+     */
+    public static long midToId(CharSequence mid) {
+        int length = mid != null ? mid.length() : 0;
+        if (length == 0 || length > MAX_MID_LENGTH || mid.charAt(0) == '0') {
+            return INVALID_ID;
+        }
+
+        long id = 0;
+        int groupStart = 0;
+        int groupEnd = length % GROUP_CHARS;
+        if (groupEnd == 0) {
+            groupEnd = GROUP_CHARS;
+        }
+        while (groupStart < length) {
+            long group = 0;
+            for (int ix = groupStart; ix < groupEnd; ix++) {
+                char c = mid.charAt(ix);
+                int digit = c < DIGITS.length ? DIGITS[c] : -1;
+                if (digit < 0) {
+                    return INVALID_ID;
+                }
+                group = group * BASE + digit;
+            }
+            if (group >= GROUP_MODULUS || id > (Long.MAX_VALUE - group) / GROUP_MODULUS) {
+                return INVALID_ID;
+            }
+            id = id * GROUP_MODULUS + group;
+            groupStart = groupEnd;
+            groupEnd += GROUP_CHARS;
+        }
+        return id;
+    }
+
+    /**
+     * Returns true if the string is a canonical MID.
+     */
+    public static boolean isMid(CharSequence mid) {
+        return midToId(mid) != INVALID_ID;
+    }
+
+    /**
+     * Converts status ids to MIDs.
+     */
+    public static String[] idsToMids(long[] ids) {
+        String[] mids = new String[ids.length];
+        char[] buffer = sBuffer.get();
+        for (int ix = 0; ix < ids.length; ix++) {
+            int length = idToMid(ids[ix], buffer, 0);
+            mids[ix] = new String(buffer, 0, length);
+        }
+        return mids;
+    }
+
+    /**
+     * Converts MIDs to status ids, {@link #INVALID_ID} for the strings which are not MIDs.
+     *
+     * @return number of invalid MIDs
+     */
+    public static int midsToIds(CharSequence[] mids, long[] ids) {
+        int invalid = 0;
+        for (int ix = 0; ix < mids.length; ix++) {
+            ids[ix] = midToId(mids[ix]);
+            if (ids[ix] == INVALID_ID) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton finding a fixed set of phrases, such as the emotion
+ * phrases "[哈哈]", in one linear pass over a text.
+ *
+ * Matches do not overlap: scanning left to right, the longest phrase ending
+ * at a position is taken unless it overlaps the previous match. The automaton
+ * is immutable once built and can be shared between threads; a {@link Spans}
+ * is reused across calls to avoid allocating per text.
+ *
+ * @author SINA
+ * @since 2014-05-08
+ */
+public final class PhraseMatcher {
+
+    private static final int ROOT = 0;
+
+    /** Edges of each node, sorted by character: mEdgeChars[mEdgeStart[node] ... mEdgeStart[node + 1]) */
+    private final int[] mEdgeStart;
+    private final char[] mEdgeChars;
+    private final int[] mEdgeTargets;
+    /** Failure link of each node */
+    private final int[] mFail;
+    /** Longest phrase ending at each node, -1 if none */
+    private final int[] mOutput;
+    private final int[] mPhraseLengths;
+
+    /**
+     * Match results: match i covers text[starts[i], ends[i]) and is phrase phrases[i].
+     */
+    public static final class Spans {
+        public int[] starts = new int[16];
+        public int[] ends = new int[16];
+        public int[] phrases = new int[16];
+        public int count;
+
+        void add(int start, int end, int phrase) {
+            if (count == starts.length) {
+                int capacity = count * 2;
+                starts  = Arrays.copyOf(starts, capacity);
+                ends    = Arrays.copyOf(ends, capacity);
+                phrases = Arrays.copyOf(phrases, capacity);
+            }
+            starts[count]  = start;
+            ends[count]    = end;
+            phrases[count] = phrase;
+            count++;
+        }
+    }
+
+    /**
+     * Builds the automaton. The index of a phrase in the array identifies it in
+     * the results; empty and duplicate phrases are ignored.
+     */
+    public PhraseMatcher(CharSequence[] phrases) {
+        // Trie with map edges, flattened below
+        List<TreeMap<Character, Integer>> children = new ArrayList<TreeMap<Character, Integer>>();
+        List<Integer> terminals = new ArrayList<Integer>();
+        children.add(new TreeMap<Character, Integer>());
+        terminals.add(-1);
+        mPhraseLengths = new int[phrases.length];
+        for (int ip = 0; ip < phrases.length; ip++) {
+            CharSequence phrase = phrases[ip];
+            int length = phrase != null ? phrase.length() : 0;
+            mPhraseLengths[ip] = length;
+            if (length == 0) {
+                continue;
+            }
+            int node = ROOT;
+            for (int ic = 0; ic < length; ic++) {
+                Character c = phrase.charAt(ic);
+                Integer child = children.get(node).get(c);
+                if (child == null) {
+                    child = children.size();
+                    children.add(new TreeMap<Character, Integer>());
+                    terminals.add(-1);
+                    children.get(node).put(c, child);
+                }
+                node = child;
+            }
+            if (terminals.get(node) < 0) {
+                terminals.set(node, ip);
+            }
+        }
+
+        int nodeCount = children.size();
+        mEdgeStart   = new int[nodeCount + 1];
+        mEdgeChars   = new char[nodeCount - 1];
+        mEdgeTargets = new int[nodeCount - 1];
+        int edge = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            mEdgeStart[node] = edge;
+            for (Map.Entry<Character, Integer> entry : children.get(node).entrySet()) {
+                mEdgeChars[edge]   = entry.getKey();
+                mEdgeTargets[edge] = entry.getValue();
+                edge++;
+            }
+        }
+        mEdgeStart[nodeCount] = edge;
+
+        // Failure links and outputs, breadth first so that parents come first
+        mFail   = new int[nodeCount];
+        mOutput = new int[nodeCount];
+        mOutput[ROOT] = -1;
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int ie = mEdgeStart[ROOT]; ie < mEdgeStart[ROOT + 1]; ie++) {
+            int child = mEdgeTargets[ie];
+            mFail[child] = ROOT;
+            mOutput[child] = terminals.get(child);
+            queue[tail++] = child;
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            for (int ie = mEdgeStart[node]; ie < mEdgeStart[node + 1]; ie++) {
+                int child = mEdgeTargets[ie];
+                char c = mEdgeChars[ie];
+                int fail = mFail[node];
+                int next;
+                while ((next = step(fail, c)) < 0 && fail != ROOT) {
+                    fail = mFail[fail];
+                }
+                mFail[child] = next >= 0 ? next : ROOT;
+                int terminal = terminals.get(child);
+                mOutput[child] = terminal >= 0 ? terminal : mOutput[mFail[child]];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of phrases given to the constructor.
+     */
+    public int size() {
+        return mPhraseLengths.length;
+    }
+
+    /**
+     * Finds the phrases in a text.
+     *
+     * @param spans receives the matches, cleared first
+     * @return number of matches
+     */
+    public int find(CharSequence text, Spans spans) {
+        return find(text, 0, text.length(), spans);
+    }
+
+    /**
+     * Finds the phrases in text[start, end).
+     *
+     * @param spans receives the matches, cleared first
+     * @return number of matches
+     */
+    public int find(CharSequence text, int start, int end, Spans spans) {
+        spans.count = 0;
+        int node = ROOT;
+        int lastEnd = start;
+        for (int ix = start; ix < end; ix++) {
+            char c = text.charAt(ix);
+            int next;
+            while ((next = step(node, c)) < 0 && node != ROOT) {
+                node = mFail[node];
+            }
+            node = next >= 0 ? next : ROOT;
+
+            int phrase = mOutput[node];
+            if (phrase >= 0) {
+                int matchStart = ix + 1 - mPhraseLengths[phrase];
+                if (matchStart >= lastEnd) {
+                    spans.add(matchStart, ix + 1, phrase);
+                    lastEnd = ix + 1;
+                }
+            }
+        }
+        return spans.count;
+    }
+
+    /**
+     * Returns the child of node for c, or -1.
+     */
+    private int step(int node, char c) {
+        int low = mEdgeStart[node];
+        int high = mEdgeStart[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = mEdgeChars[mid];
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return mEdgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lossy intern table for the low-cardinality string fields of the
+ * models, such as {@code User.gender} or {@code Status.source}.
+ *
+ * Each value repeated across a page or a cache then retains a single String.
+ * The table is direct-mapped: a value hashes to one slot and replaces the
+ * value held there, so its size never grows and lookups take no lock. Unlike
+ * {@link String#intern()}, values are not kept in the VM string table and
+ * can be collected once evicted.
+ *
+ * @author SINA
+ * @since 2014-05-14
+ */
+public final class StringPool {
+
+    /** Pool shared by the model parsers */
+    public static final StringPool SHARED = new StringPool(4096, 128);
+
+    private final AtomicReferenceArray<String> mSlots;
+    private final int mMask;
+    private final int mMaxLength;
+
+    /**
+     * @param capacity  number of slots, rounded up to a power of two
+     * @param maxLength longer values are returned as is
+     */
+    public StringPool(int capacity, int maxLength) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        mSlots = new AtomicReferenceArray<String>(size);
+        mMask = size - 1;
+        mMaxLength = maxLength;
+    }
+
+    /**
+     * Returns the pooled instance equal to value, pooling value if there is none.
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int length = value.length();
+        if (length == 0) {
+            return "";
+        }
+        if (length > mMaxLength) {
+            return value;
+        }
+
+        int hash = value.hashCode();
+        // Spread the high bits, String hashes of short values differ mostly in low bits
+        int index = (hash ^ (hash >>> 16)) & mMask;
+        String pooled = mSlots.get(index);
+        if (pooled != null && pooled.equals(value)) {
+            return pooled;
+        }
+        // A racing thread may overwrite the slot: the pool stays correct, just lossy
+        mSlots.lazySet(index, value);
+        return value;
+    }
+
+    /**
+     * Empties the pool.
+     */
+    public void clear() {
+        for (int ix = 0; ix < mSlots.length(); ix++) {
+            mSlots.set(ix, null);
+        }
+    }
+}
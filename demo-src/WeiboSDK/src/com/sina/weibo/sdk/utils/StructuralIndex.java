@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+import java.util.Arrays;
+
+import org.json.JSONException;
+
+/**
+ * Structural index of a JSON text: the positions of its quotes, brackets,
+ * colons and commas outside of strings, with the matching end of every
+ * object, array and string.
+ *
+ * It is built in one tight pass over the text, then a {@link JsonReader}
+ * created on it skips a string or a whole subtree with a single lookup
+ * instead of a character scan, and reads a string without escapes with a
+ * single substring. Building costs about a third of a full model parse, so
+ * the index pays off when a text is read more than once or only in part:
+ * finding the elements of a large array, reading a few fields of each
+ * status, or parsing the elements on several threads. The index is
+ * immutable once built and can be shared by readers on several threads, see
+ * {@link com.sina.weibo.sdk.openapi.models.ParallelParser}.
+ *
+ * @author SINA
+ * @since 2014-05-18
+ */
+public final class StructuralIndex {
+
+    private static final byte CLASS_OTHER      = 0;
+    private static final byte CLASS_STRUCTURAL = 1;
+    private static final byte CLASS_QUOTE      = 2;
+
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        CLASSES['{'] = CLASS_STRUCTURAL;
+        CLASSES['}'] = CLASS_STRUCTURAL;
+        CLASSES['['] = CLASS_STRUCTURAL;
+        CLASSES[']'] = CLASS_STRUCTURAL;
+        CLASSES[':'] = CLASS_STRUCTURAL;
+        CLASSES[','] = CLASS_STRUCTURAL;
+        CLASSES['"'] = CLASS_QUOTE;
+    }
+
+    private final String mIn;
+    private final int mStart;
+    private final int mEnd;
+    /** Positions of the structural characters, in ascending order */
+    private final int[] mPositions;
+    private final int mCount;
+    /** For an opening bracket, the entry of the matching closing one */
+    private final int[] mMatches;
+    /** One bit per entry, set on the opening quote of the strings holding an escape */
+    private final long[] mEscaped;
+
+    private StructuralIndex(String in, int start, int end, int[] positions, int count, long[] escaped)
+            throws JSONException {
+        mIn = in;
+        mStart = start;
+        mEnd = end;
+        mPositions = positions;
+        mCount = count;
+        mEscaped = escaped;
+        mMatches = matchBrackets();
+    }
+
+    public static StructuralIndex build(String in) throws JSONException {
+        return build(in, 0, in.length());
+    }
+
+    /**
+     * Indexes the JSON text in[start, end).
+     * 
+     * @throws JSONException if a string is unterminated or the brackets are unbalanced
+     */
+    public static StructuralIndex build(String in, int start, int end) throws JSONException {
+        int[] positions = new int[Math.max(16, (end - start) >> 3)];
+        long[] escaped = new long[(positions.length + 63) >> 6];
+        int count = 0;
+
+        for (int pos = start; pos < end; pos++) {
+            char c = in.charAt(pos);
+            if (c >= 128 || CLASSES[c] == CLASS_OTHER) {
+                continue;
+            }
+            if (count + 2 > positions.length) {
+                positions = Arrays.copyOf(positions, positions.length * 2);
+                escaped = Arrays.copyOf(escaped, (positions.length + 63) >> 6);
+            }
+            positions[count++] = pos;
+            if (CLASSES[c] == CLASS_STRUCTURAL) {
+                continue;
+            }
+
+            // The whole string in one inner loop, the outer one only sees structure
+            int open = count - 1;
+            pos++;
+            while (pos < end && (c = in.charAt(pos)) != '"') {
+                if (c == '\\') {
+                    escaped[open >> 6] |= 1L << open;
+                    pos++;
+                }
+                pos++;
+            }
+            if (pos >= end) {
+                throw new JSONException("Unterminated string at character " + positions[open]);
+            }
+            positions[count++] = pos;
+        }
+        return new StructuralIndex(in, start, end, positions, count, escaped);
+    }
+
+    private int[] matchBrackets() throws JSONException {
+        int[] matches = new int[mCount];
+        int[] stack = new int[16];
+        int depth = 0;
+        for (int entry = 0; entry < mCount; entry++) {
+            char c = mIn.charAt(mPositions[entry]);
+            if (c == '"') {
+                entry++;
+            } else if (c == '{' || c == '[') {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = entry;
+            } else if (c == '}' || c == ']') {
+                if (depth == 0 || mIn.charAt(mPositions[stack[depth - 1]]) != (c == '}' ? '{' : '[')) {
+                    throw new JSONException("Unbalanced container at character " + mPositions[entry]);
+                }
+                matches[stack[--depth]] = entry;
+            }
+        }
+        if (depth != 0) {
+            throw new JSONException("Unterminated container at character " + mPositions[stack[depth - 1]]);
+        }
+        return matches;
+    }
+
+    public String getInput() {
+        return mIn;
+    }
+
+    public int getStart() {
+        return mStart;
+    }
+
+    public int getEnd() {
+        return mEnd;
+    }
+
+    /**
+     * Returns the number of structural characters.
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Returns the position in the text of the given entry.
+     */
+    public int getPosition(int entry) {
+        return mPositions[entry];
+    }
+
+    /**
+     * Returns the entry of the character closing the object, array or string
+     * opened at the given entry.
+     */
+    public int getMatch(int entry) {
+        return mIn.charAt(mPositions[entry]) == '"' ? entry + 1 : mMatches[entry];
+    }
+
+    /**
+     * Returns whether the string opened at the given entry holds an escape.
+     */
+    public boolean isEscaped(int entry) {
+        return (mEscaped[entry >> 6] & (1L << entry)) != 0;
+    }
+
+    /**
+     * Returns the entry at the given position in the text, -1 if the character
+     * there is not structural. Readers only move forward, so the entries are
+     * walked from hint, which costs a constant time per entry over a whole read.
+     * 
+     * @param hint an entry at or before pos, -1 if unknown
+     */
+    public int find(int pos, int hint) {
+        int[] positions = mPositions;
+        int entry;
+        if (hint >= 0 && hint < mCount && positions[hint] <= pos) {
+            entry = hint;
+            while (entry < mCount && positions[entry] < pos) {
+                entry++;
+            }
+        } else {
+            entry = Arrays.binarySearch(positions, 0, mCount, pos);
+        }
+        return entry >= 0 && entry < mCount && positions[entry] == pos ? entry : -1;
+    }
+}
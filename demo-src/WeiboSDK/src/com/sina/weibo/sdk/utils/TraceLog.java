@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sina.weibo.sdk.platform.PlatformLog;
+
+/**
+ * Structured request logger, the companion of {@link LogUtil}.
+ *
+ * Records are key/value events (trace id, request id, parent id, url, duration...)
+ * kept in a fixed-size ring buffer. The slots are allocated once and overwritten,
+ * and a writer claims its slot with an atomic counter, then fills it holding the
+ * lock of that slot only, so logging a record does not allocate and two
+ * request threads only contend when they write the same slot.
+ * Tracing is disabled by default; while disabled, {@link #isEnabled()} is the
+ * only cost callers pay.
+ *
+ * Records are only printed with {@link PlatformLog} after
+ * {@link #setLogOutput(boolean)}; that formats a string per record.
+ *
+ * Sampling is decided once per trace (see {@link #shouldSample()}), so either
+ * every request of a trace is recorded or none of them.
+ *
+ * @author SINA
+ * @since 2014-04-08
+ */
+public class TraceLog {
+    private static final String TAG = "WeiboTrace";
+
+    /** Default ring buffer capacity */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /** Event names */
+    public static final String EVENT_START  = "start";
+    public static final String EVENT_FINISH = "finish";
+    public static final String EVENT_ERROR  = "error";
+
+    private static volatile boolean sEnabled = false;
+    private static volatile boolean sLogOutput = false;
+    /** Sample rate in [0, 1], 1 means every trace is recorded */
+    private static volatile float sSampleRate = 1.0f;
+
+    private static volatile Ring sRing = new Ring(DEFAULT_CAPACITY);
+
+    /**
+     * A single structured log record.
+     */
+    public static final class Record {
+        public long   timeMillis;
+        public String event;
+        public String traceId;
+        public String requestId;
+        public String parentId;
+        public String method;
+        public String url;
+        public long   durationMillis;
+        public String message;
+
+        /** Index of the record held in this slot, -1 if none; guarded by the slot */
+        private long mSequence = -1;
+
+        private void copyTo(Record target) {
+            target.timeMillis     = timeMillis;
+            target.event          = event;
+            target.traceId        = traceId;
+            target.requestId      = requestId;
+            target.parentId       = parentId;
+            target.method         = method;
+            target.url            = url;
+            target.durationMillis = durationMillis;
+            target.message        = message;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder strb = new StringBuilder(128);
+            strb.append("time=").append(timeMillis)
+                .append(" event=").append(event)
+                .append(" trace=").append(traceId)
+                .append(" request=").append(requestId)
+                .append(" parent=").append(parentId)
+                .append(" method=").append(method)
+                .append(" url=").append(url)
+                .append(" duration_ms=").append(durationMillis);
+            if (message != null) {
+                strb.append(" msg=").append(message);
+            }
+            return strb.toString();
+        }
+    }
+
+    public static void enable() {
+        sEnabled = true;
+    }
+
+    public static void disable() {
+        sEnabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Also prints the finish and error records with {@link PlatformLog}, off by default.
+     */
+    public static void setLogOutput(boolean logOutput) {
+        sLogOutput = logOutput;
+    }
+
+    /**
+     * Sets the ratio of traces to record.
+     *
+     * @param sampleRate value in [0, 1], out of range values are clamped
+     */
+    public static void setSampleRate(float sampleRate) {
+        sSampleRate = Math.max(0.0f, Math.min(1.0f, sampleRate));
+    }
+
+    /**
+     * Decides whether a new trace is recorded, call it once per root request.
+     */
+    public static boolean shouldSample() {
+        float rate = sSampleRate;
+        if (rate >= 1.0f) {
+            return true;
+        }
+        return rate > 0.0f && Math.random() < rate;
+    }
+
+    /**
+     * Resizes the ring buffer, already recorded entries are dropped.
+     *
+     * @param capacity number of records kept in memory
+     */
+    public static void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        sRing = new Ring(capacity);
+    }
+
+    /**
+     * Writes a record into the ring buffer, overwriting the oldest one when it is full.
+     */
+    public static void log(String event, String traceId, String requestId, String parentId,
+            String method, String url, long durationMillis, String message) {
+        if (!sEnabled) {
+            return;
+        }
+
+        Ring ring = sRing;
+        long sequence = ring.mCount.getAndIncrement();
+        Record record = ring.mRecords[(int) (sequence % ring.mRecords.length)];
+        synchronized (record) {
+            // A writer one lap ahead may already hold the slot
+            if (record.mSequence < sequence) {
+                record.timeMillis     = System.currentTimeMillis();
+                record.event          = event;
+                record.traceId        = traceId;
+                record.requestId      = requestId;
+                record.parentId       = parentId;
+                record.method         = method;
+                record.url            = url;
+                record.durationMillis = durationMillis;
+                record.message        = message;
+                record.mSequence      = sequence;
+            }
+        }
+
+        if (sLogOutput && !EVENT_START.equals(event)) {
+            PlatformLog.d(TAG, event + " trace=" + traceId + " request=" + requestId
+                    + " duration_ms=" + durationMillis + " url=" + url);
+        }
+    }
+
+    /**
+     * Returns a copy of the buffered records, oldest first. Records
+     * overwritten while the copy is made are left out.
+     */
+    public static List<Record> snapshot() {
+        Ring ring = sRing;
+        int capacity = ring.mRecords.length;
+        long count = ring.mCount.get();
+        int size = (int) Math.min(count, capacity);
+        List<Record> result = new ArrayList<Record>(size);
+        for (long ix = count - size; ix < count; ix++) {
+            Record record = ring.mRecords[(int) (ix % capacity)];
+            synchronized (record) {
+                if (record.mSequence == ix) {
+                    Record copy = new Record();
+                    record.copyTo(copy);
+                    result.add(copy);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the buffered records of one trace, oldest first.
+     *
+     * @param traceId trace id, i.e. the request id of the root request
+     */
+    public static List<Record> snapshot(String traceId) {
+        List<Record> all = snapshot();
+        List<Record> result = new ArrayList<Record>();
+        for (Record record : all) {
+            if (traceId != null && traceId.equals(record.traceId)) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    public static void clear() {
+        sRing = new Ring(sRing.mRecords.length);
+    }
+
+    /**
+     * The slots and the number of records ever written; the next slot is
+     * count % capacity. Replaced as a whole on resize and clear.
+     */
+    private static final class Ring {
+        final Record[] mRecords;
+        final AtomicLong mCount = new AtomicLong();
+
+        Ring(int capacity) {
+            mRecords = new Record[capacity];
+            for (int ix = 0; ix < capacity; ix++) {
+                mRecords[ix] = new Record();
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Timing helper of the benchmarks. A benchmark runs as a plain JUnit test,
+ * prints its figures and only asserts what does not depend on the machine.
+ * The benchmarks run on a desktop JVM with {@code ant benchmark}, see
+ * build.xml: allocations are read with com.sun.management, where available.
+ *
+ * @author SINA
+ * @since 2014-05-20
+ */
+public final class Benchmarks {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    /**
+     * A measured operation.
+     */
+    public interface Body {
+        /**
+         * Runs the operation a number of times.
+         *
+         * @return a value depending on the work done, so that it is not optimized away
+         */
+        long run(int times) throws Exception;
+    }
+
+    private static volatile long sSink;
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Returns the best time of an operation in nanoseconds, over a few rounds
+     * after a warm-up, and prints it.
+     */
+    public static double nanosPerOp(String name, int times, Body body) throws Exception {
+        for (int ix = 0; ix < WARMUP_ROUNDS; ix++) {
+            sSink += body.run(times);
+        }
+        long best = Long.MAX_VALUE;
+        for (int ix = 0; ix < ROUNDS; ix++) {
+            long start = System.nanoTime();
+            sSink += body.run(times);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double nanos = (double) best / times;
+        System.out.println(String.format("%-48s %12.1f ns/op", name, nanos));
+        return nanos;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the calling thread, or -1 if the VM
+     * does not tell, e.g. on Android.
+     */
+    public static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        return sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()
+                ? sunBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    /**
+     * Returns the heap in use after a full collection, as far as the VM allows.
+     */
+    public static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int ix = 0; ix < 4; ix++) {
+            System.gc();
+            System.runFinalization();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
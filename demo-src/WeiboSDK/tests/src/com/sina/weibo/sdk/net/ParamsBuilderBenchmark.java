@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URLEncoder;
+
+import org.junit.Test;
+
+import com.sina.weibo.sdk.Benchmarks;
+
+/**
+ * Encoding cost per request of {@link ParamsBuilder}, compared with
+ * {@link WeiboParameters} and its URLEncoder based encodeUrl().
+ *
+ * @author SINA
+ * @since 2014-05-20
+ */
+public class ParamsBuilderBenchmark {
+
+    private static final int REQUESTS = 100000;
+
+    private static final String TOKEN = "2.00Bcd3EFghIJkl4a5b6c7d8e9f0gHIJK";
+    private static final String STATUS = "今天的天气不错，去 http://t.cn/8sYl0Jk 看看 @新浪 #周末# & 100% = fun";
+
+    @Test
+    public void testSameEncoding() throws Exception {
+        assertEquals(legacyEncodeUrl(timelineParameters(1)),
+                timelineBuilder(new ParamsBuilder(), 1).encodeUrl());
+        assertEquals(legacyEncodeUrl(updateParameters()), updateBuilder(new ParamsBuilder()).encodeUrl());
+    }
+
+    @Test
+    public void benchmarkTimelineQuery() throws Exception {
+        double legacy = Benchmarks.nanosPerOp("WeiboParameters + URLEncoder", REQUESTS, new Benchmarks.Body() {
+            @Override
+            public long run(int times) throws Exception {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    sum += legacyEncodeUrl(timelineParameters(ix)).length();
+                }
+                return sum;
+            }
+        });
+        Benchmarks.nanosPerOp("new ParamsBuilder + encodeUrl", REQUESTS, new Benchmarks.Body() {
+            @Override
+            public long run(int times) {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    sum += timelineBuilder(new ParamsBuilder(), ix).encodeUrl().length();
+                }
+                return sum;
+            }
+        });
+        final ParamsBuilder params = new ParamsBuilder();
+        final StringBuilder url = new StringBuilder(256);
+        double reused = Benchmarks.nanosPerOp("reused ParamsBuilder + appendTo", REQUESTS, new Benchmarks.Body() {
+            @Override
+            public long run(int times) {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    params.clear();
+                    url.setLength(0);
+                    timelineBuilder(params, ix).appendTo(url);
+                    sum += url.length();
+                }
+                return sum;
+            }
+        });
+        System.out.println(String.format("timeline query speedup %.1fx", legacy / reused));
+
+        long legacyBytes = allocatedPerRequest(new Benchmarks.Body() {
+            @Override
+            public long run(int times) throws Exception {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    sum += legacyEncodeUrl(timelineParameters(ix)).length();
+                }
+                return sum;
+            }
+        });
+        long reusedBytes = allocatedPerRequest(new Benchmarks.Body() {
+            @Override
+            public long run(int times) {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    params.clear();
+                    url.setLength(0);
+                    timelineBuilder(params, ix).appendTo(url);
+                    sum += url.length();
+                }
+                return sum;
+            }
+        });
+        if (legacyBytes >= 0) {
+            System.out.println("bytes allocated per timeline query: WeiboParameters " + legacyBytes
+                    + ", reused ParamsBuilder " + reusedBytes);
+            assertTrue(reusedBytes < legacyBytes);
+        }
+    }
+
+    @Test
+    public void benchmarkUpdateBody() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        double legacy = Benchmarks.nanosPerOp("WeiboParameters body", REQUESTS, new Benchmarks.Body() {
+            @Override
+            public long run(int times) throws Exception {
+                for (int ix = 0; ix < times; ix++) {
+                    out.reset();
+                    out.write(legacyEncodeUrl(updateParameters()).getBytes("UTF-8"));
+                }
+                return out.size();
+            }
+        });
+        final ParamsBuilder params = new ParamsBuilder();
+        double reused = Benchmarks.nanosPerOp("reused ParamsBuilder body", REQUESTS, new Benchmarks.Body() {
+            @Override
+            public long run(int times) throws Exception {
+                for (int ix = 0; ix < times; ix++) {
+                    out.reset();
+                    params.clear();
+                    updateBuilder(params).encodeBody().writeTo(out);
+                }
+                return out.size();
+            }
+        });
+        System.out.println(String.format("update body speedup %.1fx", legacy / reused));
+    }
+
+    private static WeiboParameters timelineParameters(int page) {
+        WeiboParameters params = new WeiboParameters();
+        params.put("since_id", 3711925474523181L);
+        params.put("max_id", 0L);
+        params.put("count", 50);
+        params.put("page", page);
+        params.put("base_app", 0);
+        params.put("trim_user", 1);
+        params.put("feature", 0);
+        params.put("access_token", TOKEN);
+        return params;
+    }
+
+    private static ParamsBuilder timelineBuilder(ParamsBuilder params, int page) {
+        params.put("since_id", 3711925474523181L);
+        params.put("max_id", 0L);
+        params.put("count", 50);
+        params.put("page", page);
+        params.put("base_app", 0);
+        params.put("trim_user", 1);
+        params.put("feature", 0);
+        params.put("access_token", TOKEN);
+        return params;
+    }
+
+    private static WeiboParameters updateParameters() {
+        WeiboParameters params = new WeiboParameters();
+        params.put("status", STATUS);
+        params.put("visible", "0");
+        params.put("long", "116.40374");
+        params.put("lat", "39.9101");
+        params.put("access_token", TOKEN);
+        return params;
+    }
+
+    private static ParamsBuilder updateBuilder(ParamsBuilder params) {
+        params.put("status", STATUS);
+        params.put("visible", "0");
+        params.put("long", "116.40374");
+        params.put("lat", "39.9101");
+        params.put("access_token", TOKEN);
+        return params;
+    }
+
+    /**
+     * What {@link WeiboParameters#encodeUrl()} does, without its android.text and log calls.
+     */
+    private static String legacyEncodeUrl(WeiboParameters params) throws Exception {
+        StringBuilder encoded = new StringBuilder();
+        boolean first = true;
+        for (String key : params.getParams().keySet()) {
+            Object value = params.get(key);
+            if (!(value instanceof String) || ((String) value).length() == 0) {
+                continue;
+            }
+            if (!first) {
+                encoded.append("&");
+            }
+            first = false;
+            encoded.append(new StringBuilder(String.valueOf(URLEncoder.encode(key, "UTF-8"))).append("=")
+                    .append(URLEncoder.encode((String) value, "UTF-8")).toString());
+        }
+        return encoded.toString();
+    }
+
+    private static long allocatedPerRequest(Benchmarks.Body body) throws Exception {
+        body.run(REQUESTS);
+        long before = Benchmarks.allocatedBytes();
+        body.run(REQUESTS);
+        long after = Benchmarks.allocatedBytes();
+        return before < 0 ? -1 : (after - before) / REQUESTS;
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sina.weibo.sdk.auth.Oauth2AccessToken;
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.exception.WeiboTimeoutException;
+import com.sina.weibo.sdk.openapi.UsersAPI;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Load test of the blocking request path against a local mock server: many
+ * concurrent *Sync calls, on virtual threads when the VM has them, compared
+ * with plain HttpURLConnection calls, and the per-call deadlines.
+ *
+ * The number of calls is set with {@code -Dweibo.loadTest.calls=...}.
+ *
+ * @author SINA
+ * @since 2014-05-20
+ */
+public class SyncClientLoadTest {
+
+    private static final String API_SERVER = "https://api.weibo.com/2";
+
+    private static final int DEFAULT_CALLS = 2000;
+    private static final long LATENCY_MILLIS = 50;
+    private static final long SLOW_LATENCY_MILLIS = 3000;
+    private static final long DEADLINE_MILLIS = 300;
+
+    private HttpServer mServer;
+    private ExecutorService mServerExecutor;
+    private String mLocalServer;
+    private IHttpTransport mTransport;
+    private Oauth2AccessToken mToken;
+
+    private final AtomicInteger mInFlight = new AtomicInteger();
+    private final AtomicInteger mMaxInFlight = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        mServerExecutor = Executors.newCachedThreadPool();
+        mServer.setExecutor(mServerExecutor);
+        mServer.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int inFlight = mInFlight.incrementAndGet();
+                while (inFlight > mMaxInFlight.get() && !mMaxInFlight.compareAndSet(mMaxInFlight.get(), inFlight)) {
+                    // Retry with the new maximum
+                }
+                try {
+                    boolean slow = exchange.getRequestURI().getPath().endsWith("/slow");
+                    Thread.sleep(slow ? SLOW_LATENCY_MILLIS : LATENCY_MILLIS);
+                    byte[] body = "{\"id\":1642909335,\"idstr\":\"1642909335\"}".getBytes("UTF-8");
+                    exchange.sendResponseHeaders(200, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(body);
+                    out.close();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    mInFlight.decrementAndGet();
+                    exchange.close();
+                }
+            }
+        });
+        mServer.start();
+
+        final String localServer = "http://127.0.0.1:" + mServer.getAddress().getPort() + "/2";
+        mLocalServer = localServer;
+        mTransport = new IHttpTransport() {
+            @Override
+            public String execute(HttpRequest request) throws WeiboException {
+                String url = request.getUrl().replace(API_SERVER, localServer);
+                HttpRequest local = request.getParamsBuilder() != null
+                        ? new HttpRequest(url, request.getHttpMethod(), request.getParamsBuilder())
+                        : new HttpRequest(url, request.getHttpMethod(), request.getParams());
+                local.setDeadline(request.getDeadline());
+                return DefaultHttpTransport.getInstance().execute(local);
+            }
+        };
+        mToken = new Oauth2AccessToken("2.00Bcd3EFghIJkl4a5b6c7d8e9f0gHIJK", String.valueOf(Integer.MAX_VALUE));
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop(0);
+        mServerExecutor.shutdownNow();
+    }
+
+    /**
+     * The calls through the SDK must scale like plain HttpURLConnection calls
+     * to the same server, which bounds the concurrency of the test.
+     */
+    @Test
+    public void testConcurrentSyncCalls() throws Exception {
+        int calls = Integer.getInteger("weibo.loadTest.calls", DEFAULT_CALLS);
+        final String url = mLocalServer + "/users/show.json?uid=1642909335";
+        long baselineMillis = runConcurrently(calls, "HttpURLConnection", new Call() {
+            @Override
+            public boolean run(long uid) throws Exception {
+                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+                InputStream in = connection.getInputStream();
+                try {
+                    while (in.read() >= 0) {
+                        // Drain
+                    }
+                } finally {
+                    in.close();
+                }
+                return connection.getResponseCode() == 200;
+            }
+        });
+        long sdkMillis = runConcurrently(calls, "UsersAPI.showSync", new Call() {
+            @Override
+            public boolean run(long uid) {
+                UsersAPI api = new UsersAPI(mToken);
+                api.setTransport(mTransport);
+                api.setCallTimeout(30000);
+                return api.showSync(uid).contains("1642909335");
+            }
+        });
+
+        // Serialized calls would take calls * LATENCY_MILLIS
+        assertTrue("too little concurrency: " + sdkMillis + " ms", sdkMillis < calls * LATENCY_MILLIS / 10);
+        assertTrue("SDK " + sdkMillis + " ms, plain " + baselineMillis + " ms", sdkMillis < baselineMillis * 2 + 500);
+    }
+
+    @Test
+    public void testCallDeadline() {
+        AbsOpenAPIAccess api = new AbsOpenAPIAccess(mToken);
+        api.setTransport(mTransport);
+        long start = System.nanoTime();
+        long previous = CallDeadline.set(CallDeadline.after(DEADLINE_MILLIS));
+        try {
+            api.requestSlow();
+            fail("no timeout");
+        } catch (WeiboTimeoutException e) {
+            assertInTime(start);
+        } finally {
+            CallDeadline.restore(previous);
+        }
+    }
+
+    @Test
+    public void testCallTimeout() {
+        AbsOpenAPIAccess api = new AbsOpenAPIAccess(mToken);
+        api.setTransport(mTransport);
+        api.setCallTimeout(DEADLINE_MILLIS);
+        long start = System.nanoTime();
+        try {
+            api.requestSlow();
+            fail("no timeout");
+        } catch (WeiboTimeoutException e) {
+            assertInTime(start);
+        }
+    }
+
+    /**
+     * A blocking call, returning true if it succeeded.
+     */
+    private interface Call {
+        boolean run(long uid) throws Exception;
+    }
+
+    /**
+     * Runs the calls on one thread each and asserts that they all succeed.
+     *
+     * @return elapsed time in milliseconds
+     */
+    private long runConcurrently(int calls, String name, final Call call) throws Exception {
+        final AtomicInteger succeeded = new AtomicInteger();
+        final AtomicReference<Exception> error = new AtomicReference<Exception>();
+        final CountDownLatch done = new CountDownLatch(calls);
+        mMaxInFlight.set(0);
+
+        long start = System.nanoTime();
+        boolean virtual = false;
+        for (int ix = 0; ix < calls; ix++) {
+            final long uid = 1642909335L + ix;
+            virtual = startThread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (call.run(uid)) {
+                            succeeded.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        error.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        assertTrue(name + " calls still running", done.await(60, TimeUnit.SECONDS));
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        System.out.println(String.format("%d %s calls on %s threads in %d ms, up to %d in flight on the server",
+                calls, name, virtual ? "virtual" : "platform", elapsedMillis, mMaxInFlight.get()));
+        if (error.get() != null) {
+            throw error.get();
+        }
+        assertEquals(calls, succeeded.get());
+        return elapsedMillis;
+    }
+
+    private static void assertInTime(long startNanos) {
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1000000;
+        System.out.println("timed out after " + elapsedMillis + " ms, deadline " + DEADLINE_MILLIS + " ms");
+        assertTrue(elapsedMillis >= DEADLINE_MILLIS - 10);
+        assertTrue(elapsedMillis < SLOW_LATENCY_MILLIS / 2);
+    }
+
+    /**
+     * Starts a virtual thread when the VM has them, a platform thread otherwise.
+     *
+     * @return true if the thread is virtual
+     */
+    private static boolean startThread(Runnable runnable) throws Exception {
+        Method startVirtualThread;
+        try {
+            startVirtualThread = Thread.class.getMethod("startVirtualThread", Runnable.class);
+        } catch (NoSuchMethodException e) {
+            new Thread(runnable).start();
+            return false;
+        }
+        startVirtualThread.invoke(null, runnable);
+        return true;
+    }
+
+    /**
+     * Gives access to a request on an endpoint of the mock server only.
+     */
+    private static class AbsOpenAPIAccess extends com.sina.weibo.sdk.openapi.AbsOpenAPI {
+        AbsOpenAPIAccess(Oauth2AccessToken accessToken) {
+            super(accessToken);
+        }
+
+        String requestSlow() {
+            return requestSync(API_SERVER + "/slow", new ParamsBuilder(), HTTPMETHOD_GET);
+        }
+    }
+}
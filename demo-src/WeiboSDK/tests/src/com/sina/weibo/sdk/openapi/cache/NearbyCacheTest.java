@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sina.weibo.sdk.auth.Oauth2AccessToken;
+import com.sina.weibo.sdk.exception.WeiboException;
+import com.sina.weibo.sdk.net.RequestListener;
+import com.sina.weibo.sdk.openapi.legacy.PlaceAPI;
+import com.sina.weibo.sdk.openapi.models.Poi;
+
+/**
+ * {@link NearbyCache} against a fake nearby/pois.json serving a regular grid
+ * of POIs, at the default tile size and PlaceAPI range.
+ *
+ * @author SINA
+ * @since 2014-05-20
+ */
+public class NearbyCacheTest {
+
+    private static final double LAT = 39.9836;
+    private static final double LON = 116.3078;
+    /** Default range of nearby/pois.json */
+    private static final int RANGE = 2000;
+    private static final int COUNT = 50;
+
+    /** Spacing of the POI grid in degrees */
+    private static final double GRID_LAT = 0.005;
+    private static final double GRID_LON = 0.006;
+
+    private FakePlaceAPI mApi;
+    private NearbyCache mCache;
+
+    @Before
+    public void setUp() {
+        mApi = new FakePlaceAPI();
+        mCache = new NearbyCache();
+    }
+
+    @Test
+    public void testPanAtDefaultRange() {
+        Result first = nearbyPois(LAT, LON, RANGE);
+        assertFalse(first.fromCache);
+        assertTrue(mApi.mRequests > 0);
+        assertEquals(pointsWithin(LAT, LON, RANGE).size(), first.pois.size());
+
+        int requests = mApi.mRequests;
+        double shiftedLat = LAT + 100 / 111195.0;
+        Result panned = nearbyPois(shiftedLat, LON, RANGE);
+        assertTrue(panned.fromCache);
+        assertEquals(requests, mApi.mRequests);
+        assertEquals(pointsWithin(shiftedLat, LON, RANGE).size(), panned.pois.size());
+
+        Result zoomedIn = nearbyPois(LAT, LON, RANGE / 4);
+        assertTrue(zoomedIn.fromCache);
+        assertEquals(pointsWithin(LAT, LON, RANGE / 4).size(), zoomedIn.pois.size());
+    }
+
+    @Test
+    public void testPanOutsideFetchedCircle() {
+        nearbyPois(LAT, LON, RANGE);
+        int requests = mApi.mRequests;
+
+        double farLat = LAT + 5000 / 111195.0;
+        Result panned = nearbyPois(farLat, LON, RANGE);
+        assertFalse(panned.fromCache);
+        assertTrue(mApi.mRequests > requests);
+        assertEquals(pointsWithin(farLat, LON, RANGE).size(), panned.pois.size());
+    }
+
+    private Result nearbyPois(double lat, double lon, int range) {
+        final Result result = new Result();
+        // The fake answers synchronously
+        mCache.nearbyPois(mApi, lat, lon, range, null, COUNT, new NearbyCache.NearbyListener<Poi>() {
+            @Override
+            public void onResult(List<Poi> items, boolean fromCache) {
+                result.pois = items;
+                result.fromCache = fromCache;
+            }
+
+            @Override
+            public void onWeiboException(WeiboException e) {
+                throw e;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the grid points inside the circle, nearest first.
+     */
+    private static List<double[]> pointsWithin(final double lat, final double lon, int range) {
+        List<double[]> points = new ArrayList<double[]>();
+        double dLat = range / 111195.0 + GRID_LAT;
+        double dLon = dLat / Math.cos(Math.toRadians(lat)) + GRID_LON;
+        for (long y = Math.round((lat - dLat) / GRID_LAT); y * GRID_LAT <= lat + dLat; y++) {
+            for (long x = Math.round((lon - dLon) / GRID_LON); x * GRID_LON <= lon + dLon; x++) {
+                double[] point = { y * GRID_LAT, x * GRID_LON, y, x };
+                if (GeoTileIndex.distanceMeters(lat, lon, point[0], point[1]) <= range) {
+                    points.add(point);
+                }
+            }
+        }
+        Collections.sort(points, new Comparator<double[]>() {
+            @Override
+            public int compare(double[] a, double[] b) {
+                return Double.compare(GeoTileIndex.distanceMeters(lat, lon, a[0], a[1]),
+                        GeoTileIndex.distanceMeters(lat, lon, b[0], b[1]));
+            }
+        });
+        return points;
+    }
+
+    private static class Result {
+        List<Poi> pois;
+        boolean fromCache;
+    }
+
+    private static class FakePlaceAPI extends PlaceAPI {
+        int mRequests;
+
+        FakePlaceAPI() {
+            super(new Oauth2AccessToken("2.00Bcd3EFghIJkl4a5b6c7d8e9f0gHIJK", String.valueOf(Integer.MAX_VALUE)));
+        }
+
+        @Override
+        public void nearbyPois(String lat, String lon, int range, String q, String category, int count, int page,
+                int sortType, boolean offset, RequestListener listener) {
+            mRequests++;
+            List<double[]> points = pointsWithin(Double.parseDouble(lat), Double.parseDouble(lon), range);
+            try {
+                JSONArray geos = new JSONArray();
+                for (int ix = (page - 1) * count; ix < Math.min(points.size(), page * count); ix++) {
+                    double[] point = points.get(ix);
+                    geos.put(new JSONObject()
+                            .put("poiid", (long) point[2] + "_" + (long) point[3])
+                            .put("lat", String.valueOf(point[0]))
+                            .put("lon", String.valueOf(point[1])));
+                }
+                listener.onComplete(new JSONObject()
+                        .put("total_number", String.valueOf(points.size()))
+                        .put("geos", geos)
+                        .toString());
+            } catch (JSONException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.openapi.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.sina.weibo.sdk.utils.JsonReader;
+
+/**
+ * Checks that the streaming readers of the models, {@code read(JsonReader)},
+ * give the same objects as the tree parsers, {@code parse(JSONObject)}.
+ *
+ * @author SINA
+ * @since 2014-05-20
+ */
+public class ModelParityTest {
+
+    /** Models having both parsers, with their key tables */
+    private static final Class<?>[] MODELS = {
+        Comment.class, Coordinate.class, Emotion.class, Favorite.class,
+        Geo.class, Group.class, MusicInfo.class, Poi.class,
+        ShortUrl.class, Status.class, StatusCount.class, Tag.class,
+        User.class, UserCount.class, Visible.class,
+    };
+
+    /** Values given to every key of a model */
+    private static final String[] VALUES = {
+        "null", "12", "-3", "\"12\"", "\"abc\"", "\"\"", "true", "false", "\"true\"", "{}", "[]",
+    };
+
+    private static final String STATUS = "{"
+            + "\"created_at\":\"Tue May 20 17:42:05 +0800 2014\","
+            + "\"id\":3711925474523181,\"mid\":\"3711925474523181\",\"idstr\":\"3711925474523181\","
+            + "\"text\":\"转发 http://t.cn/8sYl0Jk @新浪 #话题#\","
+            + "\"source\":\"<a href=\\\"http://weibo.com\\\">微博</a>\","
+            + "\"favorited\":false,\"truncated\":false,\"in_reply_to_status_id\":\"\","
+            + "\"in_reply_to_user_id\":\"\",\"in_reply_to_screen_name\":\"\",\"geo\":null,"
+            + "\"thumbnail_pic\":\"http://ww1.sinaimg.cn/thumbnail/a.jpg\","
+            + "\"pic_urls\":[{\"thumbnail_pic\":\"http://ww1.sinaimg.cn/thumbnail/a.jpg\"},"
+            + "{\"thumbnail_pic\":null}],"
+            + "\"reposts_count\":12,\"comments_count\":\"3\",\"attitudes_count\":0,\"mlevel\":0,"
+            + "\"visible\":{\"type\":0,\"list_id\":0},"
+            + "\"user\":{\"id\":1642909335,\"idstr\":\"1642909335\",\"screen_name\":\"新浪\","
+            + "\"name\":\"新浪\",\"province\":\"11\",\"city\":\"1000\",\"location\":null,"
+            + "\"description\":null,\"url\":\"\",\"gender\":\"m\",\"followers_count\":25810000,"
+            + "\"verified\":true,\"verified_type\":2,\"remark\":null,\"lang\":\"zh-cn\","
+            + "\"star\":0,\"mbtype\":12,\"mbrank\":6,\"block_word\":0,\"unknown\":{\"a\":[1,2]}},"
+            + "\"retweeted_status\":{\"id\":3711925474523100,\"text\":\"原文\",\"user\":null,"
+            + "\"geo\":{\"longitude\":\"116.39\",\"latitude\":\"39.90\",\"city\":\"1000\",\"address\":null}}"
+            + "}";
+
+    @Test
+    public void testEveryValueOfEveryKey() throws Exception {
+        for (Class<?> model : MODELS) {
+            JsonReader.Names names = names(model);
+            for (String value : VALUES) {
+                StringBuilder json = new StringBuilder("{");
+                for (int ix = 0; ix < names.size(); ix++) {
+                    json.append(ix > 0 ? "," : "").append('"').append(names.get(ix)).append("\":").append(value);
+                }
+                assertParity(model, json.append('}').toString());
+            }
+        }
+    }
+
+    @Test
+    public void testMissingKeys() throws Exception {
+        for (Class<?> model : MODELS) {
+            assertParity(model, "{}");
+        }
+    }
+
+    @Test
+    public void testStatus() throws Exception {
+        Status status = (Status) assertParity(Status.class, STATUS);
+        assertEquals("", status.user.location);
+        assertEquals("", status.user.description);
+        assertEquals("", status.retweeted_status.geo.address);
+    }
+
+    @Test
+    public void testComment() throws Exception {
+        assertParity(Comment.class, "{\"created_at\":\"Tue May 20 17:42:05 +0800 2014\",\"id\":3711925474523999,"
+                + "\"text\":\"回复\",\"source\":null,\"user\":" + "{\"id\":1,\"location\":null},"
+                + "\"status\":" + STATUS + ",\"reply_comment\":{\"id\":2,\"text\":null}}");
+    }
+
+    /**
+     * Parses a JSON object with both parsers and compares every public field.
+     *
+     * @return the object read by the streaming reader
+     */
+    private static Object assertParity(Class<?> model, String json) throws Exception {
+        Method parse = model.getMethod("parse", JSONObject.class);
+        Method read = model.getMethod("read", JsonReader.class);
+        Object expected = parse.invoke(null, new JSONObject(json));
+        Object actual = read.invoke(null, new JsonReader(json));
+        assertNotNull(model.getSimpleName() + " " + json, actual);
+        assertFieldsEqual(model.getSimpleName() + " " + json + "\n  ", expected, actual);
+        return actual;
+    }
+
+    private static void assertFieldsEqual(String path, Object expected, Object actual) throws Exception {
+        if (expected == null || actual == null) {
+            assertEquals(path, expected, actual);
+            return;
+        }
+        Class<?> type = expected.getClass();
+        if (!type.getName().startsWith(Status.class.getPackage().getName())) {
+            if (expected instanceof List) {
+                List<?> expectedList = (List<?>) expected;
+                List<?> actualList = (List<?>) actual;
+                assertEquals(path + ".size", expectedList.size(), actualList.size());
+                for (int ix = 0; ix < expectedList.size(); ix++) {
+                    assertFieldsEqual(path + "[" + ix + "]", expectedList.get(ix), actualList.get(ix));
+                }
+            } else {
+                assertEquals(path, expected, actual);
+            }
+            return;
+        }
+        assertEquals(path, type, actual.getClass());
+        for (Field field : type.getFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                assertFieldsEqual(path + "." + field.getName(), field.get(expected), field.get(actual));
+            }
+        }
+    }
+
+    private static JsonReader.Names names(Class<?> model) throws Exception {
+        try {
+            Field field = model.getDeclaredField("NAMES");
+            field.setAccessible(true);
+            return (JsonReader.Names) field.get(null);
+        } catch (NoSuchFieldException e) {
+            fail(model.getSimpleName() + " has no key table");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.sina.weibo.sdk.auth.Oauth2AccessToken;
+import com.sina.weibo.sdk.openapi.legacy.LocationAPI;
+import com.sina.weibo.sdk.openapi.models.Coordinate;
+import com.sina.weibo.sdk.openapi.models.OffsetGeo;
+
+/**
+ * Accuracy of {@link CoordinateTransform}.
+ *
+ * The reference points are checked offline. {@link #testAgainstApi()} compares
+ * them with location/geo/gps_to_offset when an access token is given with
+ * {@code -Dweibo.accessToken=...}, and is skipped otherwise.
+ *
+ * @author SINA
+ * @since 2014-05-20
+ */
+public class CoordinateTransformTest {
+
+    private static final String ACCESS_TOKEN_PROPERTY = "weibo.accessToken";
+
+    /** 1e-9 degree is about 0.1 mm */
+    private static final double DEGREE_DELTA = 1e-9;
+
+    /** Agreement required with the API, in meters */
+    private static final double API_TOLERANCE_METERS = 1.0;
+
+    /**
+     * WGS84 longitude and latitude, then the GCJ02 ones, computed with an
+     * independent implementation of the published algorithm. The first point
+     * is Tiananmen, whose GCJ02 position is commonly given as (116.40374, 39.91010).
+     */
+    private static final double[][] REFERENCE_POINTS = {
+        { 116.3975,  39.9087, 116.4037435727, 39.9101034993 },
+        { 121.4737,  31.2304, 121.4782230593, 31.2284577376 },
+        { 113.2644,  23.1291, 113.2697295921, 23.1264233399 },
+        { 104.0665,  30.5723, 104.0690049057, 30.5698455407 },
+        {  87.6168,  43.8256,  87.6196499495, 43.8268053931 },
+        { 126.5350,  45.8038, 126.5410403502, 45.8057815251 },
+        {  91.1409,  29.6456,  91.1424293365, 29.6428639874 },
+        { 109.5119,  18.2528, 109.5159842948, 18.2510947917 },
+    };
+
+    @Test
+    public void testReferencePoints() {
+        double[] out = new double[2];
+        for (double[] point : REFERENCE_POINTS) {
+            CoordinateTransform.wgs84ToGcj02(point[0], point[1], out);
+            assertEquals(point[2], out[0], DEGREE_DELTA);
+            assertEquals(point[3], out[1], DEGREE_DELTA);
+        }
+        CoordinateTransform.wgs84ToGcj02(116.3975, 39.9087, out);
+        assertEquals(116.40374, out[0], 1e-5);
+        assertEquals(39.91010, out[1], 1e-5);
+    }
+
+    /**
+     * Inside mainland China the offset is between a few tens and a few hundreds of meters.
+     */
+    @Test
+    public void testOffsetRange() {
+        double[] out = new double[2];
+        for (double longitude = 73.0; longitude < 135.0; longitude += 0.25) {
+            for (double latitude = 18.0; latitude < 54.0; latitude += 0.25) {
+                CoordinateTransform.wgs84ToGcj02(longitude, latitude, out);
+                double meters = CoordinateTransform.distanceMeters(longitude, latitude, out[0], out[1]);
+                assertTrue(longitude + "," + latitude + ": " + meters, meters > 30 && meters < 700);
+            }
+        }
+    }
+
+    @Test
+    public void testOutOfChina() {
+        double[][] points = {
+            { 139.6917, 35.6895 }, { -74.0060, 40.7128 }, { 2.3522, 48.8566 }, { 151.2093, -33.8688 },
+            { 72.0, 30.0 }, { 138.0, 30.0 }, { 100.0, 0.5 }, { 100.0, 56.0 },
+        };
+        double[] out = new double[2];
+        for (double[] point : points) {
+            assertTrue(CoordinateTransform.isOutOfChina(point[0], point[1]));
+            CoordinateTransform.wgs84ToGcj02(point[0], point[1], out);
+            assertEquals(point[0], out[0], 0);
+            assertEquals(point[1], out[1], 0);
+        }
+    }
+
+    @Test
+    public void testInverse() {
+        Random random = new Random(20140520);
+        double[] gcj = new double[2];
+        double[] wgs = new double[2];
+        double worst = 0;
+        for (int ix = 0; ix < 100000; ix++) {
+            double longitude = 73.5 + random.nextDouble() * 61;
+            double latitude = 18.5 + random.nextDouble() * 35;
+            CoordinateTransform.wgs84ToGcj02(longitude, latitude, gcj);
+            CoordinateTransform.gcj02ToWgs84(gcj[0], gcj[1], wgs);
+            worst = Math.max(worst, CoordinateTransform.distanceMeters(longitude, latitude, wgs[0], wgs[1]));
+        }
+        assertTrue("worst inverse error " + worst + " m", worst < 1e-3);
+    }
+
+    @Test
+    public void testBatch() {
+        int count = REFERENCE_POINTS.length;
+        double[] longitudes = new double[count];
+        double[] latitudes = new double[count];
+        for (int ix = 0; ix < count; ix++) {
+            longitudes[ix] = REFERENCE_POINTS[ix][0];
+            latitudes[ix] = REFERENCE_POINTS[ix][1];
+        }
+
+        OffsetGeo offsetGeo = LocationAPI.gps2OffsetLocal(longitudes, latitudes, count);
+        assertEquals(count, offsetGeo.Geos.size());
+
+        // In place
+        CoordinateTransform.wgs84ToGcj02(longitudes, latitudes, count, longitudes, latitudes);
+        for (int ix = 0; ix < count; ix++) {
+            assertEquals(REFERENCE_POINTS[ix][2], longitudes[ix], DEGREE_DELTA);
+            assertEquals(REFERENCE_POINTS[ix][3], latitudes[ix], DEGREE_DELTA);
+            assertEquals(longitudes[ix], offsetGeo.Geos.get(ix).Longtitude, 0);
+            assertEquals(latitudes[ix], offsetGeo.Geos.get(ix).Latitude, 0);
+
+            Coordinate single = LocationAPI.gps2OffsetLocal(REFERENCE_POINTS[ix][0], REFERENCE_POINTS[ix][1]);
+            assertEquals(longitudes[ix], single.Longtitude, 0);
+            assertEquals(latitudes[ix], single.Latitude, 0);
+        }
+    }
+
+    @Test
+    public void testAgainstApi() {
+        String token = System.getProperty(ACCESS_TOKEN_PROPERTY);
+        Assume.assumeTrue(token != null && token.length() > 0);
+
+        LocationAPI api = new LocationAPI(new Oauth2AccessToken(token, String.valueOf(Integer.MAX_VALUE)));
+        for (double[] point : REFERENCE_POINTS) {
+            OffsetGeo offsetGeo = OffsetGeo.parse(api.gps2OffsetSync(point[0], point[1]));
+            assertNotNull(offsetGeo);
+            assertNotNull(offsetGeo.Geos);
+            Coordinate remote = offsetGeo.Geos.get(0);
+            Coordinate local = LocationAPI.gps2OffsetLocal(point[0], point[1]);
+            double meters = CoordinateTransform.distanceMeters(local.Longtitude, local.Latitude,
+                    remote.Longtitude, remote.Latitude);
+            System.out.println(point[0] + "," + point[1] + ": local and API " + meters + " m apart");
+            assertTrue(meters < API_TOLERANCE_METERS);
+        }
+    }
+}
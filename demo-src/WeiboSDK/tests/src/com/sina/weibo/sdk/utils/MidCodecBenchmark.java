@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.sina.weibo.sdk.Benchmarks;
+
+/**
+ * Cost of {@link MidCodec} per status, compared with the String based
+ * conversion it replaces.
+ *
+ * @author SINA
+ * @since 2014-05-20
+ */
+public class MidCodecBenchmark {
+
+    private static final int COUNT = 1 << 16;
+
+    private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    private final long[] mIds = new long[COUNT];
+    private final String[] mMids = new String[COUNT];
+
+    public MidCodecBenchmark() {
+        Random random = new Random(20140520);
+        for (int ix = 0; ix < COUNT; ix++) {
+            mIds[ix] = 3000000000000000L + (random.nextLong() & 0xFFFFFFFFFFFFFL);
+            mMids[ix] = MidCodec.idToMid(mIds[ix]);
+        }
+    }
+
+    @Test
+    public void benchmarkEncode() throws Exception {
+        final StringBuilder url = new StringBuilder(64);
+        Benchmarks.nanosPerOp("MidCodec.appendMid", COUNT, new Benchmarks.Body() {
+            @Override
+            public long run(int times) {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    url.setLength(0);
+                    sum += MidCodec.appendMid(url, mIds[ix]).length();
+                }
+                return sum;
+            }
+        });
+        Benchmarks.nanosPerOp("MidCodec.idToMid", COUNT, new Benchmarks.Body() {
+            @Override
+            public long run(int times) {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    sum += MidCodec.idToMid(mIds[ix]).length();
+                }
+                return sum;
+            }
+        });
+        Benchmarks.nanosPerOp("String based idToMid", COUNT, new Benchmarks.Body() {
+            @Override
+            public long run(int times) {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    sum += stringIdToMid(mIds[ix]).length();
+                }
+                return sum;
+            }
+        });
+    }
+
+    @Test
+    public void benchmarkDecode() throws Exception {
+        Benchmarks.nanosPerOp("MidCodec.midToId", COUNT, new Benchmarks.Body() {
+            @Override
+            public long run(int times) {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    sum += MidCodec.midToId(mMids[ix]);
+                }
+                return sum;
+            }
+        });
+        Benchmarks.nanosPerOp("String based midToId", COUNT, new Benchmarks.Body() {
+            @Override
+            public long run(int times) {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    sum += stringMidToId(mMids[ix]);
+                }
+                return sum;
+            }
+        });
+    }
+
+    /**
+     * appendMid into a reused builder and midToId allocate nothing.
+     */
+    @Test
+    public void testNoAllocation() {
+        StringBuilder url = new StringBuilder(64);
+        long sum = 0;
+        for (int ix = 0; ix < COUNT; ix++) {
+            url.setLength(0);
+            sum += MidCodec.appendMid(url, mIds[ix]).length() + MidCodec.midToId(mMids[ix]);
+        }
+
+        long before = Benchmarks.allocatedBytes();
+        for (int ix = 0; ix < COUNT; ix++) {
+            url.setLength(0);
+            sum += MidCodec.appendMid(url, mIds[ix]).length() + MidCodec.midToId(mMids[ix]);
+        }
+        long after = Benchmarks.allocatedBytes();
+        if (before >= 0) {
+            System.out.println("MidCodec allocated " + (after - before) + " bytes for " + COUNT + " round trips");
+            // A few bytes of the measurement itself
+            assertEquals(0, (after - before) / COUNT);
+        }
+        assertTrue(sum != 0);
+    }
+
+    /**
+     * The usual conversion: cut the decimal string, then Long.toString/parseLong in radix 62.
+     */
+    private static String stringIdToMid(long id) {
+        String digits = String.valueOf(id);
+        StringBuilder mid = new StringBuilder();
+        for (int end = digits.length(); end > 0; end -= 7) {
+            String group = toBase62(Long.parseLong(digits.substring(Math.max(0, end - 7), end)));
+            if (end > 7) {
+                while (group.length() < 4) {
+                    group = "0" + group;
+                }
+            }
+            mid.insert(0, group);
+        }
+        return mid.toString();
+    }
+
+    private static long stringMidToId(String mid) {
+        StringBuilder digits = new StringBuilder();
+        for (int end = mid.length(); end > 0; end -= 4) {
+            String group = String.valueOf(fromBase62(mid.substring(Math.max(0, end - 4), end)));
+            if (end > 4) {
+                while (group.length() < 7) {
+                    group = "0" + group;
+                }
+            }
+            digits.insert(0, group);
+        }
+        return Long.parseLong(digits.toString());
+    }
+
+    private static String toBase62(long value) {
+        String text = "";
+        do {
+            text = ALPHABET.charAt((int) (value % 62)) + text;
+            value /= 62;
+        } while (value > 0);
+        return text;
+    }
+
+    private static long fromBase62(String text) {
+        long value = 0;
+        for (int ix = 0; ix < text.length(); ix++) {
+            value = value * 62 + ALPHABET.indexOf(text.charAt(ix));
+        }
+        return value;
+    }
+}
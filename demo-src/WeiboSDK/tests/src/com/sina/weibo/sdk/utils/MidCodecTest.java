@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Round trips of {@link MidCodec}, exhaustive over the values of a group.
+ *
+ * @author SINA
+ * @since 2014-05-20
+ */
+public class MidCodecTest {
+
+    private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    /** Status ids and their MIDs, the first one from a weibo.com URL */
+    private static final long[] IDS = {
+        3501756485200075L, 3711925474523181L, 201110410216293360L, 1L, 61L, 62L, 9999999L, 10000000L,
+    };
+    private static final String[] MIDS = {
+        "z0JH2lOMb", "B50eDiYGx", "wr4mOFqpbO", "1", "Z", "10", "FXsj", "10000",
+    };
+
+    @Test
+    public void testKnownMids() {
+        for (int ix = 0; ix < IDS.length; ix++) {
+            assertEquals(MIDS[ix], MidCodec.idToMid(IDS[ix]));
+            assertEquals(IDS[ix], MidCodec.midToId(MIDS[ix]));
+        }
+    }
+
+    /**
+     * Every value of the leftmost group and of a padded group.
+     */
+    @Test
+    public void testEveryGroupValue() {
+        char[] buffer = new char[MidCodec.MAX_MID_LENGTH];
+        for (long group = 1; group < 10000000L; group++) {
+            assertRoundTrip(group, buffer);
+            assertRoundTrip(10000000L + group, buffer);
+        }
+    }
+
+    /**
+     * Every padded group of 4 characters decodes to a value below 10^7 and
+     * encodes back to itself, or is rejected.
+     */
+    @Test
+    public void testEveryGroupString() {
+        char[] mid = { '1', '0', '0', '0', '0' };
+        StringBuilder builder = new StringBuilder(MidCodec.MAX_MID_LENGTH);
+        int accepted = 0;
+        for (int c1 = 0; c1 < 62; c1++) {
+            mid[1] = ALPHABET.charAt(c1);
+            for (int c2 = 0; c2 < 62; c2++) {
+                mid[2] = ALPHABET.charAt(c2);
+                for (int c3 = 0; c3 < 62; c3++) {
+                    mid[3] = ALPHABET.charAt(c3);
+                    for (int c4 = 0; c4 < 62; c4++) {
+                        mid[4] = ALPHABET.charAt(c4);
+                        String text = new String(mid);
+                        long id = MidCodec.midToId(text);
+                        long value = ((c1 * 62L + c2) * 62 + c3) * 62 + c4;
+                        if (value >= 10000000L) {
+                            assertEquals(text, MidCodec.INVALID_ID, id);
+                            continue;
+                        }
+                        accepted++;
+                        assertEquals(text, 10000000L + value, id);
+                        builder.setLength(0);
+                        assertEquals(text, MidCodec.appendMid(builder, id).toString());
+                    }
+                }
+            }
+        }
+        assertEquals(10000000, accepted);
+    }
+
+    @Test
+    public void testGroupBoundaries() {
+        char[] buffer = new char[MidCodec.MAX_MID_LENGTH];
+        long power = 1;
+        for (int digits = 1; digits <= 18; digits++) {
+            power *= 10;
+            assertRoundTrip(power - 1, buffer);
+            assertRoundTrip(power, buffer);
+            assertRoundTrip(power + 1, buffer);
+        }
+        assertRoundTrip(Long.MAX_VALUE, buffer);
+        assertEquals("nZDue0tk2p9", MidCodec.idToMid(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testRandomIds() {
+        Random random = new Random(20140520);
+        char[] buffer = new char[MidCodec.MAX_MID_LENGTH];
+        for (int ix = 0; ix < 1000000; ix++) {
+            long id = random.nextLong() & Long.MAX_VALUE;
+            if (id != 0) {
+                assertRoundTrip(id, buffer);
+            }
+            // Ids of the current range
+            assertRoundTrip(3000000000000000L + (random.nextLong() & 0xFFFFFFFFFFFFFL), buffer);
+        }
+    }
+
+    @Test
+    public void testInvalidMids() {
+        String[] invalid = {
+            null, "", "0", "0z0JH2lOMb", "z0JH2l-Mb", "z0JH2l Mb", "z0JH2léMb", "zzzzzzzzzzzzz",
+            "1ZZZZ", "zzzzzzzzzzzz", "AzL8n0Y58m7", "12345678901234",
+        };
+        for (String mid : invalid) {
+            assertEquals(String.valueOf(mid), MidCodec.INVALID_ID, MidCodec.midToId(mid));
+            assertFalse(String.valueOf(mid), MidCodec.isMid(mid));
+        }
+        assertTrue(MidCodec.isMid("z0JH2lOMb"));
+    }
+
+    @Test
+    public void testOverflow() {
+        // One past Long.MAX_VALUE, written like a MID
+        String max = MidCodec.idToMid(Long.MAX_VALUE);
+        char[] chars = max.toCharArray();
+        chars[chars.length - 1] = ALPHABET.charAt(ALPHABET.indexOf(chars[chars.length - 1]) + 1);
+        assertEquals(MidCodec.INVALID_ID, MidCodec.midToId(new String(chars)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroId() {
+        MidCodec.idToMid(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeId() {
+        MidCodec.idToMid(-3501756485200075L);
+    }
+
+    @Test
+    public void testOffset() {
+        char[] buffer = "xxxxxxxxxxxxxxxx".toCharArray();
+        int length = MidCodec.idToMid(IDS[0], buffer, 3);
+        assertEquals(MIDS[0].length(), length);
+        assertEquals("xxx" + MIDS[0], new String(buffer, 0, 3 + length));
+        // Only the MID area is used
+        assertEquals('x', buffer[3 + MidCodec.MAX_MID_LENGTH]);
+    }
+
+    @Test
+    public void testBatches() {
+        String[] mids = MidCodec.idsToMids(IDS);
+        for (int ix = 0; ix < IDS.length; ix++) {
+            assertEquals(MIDS[ix], mids[ix]);
+        }
+
+        CharSequence[] mixed = { MIDS[0], "0abc", new StringBuilder(MIDS[1]), null };
+        long[] ids = new long[mixed.length];
+        assertEquals(2, MidCodec.midsToIds(mixed, ids));
+        assertEquals(IDS[0], ids[0]);
+        assertEquals(MidCodec.INVALID_ID, ids[1]);
+        assertEquals(IDS[1], ids[2]);
+        assertEquals(MidCodec.INVALID_ID, ids[3]);
+    }
+
+    private static void assertRoundTrip(long id, char[] buffer) {
+        int length = MidCodec.idToMid(id, buffer, 0);
+        String mid = new String(buffer, 0, length);
+        assertEquals(mid, id, MidCodec.midToId(mid));
+        assertTrue(mid, buffer[0] != '0');
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.sina.weibo.sdk.Benchmarks;
+
+/**
+ * Cost of finding the emotion phrases of a 200-status page with
+ * {@link PhraseMatcher}, compared with the usual regex approaches.
+ *
+ * @author SINA
+ * @since 2014-05-20
+ */
+public class PhraseMatcherBenchmark {
+
+    private static final int PHRASES = 2000;
+    private static final int STATUSES = 200;
+
+    private static final String[] COMMON = {
+        "[哈哈]", "[嘻嘻]", "[泪]", "[爱你]", "[心]", "[good]", "[酷]", "[晕]", "[抓狂]", "[威武]",
+    };
+    private static final String[] WORDS = {
+        "今天", "天气", "不错", "转发微博", "http://t.cn/8sYl0Jk", "@新浪", "#话题#", "[不是表情]", "[", "]",
+        "好的", "周末", " ", "，", "。", "hello", "world", "2014",
+    };
+
+    private final String[] mPhrases = new String[PHRASES];
+    private final String[] mTexts = new String[STATUSES];
+
+    public PhraseMatcherBenchmark() {
+        Random random = new Random(20140520);
+        for (int ix = 0; ix < PHRASES; ix++) {
+            mPhrases[ix] = ix < COMMON.length ? COMMON[ix] : "[表情" + ix + "]";
+        }
+        for (int ix = 0; ix < STATUSES; ix++) {
+            StringBuilder text = new StringBuilder(140);
+            while (text.length() < 100) {
+                int pick = random.nextInt(10);
+                if (pick == 0) {
+                    text.append(mPhrases[random.nextInt(PHRASES)]);
+                } else if (pick == 1) {
+                    text.append(COMMON[random.nextInt(COMMON.length)]);
+                } else {
+                    text.append(WORDS[random.nextInt(WORDS.length)]);
+                }
+            }
+            mTexts[ix] = text.toString();
+        }
+    }
+
+    @Test
+    public void testSameMatchesAsRegex() {
+        PhraseMatcher matcher = new PhraseMatcher(mPhrases);
+        PhraseMatcher.Spans spans = new PhraseMatcher.Spans();
+        Pattern alternation = alternation(mPhrases);
+        int total = 0;
+        for (String text : mTexts) {
+            matcher.find(text, spans);
+            Matcher m = alternation.matcher(text);
+            int ix = 0;
+            while (m.find()) {
+                assertEquals(text, m.start(), spans.starts[ix]);
+                assertEquals(text, m.end(), spans.ends[ix]);
+                assertEquals(text, m.group(), mPhrases[spans.phrases[ix]]);
+                ix++;
+            }
+            assertEquals(text, ix, spans.count);
+            total += ix;
+        }
+        System.out.println(total + " emotions in " + STATUSES + " statuses");
+    }
+
+    @Test
+    public void benchmarkPage() throws Exception {
+        final PhraseMatcher matcher = new PhraseMatcher(mPhrases);
+        final PhraseMatcher.Spans spans = new PhraseMatcher.Spans();
+        double automaton = Benchmarks.nanosPerOp("PhraseMatcher, per page", 200, new Benchmarks.Body() {
+            @Override
+            public long run(int times) {
+                long sum = 0;
+                for (int page = 0; page < times; page++) {
+                    for (String text : mTexts) {
+                        sum += matcher.find(text, spans);
+                    }
+                }
+                return sum;
+            }
+        });
+
+        final Pattern alternation = alternation(mPhrases);
+        double regex = Benchmarks.nanosPerOp("alternation regex, per page", 1, new Benchmarks.Body() {
+            @Override
+            public long run(int times) {
+                long sum = 0;
+                for (int page = 0; page < times; page++) {
+                    for (String text : mTexts) {
+                        Matcher m = alternation.matcher(text);
+                        while (m.find()) {
+                            sum++;
+                        }
+                    }
+                }
+                return sum;
+            }
+        });
+
+        final Pattern bracket = Pattern.compile("\\[[^\\[\\]]+\\]");
+        final Map<String, Integer> table = new HashMap<String, Integer>();
+        for (int ix = 0; ix < PHRASES; ix++) {
+            table.put(mPhrases[ix], ix);
+        }
+        double lookup = Benchmarks.nanosPerOp("bracket regex + HashMap, per page", 50, new Benchmarks.Body() {
+            @Override
+            public long run(int times) {
+                long sum = 0;
+                for (int page = 0; page < times; page++) {
+                    for (String text : mTexts) {
+                        Matcher m = bracket.matcher(text);
+                        while (m.find()) {
+                            if (table.containsKey(m.group())) {
+                                sum++;
+                            }
+                        }
+                    }
+                }
+                return sum;
+            }
+        });
+
+        double replace = Benchmarks.nanosPerOp("String.replace per phrase, per page", 5, new Benchmarks.Body() {
+            @Override
+            public long run(int times) {
+                long sum = 0;
+                for (int page = 0; page < times; page++) {
+                    for (String text : mTexts) {
+                        for (String phrase : mPhrases) {
+                            if (text.indexOf(phrase) >= 0) {
+                                text = text.replace(phrase, "\uFFFC");
+                            }
+                        }
+                        sum += text.length();
+                    }
+                }
+                return sum;
+            }
+        });
+
+        System.out.println(String.format("PhraseMatcher is %.0fx faster than the alternation regex, "
+                + "%.1fx than bracket + HashMap, %.0fx than String.replace",
+                regex / automaton, lookup / automaton, replace / automaton));
+    }
+
+    /**
+     * One alternation of all the phrases, longest first.
+     */
+    private static Pattern alternation(String[] phrases) {
+        List<String> sorted = new ArrayList<String>(Arrays.asList(phrases));
+        Collections.sort(sorted, new Comparator<String>() {
+            @Override
+            public int compare(String lhs, String rhs) {
+                return rhs.length() - lhs.length();
+            }
+        });
+        StringBuilder regex = new StringBuilder();
+        for (String phrase : sorted) {
+            if (regex.length() > 0) {
+                regex.append('|');
+            }
+            regex.append(Pattern.quote(phrase));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
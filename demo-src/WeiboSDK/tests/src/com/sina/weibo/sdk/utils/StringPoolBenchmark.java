@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sina.weibo.sdk.Benchmarks;
+import com.sina.weibo.sdk.openapi.models.Geo;
+import com.sina.weibo.sdk.openapi.models.Status;
+import com.sina.weibo.sdk.openapi.models.User;
+
+/**
+ * Heap retained by a cache of 1000 parsed statuses with the low-cardinality
+ * fields pooled by {@link StringPool}, compared with the same cache holding
+ * one String per field, as the parsers did before.
+ *
+ * @author SINA
+ * @since 2014-05-20
+ */
+public class StringPoolBenchmark {
+
+    private static final int CACHE_SIZE = 1000;
+
+    private static final String[] LOCATIONS = {
+        "北京 海淀区", "北京 朝阳区", "上海 浦东新区", "上海 徐汇区", "广东 广州", "广东 深圳",
+        "浙江 杭州", "江苏 南京", "四川 成都", "湖北 武汉", "陕西 西安", "其他",
+    };
+    private static final String[] GENDERS = { "m", "f", "n" };
+    private static final String[] LANGS = { "zh-cn", "zh-tw", "en" };
+    private static final String[] MBTYPES = { "0", "2", "11", "12" };
+    private static final String[] VERIFIED_REASONS = {
+        "", "新浪微博官方帐号", "知名财经博主", "知名科技博主", "知名体育博主",
+    };
+    private static final String[] SOURCES = {
+        "<a href=\"http://weibo.com/\" rel=\"nofollow\">新浪微博</a>",
+        "<a href=\"http://app.weibo.com/t/feed/5yiHuw\" rel=\"nofollow\">iPhone客户端</a>",
+        "<a href=\"http://app.weibo.com/t/feed/2llPP3\" rel=\"nofollow\">Android客户端</a>",
+        "<a href=\"http://app.weibo.com/t/feed/3G5oUM\" rel=\"nofollow\">微博 weibo.com</a>",
+    };
+    private static final String[][] PROVINCE_CITIES = {
+        { "北京", "海淀区" }, { "上海", "浦东新区" }, { "广东", "广州" }, { "浙江", "杭州" },
+    };
+
+    /** Upper bound of the distinct pooled values in the cache */
+    private static final int VOCABULARY_SIZE = LOCATIONS.length + GENDERS.length + LANGS.length
+            + MBTYPES.length + VERIFIED_REASONS.length + SOURCES.length + PROVINCE_CITIES.length * 2;
+
+    private final List<JSONObject> mStatuses = new ArrayList<JSONObject>(CACHE_SIZE);
+
+    @Before
+    public void setUp() throws JSONException {
+        StringPool.SHARED.clear();
+        Random random = new Random(20140520);
+        for (int ix = 0; ix < CACHE_SIZE; ix++) {
+            String[] provinceCity = pick(random, PROVINCE_CITIES);
+            JSONObject geo = new JSONObject()
+                    .put("province_name", provinceCity[0])
+                    .put("city_name", provinceCity[1]);
+            JSONObject user = new JSONObject()
+                    .put("id", 1642909335L + ix)
+                    .put("screen_name", "user" + ix)
+                    .put("location", pick(random, LOCATIONS))
+                    .put("gender", pick(random, GENDERS))
+                    .put("lang", pick(random, LANGS))
+                    .put("mbtype", pick(random, MBTYPES))
+                    .put("verified_reason", pick(random, VERIFIED_REASONS));
+            mStatuses.add(new JSONObject()
+                    .put("id", 3501756485200075L + ix)
+                    .put("text", "status " + ix)
+                    .put("source", pick(random, SOURCES))
+                    .put("geo", geo)
+                    .put("user", user));
+        }
+    }
+
+    @Test
+    public void testRetainedStrings() {
+        List<Status> pooled = parseCache();
+        List<Status> unpooled = unpool(parseCache());
+
+        IdentityHashMap<String, String> pooledStrings = pooledFields(pooled);
+        IdentityHashMap<String, String> unpooledStrings = pooledFields(unpooled);
+        long pooledBytes = estimateBytes(pooledStrings);
+        long unpooledBytes = estimateBytes(unpooledStrings);
+        System.out.println(String.format("%d statuses: %d Strings, ~%d bytes pooled; %d Strings, ~%d bytes not pooled",
+                CACHE_SIZE, pooledStrings.size(), pooledBytes, unpooledStrings.size(), unpooledBytes));
+
+        assertTrue(pooledStrings.size() + " distinct Strings", pooledStrings.size() <= VOCABULARY_SIZE);
+        // Every non-empty field of every status is a String of its own
+        assertEquals(countNonEmptyFields(unpooled), unpooledStrings.size());
+        assertTrue(pooledBytes * 20 < unpooledBytes);
+    }
+
+    /**
+     * Measured after GC, so this is indicative and not asserted.
+     */
+    @Test
+    public void benchmarkRetainedHeap() {
+        long before = Benchmarks.usedHeap();
+        List<Status> pooled = parseCache();
+        long pooledHeap = Benchmarks.usedHeap() - before;
+        assertEquals(CACHE_SIZE, pooled.size());
+        pooled = null;
+
+        before = Benchmarks.usedHeap();
+        List<Status> unpooled = unpool(parseCache());
+        long unpooledHeap = Benchmarks.usedHeap() - before;
+        assertEquals(CACHE_SIZE, unpooled.size());
+
+        System.out.println(String.format("%d statuses retain %d bytes pooled, %d bytes not pooled, %d bytes saved",
+                CACHE_SIZE, pooledHeap, unpooledHeap, unpooledHeap - pooledHeap));
+    }
+
+    private List<Status> parseCache() {
+        List<Status> cache = new ArrayList<Status>(CACHE_SIZE);
+        for (JSONObject json : mStatuses) {
+            cache.add(Status.parse(json));
+        }
+        return cache;
+    }
+
+    /**
+     * Gives each pooled field a String of its own, as parsing without the pool does.
+     */
+    private static List<Status> unpool(List<Status> cache) {
+        for (Status status : cache) {
+            status.source = copy(status.source);
+            User user = status.user;
+            user.location = copy(user.location);
+            user.gender = copy(user.gender);
+            user.lang = copy(user.lang);
+            user.mbtype = copy(user.mbtype);
+            user.verified_reason = copy(user.verified_reason);
+            Geo geo = status.geo;
+            geo.city_name = copy(geo.city_name);
+            geo.province_name = copy(geo.province_name);
+        }
+        return cache;
+    }
+
+    /**
+     * Collects the distinct String instances of the pooled fields, ignoring the empty string.
+     */
+    private static IdentityHashMap<String, String> pooledFields(List<Status> cache) {
+        IdentityHashMap<String, String> strings = new IdentityHashMap<String, String>();
+        for (Status status : cache) {
+            add(strings, status.source);
+            add(strings, status.user.location);
+            add(strings, status.user.gender);
+            add(strings, status.user.lang);
+            add(strings, status.user.mbtype);
+            add(strings, status.user.verified_reason);
+            add(strings, status.geo.city_name);
+            add(strings, status.geo.province_name);
+        }
+        return strings;
+    }
+
+    private static int countNonEmptyFields(List<Status> cache) {
+        int count = 0;
+        for (Status status : cache) {
+            String[] fields = {
+                status.source, status.user.location, status.user.gender, status.user.lang, status.user.mbtype,
+                status.user.verified_reason, status.geo.city_name, status.geo.province_name,
+            };
+            for (String field : fields) {
+                if (field != null && field.length() > 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void add(IdentityHashMap<String, String> strings, String value) {
+        if (value != null && value.length() > 0) {
+            strings.put(value, value);
+        }
+    }
+
+    /**
+     * Shallow size of the Strings and their char arrays on a 32-bit VM such as
+     * Dalvik: 24 bytes of String, 12 bytes of array header, 2 bytes per char,
+     * each rounded up to 8 bytes.
+     */
+    private static long estimateBytes(IdentityHashMap<String, String> strings) {
+        long bytes = 0;
+        for (String value : strings.keySet()) {
+            bytes += 24 + ((12 + 2 * value.length() + 7) & ~7);
+        }
+        return bytes;
+    }
+
+    private static String copy(String value) {
+        return value == null || value.length() == 0 ? value : new String(value);
+    }
+
+    private static <T> T pick(Random random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
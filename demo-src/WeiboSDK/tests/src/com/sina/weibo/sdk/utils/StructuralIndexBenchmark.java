@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2010-2013 The SINA WEIBO Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.sina.weibo.sdk.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.sina.weibo.sdk.Benchmarks;
+import com.sina.weibo.sdk.openapi.models.ModelSerializer;
+import com.sina.weibo.sdk.openapi.models.Status;
+
+/**
+ * Cost of reading a timeline page of 200 statuses with org.json, with the
+ * streaming {@link JsonReader} and with a reader on a {@link StructuralIndex}.
+ *
+ * @author SINA
+ * @since 2014-05-20
+ */
+public class StructuralIndexBenchmark {
+
+    private static final int PAGE_SIZE = 200;
+
+    private static final JsonReader.Names PAGE_NAMES = new JsonReader.Names("statuses");
+    private static final JsonReader.Names ID_NAMES = new JsonReader.Names("id");
+
+    private final String mPage = generatePage(new Random(20140520), PAGE_SIZE);
+
+    /**
+     * The indexed reader gives the same statuses as the plain one and as org.json.
+     */
+    @Test
+    public void testIndexedParity() throws Exception {
+        List<Status> plain = readPage(new JsonReader(mPage));
+        List<Status> indexed = readPage(new JsonReader(StructuralIndex.build(mPage)));
+        List<Status> tree = parsePage(mPage);
+        assertEquals(PAGE_SIZE, plain.size());
+        assertEquals(PAGE_SIZE, indexed.size());
+        assertEquals(PAGE_SIZE, tree.size());
+        for (int ix = 0; ix < PAGE_SIZE; ix++) {
+            byte[] expected = serialize(plain.get(ix));
+            assertArrayEquals("status " + ix, expected, serialize(indexed.get(ix)));
+            assertArrayEquals("status " + ix, expected, serialize(tree.get(ix)));
+        }
+        assertArrayEquals(readIds(new JsonReader(mPage)), readIds(new JsonReader(StructuralIndex.build(mPage))));
+    }
+
+    @Test
+    public void benchmarkFullParse() throws Exception {
+        System.out.println(String.format("%d statuses, %d KB", PAGE_SIZE, mPage.length() / 1024));
+        double tree = Benchmarks.nanosPerOp("org.json + Status.parse, per page", 20, new Benchmarks.Body() {
+            @Override
+            public long run(int times) throws JSONException {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    sum += parsePage(mPage).size();
+                }
+                return sum;
+            }
+        });
+        double plain = Benchmarks.nanosPerOp("JsonReader + Status.read, per page", 20, new Benchmarks.Body() {
+            @Override
+            public long run(int times) throws JSONException {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    sum += readPage(new JsonReader(mPage)).size();
+                }
+                return sum;
+            }
+        });
+        double indexed = Benchmarks.nanosPerOp("index build + Status.read, per page", 20, new Benchmarks.Body() {
+            @Override
+            public long run(int times) throws JSONException {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    sum += readPage(new JsonReader(StructuralIndex.build(mPage))).size();
+                }
+                return sum;
+            }
+        });
+        final StructuralIndex index = StructuralIndex.build(mPage);
+        double prebuilt = Benchmarks.nanosPerOp("Status.read on a built index, per page", 20,
+                new Benchmarks.Body() {
+            @Override
+            public long run(int times) throws JSONException {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    sum += readPage(new JsonReader(index)).size();
+                }
+                return sum;
+            }
+        });
+        System.out.println(String.format("org.json %.1fx the streaming reader, indexed %.2fx, on a built index %.2fx",
+                tree / plain, indexed / plain, prebuilt / plain));
+    }
+
+    @Test
+    public void benchmarkPartialRead() throws Exception {
+        Benchmarks.nanosPerOp("index build, per page", 20, new Benchmarks.Body() {
+            @Override
+            public long run(int times) throws JSONException {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    sum += StructuralIndex.build(mPage).size();
+                }
+                return sum;
+            }
+        });
+        Benchmarks.nanosPerOp("JsonReader, ids only, per page", 20, new Benchmarks.Body() {
+            @Override
+            public long run(int times) throws JSONException {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    sum += readIds(new JsonReader(mPage)).length;
+                }
+                return sum;
+            }
+        });
+        final StructuralIndex index = StructuralIndex.build(mPage);
+        Benchmarks.nanosPerOp("built index, ids only, per page", 20, new Benchmarks.Body() {
+            @Override
+            public long run(int times) throws JSONException {
+                long sum = 0;
+                for (int ix = 0; ix < times; ix++) {
+                    sum += readIds(new JsonReader(index)).length;
+                }
+                return sum;
+            }
+        });
+    }
+
+    private static List<Status> parsePage(String page) throws JSONException {
+        JSONArray array = new JSONObject(page).getJSONArray("statuses");
+        List<Status> statuses = new ArrayList<Status>(array.length());
+        for (int ix = 0; ix < array.length(); ix++) {
+            statuses.add(Status.parse(array.getJSONObject(ix)));
+        }
+        return statuses;
+    }
+
+    private static List<Status> readPage(JsonReader reader) throws JSONException {
+        List<Status> statuses = new ArrayList<Status>(PAGE_SIZE);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName(PAGE_NAMES) != 0) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                statuses.add(Status.read(reader));
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        return statuses;
+    }
+
+    /**
+     * Reads the ids of the statuses, skipping everything else.
+     */
+    private static long[] readIds(JsonReader reader) throws JSONException {
+        long[] ids = new long[PAGE_SIZE];
+        int count = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName(PAGE_NAMES) != 0) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName(ID_NAMES) == 0) {
+                        ids[count++] = reader.nextLong(0);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        return ids;
+    }
+
+    private static byte[] serialize(Status status) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ModelSerializer.writeStatus(new DataOutputStream(bytes), status);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Generates a page shaped like statuses/friends_timeline.json: users,
+     * retweets, pictures, locations and escaped text.
+     */
+    static String generatePage(Random random, int size) {
+        try {
+            JSONArray statuses = new JSONArray();
+            for (int ix = 0; ix < size; ix++) {
+                long id = 3711925474523181L - ix * 997L;
+                JSONObject status = generateStatus(random, id);
+                if (random.nextInt(3) == 0) {
+                    status.put("retweeted_status", generateStatus(random, id - 500000000L));
+                }
+                statuses.put(status);
+            }
+            return new JSONObject()
+                    .put("statuses", statuses)
+                    .put("hasvisible", false)
+                    .put("previous_cursor", 0)
+                    .put("next_cursor", 3711925474523181L - size * 997L)
+                    .put("total_number", 150)
+                    .toString();
+        } catch (JSONException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static JSONObject generateStatus(Random random, long id) throws JSONException {
+        long uid = 1642909335L + random.nextInt(1000);
+        JSONObject user = new JSONObject()
+                .put("id", uid)
+                .put("idstr", String.valueOf(uid))
+                .put("screen_name", "用户" + uid)
+                .put("name", "用户" + uid)
+                .put("province", "11")
+                .put("city", "8")
+                .put("location", "北京 海淀区")
+                .put("description", "简介 \"引号\" 与\n换行")
+                .put("url", "http://blog.sina.com.cn/u/" + uid)
+                .put("profile_image_url", "http://tp1.sinaimg.cn/" + uid + "/50/5600000000/1")
+                .put("gender", random.nextBoolean() ? "m" : "f")
+                .put("followers_count", random.nextInt(10000000))
+                .put("friends_count", random.nextInt(2000))
+                .put("statuses_count", random.nextInt(50000))
+                .put("created_at", "Fri Aug 28 16:25:41 +0800 2009")
+                .put("verified", random.nextBoolean())
+                .put("avatar_large", "http://tp1.sinaimg.cn/" + uid + "/180/5600000000/1")
+                .put("lang", "zh-cn");
+        JSONObject status = new JSONObject()
+                .put("created_at", "Tue May 20 17:42:05 +0800 2014")
+                .put("id", id)
+                .put("mid", String.valueOf(id))
+                .put("idstr", String.valueOf(id))
+                .put("text", "第" + id + "条微博 @新浪科技 #话题# http://t.cn/8sYl0Jk [哈哈] ☃ \"引用\"")
+                .put("source", "<a href=\"http://app.weibo.com/t/feed/2llPP3\" rel=\"nofollow\">Android客户端</a>")
+                .put("favorited", false)
+                .put("truncated", false)
+                .put("reposts_count", random.nextInt(1000))
+                .put("comments_count", random.nextInt(1000))
+                .put("attitudes_count", random.nextInt(1000))
+                .put("mlevel", 0)
+                .put("visible", new JSONObject().put("type", 0).put("list_id", 0))
+                .put("user", user);
+        if (random.nextBoolean()) {
+            JSONArray pictures = new JSONArray();
+            for (int ix = random.nextInt(9); ix >= 0; ix--) {
+                pictures.put(new JSONObject().put("thumbnail_pic", "http://ww1.sinaimg.cn/thumbnail/" + ix + ".jpg"));
+            }
+            status.put("pic_urls", pictures)
+                    .put("thumbnail_pic", "http://ww1.sinaimg.cn/thumbnail/0.jpg")
+                    .put("bmiddle_pic", "http://ww1.sinaimg.cn/bmiddle/0.jpg")
+                    .put("original_pic", "http://ww1.sinaimg.cn/large/0.jpg");
+        }
+        if (random.nextInt(4) == 0) {
+            status.put("geo", new JSONObject()
+                    .put("longitude", "116.30" + random.nextInt(10))
+                    .put("latitude", "39.98" + random.nextInt(10))
+                    .put("city", "8")
+                    .put("province", "11")
+                    .put("city_name", "海淀区")
+                    .put("province_name", "北京"));
+        }
+        return status;
+    }
+}
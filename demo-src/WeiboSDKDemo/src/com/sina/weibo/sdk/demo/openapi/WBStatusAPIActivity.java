@@ -35,7 +35,7 @@ import com.sina.weibo.sdk.demo.AccessTokenKeeper;
 import com.sina.weibo.sdk.demo.R;
 import com.sina.weibo.sdk.exception.WeiboException;
 import com.sina.weibo.sdk.net.RequestListener;
-import com.sina.weibo.sdk.openapi.StatusesAPI;
+import com.sina.weibo.sdk.openapi.android.AndroidStatusesAPI;
 import com.sina.weibo.sdk.openapi.models.ErrorInfo;
 import com.sina.weibo.sdk.openapi.models.Status;
 import com.sina.weibo.sdk.openapi.models.StatusList;
@@ -61,7 +61,7 @@ public class WBStatusAPIActivity extends Activity implements OnItemClickListener
     /** 当前 Token 信息 */
     private Oauth2AccessToken mAccessToken;
     /** 用于获取微博信息流等操作的API */
-    private StatusesAPI mStatusesAPI;
+    private AndroidStatusesAPI mStatusesAPI;
     
     /**
      * @see {@link Activity#onCreate}
@@ -82,7 +82,7 @@ public class WBStatusAPIActivity extends Activity implements OnItemClickListener
         // 获取当前已保存过的 Token
         mAccessToken = AccessTokenKeeper.readAccessToken(this);
         // 对statusAPI实例化
-        mStatusesAPI = new StatusesAPI(mAccessToken);
+        mStatusesAPI = new AndroidStatusesAPI(mAccessToken);
     }
     
     /**